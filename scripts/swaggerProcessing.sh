@@ -56,16 +56,19 @@ fixImport $ARCHIVES_API_DELEGATE org.lockss.laaws.rs.model.StreamingResponseBody
 ARTIFACTS_API=src/generated/java/org/lockss/laaws/rs/api/ArtifactsApi.java
 fixImport $ARTIFACTS_API org.lockss.laaws.rs.model.Artifact org.lockss.util.rest.repo.model.Artifact
 fixImport $ARTIFACTS_API org.lockss.laaws.rs.model.ArtifactPageInfo org.lockss.util.rest.repo.model.ArtifactPageInfo
+fixImport $ARTIFACTS_API org.lockss.laaws.rs.model.ImportStatus org.lockss.util.rest.repo.model.ImportStatus
 
 # Edit ArtifactsApiController.java.
 ARTIFACTS_API_CONTROLLER=src/generated/java/org/lockss/laaws/rs/api/ArtifactsApiController.java
 fixImport $ARTIFACTS_API_CONTROLLER org.lockss.laaws.rs.model.Artifact org.lockss.util.rest.repo.model.Artifact
 fixImport $ARTIFACTS_API_CONTROLLER org.lockss.laaws.rs.model.ArtifactPageInfo org.lockss.util.rest.repo.model.ArtifactPageInfo
+fixImport $ARTIFACTS_API_CONTROLLER org.lockss.laaws.rs.model.ImportStatus org.lockss.util.rest.repo.model.ImportStatus
 
 # Edit ArtifactsApiDelegate.java.
 ARTIFACTS_API_DELEGATE=src/generated/java/org/lockss/laaws/rs/api/ArtifactsApiDelegate.java
 fixImport $ARTIFACTS_API_DELEGATE org.lockss.laaws.rs.model.Artifact org.lockss.util.rest.repo.model.Artifact
 fixImport $ARTIFACTS_API_DELEGATE org.lockss.laaws.rs.model.ArtifactPageInfo org.lockss.util.rest.repo.model.ArtifactPageInfo
+fixImport $ARTIFACTS_API_DELEGATE org.lockss.laaws.rs.model.ImportStatus org.lockss.util.rest.repo.model.ImportStatus
 
 # Edit AusApi.java.
 AUS_API=src/generated/java/org/lockss/laaws/rs/api/AusApi.java
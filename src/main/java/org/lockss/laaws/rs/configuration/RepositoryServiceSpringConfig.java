@@ -35,6 +35,9 @@ package org.lockss.laaws.rs.configuration;
 import jakarta.servlet.MultipartConfigElement;
 import org.apache.commons.io.FileUtils;
 import org.lockss.config.ConfigManager;
+import org.lockss.laaws.rs.impl.IngestAdmissionController;
+import org.lockss.laaws.rs.multipart.DirectBufferPool;
+import org.lockss.laaws.rs.multipart.HttpBodyDigestOutputStream;
 import org.lockss.laaws.rs.multipart.LockssMultipartResolver;
 import org.lockss.log.L4JLogger;
 import org.lockss.util.time.TimeBase;
@@ -47,18 +50,41 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.event.EventListener;
 import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import javax.management.JMException;
+import javax.management.ObjectName;
 
 /**
  * Spring configuration beans for the Spring-implementation of the LOCKSS Repository Service.
  */
 @Configuration
-public class RepositoryServiceSpringConfig {
+public class RepositoryServiceSpringConfig implements WebMvcConfigurer {
   private final static L4JLogger log = L4JLogger.getLogger();
 
+  @Autowired
+  IngestAdmissionController ingestAdmissionController;
+
+  /**
+   * Admits ingest requests before their multipart body is parsed.
+   */
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    registry.addInterceptor(ingestAdmissionController)
+        .addPathPatterns("/artifacts", "/artifacts/batch", "/archives",
+            "/uploads", "/uploads/*", "/uploads/*/finish");
+  }
+
   /** Max size of in-memory buffering of multipart requests */
   public static String PARAM_MULTIPART_MAX_IN_MEMORY_SIZE =
     org.lockss.config.Configuration.PREFIX + "spring.multipart.maxInMemorySize";
@@ -71,8 +97,85 @@ public class RepositoryServiceSpringConfig {
   public static final int DEFAULT_MULTIPART_MAX_IN_MEMORY_SIZE =
     4 * (int)FileUtils.ONE_MB;
 
+  /** List of directories, normally on different volumes, across which
+   * spooled multipart uploads are spread.  Relative paths are relative to
+   * the platform tmpdir.  If fewer than two, uploads are spooled to
+   * uploadDir */
+  public static String PARAM_MULTIPART_UPLOAD_DIRS =
+      org.lockss.config.Configuration.PREFIX + "spring.multipart.uploadDirs";
+
+  /** Total bytes of direct (off-heap) memory used to hold multipart parts
+   * below maxInMemorySize, in pooled 64KB buffers.  Parts that don't fit are
+   * spooled to disk.  If 0, in-memory parts are held on the heap */
+  public static String PARAM_MULTIPART_BUFFER_POOL_SIZE =
+      org.lockss.config.Configuration.PREFIX + "spring.multipart.bufferPool.size";
+
+  public static final long DEFAULT_MULTIPART_BUFFER_POOL_SIZE = 0;
+
+  /** JMX name of the {@link DirectBufferPool} metrics */
+  public static final String BUFFER_POOL_MBEAN_NAME =
+      "org.lockss.laaws.rs:type=MultipartBufferPool";
+
+  /** Digest algorithms computed over artifact content on ingest, in the
+   * same pass as the default SHA-256 digest, recorded in the repository
+   * state directory and returned in the X-Lockss-Additional-Digests header
+   * of payload responses */
+  public static String PARAM_ADDITIONAL_DIGEST_ALGORITHMS =
+      org.lockss.config.Configuration.PREFIX + "repository.artifact.additionalDigests";
+
+  public static final List<String> DEFAULT_ADDITIONAL_DIGEST_ALGORITHMS =
+      Collections.emptyList();
+
+  /**
+   * Returns the configured additional digest algorithms, omitting the
+   * default one and any not supported by this JVM.
+   */
+  public static List<String> getAdditionalDigestAlgorithms(org.lockss.config.Configuration config) {
+    List<String> res = new ArrayList<>();
+
+    for (String alg : config.getList(PARAM_ADDITIONAL_DIGEST_ALGORITHMS,
+                                     DEFAULT_ADDITIONAL_DIGEST_ALGORITHMS)) {
+      if (alg.equalsIgnoreCase(HttpBodyDigestOutputStream.DEFAULT_DIGEST_ALGORITHM) ||
+          res.contains(alg)) {
+        continue;
+      }
+
+      try {
+        MessageDigest.getInstance(alg);
+        res.add(alg);
+      } catch (NoSuchAlgorithmException e) {
+        log.warn("Ignoring unsupported digest algorithm: {}", alg);
+      }
+    }
+
+    return Collections.unmodifiableList(res);
+  }
+
   LockssMultipartResolver multipartResolver;
 
+  private final DirectBufferPool bufferPool =
+      new DirectBufferPool(DirectBufferPool.DEFAULT_BUFFER_SIZE, 0);
+  private boolean bufferPoolRegistered;
+
+  /**
+   * Registers the metrics of the multipart buffer pool with the platform
+   * MBean server, once.
+   */
+  private void registerBufferPoolMBean() {
+    if (bufferPoolRegistered) {
+      return;
+    }
+
+    try {
+      ManagementFactory.getPlatformMBeanServer()
+          .registerMBean(bufferPool, new ObjectName(BUFFER_POOL_MBEAN_NAME));
+    } catch (JMException e) {
+      log.warn("Couldn't register multipart buffer pool MBean", e);
+    }
+
+    bufferPoolRegistered = true;
+  }
+
   @Bean
   public LockssMultipartResolver multipartResolver(ObjectProvider<MultipartProperties> multipartPropsProvider) {
     multipartResolver = new LockssMultipartResolver(multipartPropsProvider.getIfAvailable());
@@ -109,6 +212,30 @@ public class RepositoryServiceSpringConfig {
 	}
       }
 
+      if (changedKeys.contains(ConfigManager.PARAM_TMPDIR) ||
+          changedKeys.contains(PARAM_MULTIPART_UPLOAD_DIRS)) {
+
+        List<File> dirs = new ArrayList<>();
+
+        for (String path : newConfig.getList(PARAM_MULTIPART_UPLOAD_DIRS,
+                                             Collections.emptyList())) {
+          File dir = new File(path);
+          if (!dir.isAbsolute()) {
+            dir = new File(ConfigManager.getConfigManager().getTmpDir(), path);
+          }
+
+          if (!dir.isDirectory() && !dir.mkdirs()) {
+            log.warn("Couldn't create multipart upload dir {}; not using it", dir);
+            continue;
+          }
+
+          dirs.add(dir);
+        }
+
+        log.debug("Setting LockssMultipartResolver upload dirs to {}", dirs);
+        multipartResolver.setUploadTempDirs(dirs);
+      }
+
       if (changedKeys.contains(PARAM_MULTIPART_MAX_IN_MEMORY_SIZE)) {
 	int maxInMem = newConfig.getInt(PARAM_MULTIPART_MAX_IN_MEMORY_SIZE,
 					DEFAULT_MULTIPART_MAX_IN_MEMORY_SIZE);
@@ -116,6 +243,28 @@ public class RepositoryServiceSpringConfig {
 		  maxInMem);
 	multipartResolver.setMaxInMemorySize(maxInMem);
       }
+
+      if (changedKeys.contains(PARAM_MULTIPART_BUFFER_POOL_SIZE)) {
+        long poolSize = newConfig.getLong(PARAM_MULTIPART_BUFFER_POOL_SIZE,
+                                          DEFAULT_MULTIPART_BUFFER_POOL_SIZE);
+        log.debug("Setting LockssMultipartResolver buffer pool size to {}",
+                  poolSize);
+        bufferPool.setBudget(poolSize);
+
+        if (poolSize > 0) {
+          registerBufferPoolMBean();
+          multipartResolver.setBufferPool(bufferPool);
+        } else {
+          multipartResolver.setBufferPool(null);
+        }
+      }
+
+      if (changedKeys.contains(PARAM_ADDITIONAL_DIGEST_ALGORITHMS)) {
+        List<String> algs = getAdditionalDigestAlgorithms(newConfig);
+        log.debug("Setting LockssMultipartResolver additional digests to {}",
+                  algs);
+        multipartResolver.setAdditionalDigestAlgorithms(algs);
+      }
     }
   }
 }
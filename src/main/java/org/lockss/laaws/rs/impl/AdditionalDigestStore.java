@@ -0,0 +1,391 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.impl;
+
+import org.apache.commons.io.FileUtils;
+import org.lockss.laaws.rs.configuration.RepositoryServiceProperties;
+import org.lockss.log.L4JLogger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Records the digests computed over the content of an artifact in addition to
+ * its content digest (see {@link
+ * org.lockss.laaws.rs.configuration.RepositoryServiceSpringConfig#PARAM_ADDITIONAL_DIGEST_ALGORITHMS}).
+ * <p>
+ * They are repository metadata, not part of the preserved HTTP response, so
+ * they are kept outside the artifact, in the repository state directory, in a
+ * single log file to which a line is appended whenever the digests of an
+ * artifact are recorded or removed. An index in memory maps the UUID of each
+ * artifact with digests to their location in the log, so that looking up an
+ * artifact without digests reads nothing, and looking up one with digests
+ * reads only them. The log is read to build the index when the store is
+ * first used, and compacted then if most of it has been superseded.
+ */
+@Component
+public class AdditionalDigestStore implements Closeable {
+  private static L4JLogger log = L4JLogger.getLogger();
+
+  /** Name of the directory, in the repository state directory, of the
+   * additional digest log */
+  public static final String DIR_NAME = "additional-digests";
+
+  /** Name of the additional digest log */
+  static final String LOG_FILE_NAME = "digests.log";
+
+  // Size of the log below which it isn't compacted
+  static final long DEFAULT_COMPACT_MIN_SIZE = FileUtils.ONE_MB;
+
+  // The length of the digests of an artifact is held in 16 bits of their
+  // location
+  static final int MAX_DIGESTS_LENGTH = 0xffff;
+
+  private static final Pattern UUID_PATTERN = Pattern.compile("[A-Za-z0-9-]+");
+
+  private final File dir;
+  private final File logFile;
+  private final long compactMinSize;
+
+  // Location in the log of the digests of each artifact that has some
+  private final Map<String, Long> index = new ConcurrentHashMap<>();
+
+  // Whether the index has been read from the log
+  private volatile boolean loaded = false;
+
+  // The log, once it exists; written only while synchronized
+  private volatile FileChannel channel;
+
+  // End of the log, and number of bytes of it holding current digests
+  private long end;
+  private long liveBytes;
+
+  @Autowired
+  public AdditionalDigestStore(RepositoryServiceProperties repoProps) {
+    this(new File(repoProps.getRepositoryStateDir(), DIR_NAME));
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param dir The directory of the additional digest log.
+   */
+  public AdditionalDigestStore(File dir) {
+    this(dir, DEFAULT_COMPACT_MIN_SIZE);
+  }
+
+  AdditionalDigestStore(File dir, long compactMinSize) {
+    this.dir = dir;
+    this.logFile = new File(dir, LOG_FILE_NAME);
+    this.compactMinSize = compactMinSize;
+  }
+
+  private static boolean isValidUuid(String uuid) {
+    return uuid != null && UUID_PATTERN.matcher(uuid).matches();
+  }
+
+  // The location of digests in the log: their offset and length, in a long
+  private static long location(long offset, int length) {
+    return offset << 16 | length;
+  }
+
+  private static long offsetOf(long location) {
+    return location >>> 16;
+  }
+
+  private static int lengthOf(long location) {
+    return (int) (location & MAX_DIGESTS_LENGTH);
+  }
+
+  /**
+   * Records the additional digests of an artifact, replacing any recorded
+   * before.
+   *
+   * @param uuid    A String with the UUID of the artifact.
+   * @param digests A String with the formatted digests.
+   * @throws IOException if the digests could not be written.
+   */
+  public void put(String uuid, String digests) throws IOException {
+    if (!isValidUuid(uuid)) {
+      throw new IllegalArgumentException("Invalid artifact UUID: " + uuid);
+    }
+
+    if (digests.length() > MAX_DIGESTS_LENGTH || digests.indexOf('\n') >= 0) {
+      throw new IllegalArgumentException("Invalid additional digests: " + digests);
+    }
+
+    append(uuid, digests);
+  }
+
+  /**
+   * Returns the additional digests of an artifact.
+   *
+   * @param uuid A String with the UUID of the artifact.
+   * @return the formatted digests, or {@code null} if none are recorded or
+   * they could not be read.
+   */
+  public String get(String uuid) {
+    if (!isValidUuid(uuid)) {
+      return null;
+    }
+
+    load();
+
+    Long location = index.get(uuid);
+
+    if (location == null) {
+      return null;
+    }
+
+    try {
+      return read(location);
+    } catch (IOException e) {
+      log.warn("Couldn't read additional digests of {}", uuid, e);
+      return null;
+    }
+  }
+
+  /**
+   * Removes the additional digests of an artifact, if any are recorded.
+   *
+   * @param uuid A String with the UUID of the artifact.
+   */
+  public void remove(String uuid) {
+    if (!isValidUuid(uuid)) {
+      log.warn("Couldn't remove additional digests of invalid UUID {}", uuid);
+      return;
+    }
+
+    load();
+
+    if (!index.containsKey(uuid)) {
+      return;
+    }
+
+    try {
+      append(uuid, null);
+    } catch (IOException e) {
+      log.warn("Couldn't remove additional digests of {}", uuid, e);
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (channel != null) {
+      channel.close();
+      channel = null;
+    }
+  }
+
+  // Appends the digests of an artifact to the log, or a line removing them
+  // if null, and updates the index
+  private synchronized void append(String uuid, String digests) throws IOException {
+    load();
+
+    if (channel == null) {
+      Files.createDirectories(dir.toPath());
+      channel = FileChannel.open(logFile.toPath(), StandardOpenOption.CREATE,
+          StandardOpenOption.READ, StandardOpenOption.WRITE);
+      end = channel.size();
+    }
+
+    String line = digests == null ? uuid + "\n" : uuid + " " + digests + "\n";
+    ByteBuffer buf = ByteBuffer.wrap(line.getBytes(StandardCharsets.ISO_8859_1));
+
+    while (buf.hasRemaining()) {
+      channel.write(buf, end + buf.position());
+    }
+
+    if (digests == null) {
+      forget(uuid, index.remove(uuid));
+    } else {
+      forget(uuid, index.put(uuid, location(end + uuid.length() + 1, digests.length())));
+      liveBytes += line.length();
+    }
+
+    end += line.length();
+  }
+
+  // Accounts for the line of a superseded location becoming obsolete
+  private void forget(String uuid, Long location) {
+    if (location != null) {
+      liveBytes -= uuid.length() + lengthOf(location) + 2;
+    }
+  }
+
+  private String read(long location) throws IOException {
+    FileChannel ch = channel;
+
+    if (ch == null) {
+      throw new IOException("Additional digest log closed");
+    }
+
+    ByteBuffer buf = ByteBuffer.allocate(lengthOf(location));
+
+    while (buf.hasRemaining()) {
+      if (ch.read(buf, offsetOf(location) + buf.position()) < 0) {
+        throw new EOFException("Premature end of additional digest log");
+      }
+    }
+
+    return new String(buf.array(), StandardCharsets.ISO_8859_1);
+  }
+
+  /**
+   * Builds the index from the log, the first time the store is used. An
+   * incomplete line at the end of the log, left by a crash, is discarded.
+   */
+  private void load() {
+    if (loaded) {
+      return;
+    }
+
+    synchronized (this) {
+      if (loaded) {
+        return;
+      }
+
+      try {
+        if (logFile.exists()) {
+          long valid = readLog();
+
+          channel = FileChannel.open(logFile.toPath(), StandardOpenOption.READ,
+              StandardOpenOption.WRITE);
+
+          if (valid < channel.size()) {
+            log.warn("Discarding incomplete line at the end of {}", logFile);
+            channel.truncate(valid);
+          }
+
+          end = valid;
+
+          log.debug("Read additional digests [file: {}, artifacts: {}, size: {}]",
+              logFile, index.size(), end);
+
+          if (end >= compactMinSize && liveBytes < end / 2) {
+            try {
+              compact();
+            } catch (IOException e) {
+              log.warn("Couldn't compact {}", logFile, e);
+            }
+          }
+        }
+      } catch (IOException e) {
+        log.error("Couldn't read additional digests from {}", logFile, e);
+      }
+
+      loaded = true;
+    }
+  }
+
+  // Reads the log into the index; returns the length of its complete lines
+  private long readLog() throws IOException {
+    ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+    long offset = 0;
+    long valid = 0;
+
+    try (InputStream in = new BufferedInputStream(new FileInputStream(logFile), 64 * 1024)) {
+      int b;
+
+      while ((b = in.read()) != -1) {
+        offset++;
+
+        if (b != '\n') {
+          line.write(b);
+          continue;
+        }
+
+        String s = line.toString(StandardCharsets.ISO_8859_1);
+        int sp = s.indexOf(' ');
+
+        if (sp < 0) {
+          forget(s, index.remove(s));
+        } else {
+          String uuid = s.substring(0, sp);
+          forget(uuid, index.put(uuid, location(valid + sp + 1, s.length() - sp - 1)));
+          liveBytes += s.length() + 1;
+        }
+
+        line.reset();
+        valid = offset;
+      }
+    }
+
+    return valid;
+  }
+
+  // Rewrites the log with only the current digests
+  private void compact() throws IOException {
+    File tmp = new File(dir, LOG_FILE_NAME + ".tmp");
+    Map<String, Long> compacted = new HashMap<>();
+    long offset = 0;
+
+    try {
+      try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tmp))) {
+        for (Map.Entry<String, Long> entry : index.entrySet()) {
+          String uuid = entry.getKey();
+          String digests = read(entry.getValue());
+
+          out.write((uuid + " " + digests + "\n").getBytes(StandardCharsets.ISO_8859_1));
+          compacted.put(uuid, location(offset + uuid.length() + 1, digests.length()));
+          offset += uuid.length() + digests.length() + 2;
+        }
+      }
+
+      Files.move(tmp.toPath(), logFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tmp.toPath());
+    }
+
+    log.debug("Compacted additional digests [file: {}, size: {} -> {}]", logFile, end, offset);
+
+    channel.close();
+    channel = FileChannel.open(logFile.toPath(), StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    index.putAll(compacted);
+    end = offset;
+    liveBytes = offset;
+  }
+}
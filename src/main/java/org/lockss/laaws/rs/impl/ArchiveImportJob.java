@@ -0,0 +1,266 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.impl;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.lockss.laaws.rs.model.ImportJobStatus;
+import org.lockss.log.L4JLogger;
+import org.lockss.util.rest.repo.model.ImportStatus;
+import org.lockss.util.time.TimeBase;
+
+import java.io.*;
+import java.util.UUID;
+
+/**
+ * An asynchronous import of the artifacts in an archive, run by
+ * {@link ArchivesApiServiceImpl} on its import executor.
+ * <p>
+ * The {@link ImportStatus} of each record is appended to a results file as
+ * it is produced, so that the results of a running job can be read while it
+ * progresses. The job owns the results file, and the spooled archive of an
+ * uploaded import, and deletes them when it is discarded. The archive of a
+ * local import is left in place.
+ */
+public class ArchiveImportJob {
+  private static L4JLogger log = L4JLogger.getLogger();
+
+  private final String jobId = UUID.randomUUID().toString();
+  private final String namespace;
+  private final String auid;
+  private final String archiveName;
+  private final File archiveFile;
+  private final long archiveSize;
+  private final File resultsFile;
+  private final boolean ownsArchive;
+
+  private volatile ImportJobStatus.StateEnum state = ImportJobStatus.StateEnum.QUEUED;
+  private volatile String errorMessage;
+
+  private final long submitTime = TimeBase.nowMs();
+  private volatile long startTime;
+  private volatile long endTime;
+
+  // Counters; only updated by the thread running the job
+  private volatile long recordsProcessed;
+  private volatile long bytesProcessed;
+  private volatile long okCount;
+  private volatile long duplicateCount;
+  private volatile long excludedCount;
+  private volatile long errorCount;
+
+  // Length of the complete results written to the results file
+  private volatile long resultsLength;
+
+  private OutputStream resultsOut;
+
+  public ArchiveImportJob(String namespace, String auid, String archiveName,
+                          File archiveFile, File resultsFile) {
+    this(namespace, auid, archiveName, archiveFile, resultsFile, true);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param ownsArchive {@code false} if the archive file is to be left in
+   *                    place when the job is finished or discarded.
+   */
+  public ArchiveImportJob(String namespace, String auid, String archiveName,
+                          File archiveFile, File resultsFile, boolean ownsArchive) {
+    this.namespace = namespace;
+    this.auid = auid;
+    this.archiveName = archiveName;
+    this.archiveFile = archiveFile;
+    this.archiveSize = archiveFile.length();
+    this.resultsFile = resultsFile;
+    this.ownsArchive = ownsArchive;
+  }
+
+  public String getJobId() {
+    return jobId;
+  }
+
+  public String getNamespace() {
+    return namespace;
+  }
+
+  public String getAuid() {
+    return auid;
+  }
+
+  public String getArchiveName() {
+    return archiveName;
+  }
+
+  public File getArchiveFile() {
+    return archiveFile;
+  }
+
+  public boolean isDone() {
+    return state == ImportJobStatus.StateEnum.DONE
+        || state == ImportJobStatus.StateEnum.FAILED;
+  }
+
+  public long getEndTime() {
+    return endTime;
+  }
+
+  public boolean hasImportedArtifacts() {
+    return okCount > 0;
+  }
+
+  public boolean hasErrors() {
+    return errorCount > 0 || state == ImportJobStatus.StateEnum.FAILED;
+  }
+
+  /**
+   * Marks the job as started and opens its results file.
+   */
+  void start() throws IOException {
+    resultsOut = new BufferedOutputStream(new FileOutputStream(resultsFile));
+    startTime = TimeBase.nowMs();
+    state = ImportJobStatus.StateEnum.RUNNING;
+  }
+
+  /**
+   * Records the number of archive bytes consumed so far.
+   */
+  void setBytesProcessed(long bytesProcessed) {
+    this.bytesProcessed = bytesProcessed;
+  }
+
+  /**
+   * Records the status of an imported record and appends it to the results.
+   */
+  void addResult(ImportStatus status, ObjectWriter writer) throws IOException {
+    recordsProcessed++;
+
+    switch (status.getStatus()) {
+      case OK:
+        okCount++;
+        break;
+      case DUPLICATE:
+        duplicateCount++;
+        break;
+      case EXCLUDED:
+        excludedCount++;
+        break;
+      default:
+        errorCount++;
+    }
+
+    writer.writeValue(resultsOut, status);
+    resultsOut.write('\n');
+    resultsOut.flush();
+    resultsLength = resultsFile.length();
+  }
+
+  /**
+   * Marks the job as finished, successfully or not, and releases the archive.
+   */
+  void finish(Throwable error) {
+    if (error != null) {
+      errorMessage = error.getMessage();
+      state = ImportJobStatus.StateEnum.FAILED;
+    } else {
+      state = ImportJobStatus.StateEnum.DONE;
+    }
+
+    endTime = TimeBase.nowMs();
+
+    if (resultsOut != null) {
+      try {
+        resultsOut.close();
+      } catch (IOException e) {
+        log.warn("Error closing import job results [jobId: {}]", jobId, e);
+      }
+    }
+
+    if (ownsArchive) {
+      FileUtils.deleteQuietly(archiveFile);
+    }
+  }
+
+  /**
+   * Returns an {@link InputStream} with the results written so far, one JSON
+   * {@link ImportStatus} per line.
+   */
+  public InputStream getResultsInputStream() throws IOException {
+    if (!resultsFile.exists()) {
+      return new ByteArrayInputStream(new byte[0]);
+    }
+
+    return new BoundedInputStream(new FileInputStream(resultsFile), resultsLength);
+  }
+
+  /**
+   * Deletes the files owned by this job.
+   */
+  void discard() {
+    if (ownsArchive) {
+      FileUtils.deleteQuietly(archiveFile);
+    }
+    FileUtils.deleteQuietly(resultsFile);
+  }
+
+  /**
+   * Returns the current status of this job.
+   */
+  public ImportJobStatus getStatus() {
+    ImportJobStatus status = new ImportJobStatus();
+    status.setJobId(jobId);
+    status.setNamespace(namespace);
+    status.setAuid(auid);
+    status.setArchiveName(archiveName);
+    status.setArchiveSize(archiveSize);
+    status.setState(state);
+    status.setRecordsProcessed(recordsProcessed);
+    status.setBytesProcessed(bytesProcessed);
+    status.setOkCount(okCount);
+    status.setDuplicateCount(duplicateCount);
+    status.setExcludedCount(excludedCount);
+    status.setErrorCount(errorCount);
+    status.setSubmitTime(submitTime);
+    status.setStartTime(startTime == 0 ? null : startTime);
+    status.setEndTime(endTime == 0 ? null : endTime);
+
+    if (startTime != 0) {
+      long elapsed = (endTime == 0 ? TimeBase.nowMs() : endTime) - startTime;
+      status.setBytesPerSecond(elapsed > 0 ? bytesProcessed * 1000 / elapsed : null);
+    }
+
+    status.setErrorMessage(errorMessage);
+    return status;
+  }
+}
@@ -4,12 +4,21 @@ import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.function.IOSupplier;
+import org.apache.commons.io.input.CountingInputStream;
 import org.archive.format.warc.WARCConstants;
+import org.lockss.config.Configuration;
+import org.lockss.laaws.rs.configuration.RepositoryServiceProperties;
+import org.lockss.laaws.rs.configuration.RepositoryServiceSpringConfig;
 import org.lockss.laaws.rs.api.ArchivesApiDelegate;
+import org.lockss.laaws.rs.model.ImportJobStatus;
+import org.lockss.laaws.rs.model.LocalImportStatus;
 import org.lockss.log.L4JLogger;
 import org.lockss.spring.base.BaseSpringApiServiceImpl;
+import org.lockss.spring.base.LockssConfigurableService;
 import org.lockss.spring.error.LockssRestServiceException;
 import org.lockss.util.StringUtil;
+import org.lockss.util.TimerQueue;
 import org.lockss.util.io.DeferredTempFileOutputStream;
 import org.lockss.util.rest.exception.LockssRestHttpException;
 import org.lockss.util.rest.repo.LockssRepository;
@@ -18,7 +27,11 @@ import org.lockss.util.rest.repo.model.ImportStatus;
 import org.lockss.util.rest.repo.util.ArtifactCache;
 import org.lockss.util.rest.repo.util.ImportStatusIterable;
 import org.lockss.util.rest.repo.util.NamedInputStreamResource;
+import org.lockss.util.time.Deadline;
+import org.lockss.util.time.TimeBase;
+import org.lockss.util.time.TimeUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -26,30 +39,258 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.util.MimeType;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import javax.jms.JMSException;
 import javax.jms.Message;
 import jakarta.servlet.http.HttpServletRequest;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
-public class ArchivesApiServiceImpl extends BaseSpringApiServiceImpl implements ArchivesApiDelegate {
+public class ArchivesApiServiceImpl extends BaseSpringApiServiceImpl
+    implements ArchivesApiDelegate, LockssConfigurableService {
   private static L4JLogger log = L4JLogger.getLogger();
   private final MediaType APPLICATION_WARC = MediaType.valueOf("application/warc");
 
+  // Content types accepted for gzip compressed WARC archives
+  private final List<MediaType> GZIP_WARC_TYPES = List.of(
+      MediaType.valueOf("application/warc+gzip"),
+      MediaType.valueOf("application/gzip"),
+      MediaType.valueOf("application/x-gzip"));
+
   @Autowired
   LockssRepository repo;
 
+  @Autowired
+  RepositoryServiceProperties repoProps;
+
+  @Autowired(required = false)
+  AdditionalDigestStore additionalDigestStore;
+
   private final HttpServletRequest request;
 
+  // Asynchronous import jobs, by job ID
+  private final Map<String, ArchiveImportJob> importJobs = new ConcurrentHashMap<>();
+
+  // Ledgers of local imports, by ledger directory, namespace and AUID, shared
+  // by the requests importing into the same AU; guarded by this map
+  private final Map<List<String>, LocalImportLedger> localImportLedgers = new HashMap<>();
+
+  // Executor of asynchronous import jobs; created on first use
+  private ThreadPoolExecutor importExecutor;
+
+  // Workers of the pipelined archive importer; created on first use
+  private ThreadPoolExecutor pipelineExecutor;
+
+  // Executor of local archive import jobs; created on first use
+  private ThreadPoolExecutor localImportExecutor;
+
   @Autowired
   public ArchivesApiServiceImpl(HttpServletRequest request) {
     this.request = request;
   }
 
+  ////////////////////////////////////////////////////////////////////////////////
+  // PARAMS //////////////////////////////////////////////////////////////////////
+  ////////////////////////////////////////////////////////////////////////////////
+
+  public static final String PREFIX = "org.lockss.repository.";
+
+  /**
+   * Number of asynchronous archive imports that may run concurrently.
+   */
+  public static final String PARAM_ASYNC_IMPORT_THREADS = PREFIX + "archive.import.async.threads";
+  public static final int DEFAULT_ASYNC_IMPORT_THREADS = 2;
+  private int asyncImportThreads = DEFAULT_ASYNC_IMPORT_THREADS;
+
+  /**
+   * Maximum number of asynchronous archive imports waiting to run; further
+   * requests are refused.  Change requires restart to take effect.
+   */
+  public static final String PARAM_ASYNC_IMPORT_QUEUE_SIZE = PREFIX + "archive.import.async.queueSize";
+  public static final int DEFAULT_ASYNC_IMPORT_QUEUE_SIZE = 16;
+  private int asyncImportQueueSize = DEFAULT_ASYNC_IMPORT_QUEUE_SIZE;
+
+  /**
+   * Interval after which the status and results of a finished asynchronous
+   * archive import are discarded.
+   */
+  public static final String PARAM_ASYNC_IMPORT_RETENTION = PREFIX + "archive.import.async.retention";
+  public static final long DEFAULT_ASYNC_IMPORT_RETENTION = 24 * TimeUtil.HOUR;
+  private long asyncImportRetention = DEFAULT_ASYNC_IMPORT_RETENTION;
+
+  /**
+   * Number of threads parsing and digesting WARC records for the pipelined
+   * archive importer, shared by all imports.  If zero, archives are imported
+   * sequentially by the repository.
+   */
+  public static final String PARAM_IMPORT_PIPELINE_THREADS = PREFIX + "archive.import.pipeline.threads";
+  public static final int DEFAULT_IMPORT_PIPELINE_THREADS = 0;
+  private int importPipelineThreads = DEFAULT_IMPORT_PIPELINE_THREADS;
+
+  /**
+   * Maximum number of WARC records of an import between the reader and the
+   * writer of the pipelined archive importer.
+   */
+  public static final String PARAM_IMPORT_PIPELINE_DEPTH = PREFIX + "archive.import.pipeline.depth";
+  public static final int DEFAULT_IMPORT_PIPELINE_DEPTH = 32;
+  private int importPipelineDepth = DEFAULT_IMPORT_PIPELINE_DEPTH;
+
+  /**
+   * Size of the largest WARC record the pipelined archive importer buffers
+   * in memory; larger records are buffered in a temporary file.
+   */
+  public static final String PARAM_IMPORT_PIPELINE_MEM_BUFFER = PREFIX + "archive.import.pipeline.memBufferSize";
+  public static final long DEFAULT_IMPORT_PIPELINE_MEM_BUFFER = FileUtils.ONE_MB;
+  private int importPipelineMemBuffer = (int) DEFAULT_IMPORT_PIPELINE_MEM_BUFFER;
+
+  /**
+   * Directories from which archives may be imported with POST
+   * /archives/local.  If empty, local imports are disabled.
+   */
+  public static final String PARAM_LOCAL_IMPORT_DIRS = PREFIX + "archive.import.local.dirs";
+  public static final List<String> DEFAULT_LOCAL_IMPORT_DIRS = Collections.emptyList();
+  private List<Path> localImportDirs = Collections.emptyList();
+
+  /**
+   * Number of local archive files imported concurrently.
+   */
+  public static final String PARAM_LOCAL_IMPORT_THREADS = PREFIX + "archive.import.local.threads";
+  public static final int DEFAULT_LOCAL_IMPORT_THREADS = 4;
+  private int localImportThreads = DEFAULT_LOCAL_IMPORT_THREADS;
+
+  /**
+   * Directory of the ledgers of completed local imports, used to resume an
+   * interrupted import.  If not set, a local-import-ledgers directory in the
+   * repository state directory.
+   */
+  public static final String PARAM_LOCAL_IMPORT_LEDGER_DIR = PREFIX + "archive.import.local.ledgerDir";
+  private String localImportLedgerDir;
+
+  /**
+   * Directory of the checkpoints from which interrupted imports by the
+   * pipelined archive importer resume.  If not set, an import-checkpoints
+   * directory in the repository state directory.
+   */
+  public static final String PARAM_IMPORT_CHECKPOINT_DIR = PREFIX + "archive.import.checkpoint.dir";
+  private String importCheckpointDir;
+
+  /**
+   * Number of records imported between saves of an import checkpoint.  If
+   * zero, imports are not checkpointed.
+   */
+  public static final String PARAM_IMPORT_CHECKPOINT_INTERVAL = PREFIX + "archive.import.checkpoint.interval";
+  public static final int DEFAULT_IMPORT_CHECKPOINT_INTERVAL = 1000;
+  private int importCheckpointInterval = DEFAULT_IMPORT_CHECKPOINT_INTERVAL;
+
+  /**
+   * Maximum time between saves of an import checkpoint, whatever the number
+   * of records imported.
+   */
+  public static final String PARAM_IMPORT_CHECKPOINT_MAX_INTERVAL = PREFIX + "archive.import.checkpoint.maxInterval";
+  public static final long DEFAULT_IMPORT_CHECKPOINT_MAX_INTERVAL = 10 * TimeUtil.SECOND;
+  private long importCheckpointMaxInterval = DEFAULT_IMPORT_CHECKPOINT_MAX_INTERVAL;
+
+  // Digests computed by the pipelined importer in addition to the default
+  private List<String> additionalDigestAlgorithms =
+      RepositoryServiceSpringConfig.DEFAULT_ADDITIONAL_DIGEST_ALGORITHMS;
+
+  ////////////////////////////////////////////////////////////////////////////////
+  // CONFIG //////////////////////////////////////////////////////////////////////
+  ////////////////////////////////////////////////////////////////////////////////
+
+  @Override
+  public void setConfig(Configuration newConfig,
+                        Configuration prevConfig,
+                        Configuration.Differences changedKeys) {
+    if (changedKeys.contains(PREFIX)) {
+      asyncImportThreads = newConfig.getInt(PARAM_ASYNC_IMPORT_THREADS,
+          DEFAULT_ASYNC_IMPORT_THREADS);
+      asyncImportQueueSize = newConfig.getInt(PARAM_ASYNC_IMPORT_QUEUE_SIZE,
+          DEFAULT_ASYNC_IMPORT_QUEUE_SIZE);
+      asyncImportRetention = newConfig.getTimeInterval(PARAM_ASYNC_IMPORT_RETENTION,
+          DEFAULT_ASYNC_IMPORT_RETENTION);
+      importPipelineThreads = newConfig.getInt(PARAM_IMPORT_PIPELINE_THREADS,
+          DEFAULT_IMPORT_PIPELINE_THREADS);
+      importPipelineDepth = newConfig.getInt(PARAM_IMPORT_PIPELINE_DEPTH,
+          DEFAULT_IMPORT_PIPELINE_DEPTH);
+      importPipelineMemBuffer = (int) newConfig.getLong(PARAM_IMPORT_PIPELINE_MEM_BUFFER,
+          DEFAULT_IMPORT_PIPELINE_MEM_BUFFER);
+      additionalDigestAlgorithms =
+          RepositoryServiceSpringConfig.getAdditionalDigestAlgorithms(newConfig);
+      localImportThreads = newConfig.getInt(PARAM_LOCAL_IMPORT_THREADS,
+          DEFAULT_LOCAL_IMPORT_THREADS);
+      localImportLedgerDir = newConfig.get(PARAM_LOCAL_IMPORT_LEDGER_DIR);
+      importCheckpointDir = newConfig.get(PARAM_IMPORT_CHECKPOINT_DIR);
+      importCheckpointInterval = newConfig.getInt(PARAM_IMPORT_CHECKPOINT_INTERVAL,
+          DEFAULT_IMPORT_CHECKPOINT_INTERVAL);
+      importCheckpointMaxInterval = newConfig.getTimeInterval(PARAM_IMPORT_CHECKPOINT_MAX_INTERVAL,
+          DEFAULT_IMPORT_CHECKPOINT_MAX_INTERVAL);
+
+      List<Path> dirs = new ArrayList<>();
+      for (String dir : newConfig.getList(PARAM_LOCAL_IMPORT_DIRS, DEFAULT_LOCAL_IMPORT_DIRS)) {
+        try {
+          dirs.add(new File(dir).getCanonicalFile().toPath());
+        } catch (IOException e) {
+          log.warn("Ignoring local import directory {}", dir, e);
+        }
+      }
+      localImportDirs = dirs;
+
+      synchronized (this) {
+        if (importPipelineThreads > 0) {
+          ServiceImplUtil.setPoolSize(pipelineExecutor, importPipelineThreads);
+        }
+        ServiceImplUtil.setPoolSize(importExecutor, asyncImportThreads);
+        ServiceImplUtil.setPoolSize(localImportExecutor, localImportThreads);
+      }
+
+      if (importJobTimer != null) {
+        TimerQueue.cancel(importJobTimer);
+      }
+      importJobTimer = TimerQueue.schedule(Deadline.in(1 * TimeUtil.HOUR),
+          1 * TimeUtil.HOUR, importJobTimeout, null);
+    }
+  }
+
+  TimerQueue.Request importJobTimer;
+
+  // Timer callback for periodic removal of expired import jobs
+  private TimerQueue.Callback importJobTimeout =
+      new TimerQueue.Callback() {
+        public void timerExpired(Object cookie) {
+          expireImportJobs();
+        }
+      };
+
+  void expireImportJobs() {
+    long cutoff = TimeBase.nowMs() - asyncImportRetention;
+
+    for (Iterator<ArchiveImportJob> iter = importJobs.values().iterator(); iter.hasNext(); ) {
+      ArchiveImportJob job = iter.next();
+      if (job.isDone() && job.getEndTime() < cutoff) {
+        iter.remove();
+        job.discard();
+      }
+    }
+  }
+
+  ////////////////////////////////////////////////////////////////////////////////
+  // REST ////////////////////////////////////////////////////////////////////////
+  ////////////////////////////////////////////////////////////////////////////////
+
   /**
    * Controller for {@code POST /archives}.
    * <p>
@@ -60,60 +301,60 @@ public class ArchivesApiServiceImpl extends BaseSpringApiServiceImpl implements
    * @param namespace    A {@link String} containing the namespace of the artifacts.
    * @param storeDuplicate    A {@link Boolean} indicating whether artifacts whose content is identical to the previous version should be stored
    * @param excludeStatusPattern    A {@link String} containing a regexp.  WARC records whose HTTP response status code matches will not be added to the repository
+   * @param async        A {@link Boolean} indicating whether the import is to be run asynchronously
    * @return
    */
   @Override
-  public ResponseEntity<Resource> addArtifacts(String auId, MultipartFile archive, String namespace, Boolean storeDuplicate, String excludeStatusPattern) {
+  public ResponseEntity<Resource> addArtifacts(String auId, MultipartFile archive, String namespace,
+                                               Boolean storeDuplicate, String excludeStatusPattern,
+                                               Boolean async) {
     log.debug("archive.name = {}", archive.getName());
     log.debug("archive.origFileName = {}", archive.getOriginalFilename());
     log.debug("archive.type = {}", archive.getContentType());
     if (!StringUtil.isNullString(excludeStatusPattern))
       log.debug("excludeStatusPattern = {}", excludeStatusPattern);
 
-    String parsedRequest = String.format("namespace: %s, auId: %s, requestUrl: %s",
-        namespace, auId, ServiceImplUtil.getFullRequestUrl(request));
+    String parsedRequest = String.format("namespace: %s, auId: %s, async: %s, requestUrl: %s",
+        namespace, auId, async, ServiceImplUtil.getFullRequestUrl(request));
 
     log.debug2("Parsed request: {}", parsedRequest);
 
     MimeType archiveType = MimeType.valueOf(archive.getContentType());
 
-    if (archiveType.equals(APPLICATION_WARC)) {
-      try {
-        boolean needCacheInvalidate = false;
-
-        try (InputStream input = archive.getInputStream();
-             ImportStatusIterable result =
-                 repo.addArtifacts(namespace, auId, input, LockssRepository.ArchiveType.WARC, storeDuplicate, excludeStatusPattern)) {
+    if (isWarcArchive(archiveType)) {
+      if (Boolean.TRUE.equals(async)) {
+        return submitImportJob(auId, archive, namespace, storeDuplicate,
+            excludeStatusPattern, parsedRequest);
+      }
 
-          try (DeferredTempFileOutputStream out =
-                   new DeferredTempFileOutputStream((int) (16 * FileUtils.ONE_MB), (String) null)) {
+      try {
+        try (ImportCheckpoint checkpoint = openCheckpoint(namespace, auId, archive.getSize(),
+                 archive::getInputStream, parsedRequest);
+             InputStream input = archive.getInputStream();
+             DeferredTempFileOutputStream out =
+                 new DeferredTempFileOutputStream((int) (16 * FileUtils.ONE_MB), (String) null)) {
 
-            ObjectMapper objMapper = new ObjectMapper();
-            objMapper.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
-            ObjectWriter objWriter = objMapper.writerFor(ImportStatus.class);
+          ObjectWriter objWriter = getImportStatusWriter();
 
-            // Write result to temporary file
-            for (ImportStatus status : result) {
-              if (ImportStatus.StatusEnum.OK == status.getStatus()) {
-                needCacheInvalidate = true;
-              }
-              objWriter.writeValue(out, status);
-            }
+          // Write result to temporary file
+          boolean needCacheInvalidate = importArchive(namespace, auId, input,
+              storeDuplicate, excludeStatusPattern, checkpoint,
+              status -> objWriter.writeValue(out, status));
 
-            out.flush();
+          out.flush();
 
-            if (needCacheInvalidate) {
-              sendCacheInvalidateAu(ArtifactCache.InvalidateOp.Commit, auId);
-            }
+          if (needCacheInvalidate) {
+            ServiceImplUtil.sendCacheInvalidateAu(jmsProducer,
+                ArtifactCache.InvalidateOp.Commit, auId);
+          }
 
-            // Set Content-Length of file
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentLength(out.getByteCount());
+          // Set Content-Length of file
+          HttpHeaders headers = new HttpHeaders();
+          headers.setContentLength(out.getByteCount());
 
-            // Return result as a Resource
-            Resource jsonResult = new NamedInputStreamResource("result", out.getDeleteOnCloseInputStream());
-            return new ResponseEntity<>(jsonResult, headers, HttpStatus.OK);
-          }
+          // Return result as a Resource
+          Resource jsonResult = new NamedInputStreamResource("result", out.getDeleteOnCloseInputStream());
+          return new ResponseEntity<>(jsonResult, headers, HttpStatus.OK);
         }
       } catch (IOException e) {
         String errorMessage = "Error adding artifacts from archive";
@@ -127,6 +368,610 @@ public class ArchivesApiServiceImpl extends BaseSpringApiServiceImpl implements
     }
   }
 
+  /**
+   * Controller for {@code POST /archives}, when the client accepts
+   * newline-delimited JSON; see {@link ArchivesNdjsonController}.
+   * <p>
+   * The status of each record of a WARC archive is sent as it is imported.
+   * Other requests are handled as by
+   * {@link #addArtifacts(String, MultipartFile, String, Boolean, String, Boolean)}
+   * and their response copied.
+   *
+   * @return a {@link StreamingResponseBody} with the results of the import.
+   */
+  ResponseEntity<StreamingResponseBody> addArtifactsNdjson(String auId, MultipartFile archive,
+                                                           String namespace,
+                                                           Boolean storeDuplicate,
+                                                           String excludeStatusPattern,
+                                                           Boolean async) {
+    MimeType archiveType = MimeType.valueOf(archive.getContentType());
+
+    if (!isWarcArchive(archiveType) || Boolean.TRUE.equals(async)) {
+      ResponseEntity<Resource> response = addArtifacts(auId, archive, namespace,
+          storeDuplicate, excludeStatusPattern, async);
+      Resource body = response.getBody();
+
+      return new ResponseEntity<>(out -> {
+        try (InputStream in = body.getInputStream()) {
+          in.transferTo(out);
+        }
+      }, response.getHeaders(), response.getStatusCode());
+    }
+
+    String parsedRequest = String.format("namespace: %s, auId: %s, requestUrl: %s",
+        namespace, auId, ServiceImplUtil.getFullRequestUrl(request));
+
+    log.debug2("Streaming import [{}]", parsedRequest);
+
+    return streamImport(auId, archive, namespace, storeDuplicate, excludeStatusPattern,
+        parsedRequest);
+  }
+
+  /**
+   * Controller for {@code GET /archives/jobs/{jobId}}.
+   * <p>
+   * Provides the status of an asynchronous archive import.
+   *
+   * @param jobId A {@link String} containing the identifier of the import job.
+   * @return an {@link ImportJobStatus} with the status of the import job.
+   */
+  @Override
+  public ResponseEntity<ImportJobStatus> getImportJobStatus(String jobId) {
+    String parsedRequest = String.format("jobId: %s, requestUrl: %s",
+        jobId, ServiceImplUtil.getFullRequestUrl(request));
+
+    log.debug2("Parsed request: {}", parsedRequest);
+
+    return new ResponseEntity<>(getImportJob(jobId, parsedRequest).getStatus(), HttpStatus.OK);
+  }
+
+  /**
+   * Controller for {@code GET /archives/jobs/{jobId}/results}.
+   * <p>
+   * Provides the results of an asynchronous archive import available so far,
+   * as a sequence of JSON {@link ImportStatus} objects.
+   *
+   * @param jobId A {@link String} containing the identifier of the import job.
+   * @return a {@link Resource} with the results of the import job.
+   */
+  @Override
+  public ResponseEntity<Resource> getImportJobResults(String jobId) {
+    String parsedRequest = String.format("jobId: %s, requestUrl: %s",
+        jobId, ServiceImplUtil.getFullRequestUrl(request));
+
+    log.debug2("Parsed request: {}", parsedRequest);
+
+    ArchiveImportJob job = getImportJob(jobId, parsedRequest);
+
+    try {
+      HttpHeaders headers = new HttpHeaders();
+      headers.set(X_LOCKSS_IMPORT_JOB_STATE, job.getStatus().getState().toString());
+
+      Resource results = new NamedInputStreamResource("result", job.getResultsInputStream());
+      return new ResponseEntity<>(results, headers, HttpStatus.OK);
+    } catch (IOException e) {
+      String errorMessage = "Error reading results of import job";
+      throw new LockssRestServiceException(LockssRestHttpException.ServerErrorType.APPLICATION_ERROR,
+          HttpStatus.INTERNAL_SERVER_ERROR, errorMessage, e, parsedRequest);
+    }
+  }
+
+  /**
+   * Controller for {@code POST /archives/local}.
+   * <p>
+   * Queues an asynchronous import job for each WARC file at a local path in
+   * one of the configured local import directories.  The files are read in
+   * place, without passing through a multipart request, and several are
+   * imported concurrently.  Files whose previous import into the AU
+   * completed without errors are skipped.
+   *
+   * @param auId                 A {@link String} containing the AUID of the artifacts.
+   * @param path                 A {@link String} containing the path of a WARC
+   *                             file or of a directory of WARC files.
+   * @param namespace            A {@link String} containing the namespace of the artifacts.
+   * @param storeDuplicate       A {@link Boolean} indicating whether artifacts whose content is identical to the previous version should be stored
+   * @param excludeStatusPattern A {@link String} containing a regexp.  WARC records whose HTTP response status code matches will not be added to the repository
+   * @return a {@link LocalImportStatus} with the status of the queued jobs.
+   */
+  @Override
+  public ResponseEntity<LocalImportStatus> importLocalArchives(String auId, String path,
+                                                               String namespace,
+                                                               Boolean storeDuplicate,
+                                                               String excludeStatusPattern) {
+    String parsedRequest = String.format("namespace: %s, auId: %s, path: %s, requestUrl: %s",
+        namespace, auId, path, ServiceImplUtil.getFullRequestUrl(request));
+
+    log.debug2("Parsed request: {}", parsedRequest);
+
+    ServiceImplUtil.checkRepositoryReady(repo, parsedRequest);
+
+    Path target;
+
+    try {
+      target = new File(path).getCanonicalFile().toPath();
+    } catch (IOException e) {
+      throw new LockssRestServiceException(LockssRestHttpException.ServerErrorType.NONE,
+          HttpStatus.BAD_REQUEST, "Invalid path", e, parsedRequest);
+    }
+
+    Path root = localImportDirs.stream().filter(target::startsWith).findFirst().orElse(null);
+
+    if (root == null) {
+      String errorMessage = localImportDirs.isEmpty() ?
+          "Local archive import is not enabled" :
+          "Path is not in a local import directory";
+
+      throw new LockssRestServiceException(LockssRestHttpException.ServerErrorType.NONE,
+          HttpStatus.FORBIDDEN, errorMessage, parsedRequest);
+    }
+
+    if (!Files.isDirectory(target) && !Files.isRegularFile(target)) {
+      throw new LockssRestServiceException(LockssRestHttpException.ServerErrorType.NONE,
+          HttpStatus.NOT_FOUND, "No such file or directory", parsedRequest);
+    }
+
+    List<File> files;
+    LocalImportLedger ledger;
+
+    try {
+      files = findWarcFiles(root, target);
+      ledger = getLocalImportLedger(namespace, auId);
+    } catch (IOException e) {
+      String errorMessage = "Error reading local import path";
+      throw new LockssRestServiceException(LockssRestHttpException.ServerErrorType.APPLICATION_ERROR,
+          HttpStatus.INTERNAL_SERVER_ERROR, errorMessage, e, parsedRequest);
+    }
+
+    LocalImportStatus result = new LocalImportStatus();
+    result.setPath(target.toString());
+    result.setJobs(new ArrayList<>());
+    result.setSkipped(new ArrayList<>());
+
+    for (File file : files) {
+      if (ledger.isImported(file)) {
+        result.getSkipped().add(file.getPath());
+        continue;
+      }
+
+      ArchiveImportJob job;
+
+      try {
+        job = new ArchiveImportJob(namespace, auId, file.getPath(), file,
+            File.createTempFile("archive-import-", ".json"), false);
+      } catch (IOException e) {
+        String errorMessage = "Error creating import job results file";
+        throw new LockssRestServiceException(LockssRestHttpException.ServerErrorType.APPLICATION_ERROR,
+            HttpStatus.INTERNAL_SERVER_ERROR, errorMessage, e, parsedRequest);
+      }
+
+      importJobs.put(job.getJobId(), job);
+      getLocalImportExecutor().execute(() -> {
+        runImportJob(job, storeDuplicate, excludeStatusPattern);
+
+        if (!job.hasErrors()) {
+          ledger.markImported(file);
+        }
+      });
+
+      result.getJobs().add(job.getStatus());
+    }
+
+    log.debug("Queued local archive import [auid: {}, path: {}, files: {}, skipped: {}]",
+        auId, target, result.getJobs().size(), result.getSkipped().size());
+
+    return new ResponseEntity<>(result, HttpStatus.ACCEPTED);
+  }
+
+  /**
+   * Returns the ledger of the local imports into an AU, shared by all the
+   * requests importing into it so that their entries are not lost.
+   */
+  LocalImportLedger getLocalImportLedger(String namespace, String auId)
+      throws IOException {
+    File ledgerDir = localImportLedgerDir != null ?
+        new File(localImportLedgerDir) :
+        new File(repoProps.getRepositoryStateDir(), "local-import-ledgers");
+
+    List<String> key = List.of(ledgerDir.getAbsolutePath(), namespace, auId);
+
+    synchronized (localImportLedgers) {
+      LocalImportLedger ledger = localImportLedgers.get(key);
+
+      if (ledger == null) {
+        FileUtils.forceMkdir(ledgerDir);
+        ledger = new LocalImportLedger(ledgerDir, namespace, auId);
+        localImportLedgers.put(key, ledger);
+      }
+
+      return ledger;
+    }
+  }
+
+  /**
+   * Returns the WARC files at a path: the file itself, or the files with a
+   * WARC extension under a directory, in path order.  Hidden files and
+   * directories are ignored, as are files that resolve, through symbolic
+   * links, outside the local import directory.
+   *
+   * @param root   The canonical local import directory.
+   * @param target The canonical path, in the local import directory.
+   * @return the canonical WARC files.
+   */
+  private static List<File> findWarcFiles(Path root, Path target) throws IOException {
+    if (!Files.isDirectory(target)) {
+      return List.of(target.toFile());
+    }
+
+    List<Path> candidates;
+
+    try (Stream<Path> paths = Files.walk(target)) {
+      candidates = paths
+          .filter(p -> !isHidden(target.relativize(p)))
+          .filter(p -> {
+            String name = p.getFileName().toString().toLowerCase();
+            return name.endsWith(".warc") || name.endsWith(".warc.gz");
+          })
+          .sorted()
+          .collect(Collectors.toList());
+    }
+
+    Set<File> res = new LinkedHashSet<>();
+
+    for (Path path : candidates) {
+      // Files.walk() doesn't descend into linked directories, but does report
+      // links to files, wherever they point
+      Path canonical = path.toFile().getCanonicalFile().toPath();
+
+      if (!canonical.startsWith(root)) {
+        log.warn("Not importing {}: it is outside local import directory {}", path, root);
+        continue;
+      }
+
+      if (Files.isRegularFile(canonical)) {
+        res.add(canonical.toFile());
+      }
+    }
+
+    return new ArrayList<>(res);
+  }
+
+  private static boolean isHidden(Path relativePath) {
+    for (Path name : relativePath) {
+      if (name.toString().startsWith(".")) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /** Header carrying the state of the import job whose results are returned */
+  public static final String X_LOCKSS_IMPORT_JOB_STATE = "X-Lockss-Import-Job-State";
+
+  ////////////////////////////////////////////////////////////////////////////////
+  // UTILITIES ///////////////////////////////////////////////////////////////////
+  ////////////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Receives the status of each record of an archive as it is imported.
+   */
+  @FunctionalInterface
+  public interface ImportStatusConsumer {
+    void accept(ImportStatus status) throws IOException;
+  }
+
+  /**
+   * Imports the artifacts from a WARC archive into the repository, passing the
+   * status of each record to a consumer as it is produced.  The archive is
+   * imported by a {@link WarcImportPipeline} if one is configured, otherwise
+   * by the repository.
+   *
+   * @param checkpoint If not null, the {@link ImportCheckpoint} from which
+   *                   the pipelined importer resumes an interrupted import.
+   * @return {@code true} if any artifact was imported.
+   */
+  boolean importArchive(String namespace, String auId, InputStream input,
+                        Boolean storeDuplicate, String excludeStatusPattern,
+                        ImportCheckpoint checkpoint,
+                        ImportStatusConsumer consumer) throws IOException {
+    boolean imported = false;
+
+    if (importPipelineThreads > 0) {
+      boolean[] anyOk = {false};
+
+      new WarcImportPipeline(repo, getPipelineExecutor(),
+          importPipelineDepth, importPipelineMemBuffer, additionalDigestAlgorithms,
+          additionalDigestStore)
+          .importArchive(namespace, auId, input,
+              Boolean.TRUE.equals(storeDuplicate), excludeStatusPattern, checkpoint,
+              status -> {
+                if (ImportStatus.StatusEnum.OK == status.getStatus()) {
+                  anyOk[0] = true;
+                }
+                consumer.accept(status);
+              });
+
+      return anyOk[0];
+    }
+
+    try (ImportStatusIterable result =
+             repo.addArtifacts(namespace, auId, input, LockssRepository.ArchiveType.WARC,
+                 storeDuplicate, excludeStatusPattern)) {
+
+      for (ImportStatus status : result) {
+        if (ImportStatus.StatusEnum.OK == status.getStatus()) {
+          imported = true;
+        }
+        consumer.accept(status);
+      }
+    }
+
+    return imported;
+  }
+
+  /**
+   * Opens the checkpoint of the import of an archive.  Imports are
+   * checkpointed only by the pipelined importer, as the repository imports an
+   * archive in a single call that cannot resume.
+   *
+   * @param length        The length of the archive.
+   * @param archive       Opens the archive, to read the beginning that
+   *                      identifies it.
+   * @param parsedRequest A String with the parsed request, for errors.
+   * @return the {@link ImportCheckpoint}, to be closed when the import ends,
+   * or null if imports are not checkpointed or it could not be opened.
+   * @throws LockssRestServiceException with a 409 status if the archive is
+   *                                    already being imported into the AU.
+   */
+  ImportCheckpoint openCheckpoint(String namespace, String auId, long length,
+                                  IOSupplier<InputStream> archive,
+                                  String parsedRequest) {
+    if (importPipelineThreads <= 0 || importCheckpointInterval <= 0) {
+      return null;
+    }
+
+    File dir = importCheckpointDir != null ?
+        new File(importCheckpointDir) :
+        new File(repoProps.getRepositoryStateDir(), "import-checkpoints");
+
+    try (InputStream input = archive.get()) {
+      FileUtils.forceMkdir(dir);
+      return new ImportCheckpoint(dir, namespace, auId, length, input,
+          importCheckpointInterval, importCheckpointMaxInterval);
+    } catch (ImportCheckpoint.InUseException e) {
+      throw new LockssRestServiceException(LockssRestHttpException.ServerErrorType.NONE,
+          HttpStatus.CONFLICT, e.getMessage(), parsedRequest);
+    } catch (IOException e) {
+      log.warn("Could not open import checkpoint; importing without one [auid: {}]", auId, e);
+      return null;
+    }
+  }
+
+  /**
+   * Determines whether a content type is that of a WARC archive, uncompressed
+   * or gzip compressed.  Compressed archives are decompressed one gzip member
+   * at a time as they are imported.
+   */
+  private boolean isWarcArchive(MimeType archiveType) {
+    return archiveType.equals(APPLICATION_WARC) ||
+        GZIP_WARC_TYPES.stream().anyMatch(archiveType::equalsTypeAndSubtype);
+  }
+
+  private ObjectWriter getImportStatusWriter() {
+    ObjectMapper objMapper = new ObjectMapper();
+    objMapper.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    return objMapper.writerFor(ImportStatus.class);
+  }
+
+  /**
+   * Returns a response whose body runs the import as it is written, so that
+   * the status of each record is sent to the client as soon as the record has
+   * been processed.  The response has no Content-Length, and is sent chunked.
+   */
+  private ResponseEntity<StreamingResponseBody> streamImport(String auId, MultipartFile archive,
+                                                             String namespace,
+                                                             Boolean storeDuplicate,
+                                                             String excludeStatusPattern,
+                                                             String parsedRequest) {
+    // Opened before the response is committed, so that a concurrent import
+    // of the archive is refused with a 409
+    ImportCheckpoint checkpoint = openCheckpoint(namespace, auId, archive.getSize(),
+        archive::getInputStream, parsedRequest);
+
+    // Set by whichever of the body and the completion of the request gets to
+    // it first, which then closes the checkpoint: the body may never run if
+    // the request fails or times out before it is started
+    AtomicBoolean claimed = new AtomicBoolean(false);
+
+    if (checkpoint != null) {
+      WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(
+          ImportCheckpoint.class.getName(), new CallableProcessingInterceptor() {
+            @Override
+            public <T> void afterCompletion(NativeWebRequest webRequest, Callable<T> task) {
+              if (claimed.compareAndSet(false, true)) {
+                log.debug("Archive import did not start; releasing checkpoint [auid: {}]", auId);
+                checkpoint.close();
+              }
+            }
+          });
+    }
+
+    NdjsonImportStatusBody results = new NdjsonImportStatusBody(consumer -> {
+      if (!claimed.compareAndSet(false, true)) {
+        throw new IOException("Archive import abandoned before it started");
+      }
+
+      boolean[] anyOk = {false};
+
+      try (ImportCheckpoint cp = checkpoint;
+           InputStream input = archive.getInputStream()) {
+        importArchive(namespace, auId, input, storeDuplicate, excludeStatusPattern, cp,
+            status -> {
+              if (ImportStatus.StatusEnum.OK == status.getStatus()) {
+                anyOk[0] = true;
+              }
+              consumer.accept(status);
+            });
+      } finally {
+        // Sent even if the import did not complete
+        if (anyOk[0]) {
+          ServiceImplUtil.sendCacheInvalidateAu(jmsProducer,
+              ArtifactCache.InvalidateOp.Commit, auId);
+        }
+      }
+    });
+
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.APPLICATION_NDJSON);
+
+    return new ResponseEntity<>(results, headers, HttpStatus.OK);
+  }
+
+  /**
+   * Spools the archive of an import request and queues an asynchronous job to
+   * import it.
+   *
+   * @return a 202 response with the status of the new job.
+   */
+  private ResponseEntity<Resource> submitImportJob(String auId, MultipartFile archive,
+                                                   String namespace, Boolean storeDuplicate,
+                                                   String excludeStatusPattern,
+                                                   String parsedRequest) {
+    ArchiveImportJob job;
+
+    try {
+      // Take ownership of the uploaded archive: it would otherwise be deleted
+      // when this request completes
+      File archiveFile = File.createTempFile("archive-import-", ".warc");
+      archive.transferTo(archiveFile);
+
+      job = new ArchiveImportJob(namespace, auId, archive.getOriginalFilename(),
+          archiveFile, File.createTempFile("archive-import-", ".json"));
+    } catch (IOException e) {
+      String errorMessage = "Error spooling archive for import";
+      throw new LockssRestServiceException(LockssRestHttpException.ServerErrorType.APPLICATION_ERROR,
+          HttpStatus.INTERNAL_SERVER_ERROR, errorMessage, e, parsedRequest);
+    }
+
+    try {
+      importJobs.put(job.getJobId(), job);
+      getImportExecutor().execute(() ->
+          runImportJob(job, storeDuplicate, excludeStatusPattern));
+    } catch (RejectedExecutionException e) {
+      importJobs.remove(job.getJobId());
+      job.discard();
+
+      String errorMessage = "Too many archive imports queued";
+      log.warn(errorMessage);
+
+      throw new LockssRestServiceException(LockssRestHttpException.ServerErrorType.APPLICATION_ERROR,
+          HttpStatus.SERVICE_UNAVAILABLE, errorMessage, parsedRequest);
+    }
+
+    log.debug("Queued archive import [jobId: {}, auid: {}, archive: {}]",
+        job.getJobId(), auId, archive.getOriginalFilename());
+
+    try {
+      HttpHeaders headers = new HttpHeaders();
+      headers.setContentType(MediaType.APPLICATION_JSON);
+      headers.setLocation(
+          new java.net.URI(request.getContextPath() + "/archives/jobs/" + job.getJobId()));
+
+      byte[] status = new ObjectMapper().writeValueAsBytes(job.getStatus());
+      return new ResponseEntity<>(new ByteArrayResource(status), headers, HttpStatus.ACCEPTED);
+    } catch (IOException | java.net.URISyntaxException e) {
+      String errorMessage = "Error serializing import job status";
+      throw new LockssRestServiceException(LockssRestHttpException.ServerErrorType.APPLICATION_ERROR,
+          HttpStatus.INTERNAL_SERVER_ERROR, errorMessage, e, parsedRequest);
+    }
+  }
+
+  /**
+   * Runs an asynchronous import job.
+   */
+  private void runImportJob(ArchiveImportJob job, Boolean storeDuplicate,
+                            String excludeStatusPattern) {
+    Throwable error = null;
+
+    log.debug("Starting archive import [jobId: {}]", job.getJobId());
+
+    File archiveFile = job.getArchiveFile();
+
+    try (ImportCheckpoint checkpoint =
+             openCheckpoint(job.getNamespace(), job.getAuid(), archiveFile.length(),
+                 () -> FileUtils.openInputStream(archiveFile), "jobId: " + job.getJobId());
+         CountingInputStream input =
+             new CountingInputStream(FileUtils.openInputStream(archiveFile))) {
+      job.start();
+
+      ObjectWriter objWriter = getImportStatusWriter();
+
+      importArchive(job.getNamespace(), job.getAuid(), input, storeDuplicate,
+          excludeStatusPattern, checkpoint,
+          status -> {
+            job.setBytesProcessed(input.getByteCount());
+            job.addResult(status, objWriter);
+          });
+
+      job.setBytesProcessed(input.getByteCount());
+    } catch (Exception e) {
+      log.error("Archive import failed [jobId: {}]", job.getJobId(), e);
+      error = e;
+    } finally {
+      job.finish(error);
+
+      if (job.hasImportedArtifacts()) {
+        ServiceImplUtil.sendCacheInvalidateAu(jmsProducer, ArtifactCache.InvalidateOp.Commit,
+            job.getAuid());
+      }
+    }
+
+    log.debug("Finished archive import [jobId: {}, status: {}]",
+        job.getJobId(), job.getStatus());
+  }
+
+  private ArchiveImportJob getImportJob(String jobId, String parsedRequest) {
+    ArchiveImportJob job = importJobs.get(jobId);
+
+    if (job == null) {
+      String errorMessage = "Import job not found";
+      throw new LockssRestServiceException(LockssRestHttpException.ServerErrorType.DATA_ERROR,
+          HttpStatus.NOT_FOUND, errorMessage, parsedRequest);
+    }
+
+    return job;
+  }
+
+  private synchronized ThreadPoolExecutor getImportExecutor() {
+    if (importExecutor == null) {
+      importExecutor = new ThreadPoolExecutor(asyncImportThreads, asyncImportThreads,
+          60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(asyncImportQueueSize));
+      importExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    return importExecutor;
+  }
+
+  private synchronized ThreadPoolExecutor getLocalImportExecutor() {
+    if (localImportExecutor == null) {
+      localImportExecutor = new ThreadPoolExecutor(localImportThreads, localImportThreads,
+          60, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+      localImportExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    return localImportExecutor;
+  }
+
+  private synchronized ThreadPoolExecutor getPipelineExecutor() {
+    if (pipelineExecutor == null) {
+      pipelineExecutor = new ThreadPoolExecutor(importPipelineThreads, importPipelineThreads,
+          60, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+      pipelineExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    return pipelineExecutor;
+  }
+
   @jakarta.annotation.PostConstruct
   private void init() {
     setUpJms(JMS_SEND,
@@ -134,19 +979,18 @@ public class ArchivesApiServiceImpl extends BaseSpringApiServiceImpl implements
         RestLockssRepository.REST_ARTIFACT_CACHE_TOPIC);
   }
 
-  protected void sendCacheInvalidateAu(ArtifactCache.InvalidateOp op,
-                                       String auid) {
-    if (jmsProducer != null && auid != null) {
-      Map<String, Object> map = new HashMap<>();
-      map.put(RestLockssRepository.REST_ARTIFACT_CACHE_MSG_ACTION,
-          RestLockssRepository.REST_ARTIFACT_CACHE_MSG_ACTION_INVALIDATE_AU);
-      map.put(RestLockssRepository.REST_ARTIFACT_CACHE_MSG_OP, op.toString());
-      map.put(RestLockssRepository.REST_ARTIFACT_CACHE_MSG_KEY, auid);
-      try {
-        jmsProducer.sendMap(map);
-      } catch (JMSException e) {
-        log.error("Couldn't send cache invalidate notification", e);
-      }
+  @jakarta.annotation.PreDestroy
+  private void shutdown() {
+    if (importExecutor != null) {
+      importExecutor.shutdownNow();
+    }
+
+    if (pipelineExecutor != null) {
+      pipelineExecutor.shutdownNow();
+    }
+
+    if (localImportExecutor != null) {
+      localImportExecutor.shutdownNow();
     }
   }
 
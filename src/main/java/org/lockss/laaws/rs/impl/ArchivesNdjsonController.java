@@ -0,0 +1,76 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.impl;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Handles {@code POST /archives} requests that accept newline-delimited
+ * JSON, whose response is a {@link StreamingResponseBody} written as the
+ * archive is imported.
+ * <p>
+ * The generated {@code ArchivesApi} declares a {@code Resource} response
+ * body, which Spring writes in the request thread; this handler, which
+ * produces only {@code application/x-ndjson}, is selected over it when that
+ * is what the client accepts. Its parameters are those of the generated
+ * handler.
+ */
+@RestController
+public class ArchivesNdjsonController {
+
+  @Autowired
+  ArchivesApiServiceImpl archivesService;
+
+  @PostMapping(value = "/archives",
+      consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+      produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> addArtifacts(
+      @RequestParam(value = "auid") String auid,
+      @RequestPart(value = "archive") MultipartFile archive,
+      @RequestParam(value = "namespace", required = false, defaultValue = "lockss") String namespace,
+      @RequestParam(value = "storeDuplicate", required = false, defaultValue = "false") Boolean storeDuplicate,
+      @RequestParam(value = "excludeStatusPattern", required = false) String excludeStatusPattern,
+      @RequestParam(value = "async", required = false, defaultValue = "false") Boolean async) {
+
+    return archivesService.addArtifactsNdjson(auid, archive, namespace, storeDuplicate,
+        excludeStatusPattern, async);
+  }
+}
@@ -0,0 +1,413 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.impl;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.lockss.util.rest.repo.model.ArtifactData;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * A region of a local WARC file holding part of an artifact, so that it can be
+ * sent by the servlet container with {@code sendfile}, or passed through
+ * without being parsed, rather than copied through an {@link InputStream}.
+ * <p>
+ * Regions are found from the storage URL of the artifact, which names the
+ * WARC file and the offset and length of its record. The payload of an
+ * artifact in an uncompressed WARC file is found by reading the WARC record
+ * header and, if the artifact is an HTTP response, the HTTP response header
+ * that precede it; it is only used if the lengths in the record agree with
+ * the artifact's. The record of an artifact in a compressed WARC file is the
+ * GZIP member at that location.
+ */
+public class ArtifactFileRegion {
+
+  // Request attributes by which Tomcat sends a file region once the response
+  // headers are written, as its DefaultServlet does
+  static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support";
+  static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+  static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+  static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+  // Most bytes read to find the start of the payload in a record
+  static final int MAX_HEADER_BYTES = 64 * 1024;
+
+  private static final byte[] HEADER_END = {'\r', '\n', '\r', '\n'};
+  private static final byte[] GZIP_MAGIC = {(byte) 0x1f, (byte) 0x8b};
+  private static final byte GZIP_DEFLATE = 8;
+  private static final String WARC_CONTENT_LENGTH = "content-length:";
+
+  private final Path path;
+  private final long start;
+  private final long length;
+
+  ArtifactFileRegion(Path path, long start, long length) {
+    this.path = path;
+    this.start = start;
+    this.length = length;
+  }
+
+  /** Returns the WARC file holding the region. */
+  public Path getPath() {
+    return path;
+  }
+
+  /** Returns the offset of the region in the WARC file. */
+  public long getStart() {
+    return start;
+  }
+
+  /** Returns the length of the region. */
+  public long getLength() {
+    return length;
+  }
+
+  /**
+   * Locates the payload of an artifact in its WARC file.
+   *
+   * @param ad The {@link ArtifactData} of the artifact.
+   * @return the region holding the payload, or null if it is not stored
+   * uncompressed in a local WARC file.
+   */
+  public static ArtifactFileRegion locate(ArtifactData ad) throws IOException {
+    return locate(ad.getStorageUrl(), ad.isHttpResponse(), ad.getContentLength());
+  }
+
+  /**
+   * Locates the payload of an artifact in its WARC file.
+   *
+   * @param storageUrl    The storage URL of the artifact.
+   * @param httpResponse  Whether the artifact is an HTTP response.
+   * @param contentLength The length of the payload.
+   * @return the region holding the payload, or null if it is not stored
+   * uncompressed in a local WARC file.
+   */
+  static ArtifactFileRegion locate(URI storageUrl, boolean httpResponse,
+                                   long contentLength) throws IOException {
+    ArtifactFileRegion record = locateRecord(storageUrl);
+
+    if (record == null) {
+      return null;
+    }
+
+    ByteBuffer buf = ByteBuffer.allocate((int) Math.min(record.length, MAX_HEADER_BYTES));
+
+    try (FileChannel channel = FileChannel.open(record.path, StandardOpenOption.READ)) {
+      if (!readFully(channel, buf, record.start)) {
+        return null;
+      }
+    }
+
+    byte[] header = buf.array();
+
+    // A compressed record starts with the GZIP magic number rather than the
+    // WARC version
+    if (!startsWith(header, "WARC/".getBytes(StandardCharsets.US_ASCII))) {
+      return null;
+    }
+
+    int blockStart = indexOf(header, HEADER_END, 0);
+
+    if (blockStart < 0) {
+      return null;
+    }
+
+    blockStart += HEADER_END.length;
+
+    long blockLength = warcContentLength(header, blockStart);
+    int payloadStart = blockStart;
+
+    if (httpResponse) {
+      payloadStart = indexOf(header, HEADER_END, blockStart);
+
+      if (payloadStart < 0) {
+        return null;
+      }
+
+      payloadStart += HEADER_END.length;
+    }
+
+    // The record block must be the HTTP response header, if any, followed by
+    // exactly the payload
+    if (blockLength != (payloadStart - blockStart) + contentLength ||
+        blockStart + blockLength > record.length) {
+      return null;
+    }
+
+    return new ArtifactFileRegion(record.path, record.start + payloadStart, contentLength);
+  }
+
+  /**
+   * Locates the GZIP member holding the WARC record of an artifact in its
+   * compressed WARC file. Each record of a compressed WARC file is written as
+   * a GZIP member of its own, so the member is the record's location, if it
+   * starts with a GZIP header and is followed by the end of the file or
+   * another GZIP member.
+   *
+   * @param ad The {@link ArtifactData} of the artifact.
+   * @return the region holding the GZIP member, or null if the artifact is
+   * not stored compressed in a local WARC file.
+   */
+  public static ArtifactFileRegion locateGzipRecord(ArtifactData ad) throws IOException {
+    return locateGzipRecord(ad.getStorageUrl());
+  }
+
+  /**
+   * Locates the GZIP member holding a WARC record in a compressed WARC file.
+   *
+   * @param storageUrl The storage URL of the artifact.
+   * @return the region holding the GZIP member, or null if the artifact is
+   * not stored compressed in a local WARC file.
+   */
+  static ArtifactFileRegion locateGzipRecord(URI storageUrl) throws IOException {
+    ArtifactFileRegion record = locateRecord(storageUrl);
+
+    if (record == null) {
+      return null;
+    }
+
+    ByteBuffer start = ByteBuffer.allocate(GZIP_MAGIC.length + 1);
+    ByteBuffer next = ByteBuffer.allocate(GZIP_MAGIC.length);
+    long end = record.start + record.length;
+
+    try (FileChannel channel = FileChannel.open(record.path, StandardOpenOption.READ)) {
+      if (!readFully(channel, start, record.start) ||
+          !startsWith(start.array(), GZIP_MAGIC) ||
+          start.get(GZIP_MAGIC.length) != GZIP_DEFLATE) {
+        return null;
+      }
+
+      if (end < channel.size() &&
+          (!readFully(channel, next, end) || !startsWith(next.array(), GZIP_MAGIC))) {
+        return null;
+      }
+    }
+
+    return record;
+  }
+
+  // Returns the region of the whole record named by a storage URL, or null
+  // if it is not in a local file
+  private static ArtifactFileRegion locateRecord(URI storageUrl) throws IOException {
+    if (storageUrl == null || !"file".equals(storageUrl.getScheme()) ||
+        storageUrl.getPath() == null) {
+      return null;
+    }
+
+    long recordOffset = -1;
+    long recordLength = -1;
+
+    if (storageUrl.getQuery() != null) {
+      for (String param : storageUrl.getQuery().split("&")) {
+        try {
+          if (param.startsWith("offset=")) {
+            recordOffset = Long.parseLong(param.substring("offset=".length()));
+          } else if (param.startsWith("length=")) {
+            recordLength = Long.parseLong(param.substring("length=".length()));
+          }
+        } catch (NumberFormatException e) {
+          return null;
+        }
+      }
+    }
+
+    Path path = Paths.get(storageUrl.getPath());
+
+    if (recordOffset < 0 || recordLength <= 0 || !Files.isRegularFile(path) ||
+        recordOffset + recordLength > Files.size(path)) {
+      return null;
+    }
+
+    return new ArtifactFileRegion(path, recordOffset, recordLength);
+  }
+
+  // Reads bytes at a position until the buffer is full; false at end of file
+  private static boolean readFully(FileChannel channel, ByteBuffer buf, long position)
+      throws IOException {
+    while (buf.hasRemaining()) {
+      if (channel.read(buf, position + buf.position()) < 0) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Opens this region for reading. Skipping moves the position read from in
+   * the file, without reading the bytes skipped.
+   */
+  public InputStream openStream() throws IOException {
+    return new RegionInputStream(FileChannel.open(path, StandardOpenOption.READ),
+        start, start + length);
+  }
+
+  /**
+   * Determines whether the servlet container can send a file region in the
+   * response to a request.
+   */
+  public static boolean isSendfileSupported(HttpServletRequest request) {
+    return Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTR));
+  }
+
+  /**
+   * Has the servlet container send this region as the body of the response
+   * to a request, once the response headers are written. The response must
+   * have no body of its own and a Content-Length equal to the length of the
+   * region.
+   */
+  public void sendfile(HttpServletRequest request) throws IOException {
+    request.setAttribute(SENDFILE_FILENAME_ATTR, path.toRealPath().toString());
+    request.setAttribute(SENDFILE_START_ATTR, start);
+    request.setAttribute(SENDFILE_END_ATTR, start + length);
+  }
+
+  @Override
+  public String toString() {
+    return "[ArtifactFileRegion path=" + path + ", start=" + start + ", length=" + length + "]";
+  }
+
+  // Returns the value of the Content-Length header of a WARC record header
+  // ending before the given offset, or -1
+  private static long warcContentLength(byte[] header, int end) {
+    String[] lines = new String(header, 0, end, StandardCharsets.ISO_8859_1).split("\r\n");
+
+    for (String line : lines) {
+      if (line.regionMatches(true, 0, WARC_CONTENT_LENGTH, 0, WARC_CONTENT_LENGTH.length())) {
+        try {
+          return Long.parseLong(line.substring(WARC_CONTENT_LENGTH.length()).trim());
+        } catch (NumberFormatException e) {
+          return -1;
+        }
+      }
+    }
+
+    return -1;
+  }
+
+  // An InputStream of a region of a file, read at an explicit position
+  private static class RegionInputStream extends InputStream {
+    private final FileChannel channel;
+    private final long end;
+    private long position;
+
+    RegionInputStream(FileChannel channel, long start, long end) {
+      this.channel = channel;
+      this.position = start;
+      this.end = end;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] b = new byte[1];
+      return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      Objects.checkFromIndexSize(off, len, b.length);
+
+      if (len == 0) {
+        return 0;
+      }
+
+      if (position >= end) {
+        return -1;
+      }
+
+      int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, end - position)),
+          position);
+
+      if (n > 0) {
+        position += n;
+      }
+
+      return n;
+    }
+
+    @Override
+    public long skip(long n) {
+      long skipped = Math.max(0, Math.min(n, end - position));
+      position += skipped;
+      return skipped;
+    }
+
+    @Override
+    public int available() {
+      return (int) Math.min(Integer.MAX_VALUE, Math.max(0, end - position));
+    }
+
+    @Override
+    public void close() throws IOException {
+      channel.close();
+    }
+  }
+
+  private static boolean startsWith(byte[] bytes, byte[] prefix) {
+    if (bytes.length < prefix.length) {
+      return false;
+    }
+
+    for (int i = 0; i < prefix.length; i++) {
+      if (bytes[i] != prefix[i]) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  private static int indexOf(byte[] bytes, byte[] target, int from) {
+    outer:
+    for (int i = from; i <= bytes.length - target.length; i++) {
+      for (int j = 0; j < target.length; j++) {
+        if (bytes[i + j] != target[j]) {
+          continue outer;
+        }
+      }
+      return i;
+    }
+
+    return -1;
+  }
+}
@@ -0,0 +1,160 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.impl;
+
+import org.apache.commons.io.function.IOSupplier;
+import org.apache.commons.io.input.ProxyInputStream;
+import org.springframework.core.io.AbstractResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The payload of an artifact as a {@link org.springframework.core.io.Resource}
+ * of known length that can be read more than once, so that Spring MVC can
+ * answer a request with a {@code Range} header with a 206 response holding
+ * the requested ranges, as a {@code multipart/byteranges} body if there are
+ * several, rather than the whole payload.
+ * <p>
+ * Each range is read from a newly opened stream, by skipping to its start.
+ * When the payload is a region of an uncompressed WARC file, the stream skips
+ * by moving its position in the file. Otherwise the artifact is reopened for
+ * each range, and the data before the range is read and discarded.
+ */
+public class ArtifactPayloadResource extends AbstractResource {
+
+  // Size of the reads used to skip data the payload stream will not skip
+  private static final int SKIP_BUFFER_SIZE = 64 * 1024;
+
+  private final String description;
+  private final long contentLength;
+  private final IOSupplier<InputStream> reopen;
+
+  // Opens the payload for the first read; null once used
+  private IOSupplier<InputStream> open;
+
+  /**
+   * Constructor.
+   *
+   * @param description   A description of the artifact.
+   * @param contentLength The length of the payload.
+   * @param open          Opens the payload for the first read. It is not
+   *                      called if the payload is not read, e.g. if the
+   *                      requested range cannot be satisfied.
+   * @param reopen        Opens the payload again, for each read after the
+   *                      first.
+   */
+  public ArtifactPayloadResource(String description, long contentLength,
+                                 IOSupplier<InputStream> open,
+                                 IOSupplier<InputStream> reopen) {
+    this.description = description;
+    this.contentLength = contentLength;
+    this.open = open;
+    this.reopen = reopen;
+  }
+
+  /**
+   * Constructor of the payload of an artifact stored in an uncompressed WARC
+   * file.
+   *
+   * @param description A description of the artifact.
+   * @param region      The region of the WARC file holding the payload.
+   */
+  public ArtifactPayloadResource(String description, ArtifactFileRegion region) {
+    this(description, region.getLength(), region::openStream, region::openStream);
+  }
+
+  @Override
+  public String getDescription() {
+    return "Artifact payload [" + description + "]";
+  }
+
+  @Override
+  public long contentLength() {
+    return contentLength;
+  }
+
+  @Override
+  public boolean exists() {
+    return true;
+  }
+
+  @Override
+  public synchronized InputStream getInputStream() throws IOException {
+    IOSupplier<InputStream> opener = open != null ? open : reopen;
+    open = null;
+
+    return new FullySkippingInputStream(opener.get());
+  }
+
+  /**
+   * Skips the whole requested amount unless the end of the stream is reached,
+   * as Spring's range copy requires, where streams such as
+   * {@link java.io.BufferedInputStream} may skip less.
+   */
+  static class FullySkippingInputStream extends ProxyInputStream {
+    private byte[] skipBuffer;
+
+    FullySkippingInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long remaining = n;
+
+      while (remaining > 0) {
+        long skipped = in.skip(remaining);
+
+        if (skipped <= 0) {
+          // Skipped nothing: read instead, which also detects the end
+          if (skipBuffer == null) {
+            skipBuffer = new byte[SKIP_BUFFER_SIZE];
+          }
+
+          int read = in.read(skipBuffer, 0, (int) Math.min(remaining, skipBuffer.length));
+
+          if (read < 0) {
+            break;
+          }
+
+          skipped = read;
+        }
+
+        remaining -= skipped;
+      }
+
+      return n - remaining;
+    }
+  }
+}
@@ -1,15 +1,21 @@
 package org.lockss.laaws.rs.impl;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletRequest;
 import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.collections4.map.PassiveExpiringMap;
-import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.function.IOSupplier;
+import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.http.HttpException;
-import org.apache.http.HttpResponse;
 import org.lockss.config.Configuration;
 import org.lockss.laaws.rs.api.ArtifactsApiDelegate;
+import org.lockss.laaws.rs.model.ArtifactExistence;
+import org.lockss.laaws.rs.model.ArtifactExistenceQuery;
+import org.lockss.laaws.rs.multipart.HttpBodyDigestOutputStream;
 import org.lockss.laaws.rs.multipart.LockssMultipartHttpServletRequest;
+import org.lockss.laaws.rs.multipart.StreamingPayloadFileItem;
+import org.lockss.laaws.rs.multipart.StreamingPayloadFileItem.PayloadVerificationException;
 import org.lockss.log.L4JLogger;
 import org.lockss.rs.BaseLockssRepository;
 import org.lockss.rs.io.storage.warc.WarcArtifactData;
@@ -36,20 +42,27 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.stereotype.Service;
 import org.springframework.util.MultiValueMap;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import javax.jms.JMSException;
 import javax.jms.Message;
 import javax.jms.MessageListener;
+import javax.management.JMException;
+import javax.management.ObjectName;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.management.ManagementFactory;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.time.Instant;
@@ -74,12 +87,19 @@ public class ArtifactsApiServiceImpl extends BaseSpringApiServiceImpl
   public static final MediaType APPLICATION_HTTP_RESPONSE =
       MediaType.parseMediaType(APPLICATION_HTTP_RESPONSE_VALUE);
 
+  // Keys of the entries of the artifacts part of a batch creation request
+  public static final String BATCH_ARTIFACT_PROPS = "artifactProps";
+  public static final String BATCH_HTTP_RESPONSE_HEADER = "httpResponseHeader";
+
   @Autowired
   BaseLockssRepository repo;
 
   @Autowired
   ObjectMapper objMapper;
 
+  @Autowired(required = false)
+  AdditionalDigestStore additionalDigestStore;
+
   private final HttpServletRequest request;
 
   private Set<String> bulkAuids = new CopyOnWriteArraySet<>();
@@ -137,6 +157,52 @@ public class ArtifactsApiServiceImpl extends BaseSpringApiServiceImpl
   public static final long DEFAULT_ARTIFACT_ITERATOR_TIMEOUT = 48 * TimeUtil.HOUR;
   private long artifactIteratorTimeout = DEFAULT_ARTIFACT_ITERATOR_TIMEOUT;
 
+  /**
+   * Maximum number of lookups in a POST /artifacts/exists request.
+   */
+  public static final String PARAM_MAX_EXISTS_BATCH = PREFIX + "artifact.exists.maxBatch";
+  public static final int DEFAULT_MAX_EXISTS_BATCH = 10000;
+  private int maxExistsBatch = DEFAULT_MAX_EXISTS_BATCH;
+
+  /**
+   * If true, the payload of an artifact stored in an uncompressed local WARC
+   * file is sent by the servlet container with sendfile, when it supports
+   * it, rather than copied through the service.
+   */
+  public static final String PARAM_PAYLOAD_SENDFILE = PREFIX + "payload.sendfile";
+  public static final boolean DEFAULT_PAYLOAD_SENDFILE = true;
+  private boolean payloadSendfile = DEFAULT_PAYLOAD_SENDFILE;
+
+  /**
+   * Smallest payload sent with sendfile; smaller ones are cheaper to copy
+   * than to locate in their WARC file.
+   */
+  public static final String PARAM_PAYLOAD_SENDFILE_MIN_SIZE = PREFIX + "payload.sendfile.minSize";
+  public static final long DEFAULT_PAYLOAD_SENDFILE_MIN_SIZE = 48 * 1024;
+  private long payloadSendfileMinSize = DEFAULT_PAYLOAD_SENDFILE_MIN_SIZE;
+
+  /**
+   * Total bytes of direct (off-heap) memory used to cache the content of
+   * small, frequently read committed artifacts.  If 0, the cache is not
+   * used.
+   */
+  public static final String PARAM_HOT_CACHE_SIZE = PREFIX + "artifact.hotCache.size";
+  public static final long DEFAULT_HOT_CACHE_SIZE = 0;
+
+  /**
+   * Largest artifact held in the hot artifact cache.
+   */
+  public static final String PARAM_HOT_CACHE_MAX_ENTRY_SIZE =
+      PREFIX + "artifact.hotCache.maxEntrySize";
+  public static final long DEFAULT_HOT_CACHE_MAX_ENTRY_SIZE = 256 * 1024;
+
+  /** JMX name of the {@link HotArtifactCache} metrics */
+  public static final String HOT_CACHE_MBEAN_NAME =
+      "org.lockss.laaws.rs:type=HotArtifactCache";
+
+  // Created the first time the cache is enabled
+  private volatile HotArtifactCache hotCache;
+
   ////////////////////////////////////////////////////////////////////////////////
   // CONFIG //////////////////////////////////////////////////////////////////////
   ////////////////////////////////////////////////////////////////////////////////
@@ -151,12 +217,23 @@ public class ArtifactsApiServiceImpl extends BaseSpringApiServiceImpl
               DEFAULT_DEFAULT_ARTIFACT_PAGESIZE);
       maxArtifactPageSize = newConfig.getInt(PARAM_MAX_ARTIFACT_PAGESIZE,
           DEFAULT_MAX_ARTIFACT_PAGESIZE);
+      maxExistsBatch = newConfig.getInt(PARAM_MAX_EXISTS_BATCH,
+          DEFAULT_MAX_EXISTS_BATCH);
       artifactIteratorTimeout =
           newConfig.getTimeInterval(PARAM_ARTIFACT_ITERATOR_TIMEOUT,
               DEFAULT_ARTIFACT_ITERATOR_TIMEOUT);
       smallContentThreshold =
           newConfig.getLong(PARAM_SMALL_CONTENT_THRESHOLD,
               DEFAULT_SMALL_CONTENT_THRESHOLD);
+      payloadSendfile = newConfig.getBoolean(PARAM_PAYLOAD_SENDFILE,
+          DEFAULT_PAYLOAD_SENDFILE);
+      payloadSendfileMinSize =
+          newConfig.getLong(PARAM_PAYLOAD_SENDFILE_MIN_SIZE,
+              DEFAULT_PAYLOAD_SENDFILE_MIN_SIZE);
+      setHotCacheLimits(
+          newConfig.getLong(PARAM_HOT_CACHE_SIZE, DEFAULT_HOT_CACHE_SIZE),
+          newConfig.getLong(PARAM_HOT_CACHE_MAX_ENTRY_SIZE,
+              DEFAULT_HOT_CACHE_MAX_ENTRY_SIZE));
 
       // The first time setConfig() is called, replace the temporary
       // iterator continuation maps
@@ -188,6 +265,31 @@ public class ArtifactsApiServiceImpl extends BaseSpringApiServiceImpl
     map.isEmpty();
   }
 
+  /**
+   * Creates the hot artifact cache and registers its metrics the first time
+   * it is enabled, otherwise resizes it.
+   */
+  private void setHotCacheLimits(long size, long maxEntrySize) {
+    if (hotCache != null) {
+      hotCache.setLimits(size, maxEntrySize);
+      return;
+    }
+
+    if (size <= 0) {
+      return;
+    }
+
+    log.debug("Enabling hot artifact cache [size: {}, maxEntrySize: {}]", size, maxEntrySize);
+    hotCache = new HotArtifactCache(size, maxEntrySize);
+
+    try {
+      ManagementFactory.getPlatformMBeanServer()
+          .registerMBean(hotCache, new ObjectName(HOT_CACHE_MBEAN_NAME));
+    } catch (JMException e) {
+      log.warn("Couldn't register hot artifact cache MBean", e);
+    }
+  }
+
   ////////////////////////////////////////////////////////////////////////////////
   // REST ////////////////////////////////////////////////////////////////////////
   ////////////////////////////////////////////////////////////////////////////////
@@ -198,19 +300,29 @@ public class ArtifactsApiServiceImpl extends BaseSpringApiServiceImpl
    *
    * @param properties
    * @param payload
+   * @param streamPayload      A Boolean indicating whether the payload part is
+   *                           streamed directly from the request.
+   * @param commit             A Boolean indicating whether the artifact is to
+   *                           be committed once added.
+   * @param storeDuplicate     A Boolean indicating whether the artifact is to
+   *                           be created even if the latest committed version
+   *                           of its URL has the same content.
    * @param httpResponseHeader
    * @return a {@code ResponseEntity<Artifact>}.
    */
   @Override
   public ResponseEntity<Artifact> createArtifact(String properties,
                                                  MultipartFile payload,
+                                                 Boolean streamPayload,
+                                                 Boolean commit,
+                                                 Boolean storeDuplicate,
                                                  String httpResponseHeader) {
 
     long start = System.currentTimeMillis();
 
     String parsedRequest = String.format(
-        "properties: %s, payload: %s, httpResponseHeader: %s: requestUrl: %s",
-        properties, payload, httpResponseHeader,
+        "properties: %s, payload: %s, streamPayload: %s, commit: %s, storeDuplicate: %s, httpResponseHeader: %s: requestUrl: %s",
+        properties, payload, streamPayload, commit, storeDuplicate, httpResponseHeader,
         ServiceImplUtil.getFullRequestUrl(request));
 
     log.debug2("Parsed request: {}", parsedRequest);
@@ -218,76 +330,76 @@ public class ArtifactsApiServiceImpl extends BaseSpringApiServiceImpl
     ServiceImplUtil.checkRepositoryReady(repo, parsedRequest);
 
     try {
-      boolean asHttpResponse = !StringUtil.isNullString(httpResponseHeader);
+      LockssMultipartHttpServletRequest.LockssMultipartFile payloadFile =
+          (LockssMultipartHttpServletRequest.LockssMultipartFile) payload;
 
       // Read artifact properties part
       ArtifactProperties props = objMapper.readValue(properties, ArtifactProperties.class);
 
-      ArtifactIdentifier artifactId = ArtifactDataUtil.buildArtifactIdentifier(props);
-
-      if (artifactId.getVersion() != null) {
-        throw new LockssRestServiceException(HttpStatus.BAD_REQUEST,
-            "Version property not allowed");
-      }
-
-      // Check URI
-      validateUri(artifactId.getUri(), parsedRequest);
-
-      // Construct ArtifactData from payload part
-      ArtifactData ad = WarcArtifactData.fromResource(payload.getInputStream());
+      // Construct ArtifactData from the parts
+      ArtifactData ad = buildArtifactData(props, payloadFile, httpResponseHeader, parsedRequest);
 
-      // Set artifact identifier
-      ad.setIdentifier(artifactId);
+      //// Add artifact to internal repository
+      try {
+        boolean checkDuplicate = Boolean.FALSE.equals(storeDuplicate);
 
-      ad.setContentLength(payload.getSize());
+        // Refer to the latest version instead if it has the same content
+        if (checkDuplicate && !payloadFile.isStreaming()) {
+          Artifact duplicate = findDuplicate(ad.getIdentifier(), ad.getContentDigest());
 
-      // Set artifact data digest
-      MessageDigest md =
-          ((LockssMultipartHttpServletRequest.LockssMultipartFile)payload).getDigest();
+          if (duplicate != null) {
+            log.debug2("Duplicate of existing artifact; not added [uuid: {}, url: {}]",
+                duplicate.getUuid(), duplicate.getUri());
 
-      String contentDigest = String.format("%s:%s",
-          md.getAlgorithm(), new String(Hex.encodeHex(md.digest())));
+            return duplicateResponse(duplicate);
+          }
+        }
 
-      ad.setContentDigest(contentDigest);
+        Artifact artifact = repo.addArtifact(ad);
+        recordAdditionalDigests(artifact, payloadFile);
 
-      // Set artifact collection date if provided
-      if (props.getCollectionDate() != null) {
-        ad.setCollectionDate(props.getCollectionDate());
-      }
+        // A streamed payload is verified against its declared digest only as
+        // it is stored: remove the new artifact if it is a duplicate
+        if (checkDuplicate && payloadFile.isStreaming()) {
+          Artifact duplicate = findDuplicate(ad.getIdentifier(), artifact.getContentDigest());
 
-      if (asHttpResponse) {
-        try {
-          HttpResponse httpResponse = ArtifactDataUtil.getHttpResponseFromStream(
-              IOUtils.toInputStream(httpResponseHeader, StandardCharsets.UTF_8));
+          if (duplicate != null) {
+            log.debug2("Duplicate of existing artifact; removed [uuid: {}, duplicate: {}, url: {}]",
+                artifact.getUuid(), duplicate.getUuid(), duplicate.getUri());
 
-          // Set HTTP status
-          ad.setHttpStatus(httpResponse.getStatusLine());
+            repo.deleteArtifact(artifact.getNamespace(), artifact.getUuid());
+            removeAdditionalDigests(artifact.getUuid());
 
-          // Set HTTP headers
-          ad.setHttpHeaders(ArtifactDataUtil.transformHeaderArrayToHttpHeaders(httpResponse.getAllHeaders()));
-        } catch (HttpException e) {
-          throw new HttpMessageNotReadableException("Error parsing HTTP response header part", e);
+            return duplicateResponse(duplicate);
+          }
         }
-      } else {
-        // Set artifact's Content-Type to the Content-Type of the part
-        ad.getHttpHeaders()
-            .set(HttpHeaders.CONTENT_TYPE, payload.getContentType());
-      }
 
-      //// Add artifact to internal repository
-      try {
-        Artifact artifact = repo.addArtifact(ad);
+        if (Boolean.TRUE.equals(commit)) {
+          artifact = commitNewArtifact(artifact, parsedRequest);
+        }
 
         long end = System.currentTimeMillis();
 
-        log.debug2("Added new artifact [uuid: {}, duration: {} ms, length: {}]",
-            artifact.getUuid(),
+        log.debug2("Added new artifact [uuid: {}, committed: {}, duration: {} ms, length: {}]",
+            artifact.getUuid(), artifact.getCommitted(),
             TimeUtil.timeIntervalToString(end - start),
             StringUtil.sizeToString(payload.getSize()));
 
         return new ResponseEntity<>(artifact, HttpStatus.OK);
 
       } catch (IOException e) {
+        if (ExceptionUtils.indexOfType(e, PayloadVerificationException.class) >= 0) {
+          // The streamed payload didn't match its properties: nothing was committed
+          String errorMessage = "Streaming payload verification failed: " +
+              ExceptionUtils.getRootCauseMessage(e);
+
+          log.warn(errorMessage);
+          log.warn("Parsed request: {}", parsedRequest);
+
+          throw new LockssRestServiceException(LockssRestHttpException.ServerErrorType.NONE,
+              HttpStatus.BAD_REQUEST, errorMessage, e, parsedRequest);
+        }
+
         String errorMessage =
             "Caught IOException while attempting to add an artifact to the repository";
 
@@ -306,6 +418,378 @@ public class ArtifactsApiServiceImpl extends BaseSpringApiServiceImpl
     }
   }
 
+  /**
+   * POST /artifacts/batch:
+   * Adds a batch of artifacts to the repository
+   *
+   * @param artifacts A String with a JSON array containing, for each artifact
+   *                  in the batch, an object with its properties and optional
+   *                  HTTP response header.
+   * @param payloads  A List of MultipartFile with the payloads of the artifacts,
+   *                  in the same order.
+   * @return a {@code ResponseEntity<List<ImportStatus>>} with the result of
+   * adding each artifact.
+   */
+  @Override
+  public ResponseEntity<List<ImportStatus>> createArtifacts(String artifacts,
+                                                            List<MultipartFile> payloads) {
+
+    long start = System.currentTimeMillis();
+
+    String parsedRequest = String.format(
+        "artifacts: %s, payloads: %s, requestUrl: %s",
+        artifacts, payloads == null ? null : payloads.size(),
+        ServiceImplUtil.getFullRequestUrl(request));
+
+    log.debug2("Parsed request: {}", parsedRequest);
+
+    ServiceImplUtil.checkRepositoryReady(repo, parsedRequest);
+
+    JsonNode items;
+
+    try {
+      items = objMapper.readTree(artifacts);
+    } catch (IOException e) {
+      throw new HttpMessageNotReadableException("Could not parse artifacts part", e);
+    }
+
+    if (items == null || !items.isArray() || payloads == null
+        || items.size() != payloads.size()) {
+      String errorMessage =
+          "The artifacts part must be an array with one entry per payload part";
+
+      log.warn(errorMessage);
+      log.warn("Parsed request: {}", parsedRequest);
+
+      throw new LockssRestServiceException(
+          LockssRestHttpException.ServerErrorType.NONE, HttpStatus.BAD_REQUEST,
+          errorMessage, parsedRequest);
+    }
+
+    List<ImportStatus> result = new ArrayList<>(items.size());
+    int added = 0;
+
+    for (int i = 0; i < items.size(); i++) {
+      JsonNode item = items.get(i);
+      ImportStatus status = new ImportStatus();
+
+      try {
+        ArtifactProperties props =
+            objMapper.treeToValue(item.get(BATCH_ARTIFACT_PROPS), ArtifactProperties.class);
+
+        if (props == null) {
+          throw new IOException("Missing " + BATCH_ARTIFACT_PROPS);
+        }
+
+        status.setUrl(props.getUri());
+
+        ArtifactData ad = buildArtifactData(props,
+            (LockssMultipartHttpServletRequest.LockssMultipartFile) payloads.get(i),
+            item.path(BATCH_HTTP_RESPONSE_HEADER).asText(null), parsedRequest);
+
+        Artifact artifact = repo.addArtifact(ad);
+        recordAdditionalDigests(artifact,
+            (LockssMultipartHttpServletRequest.LockssMultipartFile) payloads.get(i));
+
+        status.setArtifactUuid(artifact.getUuid());
+        status.setDigest(artifact.getContentDigest());
+        status.setVersion(artifact.getVersion());
+        status.setStatus(ImportStatus.StatusEnum.OK);
+        added++;
+      } catch (IOException | RuntimeException e) {
+        // Report the failure of this item without losing the results of the
+        // items already added
+        log.warn("Could not add artifact {} of batch: {}", i, e.getMessage());
+
+        status.setStatus(ImportStatus.StatusEnum.ERROR);
+        status.setStatusMessage(e.getMessage());
+      }
+
+      result.add(status);
+    }
+
+    long end = System.currentTimeMillis();
+
+    log.debug2("Added batch of artifacts [added: {}, failed: {}, duration: {} ms]",
+        added, result.size() - added,
+        TimeUtil.timeIntervalToString(end - start));
+
+    return new ResponseEntity<>(result, HttpStatus.OK);
+  }
+
+  /**
+   * Returns a 302 response referring to the latest version of a URL, in
+   * place of a new artifact with the same content.
+   */
+  private ResponseEntity<Artifact> duplicateResponse(Artifact duplicate) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.setLocation(UriComponentsBuilder.fromPath(request.getContextPath())
+        .path("/aus/{auid}/artifacts")
+        .queryParam("namespace", "{namespace}")
+        .queryParam("url", "{url}")
+        .queryParam("version", "latest")
+        .encode()
+        .buildAndExpand(duplicate.getAuid(), duplicate.getNamespace(), duplicate.getUri())
+        .toUri());
+
+    return new ResponseEntity<>(headers, HttpStatus.FOUND);
+  }
+
+  /**
+   * Returns the latest committed version of an artifact's URL if it has the
+   * given content digest.
+   *
+   * @param artifactId    The {@link ArtifactIdentifier} of the new artifact.
+   * @param contentDigest A String with the content digest of the new artifact.
+   * @return the duplicate {@link Artifact}, or {@code null} if there is none.
+   */
+  private Artifact findDuplicate(ArtifactIdentifier artifactId, String contentDigest)
+      throws IOException {
+    Artifact latest = repo.getArtifact(artifactId.getNamespace(),
+        artifactId.getAuid(), artifactId.getUri());
+
+    return latest != null && contentDigest != null &&
+        contentDigest.equals(latest.getContentDigest()) ? latest : null;
+  }
+
+  /**
+   * Constructs the {@link ArtifactData} of a new artifact from its properties,
+   * payload part and optional HTTP response header.
+   *
+   * @param props              An ArtifactProperties with the artifact properties.
+   * @param payloadFile        A LockssMultipartFile with the artifact payload.
+   * @param httpResponseHeader A String with the HTTP response status and
+   *                           headers, or {@code null} if the artifact is not
+   *                           an HTTP response.
+   * @param parsedRequest      A String with the parsed request for diagnostic
+   *                           purposes.
+   * @return an ArtifactData ready to be added to the repository.
+   * @throws IOException if the payload could not be read.
+   */
+  private ArtifactData buildArtifactData(ArtifactProperties props,
+      LockssMultipartHttpServletRequest.LockssMultipartFile payloadFile,
+      String httpResponseHeader, String parsedRequest) throws IOException {
+    ArtifactIdentifier artifactId = buildNewArtifactIdentifier(props, parsedRequest);
+
+    ArtifactData ad;
+
+    if (payloadFile.isStreaming()) {
+      // The payload has not been read yet: its length and digest must be
+      // supplied by the client, and are verified as it is consumed
+      StreamingPayloadFileItem streamingPayload = payloadFile.getStreamingPayload();
+      validateStreamingProperties(props, streamingPayload, parsedRequest);
+      streamingPayload.setExpectedContent(props.getContentLength(), props.getContentDigest());
+
+      // Construct ArtifactData from payload part
+      ad = WarcArtifactData.fromResource(payloadFile.getInputStream());
+      ad.setIdentifier(artifactId);
+      ad.setContentLength(props.getContentLength());
+      ad.setContentDigest(props.getContentDigest());
+    } else {
+      // Construct ArtifactData from payload part
+      ad = WarcArtifactData.fromResource(payloadFile.getInputStream());
+
+      // Set artifact identifier
+      ad.setIdentifier(artifactId);
+
+      ad.setContentLength(payloadFile.getSize());
+
+      // Set artifact data digest
+      MessageDigest md = payloadFile.getDigest();
+
+      String contentDigest = String.format("%s:%s",
+          md.getAlgorithm(), new String(Hex.encodeHex(md.digest())));
+
+      ad.setContentDigest(contentDigest);
+    }
+
+    setArtifactMetadata(ad, props, httpResponseHeader, payloadFile.getContentType());
+
+    return ad;
+  }
+
+  /**
+   * Records the digests computed over the payload of a newly added artifact in
+   * addition to its content digest. They are complete only once the payload
+   * has been consumed, i.e., after the artifact has been added.
+   *
+   * @param artifact    The Artifact that was added.
+   * @param payloadFile The LockssMultipartFile with the artifact payload.
+   * @throws IOException if the digests could not be recorded.
+   */
+  private void recordAdditionalDigests(Artifact artifact,
+      LockssMultipartHttpServletRequest.LockssMultipartFile payloadFile)
+      throws IOException {
+    if (additionalDigestStore == null) {
+      return;
+    }
+
+    String additionalDigests =
+        HttpBodyDigestOutputStream.formatDigests(payloadFile.getAdditionalDigests());
+
+    if (additionalDigests != null) {
+      additionalDigestStore.put(artifact.getUuid(), additionalDigests);
+    }
+  }
+
+  /**
+   * Returns the additional digests recorded for an artifact, or {@code null}
+   * if there are none.
+   */
+  private String getAdditionalDigests(String artifactId) {
+    return additionalDigestStore == null ? null : additionalDigestStore.get(artifactId);
+  }
+
+  /**
+   * Forgets the additional digests recorded for an artifact that was removed.
+   */
+  private void removeAdditionalDigests(String artifactId) {
+    if (additionalDigestStore != null) {
+      additionalDigestStore.remove(artifactId);
+    }
+  }
+
+  /**
+   * Builds the identifier of a new artifact from its properties.
+   *
+   * @param props         An ArtifactProperties with the artifact properties.
+   * @param parsedRequest A String with the parsed request for diagnostic
+   *                      purposes.
+   * @return an ArtifactIdentifier without a version.
+   */
+  private ArtifactIdentifier buildNewArtifactIdentifier(ArtifactProperties props,
+                                                        String parsedRequest) {
+    ArtifactIdentifier artifactId = ArtifactDataUtil.buildArtifactIdentifier(props);
+
+    if (artifactId.getVersion() != null) {
+      throw new LockssRestServiceException(HttpStatus.BAD_REQUEST,
+          "Version property not allowed");
+    }
+
+    // Check URI
+    validateUri(artifactId.getUri(), parsedRequest);
+
+    return artifactId;
+  }
+
+  /**
+   * Sets the collection date, and the HTTP status and headers or the
+   * Content-Type, of a new artifact.
+   *
+   * @param ad                 The ArtifactData of the new artifact.
+   * @param props              An ArtifactProperties with the artifact properties.
+   * @param httpResponseHeader A String with the HTTP response status and
+   *                           headers, or {@code null} if the artifact is not
+   *                           an HTTP response.
+   * @param contentType        A String with the Content-Type of the payload,
+   *                           used if the artifact is not an HTTP response.
+   * @throws IOException if the HTTP response header could not be read.
+   */
+  private void setArtifactMetadata(ArtifactData ad, ArtifactProperties props,
+                                   String httpResponseHeader, String contentType)
+      throws IOException {
+    boolean asHttpResponse = !StringUtil.isNullString(httpResponseHeader);
+
+    // Set artifact collection date if provided
+    if (props.getCollectionDate() != null) {
+      ad.setCollectionDate(props.getCollectionDate());
+    }
+
+    if (asHttpResponse) {
+      try {
+        HttpResponseHeaderParser.ParsedHeader parsed =
+            HttpResponseHeaderParser.parse(httpResponseHeader.getBytes(StandardCharsets.UTF_8));
+
+        // Set HTTP status
+        ad.setHttpStatus(parsed.getStatusLine());
+
+        // Set HTTP headers
+        ad.setHttpHeaders(parsed.getHeaders());
+      } catch (HttpException e) {
+        throw new HttpMessageNotReadableException("Error parsing HTTP response header part", e);
+      }
+    } else if (contentType != null) {
+      // Set artifact's Content-Type to the Content-Type of the payload
+      ad.getHttpHeaders().set(HttpHeaders.CONTENT_TYPE, contentType);
+    }
+  }
+
+  /**
+   * Adds an artifact whose payload has been spooled by an upload session, and
+   * optionally commits it.
+   *
+   * @param props              An ArtifactProperties with the artifact properties.
+   * @param payload            An InputStream with the payload.
+   * @param contentLength      A long with the length of the payload.
+   * @param contentDigest      A String with the digest of the payload.
+   * @param contentType        A String with the Content-Type of the payload.
+   * @param httpResponseHeader A String with the HTTP response status and
+   *                           headers, or {@code null} if the artifact is not
+   *                           an HTTP response.
+   * @param commit             A boolean indicating whether the artifact is to
+   *                           be committed once added.
+   * @param parsedRequest      A String with the parsed request for diagnostic
+   *                           purposes.
+   * @return the added Artifact.
+   * @throws IOException if the artifact could not be added.
+   */
+  Artifact addUploadedArtifact(ArtifactProperties props, InputStream payload,
+                               long contentLength, String contentDigest,
+                               String contentType, String httpResponseHeader,
+                               boolean commit, String parsedRequest)
+      throws IOException {
+    ArtifactData ad = WarcArtifactData.fromResource(payload);
+    ad.setIdentifier(buildNewArtifactIdentifier(props, parsedRequest));
+    ad.setContentLength(contentLength);
+    ad.setContentDigest(contentDigest);
+
+    setArtifactMetadata(ad, props, httpResponseHeader, contentType);
+
+    Artifact artifact = repo.addArtifact(ad);
+
+    return commit ? commitNewArtifact(artifact, parsedRequest) : artifact;
+  }
+
+  /**
+   * Commits an artifact that has just been added by a create request. If the
+   * commit fails, the uncommitted artifact is removed so that the request
+   * leaves nothing behind.
+   *
+   * @param artifact      The Artifact that was added.
+   * @param parsedRequest A String with the parsed request for diagnostic
+   *                      purposes.
+   * @return the committed Artifact.
+   */
+  private Artifact commitNewArtifact(Artifact artifact, String parsedRequest) {
+    try {
+      Artifact committed = repo.commitArtifact(artifact.getNamespace(), artifact.getUuid());
+
+      // Broadcast a cache invalidate signal for this artifact (see updateArtifact())
+      if (!bulkAuids.contains(committed.getAuid())) {
+        sendCacheInvalidateArtifact(ArtifactCache.InvalidateOp.Commit, committed.makeKey());
+      }
+
+      return committed;
+    } catch (IOException e) {
+      String errorMessage = "Caught IOException while attempting to commit a new artifact";
+
+      log.warn(errorMessage, e);
+      log.warn("Parsed request: {}", parsedRequest);
+
+      try {
+        repo.deleteArtifact(artifact.getNamespace(), artifact.getUuid());
+        removeAdditionalDigests(artifact.getUuid());
+      } catch (IOException ex) {
+        log.warn("Could not remove uncommitted artifact [uuid: {}]", artifact.getUuid(), ex);
+      }
+
+      throw new LockssRestServiceException(
+          LockssRestHttpException.ServerErrorType.DATA_ERROR,
+          HttpStatus.INTERNAL_SERVER_ERROR,
+          errorMessage, e, parsedRequest);
+    }
+  }
+
   /**
    * DELETE /artifacts/{artifactid}:
    * Deletes an artifact from this repository.
@@ -329,7 +813,12 @@ public class ArtifactsApiServiceImpl extends BaseSpringApiServiceImpl
       // Remove the artifact from the artifact store and index
       String key = artifactKey(namespace, artifactid);
       repo.deleteArtifact(namespace, artifactid);
+      removeAdditionalDigests(artifactid);
       sendCacheInvalidateArtifact(ArtifactCache.InvalidateOp.Delete, key);
+
+      if (hotCache != null) {
+        hotCache.invalidate(namespace, artifactid);
+      }
       return new ResponseEntity<>(HttpStatus.OK);
 
     } catch (LockssNoSuchArtifactIdException e) {
@@ -390,8 +879,15 @@ public class ArtifactsApiServiceImpl extends BaseSpringApiServiceImpl
               LockssRepository.IncludeContent.valueOf(includeContent),
               smallContentThreshold);
 
+      HttpHeaders respHeaders = new HttpHeaders();
+      String additionalDigests = getAdditionalDigests(artifactid);
+
+      if (additionalDigests != null) {
+        respHeaders.set(HttpBodyDigestOutputStream.X_LOCKSS_ADDITIONAL_DIGESTS, additionalDigests);
+      }
+
       //// Return multiparts response entity
-      return new ResponseEntity<MultiValueMap<String, Object>>(parts, HttpStatus.OK);
+      return new ResponseEntity<MultiValueMap<String, Object>>(parts, respHeaders, HttpStatus.OK);
 
     } catch (LockssNoSuchArtifactIdException e) {
       // Translate to LockssRestServiceException and throw
@@ -443,46 +939,95 @@ public class ArtifactsApiServiceImpl extends BaseSpringApiServiceImpl
     ServiceImplUtil.checkRepositoryReady(repo, parsedRequest);
 
     try {
-      ArtifactData ad = repo.getArtifactData(namespace, artifactId);
+      ResponseEntity<Resource> notModified = checkNotModified(namespace, artifactId, null);
 
-      HttpHeaders httpHeaders = ad.getHttpHeaders();
-      HttpHeaders respHeaders = new HttpHeaders();
-
-      // Selectively copy artifact headers into REST response
-      if (httpHeaders.containsKey(HttpHeaders.CONTENT_TYPE)) {
-        respHeaders.setContentType(httpHeaders.getContentType());
+      if (notModified != null) {
+        return notModified;
       }
 
-      if (httpHeaders.containsKey(HttpHeaders.LAST_MODIFIED)) {
-        respHeaders.setLastModified(httpHeaders.getLastModified());
+      HotArtifactCache.Entry cached = getHotArtifact(namespace, artifactId);
+
+      if (cached != null) {
+        return getCachedPayload(cached, artifactId, includeContent);
       }
 
-      respHeaders.setContentLength(ad.getContentLength());
-      respHeaders.set(ArtifactConstants.ARTIFACT_DIGEST_KEY, ad.getContentDigest());
+      ArtifactData ad = repo.getArtifactData(namespace, artifactId);
+
+      // Whether the payload stream of the artifact is passed to the response,
+      // which closes it; otherwise it is released here
+      boolean streamed = false;
+
+      try {
+        cached = cacheHotArtifact(namespace, artifactId, ad);
+
+        if (cached != null) {
+          return getCachedPayload(cached, artifactId, includeContent);
+        }
 
-      respHeaders.set(ArtifactConstants.ARTIFACT_STORE_DATE_KEY,
-          DateTimeFormatter.ISO_INSTANT
-              .format(Instant.ofEpochMilli(ad.getStoreDate()).atZone(ZoneOffset.UTC)));
+        String etag = artifactETag(ad.getContentDigest(), null);
+        HttpHeaders httpHeaders = ad.getHttpHeaders();
+        HttpHeaders respHeaders = payloadHeaders(etag, httpHeaders, ad.getContentLength(),
+            ad.getContentDigest(), getAdditionalDigests(artifactId), ad.getStoreDate());
 
-      if (includeContent == LockssRepository.IncludeContent.ALWAYS ||
-         (includeContent == LockssRepository.IncludeContent.IF_SMALL &&
-             ad.getContentLength() <= smallContentThreshold)) {
+        if (!includesContent(includeContent, ad.getContentLength())) {
+          return payloadHeadersOnly(respHeaders);
+        }
 
         respHeaders.set(ArtifactConstants.INCLUDES_CONTENT, "true");
 
-        // Return full HTTP response
-        InputStreamResource resource = new InputStreamResource(ad.getInputStream());
-        return new ResponseEntity<Resource>(resource, respHeaders, HttpStatus.OK);
-      } else {
-        // Remember the actual Content-Length in another header then set Content-Length to zero
-        respHeaders.set(ArtifactConstants.X_LOCKSS_CONTENT_LENGTH,
-            String.valueOf(respHeaders.getContentLength()));
-        respHeaders.setContentLength(0);
+        if (isHeadRequest()) {
+          // Headers only; the payload is not read
+          return new ResponseEntity<>(respHeaders, HttpStatus.OK);
+        }
+
+        Resource resource;
+
+        if (request.getHeader(HttpHeaders.RANGE) == null) {
+          ArtifactFileRegion region = locatePayloadRegion(ad);
+
+          if (region != null) {
+            // The servlet container sends the payload from the WARC file once
+            // the headers are written
+            region.sendfile(request);
+            return new ResponseEntity<>(respHeaders, HttpStatus.OK);
+          }
 
-        respHeaders.set(ArtifactConstants.INCLUDES_CONTENT, "false");
+          resource = new ArtifactPayloadResource(artifactId, ad.getContentLength(),
+              ad::getInputStream,
+              () -> repo.getArtifactData(namespace, artifactId).getInputStream());
+          streamed = true;
+        } else if (!ifRangeMatches(etag, httpHeaders)) {
+          // The client's copy is stale: send the whole payload, which Spring
+          // does not split into ranges for an InputStreamResource
+          resource = new InputStreamResource(ad.getInputStream());
+          streamed = true;
+        } else {
+          // Spring answers a Range request with the requested ranges of a
+          // Resource of known length, and sets the Content-Length of each.
+          // It answers an unsatisfiable range without reading the payload,
+          // so the payload is opened only when a range is read
+          respHeaders.remove(HttpHeaders.CONTENT_LENGTH);
+
+          ArtifactFileRegion region = locatePayload(ad);
+
+          if (region != null) {
+            // Each range is read from the WARC file, starting at its offset
+            resource = new ArtifactPayloadResource(artifactId, region);
+          } else {
+            // Compressed or not in a local file: reopen the artifact for
+            // each range
+            IOSupplier<InputStream> open =
+                () -> repo.getArtifactData(namespace, artifactId).getInputStream();
+            resource = new ArtifactPayloadResource(artifactId, ad.getContentLength(), open, open);
+          }
+        }
 
-        // Return a response with HTTP status line and headers only
-        return new ResponseEntity<Resource>(respHeaders, HttpStatus.OK);
+        // Return the payload, or the requested ranges of it
+        return new ResponseEntity<Resource>(resource, respHeaders, HttpStatus.OK);
+      } finally {
+        if (!streamed) {
+          ad.release();
+        }
       }
     } catch (LockssNoSuchArtifactIdException e) {
       // Translate to LockssRestServiceException and throw
@@ -534,40 +1079,70 @@ public class ArtifactsApiServiceImpl extends BaseSpringApiServiceImpl
     ServiceImplUtil.checkRepositoryReady(repo, parsedRequest);
 
     try {
-      ArtifactData ad = repo.getArtifactData(namespace, artifactId);
+      ResponseEntity<Resource> notModified =
+          checkNotModified(namespace, artifactId, RESPONSE_REPRESENTATION);
 
-      boolean onlyHeaders = includeContent == LockssRepository.IncludeContent.NEVER ||
-          (includeContent == LockssRepository.IncludeContent.IF_SMALL &&
-              ad.getContentLength() > smallContentThreshold);
+      if (notModified != null) {
+        return notModified;
+      }
 
-      InputStream httpResponseStream = onlyHeaders ?
-            new ByteArrayInputStream(ArtifactDataUtil.getHttpResponseHeader(ad)) :
-            ad.getResponseInputStream();
+      HotArtifactCache.Entry cached = getHotArtifact(namespace, artifactId);
 
-      InputStreamResource resource = new InputStreamResource(httpResponseStream);
+      if (cached != null) {
+        return getCachedResponse(cached, includeContent);
+      }
 
-      HttpHeaders restResponseHeaders = new HttpHeaders();
-      restResponseHeaders.setContentType(APPLICATION_HTTP_RESPONSE);
-      restResponseHeaders.set(ArtifactConstants.ARTIFACT_DATA_TYPE,
-          ad.isHttpResponse() ? "response" : "resource");
-      restResponseHeaders.set(ArtifactConstants.INCLUDES_CONTENT,
-          String.valueOf(!onlyHeaders));
+      ArtifactData ad = repo.getArtifactData(namespace, artifactId);
 
-      restResponseHeaders.set(ArtifactConstants.ARTIFACT_STORE_DATE_KEY,
-          DateTimeFormatter.ISO_INSTANT
-              .format(Instant.ofEpochMilli(ad.getStoreDate()).atZone(ZoneOffset.UTC)));
+      // Whether the stream of the artifact is passed to the response, which
+      // closes it; otherwise it is released here
+      boolean streamed = false;
 
-      return new ResponseEntity<>(resource, restResponseHeaders, HttpStatus.OK);
-    } catch (LockssNoSuchArtifactIdException e) {
-      // Translate to LockssRestServiceException and throw
-      throw new LockssRestServiceException("Artifact not found", e)
-          .setUtcTimestamp(LocalDateTime.now(ZoneOffset.UTC))
-          .setHttpStatus(HttpStatus.NOT_FOUND)
-          .setServletPath(request.getServletPath())
-          .setServerErrorType(LockssRestHttpException.ServerErrorType.DATA_ERROR)
-          .setParsedRequest(parsedRequest);
+      try {
+        cached = cacheHotArtifact(namespace, artifactId, ad);
 
-    } catch (IOException e) {
+        if (cached != null) {
+          return getCachedResponse(cached, includeContent);
+        }
+
+        boolean onlyHeaders = !includesContent(includeContent, ad.getContentLength());
+
+        HttpHeaders restResponseHeaders = responseHeaders(ad.getContentDigest(),
+            getAdditionalDigests(artifactId), ad.isHttpResponse(), onlyHeaders,
+            ad.getStoreDate());
+
+        if (isHeadRequest()) {
+          // Headers only; the artifact is not read
+          return new ResponseEntity<>(restResponseHeaders, HttpStatus.OK);
+        }
+
+        InputStream httpResponseStream;
+
+        if (onlyHeaders) {
+          httpResponseStream = new ByteArrayInputStream(ArtifactDataUtil.getHttpResponseHeader(ad));
+        } else {
+          httpResponseStream = ad.getResponseInputStream();
+          streamed = true;
+        }
+
+        InputStreamResource resource = new InputStreamResource(httpResponseStream);
+
+        return new ResponseEntity<>(resource, restResponseHeaders, HttpStatus.OK);
+      } finally {
+        if (!streamed) {
+          ad.release();
+        }
+      }
+    } catch (LockssNoSuchArtifactIdException e) {
+      // Translate to LockssRestServiceException and throw
+      throw new LockssRestServiceException("Artifact not found", e)
+          .setUtcTimestamp(LocalDateTime.now(ZoneOffset.UTC))
+          .setHttpStatus(HttpStatus.NOT_FOUND)
+          .setServletPath(request.getServletPath())
+          .setServerErrorType(LockssRestHttpException.ServerErrorType.DATA_ERROR)
+          .setParsedRequest(parsedRequest);
+
+    } catch (IOException e) {
       String errorMessage = String.format(
           "Caught IOException while attempting to retrieve artifact from repository [artifactId: %s]",
           artifactId);
@@ -862,7 +1437,7 @@ public class ArtifactsApiServiceImpl extends BaseSpringApiServiceImpl
       // unnecessary).
       if (!bulkAuids.contains(updatedArtifact.getAuid())) {
         sendCacheInvalidateArtifact(ArtifactCache.InvalidateOp.Commit,
-                                    artifactKey(namespace, artifactid));
+                                    updatedArtifact.makeKey());
       }
 
       // Return the updated Artifact
@@ -892,10 +1467,573 @@ public class ArtifactsApiServiceImpl extends BaseSpringApiServiceImpl
     }
   }
 
+  /**
+   * POST /artifacts/commit: Commits a list of artifacts
+   * <p>
+   * Artifacts are committed in order; a failure to commit one does not prevent
+   * the others from being committed. Cache invalidation is coalesced: a single
+   * notification is sent for each AU with committed artifacts.
+   *
+   * @param artifactIds A List of String with the identifiers of the artifacts.
+   * @param namespace   A String with the namespace of the artifacts.
+   * @return a {@code ResponseEntity<List<ImportStatus>>} with the result of
+   * committing each artifact.
+   */
+  @Override
+  public ResponseEntity<List<ImportStatus>> commitArtifacts(List<String> artifactIds,
+                                                            String namespace) {
+    long start = System.currentTimeMillis();
+
+    String parsedRequest = String.format(
+        "namespace: %s, artifactIds: %s, requestUrl: %s",
+        namespace, artifactIds == null ? null : artifactIds.size(),
+        ServiceImplUtil.getFullRequestUrl(request));
+
+    log.debug2("Parsed request: {}", parsedRequest);
+
+    ServiceImplUtil.checkRepositoryReady(repo, parsedRequest);
+
+    if (artifactIds == null) {
+      throw new LockssRestServiceException(
+          LockssRestHttpException.ServerErrorType.NONE, HttpStatus.BAD_REQUEST,
+          "No artifact identifiers provided", parsedRequest);
+    }
+
+    List<ImportStatus> result = new ArrayList<>(artifactIds.size());
+
+    // Keys of the committed artifacts, grouped by AUID, for cache invalidation
+    Map<String, List<String>> committedKeys = new LinkedHashMap<>();
+
+    for (String artifactId : artifactIds) {
+      ImportStatus status = new ImportStatus();
+      status.setArtifactUuid(artifactId);
+
+      try {
+        Artifact committed = repo.commitArtifact(namespace, artifactId);
+
+        status.setUrl(committed.getUri());
+        status.setDigest(committed.getContentDigest());
+        status.setVersion(committed.getVersion());
+        status.setStatus(ImportStatus.StatusEnum.OK);
+
+        // No invalidation for AUs in bulk mode (see updateArtifact())
+        if (!bulkAuids.contains(committed.getAuid())) {
+          committedKeys.computeIfAbsent(committed.getAuid(), k -> new ArrayList<>())
+              .add(committed.makeKey());
+        }
+      } catch (LockssNoSuchArtifactIdException e) {
+        status.setStatus(ImportStatus.StatusEnum.ERROR);
+        status.setStatusMessage("Artifact not found");
+      } catch (IOException e) {
+        log.warn("Could not commit artifact [uuid: {}]", artifactId, e);
+
+        status.setStatus(ImportStatus.StatusEnum.ERROR);
+        status.setStatusMessage(e.getMessage());
+      }
+
+      result.add(status);
+    }
+
+    // Broadcast one cache invalidate signal per AU
+    for (Map.Entry<String, List<String>> entry : committedKeys.entrySet()) {
+      List<String> keys = entry.getValue();
+
+      if (keys.size() == 1) {
+        sendCacheInvalidateArtifact(ArtifactCache.InvalidateOp.Commit, keys.get(0));
+      } else {
+        ServiceImplUtil.sendCacheInvalidateAu(jmsProducer, ArtifactCache.InvalidateOp.Commit,
+            entry.getKey());
+      }
+    }
+
+    log.debug2("Committed artifacts [count: {}, aus: {}, duration: {}]",
+        artifactIds.size(), committedKeys.size(),
+        TimeUtil.timeIntervalToString(System.currentTimeMillis() - start));
+
+    return new ResponseEntity<>(result, HttpStatus.OK);
+  }
+
+  /**
+   * POST /artifacts/exists: Checks which artifacts already exist
+   * <p>
+   * Only the artifact index is consulted; no artifact data is read. The
+   * versions of each (namespace, auid, url) are looked up once per request.
+   *
+   * @param queries A List of ArtifactExistenceQuery with the artifacts to
+   *                look up.
+   * @return a {@code ResponseEntity<List<ArtifactExistence>>} with the result
+   * of each lookup, in the same order.
+   */
+  @Override
+  public ResponseEntity<List<ArtifactExistence>> checkArtifactsExist(
+      List<ArtifactExistenceQuery> queries) {
+    long start = System.currentTimeMillis();
+
+    String parsedRequest = String.format("queries: %s, requestUrl: %s",
+        queries == null ? null : queries.size(),
+        ServiceImplUtil.getFullRequestUrl(request));
+
+    log.debug2("Parsed request: {}", parsedRequest);
+
+    ServiceImplUtil.checkRepositoryReady(repo, parsedRequest);
+
+    if (queries == null) {
+      throw new LockssRestServiceException(
+          LockssRestHttpException.ServerErrorType.NONE, HttpStatus.BAD_REQUEST,
+          "No artifacts to look up", parsedRequest);
+    }
+
+    if (queries.size() > maxExistsBatch) {
+      throw new LockssRestServiceException(
+          LockssRestHttpException.ServerErrorType.NONE, HttpStatus.BAD_REQUEST,
+          "Too many artifacts to look up: " + queries.size() + " > " + maxExistsBatch,
+          parsedRequest);
+    }
+
+    List<ArtifactExistence> result = new ArrayList<>(queries.size());
+
+    // Committed versions of each URL looked up, latest first
+    Map<List<String>, List<Artifact>> versionsByUrl = new HashMap<>();
+
+    try {
+      for (ArtifactExistenceQuery query : queries) {
+        String namespace = StringUtil.isNullString(query.getNamespace()) ?
+            ServiceImplUtil.DEFAULT_NAMESPACE : query.getNamespace();
+
+        if (StringUtil.isNullString(query.getAuid()) ||
+            StringUtil.isNullString(query.getUrl())) {
+          throw new LockssRestServiceException(
+              LockssRestHttpException.ServerErrorType.NONE, HttpStatus.BAD_REQUEST,
+              "Missing auid or url in lookup", parsedRequest);
+        }
+
+        List<String> key = List.of(namespace, query.getAuid(), query.getUrl());
+        List<Artifact> versions = versionsByUrl.get(key);
+
+        if (versions == null) {
+          versions = new ArrayList<>();
+          for (Artifact artifact :
+              repo.getArtifactsAllVersions(namespace, query.getAuid(), query.getUrl())) {
+            versions.add(artifact);
+          }
+          versions.sort(ArtifactComparators.BY_URI_BY_DECREASING_VERSION);
+          versionsByUrl.put(key, versions);
+        }
+
+        ArtifactExistence existence = new ArtifactExistence();
+        existence.setNamespace(namespace);
+        existence.setAuid(query.getAuid());
+        existence.setUrl(query.getUrl());
+        existence.setDigest(query.getDigest());
+        existence.setExists(false);
+
+        for (Artifact artifact : versions) {
+          if (query.getDigest() == null ||
+              query.getDigest().equals(artifact.getContentDigest())) {
+            existence.setExists(true);
+            existence.setArtifactUuid(artifact.getUuid());
+            existence.setVersion(artifact.getVersion());
+            break;
+          }
+        }
+
+        result.add(existence);
+      }
+    } catch (IOException e) {
+      String errorMessage = "Caught IOException while looking up artifacts";
+
+      log.error(errorMessage, e);
+      log.error("Parsed request: {}", parsedRequest);
+
+      throw new LockssRestServiceException(
+          LockssRestHttpException.ServerErrorType.DATA_ERROR,
+          HttpStatus.INTERNAL_SERVER_ERROR,
+          errorMessage, e, parsedRequest);
+    }
+
+    log.debug2("Looked up artifacts [count: {}, urls: {}, duration: {}]",
+        queries.size(), versionsByUrl.size(),
+        TimeUtil.timeIntervalToString(System.currentTimeMillis() - start));
+
+    return new ResponseEntity<>(result, HttpStatus.OK);
+  }
+
   ////////////////////////////////////////////////////////////////////////////////
   // UTILITIES ///////////////////////////////////////////////////////////////////
   ////////////////////////////////////////////////////////////////////////////////
 
+  /**
+   * Determines whether the content of an artifact is included in a response.
+   */
+  private boolean includesContent(LockssRepository.IncludeContent includeContent,
+                                  long contentLength) {
+    return includeContent == LockssRepository.IncludeContent.ALWAYS ||
+        (includeContent == LockssRepository.IncludeContent.IF_SMALL &&
+            contentLength <= smallContentThreshold);
+  }
+
+  /**
+   * Returns the headers of a response to GET /artifacts/{uuid}/payload.
+   */
+  private static HttpHeaders payloadHeaders(String etag, HttpHeaders httpHeaders,
+                                            long contentLength, String contentDigest,
+                                            String additionalDigests, long storeDate) {
+    HttpHeaders respHeaders = new HttpHeaders();
+
+    if (etag != null) {
+      respHeaders.setETag(etag);
+    }
+
+    // Selectively copy artifact headers into REST response
+    if (httpHeaders.containsKey(HttpHeaders.CONTENT_TYPE)) {
+      respHeaders.setContentType(httpHeaders.getContentType());
+    }
+
+    if (httpHeaders.containsKey(HttpHeaders.LAST_MODIFIED)) {
+      respHeaders.setLastModified(httpHeaders.getLastModified());
+    }
+
+    respHeaders.setContentLength(contentLength);
+    respHeaders.set(ArtifactConstants.ARTIFACT_DIGEST_KEY, contentDigest);
+
+    if (additionalDigests != null) {
+      respHeaders.set(HttpBodyDigestOutputStream.X_LOCKSS_ADDITIONAL_DIGESTS, additionalDigests);
+    }
+
+    respHeaders.set(ArtifactConstants.ARTIFACT_STORE_DATE_KEY,
+        DateTimeFormatter.ISO_INSTANT
+            .format(Instant.ofEpochMilli(storeDate).atZone(ZoneOffset.UTC)));
+
+    return respHeaders;
+  }
+
+  /**
+   * Returns a response to GET /artifacts/{uuid}/payload without the payload.
+   */
+  private static ResponseEntity<Resource> payloadHeadersOnly(HttpHeaders respHeaders) {
+    // Remember the actual Content-Length in another header then set Content-Length to zero
+    respHeaders.set(ArtifactConstants.X_LOCKSS_CONTENT_LENGTH,
+        String.valueOf(respHeaders.getContentLength()));
+    respHeaders.setContentLength(0);
+
+    respHeaders.set(ArtifactConstants.INCLUDES_CONTENT, "false");
+
+    // Return a response with HTTP status line and headers only
+    return new ResponseEntity<Resource>(respHeaders, HttpStatus.OK);
+  }
+
+  /**
+   * Returns the headers of a response to GET /artifacts/{uuid}/response.
+   */
+  private static HttpHeaders responseHeaders(String contentDigest, String additionalDigests,
+                                             boolean httpResponse, boolean onlyHeaders,
+                                             long storeDate) {
+    HttpHeaders restResponseHeaders = new HttpHeaders();
+    String etag = artifactETag(contentDigest, RESPONSE_REPRESENTATION);
+
+    if (etag != null) {
+      restResponseHeaders.setETag(etag);
+    }
+    restResponseHeaders.setContentType(APPLICATION_HTTP_RESPONSE);
+    restResponseHeaders.set(ArtifactConstants.ARTIFACT_DATA_TYPE,
+        httpResponse ? "response" : "resource");
+    restResponseHeaders.set(ArtifactConstants.INCLUDES_CONTENT,
+        String.valueOf(!onlyHeaders));
+
+    if (additionalDigests != null) {
+      restResponseHeaders.set(HttpBodyDigestOutputStream.X_LOCKSS_ADDITIONAL_DIGESTS,
+          additionalDigests);
+    }
+
+    restResponseHeaders.set(ArtifactConstants.ARTIFACT_STORE_DATE_KEY,
+        DateTimeFormatter.ISO_INSTANT
+            .format(Instant.ofEpochMilli(storeDate).atZone(ZoneOffset.UTC)));
+
+    return restResponseHeaders;
+  }
+
+  /**
+   * Returns an artifact from the hot artifact cache, recording the read.
+   *
+   * @return the cached artifact, pinned until the request completes, or null
+   * if it isn't cached.
+   */
+  private HotArtifactCache.Entry getHotArtifact(String namespace, String artifactId) {
+    HotArtifactCache cache = hotCache;
+
+    if (cache == null) {
+      return null;
+    }
+
+    return releaseAfterRequest(cache.get(namespace, artifactId));
+  }
+
+  // Releases an artifact obtained from the hot artifact cache once the
+  // response, which may be streamed from it, has been sent
+  private static HotArtifactCache.Entry releaseAfterRequest(HotArtifactCache.Entry entry) {
+    if (entry != null) {
+      RequestContextHolder.currentRequestAttributes().registerDestructionCallback(
+          HotArtifactCache.Entry.class.getName(), entry::release,
+          RequestAttributes.SCOPE_REQUEST);
+    }
+
+    return entry;
+  }
+
+  /**
+   * Reads an artifact into the hot artifact cache if it is read often enough
+   * to be admitted, is small enough, and is committed, as an uncommitted
+   * artifact may be removed without being deleted through this service.
+   * Only HTTP responses are cached.
+   *
+   * @return the cached artifact, pinned until the request completes, from
+   * which the response must be served as the artifact's payload stream has
+   * been consumed, or null if it wasn't cached, in which case the stream
+   * hasn't been read.
+   */
+  private HotArtifactCache.Entry cacheHotArtifact(String namespace, String artifactId,
+                                                  ArtifactData ad) throws IOException {
+    HotArtifactCache cache = hotCache;
+
+    if (cache == null || isHeadRequest() || !ad.isHttpResponse() ||
+        !cache.shouldAdmit(namespace, artifactId, ad.getContentLength())) {
+      return null;
+    }
+
+    Artifact artifact = repo.getArtifactFromUuid(artifactId);
+
+    if (artifact == null || !Boolean.TRUE.equals(artifact.getCommitted())) {
+      return null;
+    }
+
+    return releaseAfterRequest(
+        cache.read(namespace, artifactId, ad, getAdditionalDigests(artifactId)));
+  }
+
+  /**
+   * Returns a response to GET /artifacts/{uuid}/payload from the hot
+   * artifact cache.
+   */
+  private ResponseEntity<Resource> getCachedPayload(HotArtifactCache.Entry cached,
+                                                    String artifactId,
+                                                    LockssRepository.IncludeContent includeContent) {
+    String etag = artifactETag(cached.getContentDigest(), null);
+    HttpHeaders respHeaders = payloadHeaders(etag, cached.getHttpHeaders(),
+        cached.getContentLength(), cached.getContentDigest(),
+        cached.getAdditionalDigests(), cached.getStoreDate());
+
+    if (!includesContent(includeContent, cached.getContentLength())) {
+      return payloadHeadersOnly(respHeaders);
+    }
+
+    respHeaders.set(ArtifactConstants.INCLUDES_CONTENT, "true");
+
+    if (isHeadRequest()) {
+      return new ResponseEntity<>(respHeaders, HttpStatus.OK);
+    }
+
+    Resource resource;
+
+    if (request.getHeader(HttpHeaders.RANGE) != null &&
+        !ifRangeMatches(etag, cached.getHttpHeaders())) {
+      resource = new InputStreamResource(cached.openPayload());
+    } else {
+      if (request.getHeader(HttpHeaders.RANGE) != null) {
+        respHeaders.remove(HttpHeaders.CONTENT_LENGTH);
+      }
+
+      resource = new ArtifactPayloadResource(artifactId, cached.getContentLength(),
+          cached::openPayload, cached::openPayload);
+    }
+
+    return new ResponseEntity<Resource>(resource, respHeaders, HttpStatus.OK);
+  }
+
+  /**
+   * Returns a response to GET /artifacts/{uuid}/response from the hot
+   * artifact cache.
+   */
+  private ResponseEntity<Resource> getCachedResponse(HotArtifactCache.Entry cached,
+                                                     LockssRepository.IncludeContent includeContent) {
+    boolean onlyHeaders = !includesContent(includeContent, cached.getContentLength());
+    HttpHeaders restResponseHeaders = responseHeaders(cached.getContentDigest(),
+        cached.getAdditionalDigests(), true, onlyHeaders, cached.getStoreDate());
+
+    if (isHeadRequest()) {
+      return new ResponseEntity<>(restResponseHeaders, HttpStatus.OK);
+    }
+
+    InputStream httpResponseStream = onlyHeaders ?
+        new ByteArrayInputStream(cached.getHttpResponseHeader()) :
+        cached.openResponse();
+
+    return new ResponseEntity<>(new InputStreamResource(httpResponseStream),
+        restResponseHeaders, HttpStatus.OK);
+  }
+
+  // Distinguishes the entity tag of the HTTP response of an artifact from
+  // that of its payload
+  private static final String RESPONSE_REPRESENTATION = "response";
+
+  /**
+   * Returns the strong entity tag of a representation of an artifact, which
+   * is derived from its content digest, as an artifact never changes.
+   *
+   * @param contentDigest  A String with the content digest of the artifact.
+   * @param representation A String distinguishing a representation other
+   *                       than the payload, or null.
+   * @return the entity tag, or null if the artifact has no content digest.
+   */
+  static String artifactETag(String contentDigest, String representation) {
+    if (contentDigest == null) {
+      return null;
+    }
+
+    return "\"" + contentDigest + (representation == null ? "" : ";" + representation) + "\"";
+  }
+
+  /**
+   * Answers a conditional request for an artifact from its index entry,
+   * without reading its data.
+   * <p>
+   * If-None-Match is compared with the entity tag derived from the content
+   * digest. Otherwise If-Modified-Since is satisfied by any date since the
+   * artifact was collected: an artifact never changes, and did not exist in
+   * the repository before then.
+   *
+   * @return a 304 response if the client's copy is current, otherwise null.
+   */
+  private <T> ResponseEntity<T> checkNotModified(String namespace, String artifactId,
+                                                 String representation)
+      throws IOException {
+    String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+    long ifModifiedSince = -1;
+
+    if (ifNoneMatch == null) {
+      try {
+        ifModifiedSince = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+      } catch (IllegalArgumentException e) {
+        log.debug2("Ignoring invalid If-Modified-Since");
+      }
+
+      if (ifModifiedSince < 0) {
+        return null;
+      }
+    }
+
+    Artifact artifact = repo.getArtifactFromUuid(artifactId);
+
+    if (artifact == null || !artifact.getNamespace().equals(namespace) ||
+        artifact.getContentDigest() == null) {
+      // Not answered here
+      return null;
+    }
+
+    String etag = artifactETag(artifact.getContentDigest(), representation);
+
+    boolean notModified = ifNoneMatch != null ?
+        etagMatches(ifNoneMatch, etag, true) :
+        artifact.getCollectionDate() > 0 &&
+            ifModifiedSince >= artifact.getCollectionDate() / 1000 * 1000;
+
+    if (!notModified) {
+      return null;
+    }
+
+    log.debug2("Not modified [artifactId: {}]", artifactId);
+
+    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+  }
+
+  /**
+   * Determines whether an If-Range precondition, if any, allows a range of
+   * the payload to be sent: it must be the strong entity tag of the
+   * artifact, or the date in its Last-Modified header.
+   */
+  private boolean ifRangeMatches(String etag, HttpHeaders httpHeaders) {
+    String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+
+    if (ifRange == null) {
+      return true;
+    }
+
+    if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+      return etagMatches(ifRange, etag, false);
+    }
+
+    try {
+      long date = request.getDateHeader(HttpHeaders.IF_RANGE);
+      return httpHeaders.containsKey(HttpHeaders.LAST_MODIFIED) &&
+          date == httpHeaders.getLastModified();
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Determines whether a list of entity tags from a request header matches an
+   * entity tag.
+   *
+   * @param weak Whether to use the weak comparison of If-None-Match, which
+   *             ignores the W/ prefix, rather than the strong comparison of
+   *             If-Range.
+   */
+  static boolean etagMatches(String header, String etag, boolean weak) {
+    for (String candidate : header.split(",")) {
+      candidate = candidate.trim();
+
+      if (weak && candidate.equals("*")) {
+        return true;
+      }
+
+      if (candidate.startsWith("W/")) {
+        if (!weak) {
+          continue;
+        }
+        candidate = candidate.substring(2);
+      }
+
+      if (candidate.equals(etag)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Returns the region of its WARC file holding the payload of an artifact,
+   * if it can and should be sent with sendfile, otherwise null.
+   */
+  private ArtifactFileRegion locatePayloadRegion(ArtifactData ad) {
+    if (!payloadSendfile || ad.getContentLength() < payloadSendfileMinSize ||
+        !ArtifactFileRegion.isSendfileSupported(request)) {
+      return null;
+    }
+
+    return locatePayload(ad);
+  }
+
+  /**
+   * Returns the region of its WARC file holding the payload of an artifact,
+   * or null if it is compressed or not stored in a local file.
+   */
+  private ArtifactFileRegion locatePayload(ArtifactData ad) {
+    try {
+      ArtifactFileRegion region = ArtifactFileRegion.locate(ad);
+      log.trace("region = {}", region);
+      return region;
+    } catch (IOException e) {
+      log.debug("Couldn't locate payload in WARC file, copying it [storageUrl: {}]",
+          ad.getStorageUrl(), e);
+      return null;
+    }
+  }
+
+  private boolean isHeadRequest() {
+    return HttpMethod.HEAD.matches(request.getMethod());
+  }
+
   String artifactKey(String namespace, String artifactUuid)
       throws IOException {
     Artifact art = repo.getArtifactFromUuid(artifactUuid);
@@ -945,6 +2083,41 @@ public class ArtifactsApiServiceImpl extends BaseSpringApiServiceImpl
     log.debug2("uri '{}' is valid.", uri);
   }
 
+  /**
+   * Validates that the artifact properties of a streaming artifact creation
+   * request provide the content length and digest against which the payload
+   * will be verified.
+   *
+   * @param props         An ArtifactProperties with the artifact properties.
+   * @param payload       A StreamingPayloadFileItem with the streaming payload.
+   * @param parsedRequest A String with the parsed request for diagnostic
+   *                      purposes.
+   */
+  private void validateStreamingProperties(ArtifactProperties props,
+                                           StreamingPayloadFileItem payload,
+                                           String parsedRequest) {
+    String errorMessage = null;
+
+    if (props.getContentLength() == null || props.getContentLength() < 0) {
+      errorMessage = "Streaming payload requires the contentLength property";
+    } else if (StringUtil.isNullString(props.getContentDigest())) {
+      errorMessage = "Streaming payload requires the contentDigest property";
+    } else if (!props.getContentDigest().toUpperCase()
+        .startsWith(payload.getDigestAlgorithm().toUpperCase() + ":")) {
+      errorMessage = "Streaming payload requires a " + payload.getDigestAlgorithm()
+          + " contentDigest property";
+    }
+
+    if (errorMessage != null) {
+      log.warn(errorMessage);
+      log.warn("Parsed request: {}", parsedRequest);
+
+      throw new LockssRestServiceException(
+          LockssRestHttpException.ServerErrorType.NONE, HttpStatus.BAD_REQUEST,
+          errorMessage, parsedRequest);
+    }
+  }
+
   ////////////////////////////////////////////////////////////////////////////////
   // JMS /////////////////////////////////////////////////////////////////////////
   ////////////////////////////////////////////////////////////////////////////////
@@ -3,6 +3,7 @@ package org.lockss.laaws.rs.impl;
 import org.apache.commons.collections4.map.PassiveExpiringMap;
 import org.lockss.config.Configuration;
 import org.lockss.laaws.rs.api.AusApiDelegate;
+import org.lockss.laaws.rs.model.BulkStoreStatus;
 import org.lockss.log.L4JLogger;
 import org.lockss.rs.BaseLockssRepository;
 import org.lockss.rs.io.index.ArtifactIndex;
@@ -19,15 +20,17 @@ import org.lockss.util.rest.repo.util.ArtifactComparators;
 import org.lockss.util.time.Deadline;
 import org.lockss.util.time.TimeUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import jakarta.servlet.http.HttpServletRequest;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.*;
 
 import static org.lockss.laaws.rs.impl.ServiceImplUtil.populateArtifacts;
 import static org.lockss.laaws.rs.impl.ServiceImplUtil.validateLimit;
@@ -43,6 +46,12 @@ public class AusApiServiceImpl extends BaseSpringApiServiceImpl implements AusAp
 
   private Set<String> bulkAuids = new CopyOnWriteArraySet<>();
 
+  // Latest bulk store finish of each AU, by namespace and AUID
+  private final Map<String, BulkStoreJob> bulkStoreJobs = new ConcurrentHashMap<>();
+
+  // Executor of bulk store finishes; created on first use
+  private ThreadPoolExecutor bulkStoreExecutor;
+
   // These maps are initialized to normal maps just in case they're
   // accessed before setConfig() is called and creates the official
   // PassiveExpiringMaps.  I don't think the service methods here can
@@ -115,6 +124,22 @@ public class AusApiServiceImpl extends BaseSpringApiServiceImpl implements AusAp
   public static final boolean DEFAULT_BULK_INDEX_ENABLED = true;
   private boolean bulkIndexEnabled = DEFAULT_BULK_INDEX_ENABLED;
 
+  /**
+   * Number of AUs whose bulk artifacts may be transferred to the index
+   * concurrently.
+   */
+  public static final String PARAM_BULK_INDEX_FINISH_THREADS = PREFIX + "bulkIndexFinishThreads";
+  public static final int DEFAULT_BULK_INDEX_FINISH_THREADS = 2;
+  private int bulkIndexFinishThreads = DEFAULT_BULK_INDEX_FINISH_THREADS;
+
+  /**
+   * Interval after which the status of a completed bulk store finish is
+   * discarded.
+   */
+  public static final String PARAM_BULK_INDEX_JOB_RETENTION = PREFIX + "bulkIndexJobRetention";
+  public static final long DEFAULT_BULK_INDEX_JOB_RETENTION = 24 * TimeUtil.HOUR;
+  private long bulkIndexJobRetention = DEFAULT_BULK_INDEX_JOB_RETENTION;
+
   /**
    * Interval after which unused Artifact iterator continuations will
    * be discarded.  Change requires restart to take effect.
@@ -154,6 +179,14 @@ public class AusApiServiceImpl extends BaseSpringApiServiceImpl implements AusAp
               DEFAULT_BULK_INDEX_BATCH_SIZE);
       bulkIndexEnabled = newConfig.getBoolean(PARAM_BULK_INDEX_ENABLED,
                                               DEFAULT_BULK_INDEX_ENABLED);
+      bulkIndexFinishThreads = newConfig.getInt(PARAM_BULK_INDEX_FINISH_THREADS,
+          DEFAULT_BULK_INDEX_FINISH_THREADS);
+      bulkIndexJobRetention = newConfig.getTimeInterval(PARAM_BULK_INDEX_JOB_RETENTION,
+          DEFAULT_BULK_INDEX_JOB_RETENTION);
+
+      synchronized (this) {
+        ServiceImplUtil.setPoolSize(bulkStoreExecutor, bulkIndexFinishThreads);
+      }
 
       // The first time setConfig() is called, replace the temporary
       // iterator continuation maps
@@ -182,6 +215,7 @@ public class AusApiServiceImpl extends BaseSpringApiServiceImpl implements AusAp
         public void timerExpired(Object cookie) {
           timeoutIterators(artifactIterators);
           timeoutIterators(auidIterators);
+          expireBulkStoreJobs();
         }
       };
 
@@ -190,6 +224,11 @@ public class AusApiServiceImpl extends BaseSpringApiServiceImpl implements AusAp
     map.isEmpty();
   }
 
+  private void expireBulkStoreJobs() {
+    long cutoff = System.currentTimeMillis() - bulkIndexJobRetention;
+    bulkStoreJobs.values().removeIf(job -> job.isDone() && job.getEndTime() < cutoff);
+  }
+
   ////////////////////////////////////////////////////////////////////////////////
   // REST ////////////////////////////////////////////////////////////////////////
   ////////////////////////////////////////////////////////////////////////////////
@@ -811,17 +850,23 @@ public class AusApiServiceImpl extends BaseSpringApiServiceImpl implements AusAp
   /**
    * Handles bulk transfer operations for an AUID in a namespace. Possible operations are {@code start} and {@code
    * finish}.
+   * <p>
+   * A finish transfers the artifacts of the AU to the artifact index on the bulk store executor, which runs the
+   * transfers of several AUs concurrently. It is run in the background if {@code async} is true, otherwise the
+   * response is sent when it completes. A finish of an AU whose finish is already in progress joins it.
    *
    * @param auid A {@link String} containing the AUID to operate on.
    * @param op A {@link String} with the operation to perform. Must be either {@code start} or {@code finish}.
    * @param namespace A {@link String} containing the namespace of the AUID to operate on.
-   * @return TBD
+   * @param async A {@link Boolean} indicating whether a finish is to be run in the background.
+   * @return the {@link BulkStoreStatus} of a finish, with status 202 if it is run in the background.
    */
   @Override
-  public ResponseEntity<Void> handleBulkAuOp(String auid, String op, String namespace) {
+  public ResponseEntity<BulkStoreStatus> handleBulkAuOp(String auid, String op, String namespace,
+                                                        Boolean async) {
 
-    String parsedRequest = String.format("namespace: %s, auid: %s, op: %s, requestUrl: %s",
-        namespace, auid, op, ServiceImplUtil.getFullRequestUrl(request));
+    String parsedRequest = String.format("namespace: %s, auid: %s, op: %s, async: %s, requestUrl: %s",
+        namespace, auid, op, async, ServiceImplUtil.getFullRequestUrl(request));
 
     log.debug2("Parsed request: {}", parsedRequest);
 
@@ -830,16 +875,55 @@ public class AusApiServiceImpl extends BaseSpringApiServiceImpl implements AusAp
       try {
         switch (op) {
           case "start":
-            log.debug("startBulkStore({}, {})", namespace, auid);
-            bulkAuids.add(auid);
-            index.startBulkStore(namespace, auid);
+            try {
+              // Checked and started under the AU's entry, so that a finish
+              // cannot be submitted in between
+              bulkStoreJobs.compute(bulkStoreKey(namespace, auid), (key, finishing) -> {
+                if (finishing != null && !finishing.isDone()) {
+                  throw new LockssRestServiceException("Bulk store finish in progress")
+                      .setServerErrorType(LockssRestHttpException.ServerErrorType.NONE)
+                      .setHttpStatus(HttpStatus.CONFLICT)
+                      .setServletPath(request.getServletPath())
+                      .setParsedRequest(parsedRequest);
+                }
+
+                try {
+                  log.debug("startBulkStore({}, {})", namespace, auid);
+                  bulkAuids.add(auid);
+                  index.startBulkStore(namespace, auid);
+                } catch (IOException e) {
+                  throw new UncheckedIOException(e);
+                }
+
+                return finishing;
+              });
+            } catch (UncheckedIOException e) {
+              throw e.getCause();
+            }
             break;
 
           case "finish":
-            log.debug("finishBulkStore({}, {})", namespace, auid);
-            bulkAuids.remove(auid);
-            index.finishBulkStore(namespace, auid, bulkIndexBatchSize);
-            break;
+            BulkStoreJob job = submitBulkStoreFinish(index, namespace, auid);
+
+            if (Boolean.TRUE.equals(async)) {
+              HttpHeaders headers = new HttpHeaders();
+              headers.setLocation(UriComponentsBuilder.fromPath(request.getContextPath())
+                  .path("/aus/{auid}/bulk")
+                  .queryParam("namespace", "{namespace}")
+                  .encode()
+                  .buildAndExpand(auid, namespace)
+                  .toUri());
+
+              return new ResponseEntity<>(job.getStatus(), headers, HttpStatus.ACCEPTED);
+            }
+
+            job.getCompletion().get();
+
+            if (job.getStatus().getState() == BulkStoreStatus.StateEnum.FAILED) {
+              throw new IOException(job.getErrorMessage());
+            }
+
+            return new ResponseEntity<>(job.getStatus(), HttpStatus.OK);
 
           default:
             throw new LockssRestServiceException("Unknown bulk operation")
@@ -848,7 +932,7 @@ public class AusApiServiceImpl extends BaseSpringApiServiceImpl implements AusAp
                 .setServletPath(request.getServletPath())
                 .setParsedRequest(parsedRequest);
         }
-      } catch (IOException e) {
+      } catch (IOException | ExecutionException e) {
         String errorMessage = String.format("IOException attempting to start or finish bulk store: %s", auid);
         log.warn(errorMessage, e);
         log.warn("Parsed request: {}", parsedRequest);
@@ -857,6 +941,13 @@ public class AusApiServiceImpl extends BaseSpringApiServiceImpl implements AusAp
             LockssRestHttpException.ServerErrorType.APPLICATION_ERROR,
             HttpStatus.INTERNAL_SERVER_ERROR,
             errorMessage, e, parsedRequest);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+
+        throw new LockssRestServiceException(
+            LockssRestHttpException.ServerErrorType.APPLICATION_ERROR,
+            HttpStatus.INTERNAL_SERVER_ERROR,
+            "Interrupted while finishing bulk store", e, parsedRequest);
       }
     } else {
       log.debug2("Bulk indexing disabled, ignoring bulk {} for {}", op, auid);
@@ -864,6 +955,101 @@ public class AusApiServiceImpl extends BaseSpringApiServiceImpl implements AusAp
     return new ResponseEntity<>(HttpStatus.OK);
   }
 
+  /**
+   * GET /aus/{auid}/bulk:
+   * Provides the status of the latest bulk store finish of an AUID in a namespace.
+   *
+   * @param auid A {@link String} containing the AUID.
+   * @param namespace A {@link String} containing the namespace of the AUID.
+   * @return the {@link BulkStoreStatus} of the finish.
+   */
+  @Override
+  public ResponseEntity<BulkStoreStatus> getBulkStoreStatus(String auid, String namespace) {
+    String parsedRequest = String.format("namespace: %s, auid: %s, requestUrl: %s",
+        namespace, auid, ServiceImplUtil.getFullRequestUrl(request));
+
+    log.debug2("Parsed request: {}", parsedRequest);
+
+    BulkStoreJob job = bulkStoreJobs.get(bulkStoreKey(namespace, auid));
+
+    if (job == null) {
+      String errorMessage = "No bulk store finish of the AU";
+      throw new LockssRestServiceException(LockssRestHttpException.ServerErrorType.DATA_ERROR,
+          HttpStatus.NOT_FOUND, errorMessage, parsedRequest);
+    }
+
+    return new ResponseEntity<>(job.getStatus(), HttpStatus.OK);
+  }
+
+  /**
+   * Queues the transfer of the artifacts of an AU in bulk mode to the index,
+   * unless one is already queued or running.
+   *
+   * @return the {@link BulkStoreJob} of the transfer.
+   */
+  private BulkStoreJob submitBulkStoreFinish(ArtifactIndex index, String namespace, String auid) {
+    boolean[] created = {false};
+
+    BulkStoreJob job = bulkStoreJobs.compute(bulkStoreKey(namespace, auid), (key, current) -> {
+      if (current != null && !current.isDone()) {
+        return current;
+      }
+
+      created[0] = true;
+      return new BulkStoreJob(namespace, auid);
+    });
+
+    if (created[0]) {
+      bulkAuids.remove(auid);
+
+      log.debug("finishBulkStore({}, {}) [jobId: {}]", namespace, auid, job.getJobId());
+      getBulkStoreExecutor().execute(() -> runBulkStoreFinish(index, job));
+    }
+
+    return job;
+  }
+
+  /**
+   * Runs a bulk store finish.
+   */
+  private void runBulkStoreFinish(ArtifactIndex index, BulkStoreJob job) {
+    Throwable error = null;
+
+    try {
+      job.start();
+      index.finishBulkStore(job.getNamespace(), job.getAuid(), bulkIndexBatchSize);
+    } catch (Exception e) {
+      log.error("Bulk store finish failed [namespace: {}, auid: {}]",
+          job.getNamespace(), job.getAuid(), e);
+      error = e;
+    } finally {
+      job.finish(error);
+    }
+
+    log.debug("Finished bulk store [jobId: {}, status: {}]", job.getJobId(), job.getStatus());
+  }
+
+  private static String bulkStoreKey(String namespace, String auid) {
+    return namespace + "\n" + auid;
+  }
+
+  private synchronized ThreadPoolExecutor getBulkStoreExecutor() {
+    if (bulkStoreExecutor == null) {
+      bulkStoreExecutor = new ThreadPoolExecutor(bulkIndexFinishThreads, bulkIndexFinishThreads,
+          60, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+      bulkStoreExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    return bulkStoreExecutor;
+  }
+
+  @jakarta.annotation.PreDestroy
+  private void shutdown() {
+    if (bulkStoreExecutor != null) {
+      bulkStoreExecutor.shutdownNow();
+    }
+  }
+
   ////////////////////////////////////////////////////////////////////////////////
   ////////////////////////////////////////////////////////////////////////////////
   ////////////////////////////////////////////////////////////////////////////////
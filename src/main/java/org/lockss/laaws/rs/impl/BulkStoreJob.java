@@ -0,0 +1,144 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.impl;
+
+import org.lockss.laaws.rs.model.BulkStoreStatus;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A transfer of the artifacts of an AU in bulk mode to the artifact index,
+ * run by {@link AusApiServiceImpl} on its bulk store executor.
+ * <p>
+ * The index does not report the progress of a transfer while it runs, so
+ * only the time it has been running is reported.
+ */
+public class BulkStoreJob {
+  private final String jobId = UUID.randomUUID().toString();
+  private final String namespace;
+  private final String auid;
+  private final CompletableFuture<BulkStoreJob> completion = new CompletableFuture<>();
+
+  private volatile BulkStoreStatus.StateEnum state = BulkStoreStatus.StateEnum.QUEUED;
+  private volatile String errorMessage;
+
+  private final long submitTime = System.currentTimeMillis();
+  private volatile long startTime;
+  private volatile long endTime;
+
+  public BulkStoreJob(String namespace, String auid) {
+    this.namespace = namespace;
+    this.auid = auid;
+  }
+
+  public String getJobId() {
+    return jobId;
+  }
+
+  public String getNamespace() {
+    return namespace;
+  }
+
+  public String getAuid() {
+    return auid;
+  }
+
+  public boolean isDone() {
+    return state == BulkStoreStatus.StateEnum.DONE
+        || state == BulkStoreStatus.StateEnum.FAILED;
+  }
+
+  public long getEndTime() {
+    return endTime;
+  }
+
+  /**
+   * Returns a future completed with this job when it finishes, successfully
+   * or not.
+   */
+  public CompletableFuture<BulkStoreJob> getCompletion() {
+    return completion;
+  }
+
+  /**
+   * Returns the message of the error that failed the job, or null.
+   */
+  public String getErrorMessage() {
+    return errorMessage;
+  }
+
+  /**
+   * Marks the job as started.
+   */
+  void start() {
+    startTime = System.currentTimeMillis();
+    state = BulkStoreStatus.StateEnum.RUNNING;
+  }
+
+  /**
+   * Marks the job as finished, successfully or not.
+   */
+  void finish(Throwable error) {
+    if (error != null) {
+      errorMessage = error.getMessage();
+      state = BulkStoreStatus.StateEnum.FAILED;
+    } else {
+      state = BulkStoreStatus.StateEnum.DONE;
+    }
+
+    endTime = System.currentTimeMillis();
+    completion.complete(this);
+  }
+
+  /**
+   * Returns the current status of this job.
+   */
+  public BulkStoreStatus getStatus() {
+    BulkStoreStatus status = new BulkStoreStatus();
+    status.setJobId(jobId);
+    status.setNamespace(namespace);
+    status.setAuid(auid);
+    status.setState(state);
+    status.setSubmitTime(submitTime);
+    status.setStartTime(startTime == 0 ? null : startTime);
+    status.setEndTime(endTime == 0 ? null : endTime);
+    status.setErrorMessage(errorMessage);
+
+    if (startTime != 0) {
+      status.setElapsedTime((endTime == 0 ? System.currentTimeMillis() : endTime) - startTime);
+    }
+
+    return status;
+  }
+}
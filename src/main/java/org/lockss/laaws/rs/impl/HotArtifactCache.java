@@ -0,0 +1,979 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.impl;
+
+import org.apache.commons.io.function.IOSupplier;
+import org.lockss.log.L4JLogger;
+import org.lockss.util.rest.repo.model.ArtifactData;
+import org.lockss.util.rest.repo.util.ArtifactDataUtil;
+import org.springframework.http.HttpHeaders;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A size-bounded cache of the content of small, frequently read artifacts,
+ * so that reads of popular artifacts are served from memory rather than by
+ * reopening and decompressing their WARC records. Artifacts never change, so
+ * an entry is valid until its artifact is deleted.
+ * <p>
+ * Payloads are held off the heap, in fixed-size chunks carved from direct
+ * slabs that are allocated as needed up to the cache's budget, and reused
+ * once the entry holding them is evicted. An entry is reference counted:
+ * {@link #get(String, String)} and {@link #read(String, String, ArtifactData)}
+ * return it pinned, and its chunks are only reused once it has been evicted
+ * and every caller has called {@link Entry#release()}, so that a response
+ * still being sent from it is unaffected.
+ * <p>
+ * Admission follows W-TinyLFU: the frequency of reads of each artifact,
+ * cached or not, is estimated by a count-min sketch whose counts are
+ * periodically halved. An artifact read for the second time within the
+ * sketch's memory enters a small LRU window; when it leaves the window, it is
+ * admitted to the main LRU region only if it is read more frequently than
+ * the entries it would displace. A burst of reads of artifacts read once
+ * therefore cannot flush the popular ones.
+ * <p>
+ * Reads do not take the cache's lock: entries are looked up in a concurrent
+ * map, the sketch is striped, each stripe with its own lock, and reads are
+ * applied to the LRU order in batches, by whichever thread next holds the
+ * lock.
+ */
+public class HotArtifactCache implements HotArtifactCacheMXBean {
+  private static final L4JLogger log = L4JLogger.getLogger();
+
+  // Percentage of the budget used by the admission window
+  static final int WINDOW_PERCENT = 1;
+
+  // Number of reads of an artifact, including the current one, before it is
+  // cached
+  static final int MIN_ADMIT_FREQUENCY = 2;
+
+  // Size of the chunks payloads are stored in, and of the largest slabs they
+  // are carved from
+  static final int CHUNK_SIZE = 4 * 1024;
+  static final int SLAB_SIZE = 1024 * 1024;
+
+  // Number of independently locked stripes of the frequency sketch; a power
+  // of two
+  static final int SKETCH_STRIPES = 16;
+
+  // Number of buffered reads at which a reader applies them to the LRU
+  // order, if the lock is free, and beyond which reads are not buffered
+  static final int READ_BUFFER_DRAIN = 64;
+  static final int READ_BUFFER_SIZE = 1024;
+
+  private volatile long budget;
+  private volatile long maxEntrySize;
+
+  private final FrequencySketch[] sketches;
+
+  // Guards the regions, the slabs and the admission metrics
+  private final ReentrantLock lock = new ReentrantLock();
+
+  // The entries of both regions, looked up without the lock
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+  // Both in access order, eldest first. They also hold entries whose chunks
+  // are being filled, which are not yet in entries
+  private final LinkedHashMap<String, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+  private final LinkedHashMap<String, Entry> main = new LinkedHashMap<>(16, 0.75f, true);
+  private long windowBytes;
+  private long mainBytes;
+
+  // Reads not yet applied to the access order; reads beyond its size are
+  // dropped, which only makes the order less exact
+  private final Queue<Entry> readBuffer = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger readBufferSize = new AtomicInteger();
+
+  // Chunks not held by any entry, and the number of bytes of slabs allocated
+  private final ArrayDeque<ByteBuffer> freeChunks = new ArrayDeque<>();
+  private long slabBytes;
+
+  // Metrics
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private long admissions;
+  private long rejections;
+  private long evictions;
+
+  /**
+   * Constructor.
+   *
+   * @param budget       The maximum number of bytes of artifacts to hold.
+   * @param maxEntrySize The size of the largest artifact to hold.
+   */
+  public HotArtifactCache(long budget, long maxEntrySize) {
+    this.budget = budget;
+    this.maxEntrySize = maxEntrySize;
+
+    int stripeWidth = Math.max(64, sketchWidth(budget, maxEntrySize) / SKETCH_STRIPES);
+    sketches = new FrequencySketch[SKETCH_STRIPES];
+
+    for (int i = 0; i < SKETCH_STRIPES; i++) {
+      sketches[i] = new FrequencySketch(stripeWidth);
+    }
+  }
+
+  // Tracks several times as many artifacts as fit in the cache, assuming
+  // most are much smaller than the largest
+  static int sketchWidth(long budget, long maxEntrySize) {
+    long entries = budget / Math.max(1, Math.min(maxEntrySize, 4096));
+    long width = Math.max(1024, Math.min(1 << 22, 4 * entries));
+    return Integer.highestOneBit((int) (width - 1)) << 1;
+  }
+
+  /**
+   * Sets the size limits of the cache, evicting entries that no longer fit.
+   * The frequency sketch keeps the size it was created with, and slabs
+   * already allocated are kept: lowering the budget only stops further
+   * allocation.
+   */
+  public void setLimits(long budget, long maxEntrySize) {
+    lock.lock();
+    try {
+      this.budget = budget;
+      this.maxEntrySize = maxEntrySize;
+
+      main.values().removeIf(e -> {
+        if (e.getSize() > maxEntrySize) {
+          mainBytes -= e.getSize();
+          discard(e);
+          return true;
+        }
+        return false;
+      });
+
+      evictWindow();
+
+      while (mainBytes > mainBudget() && evictMain() != null) {
+        evictions++;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private static String key(String namespace, String uuid) {
+    return namespace + "\n" + uuid;
+  }
+
+  // Returns the stripe of the sketch recording the reads of a key
+  private FrequencySketch sketchFor(int hash) {
+    return sketches[(hash ^ (hash >>> 16)) & (SKETCH_STRIPES - 1)];
+  }
+
+  private int frequency(String key) {
+    int hash = key.hashCode();
+    FrequencySketch sketch = sketchFor(hash);
+
+    synchronized (sketch) {
+      return sketch.frequency(hash);
+    }
+  }
+
+  /**
+   * Returns the cached content of an artifact, and records the read of it.
+   *
+   * @return the {@link Entry}, pinned until the caller releases it, or null
+   * if the artifact is not cached.
+   */
+  public Entry get(String namespace, String uuid) {
+    if (budget <= 0) {
+      return null;
+    }
+
+    String key = key(namespace, uuid);
+    int hash = key.hashCode();
+    FrequencySketch sketch = sketchFor(hash);
+
+    synchronized (sketch) {
+      sketch.increment(hash);
+    }
+
+    Entry entry = entries.get(key);
+
+    if (entry != null && !entry.retain()) {
+      // Evicted and freed since it was looked up
+      entry = null;
+    }
+
+    if (entry == null) {
+      misses.incrementAndGet();
+      return null;
+    }
+
+    hits.incrementAndGet();
+    recordRead(entry);
+    return entry;
+  }
+
+  // Buffers a read of an entry, and applies the buffered reads to the LRU
+  // order if there are enough and the lock is free
+  private void recordRead(Entry entry) {
+    if (readBufferSize.incrementAndGet() <= READ_BUFFER_SIZE) {
+      readBuffer.offer(entry);
+    } else {
+      readBufferSize.decrementAndGet();
+    }
+
+    if (readBufferSize.get() >= READ_BUFFER_DRAIN && lock.tryLock()) {
+      try {
+        drainReads();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  // Moves the entries read since the last drain to the most recently used
+  // end of their region. Called with the lock held
+  private void drainReads() {
+    Entry entry;
+
+    while ((entry = readBuffer.poll()) != null) {
+      readBufferSize.decrementAndGet();
+
+      if (window.get(entry.key) == null) {
+        main.get(entry.key);
+      }
+    }
+  }
+
+  /**
+   * Determines whether an artifact just read, and not cached, should be
+   * cached: it must fit, and have been read before.
+   */
+  public boolean shouldAdmit(String namespace, String uuid, long size) {
+    return size <= maxEntrySize && size <= mainBudget() &&
+        frequency(key(namespace, uuid)) >= MIN_ADMIT_FREQUENCY;
+  }
+
+  /**
+   * Reads the content of an artifact into the cache, in the admission
+   * window, from which it will compete for admission to the main region.
+   * The payload stream is only opened if there is room for the artifact.
+   *
+   * @param namespace A String with the namespace of the artifact.
+   * @param uuid      A String with the identifier of the artifact.
+   * @param ad        The {@link ArtifactData} of the artifact.
+   * @param additionalDigests A String with the additional digests of the
+   *                  artifact's payload, or null if there are none.
+   * @return the {@link Entry}, pinned until the caller releases it, or null
+   * if there was no room for it, in which case the payload stream has not
+   * been read.
+   * @throws IOException if the payload can't be read or its length doesn't
+   *                     match the artifact's.
+   */
+  public Entry read(String namespace, String uuid, ArtifactData ad, String additionalDigests)
+      throws IOException {
+    HttpHeaders headers = new HttpHeaders();
+    headers.putAll(ad.getHttpHeaders());
+
+    return add(namespace, uuid, ad.getContentDigest(), additionalDigests, ad.getStoreDate(),
+        headers,
+        ArtifactDataUtil.getHttpResponseHeader(ad), ad.getContentLength(), ad::getInputStream);
+  }
+
+  /**
+   * Adds the content of an artifact to the admission window.
+   *
+   * @param length  The length of the payload.
+   * @param payload Opens the payload; called only if there is room for it.
+   * @return the {@link Entry}, pinned until the caller releases it, or null
+   * if there was no room for it.
+   * @throws IOException if the payload can't be read or its length doesn't
+   *                     match.
+   * @see #read(String, String, ArtifactData, String)
+   */
+  Entry add(String namespace, String uuid, String contentDigest, String additionalDigests,
+            long storeDate, HttpHeaders httpHeaders, byte[] httpResponseHeader, long length,
+            IOSupplier<InputStream> payload) throws IOException {
+    if (length < 0 || length > Integer.MAX_VALUE) {
+      throw new IOException("Artifact too large to cache: " + length);
+    }
+
+    Entry entry = new Entry(this, namespace, uuid, contentDigest, additionalDigests, storeDate,
+        httpHeaders, httpResponseHeader, length);
+
+    if (!reserve(entry)) {
+      return null;
+    }
+
+    boolean filled = false;
+
+    try (InputStream in = payload.get()) {
+      entry.fill(in);
+      filled = true;
+    } finally {
+      publish(entry, filled);
+    }
+
+    return entry;
+  }
+
+  // Makes room for a new entry in the regions and takes chunks for it. The
+  // entry is held by the regions, but not yet visible to get()
+  private boolean reserve(Entry entry) {
+    lock.lock();
+    try {
+      drainReads();
+
+      if (budget <= 0 || window.containsKey(entry.key) || main.containsKey(entry.key)) {
+        return false;
+      }
+
+      window.put(entry.key, entry);
+      windowBytes += entry.getSize();
+      evictWindow();
+
+      if (!entry.isHeld()) {
+        // Not admitted
+        return false;
+      }
+
+      List<ByteBuffer> chunks = takeChunks(entry.chunkCount());
+
+      if (chunks == null) {
+        log.debug2("No free chunks for {}", entry);
+        remove(entry.key);
+        return false;
+      }
+
+      entry.chunks = chunks;
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // Makes a filled entry visible to get(), unless it has been evicted in the
+  // meantime, or removes an entry that could not be filled
+  private void publish(Entry entry, boolean filled) {
+    lock.lock();
+    try {
+      if (!filled) {
+        if (entry.isHeld()) {
+          remove(entry.key);
+        }
+
+        // Not returned to the caller
+        entry.release();
+      } else if (entry.isHeld()) {
+        entries.put(entry.key, entry);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Removes an artifact from the cache.
+   */
+  public void invalidate(String namespace, String uuid) {
+    lock.lock();
+    try {
+      remove(key(namespace, uuid));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // Removes an entry from whichever region holds it. Called with the lock
+  // held
+  private void remove(String key) {
+    Entry entry = window.remove(key);
+
+    if (entry != null) {
+      windowBytes -= entry.getSize();
+      discard(entry);
+    }
+
+    entry = main.remove(key);
+
+    if (entry != null) {
+      mainBytes -= entry.getSize();
+      discard(entry);
+    }
+  }
+
+  // Drops the regions' hold on an entry that has left them
+  private void discard(Entry entry) {
+    entries.remove(entry.key, entry);
+    entry.held = false;
+    entry.release();
+  }
+
+  private long windowBudget() {
+    return budget * WINDOW_PERCENT / 100;
+  }
+
+  private long mainBudget() {
+    return budget - windowBudget();
+  }
+
+  // Moves the eldest entries out of the window until it fits, admitting each
+  // to the main region if it's read more frequently than the entries it
+  // would displace
+  private void evictWindow() {
+    Iterator<Entry> iter = window.values().iterator();
+
+    while (windowBytes > windowBudget() && iter.hasNext()) {
+      Entry candidate = iter.next();
+      iter.remove();
+      windowBytes -= candidate.getSize();
+      admit(candidate);
+    }
+  }
+
+  private void admit(Entry candidate) {
+    if (candidate.getSize() > maxEntrySize || candidate.getSize() > mainBudget()) {
+      rejections++;
+      discard(candidate);
+      return;
+    }
+
+    int frequency = frequency(candidate.key);
+
+    while (mainBytes + candidate.getSize() > mainBudget()) {
+      Map.Entry<String, Entry> victim = main.entrySet().iterator().next();
+
+      if (frequency <= frequency(victim.getKey())) {
+        log.trace("Rejected {}", candidate);
+        rejections++;
+        discard(candidate);
+        return;
+      }
+
+      evictMain();
+      evictions++;
+    }
+
+    main.put(candidate.key, candidate);
+    mainBytes += candidate.getSize();
+    admissions++;
+  }
+
+  // Removes the least recently used entry of the main region
+  private Entry evictMain() {
+    Iterator<Entry> iter = main.values().iterator();
+
+    if (!iter.hasNext()) {
+      return null;
+    }
+
+    Entry victim = iter.next();
+    iter.remove();
+    mainBytes -= victim.getSize();
+    discard(victim);
+    return victim;
+  }
+
+  ////////////////////////////////////////////////////////////////////////////////
+  // SLABS ///////////////////////////////////////////////////////////////////////
+  ////////////////////////////////////////////////////////////////////////////////
+
+  // Takes free chunks, allocating slabs while the budget allows. Called with
+  // the lock held
+  private List<ByteBuffer> takeChunks(int count) {
+    while (freeChunks.size() < count && allocateSlab()) {
+      // Allocated
+    }
+
+    if (freeChunks.size() < count) {
+      return null;
+    }
+
+    List<ByteBuffer> chunks = new ArrayList<>(count);
+
+    for (int i = 0; i < count; i++) {
+      chunks.add(freeChunks.pop());
+    }
+
+    return chunks;
+  }
+
+  // Allocates a slab of at most SLAB_SIZE bytes, within the budget, and
+  // carves it into free chunks
+  private boolean allocateSlab() {
+    long size = Math.min(SLAB_SIZE, (budget - slabBytes) / CHUNK_SIZE * CHUNK_SIZE);
+
+    if (size < CHUNK_SIZE) {
+      return false;
+    }
+
+    ByteBuffer slab = ByteBuffer.allocateDirect((int) size);
+    slabBytes += size;
+
+    for (int off = 0; off < size; off += CHUNK_SIZE) {
+      freeChunks.push(slab.slice(off, CHUNK_SIZE));
+    }
+
+    log.debug2("Allocated slab [size: {}, slabBytes: {}]", size, slabBytes);
+    return true;
+  }
+
+  // Returns the chunks of an entry no longer held or read
+  private void returnChunks(List<ByteBuffer> chunks) {
+    lock.lock();
+    try {
+      for (ByteBuffer chunk : chunks) {
+        freeChunks.push(chunk.clear());
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  ////////////////////////////////////////////////////////////////////////////////
+  // ENTRIES /////////////////////////////////////////////////////////////////////
+  ////////////////////////////////////////////////////////////////////////////////
+
+  /**
+   * The content of a cached artifact, with the metadata needed to serve it.
+   * It must be released by whoever obtained it from the cache once it is no
+   * longer read.
+   */
+  public static class Entry {
+    private final HotArtifactCache cache;
+    private final String key;
+    private final String contentDigest;
+    private final String additionalDigests;
+    private final long storeDate;
+    private final HttpHeaders httpHeaders;
+    private final byte[] httpResponseHeader;
+    private final long contentLength;
+
+    // Number of holders: the regions, while it is in one, and each caller
+    // that obtained it and has not released it, initially the one adding it.
+    // Its chunks are freed when this reaches zero
+    private final AtomicInteger refs = new AtomicInteger(2);
+
+    // Whether the regions hold it. Guarded by the cache's lock
+    private boolean held = true;
+
+    // Set once, before the entry is visible to readers
+    private List<ByteBuffer> chunks = Collections.emptyList();
+
+    private Entry(HotArtifactCache cache, String namespace, String uuid, String contentDigest,
+                  String additionalDigests, long storeDate, HttpHeaders httpHeaders,
+                  byte[] httpResponseHeader, long contentLength) {
+      this.cache = cache;
+      this.key = key(namespace, uuid);
+      this.contentDigest = contentDigest;
+      this.additionalDigests = additionalDigests;
+      this.storeDate = storeDate;
+      this.httpHeaders = httpHeaders;
+      this.httpResponseHeader = httpResponseHeader;
+      this.contentLength = contentLength;
+    }
+
+    private int chunkCount() {
+      return (int) ((contentLength + CHUNK_SIZE - 1) / CHUNK_SIZE);
+    }
+
+    private boolean isHeld() {
+      return held;
+    }
+
+    // Reads the payload into the entry's chunks
+    private void fill(InputStream in) throws IOException {
+      byte[] buf = new byte[(int) Math.min(8192, Math.max(1, contentLength))];
+      long remaining = contentLength;
+
+      for (ByteBuffer chunk : chunks) {
+        while (chunk.position() < Math.min(CHUNK_SIZE, remaining)) {
+          int n = in.read(buf, 0, (int) Math.min(buf.length,
+              Math.min(CHUNK_SIZE, remaining) - chunk.position()));
+
+          if (n < 0) {
+            throw new IOException("Payload length doesn't match content length " +
+                contentLength);
+          }
+
+          chunk.put(buf, 0, n);
+        }
+
+        remaining -= chunk.position();
+        chunk.flip();
+      }
+
+      if (in.read() >= 0) {
+        throw new IOException("Payload length doesn't match content length " + contentLength);
+      }
+    }
+
+    // Adds a holder, unless the entry has already been freed
+    private boolean retain() {
+      int n;
+
+      do {
+        n = refs.get();
+
+        if (n == 0) {
+          return false;
+        }
+      } while (!refs.compareAndSet(n, n + 1));
+
+      return true;
+    }
+
+    /**
+     * Releases an entry obtained from the cache. Its content must not be
+     * read afterwards.
+     */
+    public void release() {
+      if (refs.decrementAndGet() == 0) {
+        cache.returnChunks(chunks);
+      }
+    }
+
+    public String getContentDigest() {
+      return contentDigest;
+    }
+
+    /** Returns the additional digests of the payload, or null if none */
+    public String getAdditionalDigests() {
+      return additionalDigests;
+    }
+
+    public long getContentLength() {
+      return contentLength;
+    }
+
+    public long getStoreDate() {
+      return storeDate;
+    }
+
+    public HttpHeaders getHttpHeaders() {
+      return httpHeaders;
+    }
+
+    public byte[] getHttpResponseHeader() {
+      return httpResponseHeader;
+    }
+
+    /** Returns the number of bytes of the cache's budget used by this entry */
+    public long getSize() {
+      return (long) chunkCount() * CHUNK_SIZE + httpResponseHeader.length;
+    }
+
+    /** Opens the payload for reading. */
+    public InputStream openPayload() {
+      return new ChunksInputStream(chunks);
+    }
+
+    /** Opens the HTTP response header followed by the payload for reading. */
+    public InputStream openResponse() {
+      return new SequenceInputStream(new ByteArrayInputStream(httpResponseHeader),
+          openPayload());
+    }
+
+    @Override
+    public String toString() {
+      return "[HotArtifactCache.Entry key=" + key.replace('\n', ':') +
+          ", size=" + getSize() + "]";
+    }
+  }
+
+  // An InputStream that reads a sequence of ByteBuffers, without changing
+  // them, and skips by moving its position
+  private static class ChunksInputStream extends InputStream {
+    private final Iterator<ByteBuffer> chunks;
+    private ByteBuffer buf;
+    private long remaining;
+
+    ChunksInputStream(List<ByteBuffer> chunks) {
+      this.chunks = chunks.iterator();
+
+      for (ByteBuffer chunk : chunks) {
+        remaining += chunk.limit();
+      }
+    }
+
+    // Returns the current chunk, moving to the next if it is exhausted, or
+    // null at the end
+    private ByteBuffer current() {
+      while ((buf == null || !buf.hasRemaining()) && chunks.hasNext()) {
+        buf = chunks.next().asReadOnlyBuffer();
+      }
+
+      return buf != null && buf.hasRemaining() ? buf : null;
+    }
+
+    @Override
+    public int read() {
+      ByteBuffer b = current();
+
+      if (b == null) {
+        return -1;
+      }
+
+      remaining--;
+      return b.get() & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (len == 0) {
+        return 0;
+      }
+
+      ByteBuffer cur = current();
+
+      if (cur == null) {
+        return -1;
+      }
+
+      int n = Math.min(len, cur.remaining());
+      cur.get(b, off, n);
+      remaining -= n;
+      return n;
+    }
+
+    @Override
+    public long skip(long n) {
+      long skipped = 0;
+      ByteBuffer cur;
+
+      while (skipped < n && (cur = current()) != null) {
+        int k = (int) Math.min(n - skipped, cur.remaining());
+        cur.position(cur.position() + k);
+        skipped += k;
+      }
+
+      remaining -= skipped;
+      return skipped;
+    }
+
+    @Override
+    public int available() {
+      return (int) Math.min(Integer.MAX_VALUE, remaining);
+    }
+  }
+
+  ////////////////////////////////////////////////////////////////////////////////
+  // FREQUENCY SKETCH ////////////////////////////////////////////////////////////
+  ////////////////////////////////////////////////////////////////////////////////
+
+  /**
+   * A count-min sketch of 4-bit counters estimating how often each key has
+   * been read. Once the number of reads recorded reaches ten times its
+   * width, all counters are halved, so that the estimates favor recent
+   * popularity. Not thread safe: the cache locks each of its stripes.
+   */
+  static class FrequencySketch {
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final int[] SEEDS = {0x97cb3127, 0xb1f5a0c5, 0x5f356495, 0x6bbf0d9f};
+
+    private final byte[][] table;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    /**
+     * Constructor.
+     *
+     * @param width The number of counters in each row; a power of two.
+     */
+    FrequencySketch(int width) {
+      table = new byte[DEPTH][width];
+      mask = width - 1;
+      sampleSize = 10 * width;
+    }
+
+    private int index(int hash, int row) {
+      int h = (hash ^ SEEDS[row]) * 0x9e3779b9;
+      h ^= h >>> 16;
+      return h & mask;
+    }
+
+    /** Returns the estimated number of recent reads of a key. */
+    int frequency(int hash) {
+      int min = MAX_COUNT;
+
+      for (int row = 0; row < DEPTH; row++) {
+        min = Math.min(min, table[row][index(hash, row)]);
+      }
+
+      return min;
+    }
+
+    /** Records a read of a key, incrementing only its smallest counters. */
+    void increment(int hash) {
+      int min = frequency(hash);
+
+      if (min < MAX_COUNT) {
+        for (int row = 0; row < DEPTH; row++) {
+          int i = index(hash, row);
+          if (table[row][i] == min) {
+            table[row][i]++;
+          }
+        }
+      }
+
+      if (++additions >= sampleSize) {
+        reset();
+      }
+    }
+
+    // Halves every counter
+    private void reset() {
+      for (byte[] row : table) {
+        for (int i = 0; i < row.length; i++) {
+          row[i] >>= 1;
+        }
+      }
+
+      additions /= 2;
+    }
+  }
+
+
+  ////////////////////////////////////////////////////////////////////////////////
+  // METRICS /////////////////////////////////////////////////////////////////////
+  ////////////////////////////////////////////////////////////////////////////////
+
+  @Override
+  public long getBudget() {
+    return budget;
+  }
+
+  @Override
+  public long getMaxEntrySize() {
+    return maxEntrySize;
+  }
+
+  @Override
+  public long getUsedBytes() {
+    lock.lock();
+    try {
+      return windowBytes + mainBytes;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public long getEntries() {
+    lock.lock();
+    try {
+      return window.size() + main.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public long getSlabBytes() {
+    lock.lock();
+    try {
+      return slabBytes;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public long getFreeChunkBytes() {
+    lock.lock();
+    try {
+      return (long) freeChunks.size() * CHUNK_SIZE;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public long getHits() {
+    return hits.get();
+  }
+
+  @Override
+  public long getMisses() {
+    return misses.get();
+  }
+
+  @Override
+  public double getHitRate() {
+    long h = hits.get();
+    long total = h + misses.get();
+    return total == 0 ? 0.0 : (double) h / total;
+  }
+
+  @Override
+  public long getAdmissions() {
+    lock.lock();
+    try {
+      return admissions;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public long getRejections() {
+    lock.lock();
+    try {
+      return rejections;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public long getEvictions() {
+    lock.lock();
+    try {
+      return evictions;
+    } finally {
+      lock.unlock();
+    }
+  }
+}
@@ -0,0 +1,75 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.impl;
+
+/**
+ * JMX view of the metrics of a {@link HotArtifactCache}.
+ */
+public interface HotArtifactCacheMXBean {
+  /** Maximum number of bytes of artifacts the cache may hold */
+  long getBudget();
+
+  /** Largest artifact the cache will hold */
+  long getMaxEntrySize();
+
+  /** Number of bytes of artifacts held */
+  long getUsedBytes();
+
+  /** Number of artifacts held */
+  long getEntries();
+
+  /** Number of bytes of slabs allocated to hold payloads */
+  long getSlabBytes();
+
+  /** Number of bytes of slabs not holding any payload */
+  long getFreeChunkBytes();
+
+  /** Number of lookups satisfied by the cache */
+  long getHits();
+
+  /** Number of lookups not satisfied by the cache */
+  long getMisses();
+
+  /** Fraction of lookups satisfied by the cache */
+  double getHitRate();
+
+  /** Number of artifacts admitted to the main region of the cache */
+  long getAdmissions();
+
+  /** Number of artifacts refused admission to the main region, for being
+   * less frequently used than those they would have replaced */
+  long getRejections();
+
+  /** Number of artifacts evicted from the main region */
+  long getEvictions();
+}
@@ -0,0 +1,467 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.impl;
+
+import org.apache.http.HttpVersion;
+import org.apache.http.ProtocolException;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.StatusLine;
+import org.apache.http.message.BasicStatusLine;
+import org.springframework.http.HttpHeaders;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses the status line and headers of an HTTP response directly from its
+ * bytes, into the {@link StatusLine} and {@link HttpHeaders} of an artifact.
+ * <p>
+ * This produces the same result as parsing with
+ * {@code ArtifactDataUtil.getHttpResponseFromStream} and converting its
+ * headers with {@code ArtifactDataUtil.transformHeaderArrayToHttpHeaders},
+ * including for malformed input, without their intermediate line buffers,
+ * header objects and arrays. Bytes are decoded as ISO-8859-1, lines may end
+ * in CRLF or LF alone, and folded header lines are joined with a space. Strings are only created for the reason phrase and each header
+ * name and value, and common header names are not created at all.
+ */
+public class HttpResponseHeaderParser {
+
+  // Header names returned without creating a String, by length
+  private static final String[][] COMMON_NAMES = byLength(
+      HttpHeaders.ACCEPT_RANGES,
+      HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN,
+      HttpHeaders.AGE,
+      HttpHeaders.CACHE_CONTROL,
+      HttpHeaders.CONNECTION,
+      HttpHeaders.CONTENT_DISPOSITION,
+      HttpHeaders.CONTENT_ENCODING,
+      HttpHeaders.CONTENT_LANGUAGE,
+      HttpHeaders.CONTENT_LENGTH,
+      HttpHeaders.CONTENT_TYPE,
+      HttpHeaders.DATE,
+      HttpHeaders.ETAG,
+      HttpHeaders.EXPIRES,
+      HttpHeaders.LAST_MODIFIED,
+      HttpHeaders.LINK,
+      HttpHeaders.LOCATION,
+      HttpHeaders.PRAGMA,
+      HttpHeaders.SERVER,
+      HttpHeaders.SET_COOKIE,
+      HttpHeaders.TRANSFER_ENCODING,
+      HttpHeaders.VARY,
+      "Keep-Alive",
+      "Strict-Transport-Security",
+      "X-Content-Type-Options",
+      "X-Frame-Options",
+      "X-Powered-By");
+
+  private static final byte[] HTTP_SLASH = "HTTP/".getBytes(StandardCharsets.US_ASCII);
+
+  /**
+   * The result of parsing an HTTP response header.
+   */
+  public static class ParsedHeader {
+    private final StatusLine statusLine;
+    private final HttpHeaders headers;
+
+    ParsedHeader(StatusLine statusLine, HttpHeaders headers) {
+      this.statusLine = statusLine;
+      this.headers = headers;
+    }
+
+    public StatusLine getStatusLine() {
+      return statusLine;
+    }
+
+    public HttpHeaders getHeaders() {
+      return headers;
+    }
+  }
+
+  /**
+   * Parses an HTTP response header.
+   *
+   * @param header The bytes of the header, which may be followed by an
+   *               empty line and the response body.
+   * @throws ProtocolException if the header is malformed.
+   */
+  public static ParsedHeader parse(byte[] header) throws ProtocolException {
+    return parse(header, 0, header.length);
+  }
+
+  /**
+   * Parses an HTTP response header.
+   *
+   * @param b   A byte array holding the header, which may be followed by an
+   *            empty line and the response body.
+   * @param off The offset of the header in the array.
+   * @param len The number of bytes available from the offset.
+   * @throws ProtocolException if the header is malformed.
+   */
+  public static ParsedHeader parse(byte[] b, int off, int len) throws ProtocolException {
+    int end = off + len;
+    int pos = off;
+
+    if (pos >= end) {
+      throw new ProtocolException("Empty HTTP response header");
+    }
+
+    // Status line
+    int next = nextLine(b, pos, end);
+    int lineEnd = lineEnd(b, pos, next);
+
+    if (!hasProtocolVersion(b, pos, lineEnd)) {
+      throw new ProtocolException("No HTTP status line: " + latin1(b, pos, lineEnd));
+    }
+
+    StatusLine statusLine = parseStatusLine(b, pos, lineEnd);
+    pos = next;
+
+    // Header lines, up to an empty line or the end of input
+    HttpHeaders headers = new HttpHeaders();
+    int pendingStart = -1;
+    int pendingEnd = -1;
+    ByteArrayOutputStream folded = null;
+
+    while (pos < end) {
+      next = nextLine(b, pos, end);
+      lineEnd = lineEnd(b, pos, next);
+
+      if (lineEnd == pos) {
+        break;
+      }
+
+      if ((b[pos] == ' ' || b[pos] == '\t') && pendingStart >= 0) {
+        // Continuation of a folded header
+        if (folded == null) {
+          folded = new ByteArrayOutputStream();
+          folded.write(b, pendingStart, pendingEnd - pendingStart);
+        }
+
+        int i = pos;
+        while (i < lineEnd && (b[i] == ' ' || b[i] == '\t')) {
+          i++;
+        }
+
+        folded.write(' ');
+        folded.write(b, i, lineEnd - i);
+      } else {
+        folded = addHeader(headers, b, pendingStart, pendingEnd, folded);
+        pendingStart = pos;
+        pendingEnd = lineEnd;
+      }
+
+      pos = next;
+    }
+
+    addHeader(headers, b, pendingStart, pendingEnd, folded);
+
+    return new ParsedHeader(statusLine, headers);
+  }
+
+  /**
+   * Adds the pending header, unless there is none.
+   *
+   * @return null, to reset the folded header.
+   */
+  private static ByteArrayOutputStream addHeader(HttpHeaders headers, byte[] b,
+                                                 int start, int end,
+                                                 ByteArrayOutputStream folded)
+      throws ProtocolException {
+    if (folded != null) {
+      byte[] line = folded.toByteArray();
+      parseHeader(headers, line, 0, line.length);
+    } else if (start >= 0) {
+      parseHeader(headers, b, start, end);
+    }
+
+    return null;
+  }
+
+  private static void parseHeader(HttpHeaders headers, byte[] b, int start, int end)
+      throws ProtocolException {
+    int colon = indexOf(b, (byte) ':', start, end);
+
+    if (colon < 0) {
+      throw new ProtocolException("Invalid header: " + latin1(b, start, end));
+    }
+
+    int nameStart = trimStart(b, start, colon);
+    int nameEnd = trimEnd(b, nameStart, colon);
+
+    if (nameStart == nameEnd) {
+      throw new ProtocolException("Invalid header: " + latin1(b, start, end));
+    }
+
+    int valueStart = trimStart(b, colon + 1, end);
+    int valueEnd = trimEnd(b, valueStart, end);
+
+    headers.add(headerName(b, nameStart, nameEnd), latin1(b, valueStart, valueEnd));
+  }
+
+  /**
+   * Returns true if a line starts with an HTTP version, after any
+   * whitespace.
+   */
+  private static boolean hasProtocolVersion(byte[] b, int start, int end) {
+    if (end - start < HTTP_SLASH.length + 3) {
+      return false;
+    }
+
+    int i = trimStart(b, start, end);
+    return i + HTTP_SLASH.length + 3 <= end && startsWith(b, i, HTTP_SLASH);
+  }
+
+  /**
+   * Parses a status line: an HTTP version, a status code and an optional
+   * reason phrase, separated by spaces.
+   */
+  private static StatusLine parseStatusLine(byte[] b, int start, int end)
+      throws ProtocolException {
+    // HTTP version
+    int i = trimStart(b, start, end) + HTTP_SLASH.length;
+
+    int period = indexOf(b, (byte) '.', i, end);
+    if (period < 0) {
+      throw invalidStatusLine(b, start, end);
+    }
+
+    int blank = indexOf(b, (byte) ' ', period + 1, end);
+    if (blank < 0) {
+      blank = end;
+    }
+
+    int major = parseInt(b, i, period);
+    int minor = parseInt(b, period + 1, blank);
+
+    if (major < 0 || minor < 0) {
+      throw invalidStatusLine(b, start, end);
+    }
+
+    ProtocolVersion version = HttpVersion.HTTP_1_1.forVersion(major, minor);
+
+    // Status code
+    i = trimStart(b, blank, end);
+    blank = indexOf(b, (byte) ' ', i, end);
+    if (blank < 0) {
+      blank = end;
+    }
+
+    int codeStart = trimStart(b, i, blank);
+    int codeEnd = trimEnd(b, codeStart, blank);
+
+    for (int j = codeStart; j < codeEnd; j++) {
+      if (b[j] < '0' || b[j] > '9') {
+        throw invalidStatusLine(b, start, end);
+      }
+    }
+
+    int statusCode = parseInt(b, codeStart, codeEnd);
+
+    if (statusCode == Integer.MIN_VALUE) {
+      throw invalidStatusLine(b, start, end);
+    }
+
+    // Reason phrase
+    String reasonPhrase = "";
+
+    if (blank < end) {
+      int reasonStart = trimStart(b, blank, end);
+      reasonPhrase = latin1(b, reasonStart, trimEnd(b, reasonStart, end));
+    }
+
+    return new BasicStatusLine(version, statusCode, reasonPhrase);
+  }
+
+  private static ProtocolException invalidStatusLine(byte[] b, int start, int end) {
+    return new ProtocolException("Invalid status line: " + latin1(b, start, end));
+  }
+
+  /**
+   * Parses a decimal integer, surrounded by optional whitespace, as does
+   * {@link Integer#parseInt(String)}: with an optional sign, and without
+   * overflow.
+   *
+   * @return the integer, or {@link Integer#MIN_VALUE} if it is not valid.
+   */
+  static int parseInt(byte[] b, int start, int end) {
+    start = trimStart(b, start, end);
+    end = trimEnd(b, start, end);
+
+    if (start == end) {
+      return Integer.MIN_VALUE;
+    }
+
+    boolean negative = b[start] == '-';
+    if (negative || b[start] == '+') {
+      start++;
+
+      if (start == end) {
+        return Integer.MIN_VALUE;
+      }
+    }
+
+    long value = 0;
+
+    for (int i = start; i < end; i++) {
+      if (b[i] < '0' || b[i] > '9') {
+        return Integer.MIN_VALUE;
+      }
+
+      value = value * 10 + (b[i] - '0');
+
+      if (value > Integer.MAX_VALUE) {
+        return Integer.MIN_VALUE;
+      }
+    }
+
+    // -0 is valid; other negative numbers are invalid versions and codes
+    return negative && value != 0 ? -1 : (int) value;
+  }
+
+  /**
+   * Returns the name of a header, without creating a String if it is a
+   * common one.
+   */
+  private static String headerName(byte[] b, int start, int end) {
+    int len = end - start;
+
+    if (len < COMMON_NAMES.length) {
+      for (String name : COMMON_NAMES[len]) {
+        if (regionMatches(b, start, name)) {
+          return name;
+        }
+      }
+    }
+
+    return latin1(b, start, end);
+  }
+
+  private static boolean regionMatches(byte[] b, int start, String s) {
+    for (int i = 0; i < s.length(); i++) {
+      if (b[start + i] != (byte) s.charAt(i)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  private static boolean startsWith(byte[] b, int start, byte[] prefix) {
+    for (int i = 0; i < prefix.length; i++) {
+      if (b[start + i] != prefix[i]) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Returns the start of the line following the one at {@code start}.
+   */
+  private static int nextLine(byte[] b, int start, int end) {
+    int lf = indexOf(b, (byte) '\n', start, end);
+    return lf < 0 ? end : lf + 1;
+  }
+
+  /**
+   * Returns the end of the content of a line, without its LF and CR.
+   */
+  private static int lineEnd(byte[] b, int start, int next) {
+    int end = next;
+
+    if (end > start && b[end - 1] == '\n') {
+      end--;
+    }
+
+    if (end > start && b[end - 1] == '\r') {
+      end--;
+    }
+
+    return end;
+  }
+
+  private static int indexOf(byte[] b, byte c, int start, int end) {
+    for (int i = start; i < end; i++) {
+      if (b[i] == c) {
+        return i;
+      }
+    }
+
+    return -1;
+  }
+
+  private static boolean isWhitespace(byte c) {
+    return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+  }
+
+  private static int trimStart(byte[] b, int start, int end) {
+    while (start < end && isWhitespace(b[start])) {
+      start++;
+    }
+
+    return start;
+  }
+
+  private static int trimEnd(byte[] b, int start, int end) {
+    while (end > start && isWhitespace(b[end - 1])) {
+      end--;
+    }
+
+    return end;
+  }
+
+  private static String latin1(byte[] b, int start, int end) {
+    return new String(b, start, end - start, StandardCharsets.ISO_8859_1);
+  }
+
+  private static String[][] byLength(String... names) {
+    int max = 0;
+    for (String name : names) {
+      max = Math.max(max, name.length());
+    }
+
+    String[][] result = new String[max + 1][0];
+
+    for (String name : names) {
+      String[] same = result[name.length()];
+      String[] grown = new String[same.length + 1];
+      System.arraycopy(same, 0, grown, 0, same.length);
+      grown[same.length] = name;
+      result[name.length()] = grown;
+    }
+
+    return result;
+  }
+}
@@ -0,0 +1,247 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.impl;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.lockss.log.L4JLogger;
+import org.lockss.util.time.TimeBase;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The durable progress of the import of an archive into an AU, from which an
+ * interrupted import resumes.
+ * <p>
+ * A checkpoint records the byte offset and WARC-Record-ID of the last record
+ * imported. It is identified by the namespace, the AUID, the length of the
+ * archive and a digest of its beginning, so that the same archive submitted
+ * again, whether from the same file or from a new upload, finds it. The
+ * checkpoint file is replaced atomically each time it is saved, and deleted
+ * when the import completes.
+ * <p>
+ * A checkpoint is saved every {@code interval} records, or when
+ * {@code maxInterval} milliseconds have passed since it was last saved, so
+ * an import that resumes may import again the records that followed the
+ * last save.
+ * <p>
+ * Only one import of an archive into an AU may hold its checkpoint at a
+ * time: opening a checkpoint that is held throws an {@link InUseException}
+ * until the holder is closed.
+ */
+public class ImportCheckpoint implements Closeable {
+  private static L4JLogger log = L4JLogger.getLogger();
+
+  // Number of leading bytes of an archive that identify it
+  static final int HEAD_LENGTH = 64 * 1024;
+
+  private static final String KEY_OFFSET = "offset";
+  private static final String KEY_WARC_ID = "warcId";
+
+  // Checkpoint files held by an open checkpoint
+  private static final Set<File> held = ConcurrentHashMap.newKeySet();
+
+  private final File file;
+  private final int interval;
+  private final long maxInterval;
+
+  private long offset = -1;
+  private String warcId;
+  private int unsaved;
+  private long lastSaved = TimeBase.nowMs();
+  private boolean closed = false;
+
+  /**
+   * Opens the checkpoint of an archive, reading its state if it exists.
+   *
+   * @param dir       The directory of the checkpoint files.
+   * @param namespace A String with the namespace of the AU.
+   * @param auid      A String with the AUID of the AU.
+   * @param length    The length of the archive.
+   * @param archive   An InputStream positioned at the beginning of the
+   *                  archive; at most {@link #HEAD_LENGTH} bytes are read.
+   * @param interval    The number of records imported between saves.
+   * @param maxInterval The number of milliseconds after which the checkpoint
+   *                    is saved, whatever the number of records imported.
+   * @throws InUseException if the checkpoint is held by another import.
+   */
+  public ImportCheckpoint(File dir, String namespace, String auid, long length,
+                          InputStream archive, int interval, long maxInterval)
+      throws IOException {
+    MessageDigest md = DigestUtils.getSha256Digest();
+    md.update((namespace + "\n" + auid + "\n" + length + "\n").getBytes(StandardCharsets.UTF_8));
+    md.update(archive.readNBytes(HEAD_LENGTH));
+
+    this.file = new File(dir, "checkpoint-" + Hex.encodeHexString(md.digest()) + ".properties");
+    this.interval = Math.max(interval, 1);
+    this.maxInterval = maxInterval;
+
+    if (!held.add(file.getAbsoluteFile())) {
+      throw new InUseException("Archive is already being imported into AU: " + auid);
+    }
+
+    if (file.exists()) {
+      Properties props = new Properties();
+
+      try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+        props.load(reader);
+        offset = Long.parseLong(props.getProperty(KEY_OFFSET));
+        warcId = props.getProperty(KEY_WARC_ID);
+      } catch (IllegalArgumentException e) {
+        log.warn("Ignoring invalid import checkpoint {}", file, e);
+        offset = -1;
+        warcId = null;
+      } catch (IOException e) {
+        close();
+        throw e;
+      }
+    }
+  }
+
+  File getFile() {
+    return file;
+  }
+
+  /**
+   * Returns true if a previous import of the archive was interrupted.
+   */
+  public boolean isResumable() {
+    return offset >= 0 && warcId != null;
+  }
+
+  /**
+   * Returns the offset of the last record imported, or -1.
+   */
+  public long getOffset() {
+    return offset;
+  }
+
+  /**
+   * Returns the WARC-Record-ID of the last record imported, or null.
+   */
+  public String getWarcId() {
+    return warcId;
+  }
+
+  /**
+   * Records that a record has been imported, saving the checkpoint every
+   * {@code interval} records or {@code maxInterval} milliseconds.
+   *
+   * @param offset The offset of the record in the archive.
+   * @param warcId The WARC-Record-ID of the record.
+   */
+  public void update(long offset, String warcId) throws IOException {
+    this.offset = offset;
+    this.warcId = warcId;
+
+    if (++unsaved >= interval || TimeBase.msSince(lastSaved) >= maxInterval) {
+      save();
+    }
+  }
+
+  /**
+   * Saves the checkpoint, if it has changed since it was last saved.
+   */
+  public void save() throws IOException {
+    if (unsaved == 0 || !isResumable()) {
+      return;
+    }
+
+    Properties props = new Properties();
+    props.setProperty(KEY_OFFSET, Long.toString(offset));
+    props.setProperty(KEY_WARC_ID, warcId);
+
+    File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+
+    try (Writer writer = Files.newBufferedWriter(tmp.toPath(), StandardCharsets.UTF_8)) {
+      props.store(writer, null);
+    }
+
+    Files.move(tmp.toPath(), file.toPath(),
+        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+    unsaved = 0;
+    lastSaved = TimeBase.nowMs();
+  }
+
+  /**
+   * Deletes the checkpoint of a completed import.
+   */
+  public void complete() {
+    offset = -1;
+    warcId = null;
+    unsaved = 0;
+
+    FileUtils.deleteQuietly(file);
+  }
+
+  /**
+   * Releases the checkpoint, so that another import of the archive may open
+   * it.  Does not save it.
+   */
+  @Override
+  public void close() {
+    if (!closed) {
+      closed = true;
+      held.remove(file.getAbsoluteFile());
+    }
+  }
+
+  /**
+   * Thrown when the record at the offset of a checkpoint is not the one it
+   * records.
+   */
+  public static class MismatchException extends IOException {
+    public MismatchException(String message) {
+      super(message);
+    }
+  }
+
+  /**
+   * Thrown when the checkpoint of an archive is held by another import of
+   * it.
+   */
+  public static class InUseException extends IOException {
+    public InUseException(String message) {
+      super(message);
+    }
+  }
+}
@@ -0,0 +1,386 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.impl;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.lockss.config.Configuration;
+import org.lockss.log.L4JLogger;
+import org.lockss.spring.base.LockssConfigurableService;
+import org.lockss.spring.error.LockssRestServiceException;
+import org.lockss.util.rest.exception.LockssRestHttpException;
+import org.lockss.util.time.TimeBase;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Limits the ingest requests ({@code POST /artifacts}, {@code POST
+ * /artifacts/batch}, {@code POST /archives}, and the {@code POST} and
+ * {@code PUT} requests of upload sessions under {@code /uploads}) that are in
+ * flight at once.
+ * <p>
+ * A request is admitted before its multipart body is parsed, so a request
+ * that is turned away never spools anything. The total Content-Length of
+ * the ingest requests in flight is bounded, a request without one (a chunked
+ * upload) being charged a configured estimate, as is the number of ingest
+ * requests in flight per namespace. A request that would exceed either is
+ * answered with a 503 and a Retry-After header estimated from the rate at
+ * which ingest requests have been completing.
+ * <p>
+ * A request whose response is written asynchronously, such as the
+ * newline-delimited JSON results of an archive import, holds its admission
+ * until the response has been written, and is not admitted again when it is
+ * dispatched back to the servlet to complete.
+ */
+@Service
+public class IngestAdmissionController
+    implements AsyncHandlerInterceptor, LockssConfigurableService {
+  private static L4JLogger log = L4JLogger.getLogger();
+
+  public static final String PREFIX = "org.lockss.repository.ingest.";
+
+  /**
+   * Maximum total Content-Length of the ingest requests in flight. A request
+   * is always admitted if no other is in flight. If 0, unlimited.
+   */
+  public static final String PARAM_MAX_IN_FLIGHT_BYTES = PREFIX + "maxInFlightBytes";
+  public static final long DEFAULT_MAX_IN_FLIGHT_BYTES = 0;
+  private volatile long maxInFlightBytes = DEFAULT_MAX_IN_FLIGHT_BYTES;
+
+  /**
+   * Maximum number of ingest requests in flight per namespace. If 0,
+   * unlimited.
+   */
+  public static final String PARAM_MAX_IN_FLIGHT_REQUESTS = PREFIX + "maxInFlightRequests";
+  public static final int DEFAULT_MAX_IN_FLIGHT_REQUESTS = 0;
+  private volatile int maxInFlightRequests = DEFAULT_MAX_IN_FLIGHT_REQUESTS;
+
+  /**
+   * Number of bytes charged against the in-flight limit for a request without
+   * a Content-Length, such as a chunked upload.
+   */
+  public static final String PARAM_UNKNOWN_CONTENT_LENGTH = PREFIX + "unknownContentLength";
+  public static final long DEFAULT_UNKNOWN_CONTENT_LENGTH = 16 * 1024 * 1024;
+  private volatile long unknownContentLength = DEFAULT_UNKNOWN_CONTENT_LENGTH;
+
+  /**
+   * Retry-After, in seconds, to send before any request has completed.
+   */
+  public static final String PARAM_DEFAULT_RETRY_AFTER = PREFIX + "defaultRetryAfter";
+  public static final int DEFAULT_DEFAULT_RETRY_AFTER = 10;
+  private volatile int defaultRetryAfter = DEFAULT_DEFAULT_RETRY_AFTER;
+
+  /**
+   * Upper bound, in seconds, of the Retry-After sent.
+   */
+  public static final String PARAM_MAX_RETRY_AFTER = PREFIX + "maxRetryAfter";
+  public static final int DEFAULT_MAX_RETRY_AFTER = 300;
+  private volatile int maxRetryAfter = DEFAULT_MAX_RETRY_AFTER;
+
+  static final String RETRY_AFTER = "Retry-After";
+
+  // Request attribute holding the Admission of an admitted request
+  private static final String ADMISSION_ATTR =
+      IngestAdmissionController.class.getName() + ".admission";
+
+  // Weight of the latest sample in the drain rate moving averages
+  private static final double EWMA_WEIGHT = 0.25;
+
+  // Accounting, guarded by this
+  private long inFlightBytes;
+  private int inFlightRequests;
+  private final Map<String, Integer> inFlightByNamespace = new HashMap<>();
+  private long rejected;
+
+  // Moving averages of the completed requests' Content-Length and duration
+  private double avgBytes = -1;
+  private double avgMillis = -1;
+
+  /** Record of an admitted request */
+  private static class Admission {
+    final String namespace;
+    final long bytes;
+    final long start;
+
+    // Set once the admission has been released
+    final AtomicBoolean released = new AtomicBoolean();
+
+    Admission(String namespace, long bytes, long start) {
+      this.namespace = namespace;
+      this.bytes = bytes;
+      this.start = start;
+    }
+  }
+
+  ////////////////////////////////////////////////////////////////////////////////
+  // CONFIG //////////////////////////////////////////////////////////////////////
+  ////////////////////////////////////////////////////////////////////////////////
+
+  @Override
+  public void setConfig(Configuration newConfig,
+                        Configuration prevConfig,
+                        Configuration.Differences changedKeys) {
+    if (changedKeys.contains(PREFIX)) {
+      maxInFlightBytes = newConfig.getLong(PARAM_MAX_IN_FLIGHT_BYTES,
+          DEFAULT_MAX_IN_FLIGHT_BYTES);
+      maxInFlightRequests = newConfig.getInt(PARAM_MAX_IN_FLIGHT_REQUESTS,
+          DEFAULT_MAX_IN_FLIGHT_REQUESTS);
+      unknownContentLength = newConfig.getLong(PARAM_UNKNOWN_CONTENT_LENGTH,
+          DEFAULT_UNKNOWN_CONTENT_LENGTH);
+      defaultRetryAfter = newConfig.getInt(PARAM_DEFAULT_RETRY_AFTER,
+          DEFAULT_DEFAULT_RETRY_AFTER);
+      maxRetryAfter = newConfig.getInt(PARAM_MAX_RETRY_AFTER,
+          DEFAULT_MAX_RETRY_AFTER);
+    }
+  }
+
+  ////////////////////////////////////////////////////////////////////////////////
+  // INTERCEPTOR /////////////////////////////////////////////////////////////////
+  ////////////////////////////////////////////////////////////////////////////////
+
+  @Override
+  public boolean preHandle(HttpServletRequest request,
+                           HttpServletResponse response,
+                           Object handler) {
+    if (!HttpMethod.POST.matches(request.getMethod()) &&
+        !HttpMethod.PUT.matches(request.getMethod())) {
+      return true;
+    }
+
+    if (request.getDispatcherType() == DispatcherType.ASYNC ||
+        request.getAttribute(ADMISSION_ATTR) != null) {
+      // Dispatched again once its asynchronous response has been written;
+      // it is still admitted
+      return true;
+    }
+
+    // Taken from the query string rather than with getParameter(), which
+    // would parse the multipart body
+    String namespace = UriComponentsBuilder.newInstance()
+        .query(request.getQueryString())
+        .build()
+        .getQueryParams()
+        .getFirst("namespace");
+
+    if (namespace == null || namespace.isEmpty()) {
+      namespace = ServiceImplUtil.DEFAULT_NAMESPACE;
+    }
+
+    // A request with neither a Content-Length nor a chunked body has no body
+    long contentLength = request.getContentLengthLong();
+    long bytes = contentLength < 0 && request.getHeader(HttpHeaders.TRANSFER_ENCODING) == null ?
+        0 : chargedBytes(contentLength);
+    long retryAfter = admit(namespace, bytes);
+
+    if (retryAfter > 0) {
+      String errorMessage = "Ingest is saturated; retry in " + retryAfter + "s";
+      log.debug2("{}: {} {}", errorMessage, request.getMethod(), request.getRequestURI());
+
+      response.setHeader(RETRY_AFTER, String.valueOf(retryAfter));
+
+      throw new LockssRestServiceException(
+          LockssRestHttpException.ServerErrorType.APPLICATION_ERROR,
+          HttpStatus.SERVICE_UNAVAILABLE,
+          errorMessage, ServiceImplUtil.getFullRequestUrl(request));
+    }
+
+    Admission admission = new Admission(namespace, bytes, TimeBase.nowMs());
+    request.setAttribute(ADMISSION_ATTR, admission);
+
+    // If the response is written asynchronously and the request is not
+    // dispatched again (e.g., on a timeout or a client disconnect), the
+    // admission is released when the asynchronous request completes
+    WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(ADMISSION_ATTR,
+        new CallableProcessingInterceptor() {
+          @Override
+          public <T> void afterCompletion(NativeWebRequest webRequest, Callable<T> task) {
+            release(admission);
+          }
+        });
+
+    return true;
+  }
+
+  @Override
+  public void afterConcurrentHandlingStarted(HttpServletRequest request,
+                                             HttpServletResponse response,
+                                             Object handler) {
+    // The response is being written asynchronously: the admission is held
+    // until the request is dispatched again and completes
+  }
+
+  @Override
+  public void afterCompletion(HttpServletRequest request,
+                              HttpServletResponse response,
+                              Object handler, Exception ex) {
+    Admission admission = (Admission) request.getAttribute(ADMISSION_ATTR);
+
+    if (admission != null) {
+      release(admission);
+    }
+  }
+
+  // Releases an admission, once
+  private void release(Admission admission) {
+    if (admission.released.compareAndSet(false, true)) {
+      release(admission.namespace, admission.bytes, TimeBase.msSince(admission.start));
+    }
+  }
+
+  ////////////////////////////////////////////////////////////////////////////////
+  // ACCOUNTING //////////////////////////////////////////////////////////////////
+  ////////////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Returns the number of bytes to charge for a request with the given
+   * Content-Length, -1 if it has none.
+   */
+  long chargedBytes(long contentLength) {
+    return contentLength < 0 ? unknownContentLength : contentLength;
+  }
+
+  /**
+   * Admits an ingest request if the limits allow.
+   *
+   * @param namespace A String with the namespace of the request.
+   * @param bytes     A long with the Content-Length of the request.
+   * @return 0 if the request is admitted, otherwise the number of seconds
+   * after which to retry.
+   */
+  synchronized long admit(String namespace, long bytes) {
+    int nsRequests = inFlightByNamespace.getOrDefault(namespace, 0);
+
+    long excessBytes = maxInFlightBytes > 0 && inFlightRequests > 0 ?
+        inFlightBytes + bytes - maxInFlightBytes : 0;
+    boolean excessRequests = maxInFlightRequests > 0 &&
+        nsRequests >= maxInFlightRequests;
+
+    if (excessBytes > 0 || excessRequests) {
+      rejected++;
+      return retryAfter(excessBytes, excessRequests ? nsRequests : 0);
+    }
+
+    inFlightBytes += bytes;
+    inFlightRequests++;
+    inFlightByNamespace.put(namespace, nsRequests + 1);
+    return 0;
+  }
+
+  /**
+   * Releases the accounting of a completed ingest request, and updates the
+   * drain rate estimates.
+   */
+  synchronized void release(String namespace, long bytes, long millis) {
+    inFlightBytes -= bytes;
+    inFlightRequests--;
+    inFlightByNamespace.computeIfPresent(namespace, (ns, n) -> n > 1 ? n - 1 : null);
+
+    avgBytes = avgBytes < 0 ? bytes : EWMA_WEIGHT * bytes + (1 - EWMA_WEIGHT) * avgBytes;
+    avgMillis = avgMillis < 0 ? millis : EWMA_WEIGHT * millis + (1 - EWMA_WEIGHT) * avgMillis;
+  }
+
+  /**
+   * Estimates the number of seconds until enough bytes have drained, and
+   * until one of the given number of requests completes.
+   */
+  private long retryAfter(long excessBytes, int blockingRequests) {
+    if (avgMillis < 0) {
+      return defaultRetryAfter;
+    }
+
+    double seconds = 0;
+
+    if (excessBytes > 0) {
+      // Requests in flight complete at inFlightRequests / avgMillis per ms,
+      // each freeing avgBytes on average
+      double bytesPerMs = inFlightRequests * Math.max(avgBytes, 1) / Math.max(avgMillis, 1);
+      seconds = Math.max(seconds, excessBytes / bytesPerMs / 1000);
+    }
+
+    if (blockingRequests > 0) {
+      seconds = Math.max(seconds, avgMillis / blockingRequests / 1000);
+    }
+
+    return Math.min(Math.max((long) Math.ceil(seconds), 1), maxRetryAfter);
+  }
+
+  /**
+   * Returns a description of the saturated limits, or {@code null} if no
+   * limit is currently reached.
+   */
+  public synchronized String getSaturation() {
+    StringBuilder sb = new StringBuilder();
+
+    if (maxInFlightBytes > 0 && inFlightBytes >= maxInFlightBytes) {
+      sb.append("Ingest bytes in flight at limit (")
+          .append(inFlightBytes).append(" of ").append(maxInFlightBytes).append(")");
+    }
+
+    if (maxInFlightRequests > 0) {
+      inFlightByNamespace.forEach((ns, n) -> {
+        if (n >= maxInFlightRequests) {
+          sb.append(sb.length() > 0 ? "; " : "")
+              .append("Ingest requests in flight at limit in namespace ").append(ns)
+              .append(" (").append(n).append(")");
+        }
+      });
+    }
+
+    return sb.length() > 0 ? sb.toString() : null;
+  }
+
+  public synchronized long getInFlightBytes() {
+    return inFlightBytes;
+  }
+
+  public synchronized int getInFlightRequests() {
+    return inFlightRequests;
+  }
+
+  public synchronized long getRejected() {
+    return rejected;
+  }
+}
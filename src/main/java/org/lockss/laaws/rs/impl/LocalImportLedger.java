@@ -0,0 +1,99 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.impl;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.lockss.log.L4JLogger;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Records the local archive files whose import into an AU completed without
+ * errors, so that a repeated import of a directory skips them.
+ * <p>
+ * There is one ledger file per namespace and AU, with a line per imported
+ * file holding its size, modification time and path; a file that changed
+ * since it was imported is imported again.
+ */
+public class LocalImportLedger {
+  private static L4JLogger log = L4JLogger.getLogger();
+
+  private final File ledgerFile;
+  private final Set<String> entries = new HashSet<>();
+
+  /**
+   * Opens the ledger of an AU, reading the entries recorded so far.
+   *
+   * @param dir       The directory of the ledger files.
+   * @param namespace A String with the namespace of the AU.
+   * @param auid      A String with the AUID of the AU.
+   */
+  public LocalImportLedger(File dir, String namespace, String auid) throws IOException {
+    this.ledgerFile = new File(dir,
+        "ledger-" + DigestUtils.sha1Hex(namespace + "\n" + auid) + ".txt");
+
+    if (ledgerFile.exists()) {
+      entries.addAll(FileUtils.readLines(ledgerFile, StandardCharsets.UTF_8));
+    }
+  }
+
+  private static String entry(File file) {
+    return file.length() + "\t" + file.lastModified() + "\t" + file.getAbsolutePath();
+  }
+
+  /**
+   * Returns true if the file, as it is now, has been imported.
+   */
+  public synchronized boolean isImported(File file) {
+    return entries.contains(entry(file));
+  }
+
+  /**
+   * Records that the file has been imported.
+   */
+  public synchronized void markImported(File file) {
+    String entry = entry(file);
+
+    if (entries.add(entry)) {
+      try {
+        FileUtils.writeStringToFile(ledgerFile, entry + "\n", StandardCharsets.UTF_8, true);
+      } catch (IOException e) {
+        log.warn("Couldn't record import of {} in {}", file, ledgerFile, e);
+      }
+    }
+  }
+}
@@ -0,0 +1,115 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.lockss.log.L4JLogger;
+import org.lockss.util.rest.repo.model.ImportStatus;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A {@link StreamingResponseBody} of the results of an archive import, as
+ * newline-delimited JSON {@link ImportStatus} objects, that runs the import
+ * as the response is written. Each {@link ImportStatus} is written and
+ * flushed as soon as its record has been processed.
+ * <p>
+ * If the import fails after it has started writing, the failure is reported
+ * as a final {@link ImportStatus} with status {@code ERROR} and no URL.
+ */
+public class NdjsonImportStatusBody implements StreamingResponseBody {
+  private static L4JLogger log = L4JLogger.getLogger();
+
+  /**
+   * Runs an archive import, passing the status of each record to a consumer.
+   */
+  @FunctionalInterface
+  public interface Importer {
+    void run(ArchivesApiServiceImpl.ImportStatusConsumer consumer) throws IOException;
+  }
+
+  private final Importer importer;
+  private final ObjectWriter objWriter;
+
+  public NdjsonImportStatusBody(Importer importer) {
+    this.importer = importer;
+
+    ObjectMapper objMapper = new ObjectMapper();
+    objMapper.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    this.objWriter = objMapper.writerFor(ImportStatus.class);
+  }
+
+  /**
+   * Runs the import, writing each {@link ImportStatus} as a line.
+   */
+  @Override
+  public void writeTo(OutputStream out) throws IOException {
+    // Distinguishes failures writing the results from failures of the import
+    boolean[] writeFailed = {false};
+
+    try {
+      importer.run(status -> {
+        try {
+          writeLine(out, status);
+          out.flush();
+        } catch (IOException e) {
+          writeFailed[0] = true;
+          throw e;
+        }
+      });
+    } catch (IOException | RuntimeException e) {
+      if (writeFailed[0]) {
+        // The destination is gone; nothing more can be reported
+        throw e;
+      }
+
+      log.error("Archive import failed", e);
+
+      ImportStatus status = new ImportStatus();
+      status.setStatus(ImportStatus.StatusEnum.ERROR);
+      status.setStatusMessage("Import failed: " + e.getMessage());
+
+      writeLine(out, status);
+      out.flush();
+    }
+  }
+
+  private void writeLine(OutputStream out, ImportStatus status) throws IOException {
+    objWriter.writeValue(out, status);
+    out.write('\n');
+  }
+}
@@ -34,14 +34,22 @@ package org.lockss.laaws.rs.impl;
 import org.json.JSONObject;
 import org.lockss.log.L4JLogger;
 import org.lockss.spring.error.LockssRestServiceException;
+import org.lockss.util.jms.JmsProducer;
 import org.lockss.util.rest.exception.LockssRestHttpException;
 import org.lockss.util.rest.repo.LockssRepository;
+import org.lockss.util.rest.repo.RestLockssRepository;
 import org.lockss.util.rest.repo.model.Artifact;
+import org.lockss.util.rest.repo.util.ArtifactCache;
 import org.springframework.http.HttpStatus;
 
 import jakarta.servlet.http.HttpServletRequest;
+import javax.jms.JMSException;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
 
 /**
  * Utility method used in the service controllers.
@@ -49,6 +57,9 @@ import java.util.List;
 public class ServiceImplUtil {
   private static L4JLogger log = L4JLogger.getLogger();
 
+  /** Namespace of requests that don't name one */
+  static final String DEFAULT_NAMESPACE = "lockss";
+
   private static String archiveFileExtension = ".warc";
   private static String archiveFileSeparator = ":";
 
@@ -286,4 +297,92 @@ public class ServiceImplUtil {
       artifactCount++;
     }
   }
+
+  /**
+   * Determines whether an Accept-Encoding request header accepts the gzip
+   * content coding, explicitly or through a wildcard, with a non-zero
+   * quality value.
+   *
+   * @param acceptEncoding A String with the Accept-Encoding request header,
+   *                       or null.
+   * @return true if a gzip-encoded response is acceptable.
+   */
+  static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+
+    boolean wildcard = false;
+
+    for (String coding : acceptEncoding.split(",")) {
+      String[] parts = coding.split(";");
+      String name = parts[0].trim().toLowerCase(Locale.ROOT);
+      boolean acceptable = true;
+
+      for (int i = 1; i < parts.length; i++) {
+        String param = parts[i].trim().toLowerCase(Locale.ROOT);
+
+        if (param.startsWith("q=")) {
+          try {
+            acceptable = Double.parseDouble(param.substring(2).trim()) > 0;
+          } catch (NumberFormatException e) {
+            acceptable = false;
+          }
+        }
+      }
+
+      if (name.equals("gzip") || name.equals("x-gzip")) {
+        // An explicit entry overrides a wildcard
+        return acceptable;
+      } else if (name.equals("*")) {
+        wildcard = acceptable;
+      }
+    }
+
+    return wildcard;
+  }
+
+  /**
+   * Resizes a fixed-size executor, if it has been created.
+   */
+  static void setPoolSize(ThreadPoolExecutor executor, int threads) {
+    if (executor == null) {
+      return;
+    }
+
+    // Core size must not exceed max size at any point
+    if (threads > executor.getMaximumPoolSize()) {
+      executor.setMaximumPoolSize(threads);
+      executor.setCorePoolSize(threads);
+    } else {
+      executor.setCorePoolSize(threads);
+      executor.setMaximumPoolSize(threads);
+    }
+  }
+
+  /**
+   * Broadcasts a signal to invalidate the artifacts of an AU in the artifact
+   * caches of REST clients.
+   *
+   * @param producer A JmsProducer with the producer of the service, or null
+   *                 if JMS is not set up.
+   * @param op       An ArtifactCache.InvalidateOp with the operation that
+   *                 caused the invalidation.
+   * @param auid     A String with the AUID.
+   */
+  static void sendCacheInvalidateAu(JmsProducer producer,
+                                    ArtifactCache.InvalidateOp op, String auid) {
+    if (producer != null && auid != null) {
+      Map<String, Object> map = new HashMap<>();
+      map.put(RestLockssRepository.REST_ARTIFACT_CACHE_MSG_ACTION,
+          RestLockssRepository.REST_ARTIFACT_CACHE_MSG_ACTION_INVALIDATE_AU);
+      map.put(RestLockssRepository.REST_ARTIFACT_CACHE_MSG_OP, op.toString());
+      map.put(RestLockssRepository.REST_ARTIFACT_CACHE_MSG_KEY, auid);
+      try {
+        producer.sendMap(map);
+      } catch (JMSException e) {
+        log.error("Couldn't send cache invalidate notification", e);
+      }
+    }
+  }
 }
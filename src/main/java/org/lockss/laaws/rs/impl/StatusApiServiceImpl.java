@@ -49,8 +49,14 @@ public class StatusApiServiceImpl extends SpringLockssBaseApiController
   @Autowired
   LockssRepository repo;
 
+  @Autowired
+  IngestAdmissionController ingestAdmissionController;
+
   /**
-   * Provides the status object.
+   * Provides the status object. Saturated ingest does not affect readiness,
+   * as the service goes on serving reads and admitting ingest requests as
+   * others complete; the saturated limits are reported in the reason, so
+   * that clients can back off.
    * 
    * @return an ApiStatus with the status.
    */
@@ -58,6 +64,14 @@ public class StatusApiServiceImpl extends SpringLockssBaseApiController
   public ApiStatus getApiStatus() {
     ApiStatus apistat = super.getDefaultApiStatus();
     apistat.setReady(apistat.isReady() && repo.isReady());
+
+    String saturation = ingestAdmissionController.getSaturation();
+    if (saturation != null) {
+      String reason = apistat.getReason();
+      apistat.setReason(reason == null || reason.isEmpty() ?
+          saturation : reason + "; " + saturation);
+    }
+
     return apistat;
   }
 }
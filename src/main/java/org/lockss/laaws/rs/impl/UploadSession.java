@@ -0,0 +1,272 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.impl;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.FileUtils;
+import org.lockss.laaws.rs.model.UploadSessionStatus;
+import org.lockss.laaws.rs.model.UploadSessionStatus.StateEnum;
+import org.lockss.log.L4JLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A resumable upload of the payload of an artifact, managed by
+ * {@link UploadsApiServiceImpl}.
+ * <p>
+ * Chunks are appended to a spool file at the offset the client says it is
+ * at, and fed to a running SHA-256 digest as they are written, so that the
+ * digest of the payload is known without reading the spool file again when
+ * the upload is finished. The spool file never holds bytes past the current
+ * offset that weren't digested: a chunk interrupted midway leaves the offset
+ * at the last byte written, and the client resumes from there.
+ */
+public class UploadSession {
+  private static L4JLogger log = L4JLogger.getLogger();
+
+  public static final String DIGEST_ALGORITHM = "SHA-256";
+
+  private static final int CHUNK_BUFFER_SIZE = 64 * 1024;
+
+  private final String uploadId = UUID.randomUUID().toString();
+  private final String namespace;
+  private final String artifactProps;
+  private final String auid;
+  private final String url;
+  private final String httpResponseHeader;
+  private final String contentType;
+  private final Long contentLength;
+  private final String contentDigest;
+  private final File spoolFile;
+  private final long created = System.currentTimeMillis();
+
+  private final MessageDigest digest;
+  private final ReentrantLock lock = new ReentrantLock();
+
+  private volatile long offset;
+  private volatile long lastAccess = created;
+  private volatile StateEnum state = StateEnum.OPEN;
+
+  /**
+   * Constructor.
+   *
+   * @param namespace          A String with the namespace of the artifact.
+   * @param artifactProps      A String with the JSON artifact properties.
+   * @param auid               A String with the AUID of the artifact.
+   * @param url                A String with the URL of the artifact.
+   * @param httpResponseHeader A String with the HTTP response status and
+   *                           headers, or {@code null}.
+   * @param contentType        A String with the Content-Type of the payload,
+   *                           or {@code null}.
+   * @param contentLength      The expected length of the payload, or
+   *                           {@code null} if unknown.
+   * @param contentDigest      The expected digest of the payload, or
+   *                           {@code null} if unknown.
+   * @param spoolDir           The directory of the file to spool the payload
+   *                           to.
+   */
+  public UploadSession(String namespace, String artifactProps, String auid,
+                       String url, String httpResponseHeader, String contentType,
+                       Long contentLength, String contentDigest, File spoolDir) {
+    this.namespace = namespace;
+    this.artifactProps = artifactProps;
+    this.auid = auid;
+    this.url = url;
+    this.httpResponseHeader = httpResponseHeader;
+    this.contentType = contentType;
+    this.contentLength = contentLength;
+    this.contentDigest = contentDigest;
+    this.spoolFile = new File(spoolDir, "upload_" + uploadId + ".tmp");
+
+    try {
+      this.digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(DIGEST_ALGORITHM + " not available", e);
+    }
+  }
+
+  public String getUploadId() {
+    return uploadId;
+  }
+
+  public String getNamespace() {
+    return namespace;
+  }
+
+  public String getArtifactProps() {
+    return artifactProps;
+  }
+
+  public String getHttpResponseHeader() {
+    return httpResponseHeader;
+  }
+
+  public String getContentType() {
+    return contentType;
+  }
+
+  public Long getContentLength() {
+    return contentLength;
+  }
+
+  public String getContentDigest() {
+    return contentDigest;
+  }
+
+  public File getSpoolFile() {
+    return spoolFile;
+  }
+
+  public long getOffset() {
+    return offset;
+  }
+
+  public long getLastAccess() {
+    return lastAccess;
+  }
+
+  public StateEnum getState() {
+    return state;
+  }
+
+  /**
+   * Takes exclusive use of the session for an append or finish.
+   *
+   * @return false if the session is in use by another request.
+   */
+  boolean tryLock() {
+    lastAccess = System.currentTimeMillis();
+    return lock.tryLock();
+  }
+
+  void unlock() {
+    lastAccess = System.currentTimeMillis();
+    lock.unlock();
+  }
+
+  /**
+   * Appends a chunk to the spool file. The caller must hold the lock, and
+   * have checked that the chunk starts at the current offset.
+   *
+   * @param in An InputStream with the chunk.
+   * @return the number of bytes appended.
+   * @throws IOException if the chunk could not be read or written; the bytes
+   *                     written before the error remain appended.
+   */
+  long append(InputStream in) throws IOException {
+    long start = offset;
+
+    try (FileChannel channel = FileChannel.open(spoolFile.toPath(),
+        StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+
+      // Drop anything left past the offset by a failed write
+      channel.truncate(offset);
+      channel.position(offset);
+
+      byte[] buf = new byte[CHUNK_BUFFER_SIZE];
+      int n;
+
+      while ((n = in.read(buf)) != -1) {
+        if (contentLength != null && offset + n > contentLength) {
+          throw new IllegalArgumentException("Chunk extends past the content length");
+        }
+
+        ByteBuffer bb = ByteBuffer.wrap(buf, 0, n);
+        while (bb.hasRemaining()) {
+          channel.write(bb);
+        }
+
+        digest.update(buf, 0, n);
+        offset += n;
+      }
+    }
+
+    return offset - start;
+  }
+
+  /**
+   * Returns the digest of the bytes appended so far, in the form used for
+   * artifact content digests. Doesn't disturb the running digest.
+   */
+  String getCurrentDigest() {
+    try {
+      MessageDigest md = (MessageDigest) digest.clone();
+      return String.format("%s:%s", md.getAlgorithm(), new String(Hex.encodeHex(md.digest())));
+    } catch (CloneNotSupportedException e) {
+      throw new IllegalStateException("Can't clone " + DIGEST_ALGORITHM + " digest", e);
+    }
+  }
+
+  void setState(StateEnum state) {
+    this.state = state;
+  }
+
+  /**
+   * Deletes the spool file.
+   */
+  void discard() {
+    state = StateEnum.DISCARDED;
+
+    if (!FileUtils.deleteQuietly(spoolFile) && spoolFile.exists()) {
+      log.warn("Couldn't delete upload spool file {}", spoolFile);
+    }
+  }
+
+  /**
+   * Returns the externally visible status of the session.
+   */
+  public UploadSessionStatus getStatus() {
+    UploadSessionStatus status = new UploadSessionStatus();
+
+    status.setUploadId(uploadId);
+    status.setNamespace(namespace);
+    status.setAuid(auid);
+    status.setUrl(url);
+    status.setOffset(offset);
+    status.setContentLength(contentLength);
+    status.setState(state);
+    status.setCreated(created);
+    status.setLastAccess(lastAccess);
+
+    return status;
+  }
+}
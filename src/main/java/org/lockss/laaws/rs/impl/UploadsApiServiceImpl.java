@@ -0,0 +1,477 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.lockss.config.ConfigManager;
+import org.lockss.config.Configuration;
+import org.lockss.laaws.rs.api.UploadsApiDelegate;
+import org.lockss.laaws.rs.model.UploadSessionRequest;
+import org.lockss.laaws.rs.model.UploadSessionStatus;
+import org.lockss.log.L4JLogger;
+import org.lockss.spring.base.BaseSpringApiServiceImpl;
+import org.lockss.spring.base.LockssConfigurableService;
+import org.lockss.spring.error.LockssRestServiceException;
+import org.lockss.util.StringUtil;
+import org.lockss.util.TimerQueue;
+import org.lockss.util.rest.exception.LockssRestHttpException;
+import org.lockss.util.rest.repo.LockssRepository;
+import org.lockss.util.rest.repo.model.Artifact;
+import org.lockss.util.rest.repo.model.ArtifactProperties;
+import org.lockss.util.time.Deadline;
+import org.lockss.util.time.TimeUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service for resumable uploads of artifact payloads.
+ * <p>
+ * An upload session spools the payload of one artifact, sent in chunks that
+ * may be resent from the last offset received after a failure, and creates
+ * the artifact from it when finished. Sessions are held in memory: they don't
+ * survive a restart of the service, after which the upload must start over.
+ */
+@Service
+public class UploadsApiServiceImpl extends BaseSpringApiServiceImpl
+    implements UploadsApiDelegate, LockssConfigurableService {
+  private static L4JLogger log = L4JLogger.getLogger();
+
+  @Autowired
+  LockssRepository repo;
+
+  @Autowired
+  ArtifactsApiServiceImpl artifactsService;
+
+  @Autowired
+  ObjectMapper objMapper;
+
+  private final HttpServletRequest request;
+
+  // Upload sessions, by upload ID
+  private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+
+  // Number of sessions in the map or about to be added to it, counted
+  // separately so that a new session can be reserved atomically
+  private final AtomicInteger sessionCount = new AtomicInteger();
+
+  @Autowired
+  public UploadsApiServiceImpl(HttpServletRequest request) {
+    this.request = request;
+  }
+
+  ////////////////////////////////////////////////////////////////////////////////
+  // PARAMS //////////////////////////////////////////////////////////////////////
+  ////////////////////////////////////////////////////////////////////////////////
+
+  public static final String PREFIX = "org.lockss.repository.upload.";
+
+  /**
+   * Directory to spool uploads to. Relative paths are relative to the
+   * platform tmpdir.
+   */
+  public static final String PARAM_UPLOAD_DIR = PREFIX + "dir";
+  public static final String DEFAULT_UPLOAD_DIR = "repo-uploads";
+  private String uploadDir = DEFAULT_UPLOAD_DIR;
+
+  /**
+   * Time after which an upload session that hasn't been used is discarded.
+   */
+  public static final String PARAM_UPLOAD_TIMEOUT = PREFIX + "timeout";
+  public static final long DEFAULT_UPLOAD_TIMEOUT = 24 * TimeUtil.HOUR;
+  private long uploadTimeout = DEFAULT_UPLOAD_TIMEOUT;
+
+  /**
+   * Maximum number of upload sessions open at once.
+   */
+  public static final String PARAM_MAX_UPLOAD_SESSIONS = PREFIX + "maxSessions";
+  public static final int DEFAULT_MAX_UPLOAD_SESSIONS = 100;
+  private int maxUploadSessions = DEFAULT_MAX_UPLOAD_SESSIONS;
+
+  ////////////////////////////////////////////////////////////////////////////////
+  // CONFIG //////////////////////////////////////////////////////////////////////
+  ////////////////////////////////////////////////////////////////////////////////
+
+  @Override
+  public void setConfig(Configuration newConfig,
+                        Configuration prevConfig,
+                        Configuration.Differences changedKeys) {
+    if (changedKeys.contains(PREFIX)) {
+      uploadDir = newConfig.get(PARAM_UPLOAD_DIR, DEFAULT_UPLOAD_DIR);
+      uploadTimeout = newConfig.getTimeInterval(PARAM_UPLOAD_TIMEOUT,
+          DEFAULT_UPLOAD_TIMEOUT);
+      maxUploadSessions = newConfig.getInt(PARAM_MAX_UPLOAD_SESSIONS,
+          DEFAULT_MAX_UPLOAD_SESSIONS);
+
+      if (uploadSessionTimer != null) {
+        TimerQueue.cancel(uploadSessionTimer);
+      }
+      uploadSessionTimer = TimerQueue.schedule(Deadline.in(1 * TimeUtil.HOUR),
+          1 * TimeUtil.HOUR, uploadSessionTimeout, null);
+    }
+  }
+
+  TimerQueue.Request uploadSessionTimer;
+
+  // Timer callback for periodic removal of abandoned upload sessions
+  private TimerQueue.Callback uploadSessionTimeout =
+      new TimerQueue.Callback() {
+        public void timerExpired(Object cookie) {
+          expireUploadSessions();
+        }
+      };
+
+  private void expireUploadSessions() {
+    long cutoff = System.currentTimeMillis() - uploadTimeout;
+
+    for (Iterator<UploadSession> iter = sessions.values().iterator(); iter.hasNext(); ) {
+      UploadSession session = iter.next();
+      if (session.getLastAccess() < cutoff && session.tryLock()) {
+        try {
+          log.debug("Discarding abandoned upload session [uploadId: {}, offset: {}]",
+              session.getUploadId(), session.getOffset());
+          iter.remove();
+          sessionCount.decrementAndGet();
+          session.discard();
+        } finally {
+          session.unlock();
+        }
+      }
+    }
+  }
+
+  ////////////////////////////////////////////////////////////////////////////////
+  // REST ////////////////////////////////////////////////////////////////////////
+  ////////////////////////////////////////////////////////////////////////////////
+
+  /**
+   * Controller for {@code POST /uploads}.
+   * <p>
+   * Creates a resumable upload session for the payload of a new artifact.
+   *
+   * @param sessionRequest An {@link UploadSessionRequest} with the artifact
+   *                       properties and the expected payload, if known.
+   * @return the {@link UploadSessionStatus} of the new session.
+   */
+  @Override
+  public ResponseEntity<UploadSessionStatus> createUploadSession(UploadSessionRequest sessionRequest) {
+    String parsedRequest = String.format("artifactProps: %s, requestUrl: %s",
+        sessionRequest.getArtifactProps(), ServiceImplUtil.getFullRequestUrl(request));
+
+    log.debug2("Parsed request: {}", parsedRequest);
+
+    ServiceImplUtil.checkRepositoryReady(repo, parsedRequest);
+
+    ArtifactProperties props = parseArtifactProps(sessionRequest.getArtifactProps(), parsedRequest);
+
+    if (StringUtil.isNullString(props.getAuid()) || StringUtil.isNullString(props.getUri())) {
+      throw new LockssRestServiceException(LockssRestHttpException.ServerErrorType.NONE,
+          HttpStatus.BAD_REQUEST, "Artifact properties must include auid and uri", parsedRequest);
+    }
+
+    // Reserve a place for the session before creating it, so that concurrent
+    // requests can't exceed the maximum between the check and the addition
+    if (sessionCount.incrementAndGet() > maxUploadSessions) {
+      sessionCount.decrementAndGet();
+      throw new LockssRestServiceException(LockssRestHttpException.ServerErrorType.APPLICATION_ERROR,
+          HttpStatus.SERVICE_UNAVAILABLE, "Too many upload sessions", parsedRequest);
+    }
+
+    UploadSession session;
+
+    try {
+      File dir = getUploadDir();
+
+      if (!dir.isDirectory() && !dir.mkdirs()) {
+        throw new LockssRestServiceException(LockssRestHttpException.ServerErrorType.APPLICATION_ERROR,
+            HttpStatus.INTERNAL_SERVER_ERROR, "Couldn't create upload directory", parsedRequest);
+      }
+
+      String namespace = StringUtil.isNullString(props.getNamespace()) ?
+          ServiceImplUtil.DEFAULT_NAMESPACE : props.getNamespace();
+
+      session = new UploadSession(namespace,
+          sessionRequest.getArtifactProps(), props.getAuid(), props.getUri(),
+          sessionRequest.getHttpResponseHeader(), sessionRequest.getContentType(),
+          sessionRequest.getContentLength(), sessionRequest.getContentDigest(), dir);
+    } catch (RuntimeException e) {
+      sessionCount.decrementAndGet();
+      throw e;
+    }
+
+    sessions.put(session.getUploadId(), session);
+
+    log.debug("Created upload session [uploadId: {}, auid: {}, url: {}]",
+        session.getUploadId(), props.getAuid(), props.getUri());
+
+    HttpHeaders headers = new HttpHeaders();
+    headers.setLocation(URI.create(request.getContextPath() + "/uploads/" + session.getUploadId()));
+
+    return new ResponseEntity<>(session.getStatus(), headers, HttpStatus.CREATED);
+  }
+
+  /**
+   * Controller for {@code GET /uploads/{uploadId}}.
+   *
+   * @param uploadId A {@link String} with the identifier of the session.
+   * @return the {@link UploadSessionStatus} of the session.
+   */
+  @Override
+  public ResponseEntity<UploadSessionStatus> getUploadSession(String uploadId) {
+    String parsedRequest = String.format("uploadId: %s, requestUrl: %s",
+        uploadId, ServiceImplUtil.getFullRequestUrl(request));
+
+    log.debug2("Parsed request: {}", parsedRequest);
+
+    return new ResponseEntity<>(getSession(uploadId, parsedRequest).getStatus(), HttpStatus.OK);
+  }
+
+  /**
+   * Controller for {@code PUT /uploads/{uploadId}}.
+   * <p>
+   * Appends the request body to the payload of the session. The body is read
+   * from the request directly, rather than bound by Spring, so that it is not
+   * buffered in memory.
+   *
+   * @param uploadId A {@link String} with the identifier of the session.
+   * @param offset   A {@link Long} with the offset in the payload of the
+   *                 chunk.
+   * @return the {@link UploadSessionStatus} of the session.
+   */
+  @Override
+  public ResponseEntity<UploadSessionStatus> appendUploadChunk(String uploadId, Long offset) {
+    String parsedRequest = String.format("uploadId: %s, offset: %s, requestUrl: %s",
+        uploadId, offset, ServiceImplUtil.getFullRequestUrl(request));
+
+    log.debug2("Parsed request: {}", parsedRequest);
+
+    UploadSession session = lockSession(uploadId, parsedRequest);
+
+    try {
+      if (offset == null || offset != session.getOffset()) {
+        throw new LockssRestServiceException(LockssRestHttpException.ServerErrorType.NONE,
+            HttpStatus.CONFLICT,
+            "Chunk offset " + offset + " is not the current offset " + session.getOffset(),
+            parsedRequest);
+      }
+
+      try (InputStream in = request.getInputStream()) {
+        long appended = session.append(in);
+
+        log.debug2("Appended chunk [uploadId: {}, offset: {}, length: {}]",
+            uploadId, offset, appended);
+      } catch (IllegalArgumentException e) {
+        throw new LockssRestServiceException(LockssRestHttpException.ServerErrorType.NONE,
+            HttpStatus.BAD_REQUEST, e.getMessage(), parsedRequest);
+      } catch (IOException e) {
+        String errorMessage = "Chunk interrupted at offset " + session.getOffset();
+        log.warn(errorMessage + " [uploadId: {}]", uploadId, e);
+
+        throw new LockssRestServiceException(LockssRestHttpException.ServerErrorType.DATA_ERROR,
+            HttpStatus.INTERNAL_SERVER_ERROR, errorMessage, e, parsedRequest);
+      }
+
+      return new ResponseEntity<>(session.getStatus(), HttpStatus.OK);
+    } finally {
+      session.unlock();
+    }
+  }
+
+  /**
+   * Controller for {@code DELETE /uploads/{uploadId}}.
+   *
+   * @param uploadId A {@link String} with the identifier of the session.
+   */
+  @Override
+  public ResponseEntity<Void> deleteUploadSession(String uploadId) {
+    String parsedRequest = String.format("uploadId: %s, requestUrl: %s",
+        uploadId, ServiceImplUtil.getFullRequestUrl(request));
+
+    log.debug2("Parsed request: {}", parsedRequest);
+
+    UploadSession session = lockSession(uploadId, parsedRequest);
+
+    try {
+      removeSession(uploadId);
+      session.discard();
+    } finally {
+      session.unlock();
+    }
+
+    return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+  }
+
+  /**
+   * Controller for {@code POST /uploads/{uploadId}/finish}.
+   * <p>
+   * Creates the artifact from the uploaded payload. The digest of the payload
+   * is the one computed as the chunks were appended.
+   *
+   * @param uploadId A {@link String} with the identifier of the session.
+   * @param commit   A {@link Boolean} indicating whether the artifact is to be
+   *                 committed once added.
+   * @return the created {@link Artifact}.
+   */
+  @Override
+  public ResponseEntity<Artifact> finishUploadSession(String uploadId, Boolean commit) {
+    String parsedRequest = String.format("uploadId: %s, commit: %s, requestUrl: %s",
+        uploadId, commit, ServiceImplUtil.getFullRequestUrl(request));
+
+    log.debug2("Parsed request: {}", parsedRequest);
+
+    ServiceImplUtil.checkRepositoryReady(repo, parsedRequest);
+
+    UploadSession session = lockSession(uploadId, parsedRequest);
+
+    try {
+      long length = session.getOffset();
+      String digest = session.getCurrentDigest();
+
+      if (session.getContentLength() != null && session.getContentLength() != length) {
+        throw new LockssRestServiceException(LockssRestHttpException.ServerErrorType.NONE,
+            HttpStatus.CONFLICT,
+            "Upload incomplete: " + length + " of " + session.getContentLength() + " bytes",
+            parsedRequest);
+      }
+
+      if (session.getContentDigest() != null &&
+          !session.getContentDigest().equalsIgnoreCase(digest)) {
+        // The payload can't be fixed by resuming: discard it
+        removeSession(uploadId);
+        session.discard();
+
+        throw new LockssRestServiceException(LockssRestHttpException.ServerErrorType.NONE,
+            HttpStatus.BAD_REQUEST,
+            "Payload digest " + digest + " doesn't match " + session.getContentDigest(),
+            parsedRequest);
+      }
+
+      ArtifactProperties props = parseArtifactProps(session.getArtifactProps(), parsedRequest);
+
+      Artifact artifact;
+
+      try (InputStream payload = new FileInputStream(session.getSpoolFile())) {
+        artifact = artifactsService.addUploadedArtifact(props, payload, length, digest,
+            session.getContentType(), session.getHttpResponseHeader(),
+            Boolean.TRUE.equals(commit), parsedRequest);
+      } catch (IOException e) {
+        String errorMessage = "Caught IOException while adding uploaded artifact";
+        log.warn(errorMessage + " [uploadId: {}]", uploadId, e);
+
+        throw new LockssRestServiceException(LockssRestHttpException.ServerErrorType.DATA_ERROR,
+            HttpStatus.INTERNAL_SERVER_ERROR, errorMessage, e, parsedRequest);
+      }
+
+      removeSession(uploadId);
+      session.setState(UploadSessionStatus.StateEnum.FINISHED);
+      session.discard();
+
+      log.debug("Finished upload session [uploadId: {}, artifact: {}, length: {}]",
+          uploadId, artifact.getUuid(), length);
+
+      return new ResponseEntity<>(artifact, HttpStatus.CREATED);
+    } finally {
+      session.unlock();
+    }
+  }
+
+  ////////////////////////////////////////////////////////////////////////////////
+  // UTILITIES ///////////////////////////////////////////////////////////////////
+  ////////////////////////////////////////////////////////////////////////////////
+
+  private void removeSession(String uploadId) {
+    if (sessions.remove(uploadId) != null) {
+      sessionCount.decrementAndGet();
+    }
+  }
+
+  private File getUploadDir() {
+    File dir = new File(uploadDir);
+    return dir.isAbsolute() ? dir : new File(ConfigManager.getConfigManager().getTmpDir(), uploadDir);
+  }
+
+  private ArtifactProperties parseArtifactProps(String artifactProps, String parsedRequest) {
+    try {
+      return objMapper.readValue(artifactProps, ArtifactProperties.class);
+    } catch (IOException e) {
+      throw new LockssRestServiceException(LockssRestHttpException.ServerErrorType.NONE,
+          HttpStatus.BAD_REQUEST, "Invalid artifact properties", e, parsedRequest);
+    }
+  }
+
+  private UploadSession getSession(String uploadId, String parsedRequest) {
+    UploadSession session = sessions.get(uploadId);
+
+    if (session == null) {
+      throw new LockssRestServiceException(LockssRestHttpException.ServerErrorType.NONE,
+          HttpStatus.NOT_FOUND, "No such upload session: " + uploadId, parsedRequest);
+    }
+
+    return session;
+  }
+
+  /**
+   * Returns a session for exclusive use by this request; the caller must
+   * unlock it.
+   */
+  private UploadSession lockSession(String uploadId, String parsedRequest) {
+    UploadSession session = getSession(uploadId, parsedRequest);
+
+    if (!session.tryLock()) {
+      throw new LockssRestServiceException(LockssRestHttpException.ServerErrorType.NONE,
+          HttpStatus.CONFLICT, "Upload session in use by another request", parsedRequest);
+    }
+
+    // Removed while waiting for the lock
+    if (sessions.get(uploadId) != session) {
+      session.unlock();
+      throw new LockssRestServiceException(LockssRestHttpException.ServerErrorType.NONE,
+          HttpStatus.NOT_FOUND, "No such upload session: " + uploadId, parsedRequest);
+    }
+
+    return session;
+  }
+}
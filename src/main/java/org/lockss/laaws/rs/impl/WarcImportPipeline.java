@@ -0,0 +1,668 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.impl;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.http.HttpException;
+import org.apache.http.StatusLine;
+import org.archive.format.warc.WARCConstants;
+import org.archive.io.ArchiveReader;
+import org.archive.io.ArchiveRecord;
+import org.archive.io.ArchiveRecordHeader;
+import org.archive.io.warc.WARCReaderFactory;
+import org.lockss.laaws.rs.multipart.HttpBodyDigestOutputStream;
+import org.lockss.log.L4JLogger;
+import org.lockss.rs.io.storage.warc.WarcArtifactData;
+import org.lockss.util.StringUtil;
+import org.lockss.util.rest.repo.LockssRepository;
+import org.lockss.util.rest.repo.model.Artifact;
+import org.lockss.util.rest.repo.model.ArtifactData;
+import org.lockss.util.rest.repo.model.ArtifactProperties;
+import org.lockss.util.rest.repo.model.ImportStatus;
+import org.lockss.util.rest.repo.util.ArtifactDataUtil;
+import org.springframework.http.HttpHeaders;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Imports the records of a WARC archive into a repository as a pipeline of
+ * three stages, so that a large archive is not processed one record at a
+ * time on a single core:
+ * <ol>
+ *   <li>A reader thread splits the archive into records, and buffers the
+ *   block of each {@code response} and {@code resource} record in memory,
+ *   or in a temporary file if it is large. It only copies, so that it keeps
+ *   up with the workers.</li>
+ *   <li>A pool of workers, shared by all imports, reads each record from
+ *   its buffer, parsing its HTTP response header and computing the digests
+ *   of its payload.</li>
+ *   <li>The calling thread adds and commits the resulting artifacts, in
+ *   archive order so that versions are assigned as they would be by a
+ *   sequential import, and reports the {@link ImportStatus} of each. The
+ *   artifacts are added and committed one at a time, as
+ *   {@link LockssRepository} has no call that adds or commits several
+ *   artifacts other than the import of a whole archive.</li>
+ * </ol>
+ * The number of records between the reader and the writer is bounded, which
+ * bounds the memory and temporary space used by an import.
+ * <p>
+ * Archives may be uncompressed or gzip compressed, in which case the reader
+ * decompresses each gzip member as it is read.
+ * <p>
+ * An import may be given an {@link ImportCheckpoint}, updated as each record
+ * is written. If the checkpoint records an interrupted import of the same
+ * archive, the reader skips to the offset of the last record imported, which
+ * for a compressed archive is that of the gzip member holding it, and the
+ * import resumes at the record that follows.
+ */
+public class WarcImportPipeline {
+  private static L4JLogger log = L4JLogger.getLogger();
+
+  // Maximum length of the HTTP response header of a record
+  private static final int MAX_HTTP_HEADER_LENGTH = (int) FileUtils.ONE_MB;
+
+  private final LockssRepository repo;
+  private final ExecutorService workers;
+  private final int depth;
+  private final int memBufferSize;
+  private final List<String> additionalDigestAlgorithms;
+  private final AdditionalDigestStore additionalDigestStore;
+
+  /**
+   * Constructor.
+   *
+   * @param repo          The {@link LockssRepository} to import into.
+   * @param workers       The {@link ExecutorService} running the parse and
+   *                      digest stage.
+   * @param depth         Maximum number of records in the pipeline.
+   * @param memBufferSize Maximum size of a record buffered in memory; larger
+   *                      records are buffered in a temporary file.
+   * @param additionalDigestAlgorithms Algorithms of the digests to compute
+   *                      over each payload in addition to the default.
+   * @param additionalDigestStore The {@link AdditionalDigestStore} recording
+   *                      the additional digests, or {@code null} if they
+   *                      are not to be recorded.
+   */
+  public WarcImportPipeline(LockssRepository repo, ExecutorService workers,
+                            int depth, int memBufferSize,
+                            List<String> additionalDigestAlgorithms,
+                            AdditionalDigestStore additionalDigestStore) {
+    this.repo = repo;
+    this.workers = workers;
+    this.depth = depth;
+    this.memBufferSize = memBufferSize;
+    this.additionalDigestAlgorithms = additionalDigestAlgorithms;
+    this.additionalDigestStore = additionalDigestStore;
+  }
+
+  /**
+   * Imports the artifacts from a WARC archive, passing the status of each
+   * {@code response} or {@code resource} record to a consumer in archive
+   * order. Records of other types are skipped.
+   *
+   * @param namespace            The namespace of the artifacts.
+   * @param auid                 The AUID of the artifacts.
+   * @param input                The archive, uncompressed or gzip compressed.
+   * @param storeDuplicate       Whether artifacts whose content is identical
+   *                             to their latest version are to be stored.
+   * @param excludeStatusPattern If not null, records whose HTTP status code
+   *                             matches are not imported.
+   * @param consumer             Receives the status of each record.
+   * @throws IOException if the archive could not be read, or the consumer
+   *                     failed.
+   */
+  public void importArchive(String namespace, String auid,
+                            InputStream input, boolean storeDuplicate,
+                            String excludeStatusPattern,
+                            ArchivesApiServiceImpl.ImportStatusConsumer consumer)
+      throws IOException {
+    importArchive(namespace, auid, input, storeDuplicate, excludeStatusPattern, null, consumer);
+  }
+
+  /**
+   * Imports the artifacts from a WARC archive, resuming an interrupted import
+   * of the same archive from a checkpoint. Only the records following the
+   * checkpoint are passed to the consumer.
+   *
+   * @param namespace            The namespace of the artifacts.
+   * @param auid                 The AUID of the artifacts.
+   * @param input                The archive, uncompressed or gzip compressed,
+   *                             positioned at its beginning.
+   * @param storeDuplicate       Whether artifacts whose content is identical
+   *                             to their latest version are to be stored.
+   * @param excludeStatusPattern If not null, records whose HTTP status code
+   *                             matches are not imported.
+   * @param checkpoint           If not null, the {@link ImportCheckpoint} of
+   *                             the archive; deleted when the import
+   *                             completes.
+   * @param consumer             Receives the status of each record.
+   * @throws IOException if the archive could not be read, did not match the
+   *                     checkpoint, or the consumer failed.
+   */
+  public void importArchive(String namespace, String auid,
+                            InputStream input, boolean storeDuplicate,
+                            String excludeStatusPattern, ImportCheckpoint checkpoint,
+                            ArchivesApiServiceImpl.ImportStatusConsumer consumer)
+      throws IOException {
+
+    Pattern excludePattern = StringUtil.isNullString(excludeStatusPattern) ?
+        null : Pattern.compile(excludeStatusPattern);
+
+    long baseOffset = 0;
+    String resumeWarcId = null;
+
+    if (checkpoint != null && checkpoint.isResumable()) {
+      baseOffset = checkpoint.getOffset();
+      resumeWarcId = checkpoint.getWarcId();
+
+      log.info("Resuming archive import [auid: {}, offset: {}, warcId: {}]",
+          auid, baseOffset, resumeWarcId);
+
+      input.skipNBytes(baseOffset);
+    }
+
+    // The reader determines from the name whether the archive is compressed
+    InputStream in = new BufferedInputStream(input);
+    String archiveName = isGzip(in) ? "archive.warc.gz" : "archive.warc";
+
+    BlockingQueue<Future<PreparedRecord>> queue = new ArrayBlockingQueue<>(depth);
+
+    long readerBaseOffset = baseOffset;
+    String readerResumeWarcId = resumeWarcId;
+
+    Thread reader = new Thread(() ->
+        readRecords(archiveName, in, readerBaseOffset, readerResumeWarcId, queue),
+        "WarcImportReader");
+    reader.setDaemon(true);
+    reader.start();
+
+    boolean done = false;
+
+    try {
+      while (true) {
+        PreparedRecord rec = queue.take().get();
+
+        if (rec == null) {
+          // End of archive
+          break;
+        }
+
+        try {
+          ImportStatus status = writeRecord(namespace, auid, rec, storeDuplicate, excludePattern);
+
+          // The record is not imported again on resumption, even if its
+          // status could not be reported
+          if (checkpoint != null) {
+            checkpoint.update(rec.offset, rec.warcId);
+          }
+
+          consumer.accept(status);
+        } finally {
+          rec.release();
+        }
+      }
+
+      done = true;
+
+      if (checkpoint != null) {
+        checkpoint.complete();
+      }
+    } catch (InterruptedException e) {
+      throw new InterruptedIOException("Interrupted while importing archive");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+
+      if (cause instanceof ImportCheckpoint.MismatchException) {
+        // The next import of the archive starts from its beginning
+        checkpoint.complete();
+      }
+
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+
+      throw new IOException("Error reading archive", cause);
+    } finally {
+      if (!done) {
+        abort(reader, queue);
+
+        if (checkpoint != null) {
+          try {
+            checkpoint.save();
+          } catch (IOException e) {
+            log.warn("Could not save import checkpoint [auid: {}]", auid, e);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Reader stage: splits the archive into records, buffers the block of
+   * each, and queues it for the workers. Runs in its own thread,
+   * and terminates the queue with a null record, or with a failed one if the
+   * archive could not be read, so that the writer never waits on a reader
+   * that has gone.
+   * <p>
+   * When resuming, the input starts at {@code baseOffset} in the archive,
+   * with the record last imported, which is skipped.
+   */
+  private void readRecords(String archiveName, InputStream input,
+                           long baseOffset, String resumeWarcId,
+                           BlockingQueue<Future<PreparedRecord>> queue) {
+    try (ArchiveReader archiveReader = WARCReaderFactory.get(archiveName, input, true)) {
+      for (ArchiveRecord record : archiveReader) {
+        ArchiveRecordHeader header = record.getHeader();
+        String type = (String) header.getHeaderValue(WARCConstants.HEADER_KEY_TYPE);
+
+        boolean isResponse = WARCConstants.WARCRecordType.response.name().equals(type);
+
+        if (!isResponse && !WARCConstants.WARCRecordType.resource.name().equals(type)) {
+          log.trace("Skipping WARC record [type: {}, offset: {}]", type, header.getOffset());
+          continue;
+        }
+
+        String warcId = (String) header.getHeaderValue(WARCConstants.HEADER_KEY_ID);
+
+        if (resumeWarcId != null) {
+          if (!resumeWarcId.equals(warcId)) {
+            throw new ImportCheckpoint.MismatchException("Archive does not match import checkpoint [offset: " +
+                baseOffset + ", warcId: " + resumeWarcId + "]");
+          }
+
+          log.trace("Skipping imported WARC record [warcId: {}]", warcId);
+          resumeWarcId = null;
+          continue;
+        }
+
+        PreparedRecord rec = new PreparedRecord();
+        rec.warcId = warcId;
+        rec.offset = baseOffset + header.getOffset();
+        rec.url = header.getUrl();
+        rec.date = header.getDate();
+        rec.mimeType = header.getMimetype();
+        rec.isHttpResponse = isResponse;
+
+        rec.buffer = RecordBuffer.fill(record, header.getContentLength(), memBufferSize);
+
+        try {
+          queue.put(workers.submit(() -> rec.prepare(additionalDigestAlgorithms)));
+        } catch (RejectedExecutionException e) {
+          rec.release();
+          throw new IOException("Import workers unavailable", e);
+        }
+      }
+
+      queue.put(CompletableFuture.completedFuture(null));
+    } catch (InterruptedException e) {
+      // Import aborted
+      log.debug2("Archive reader interrupted");
+    } catch (Throwable e) {
+      log.warn("Error reading archive", e);
+
+      try {
+        queue.put(CompletableFuture.failedFuture(e));
+      } catch (InterruptedException ex) {
+        // Import aborted
+      }
+    }
+  }
+
+  /**
+   * Writer stage: adds and commits the artifact of a prepared record, unless
+   * it is excluded, a duplicate, or could not be prepared.
+   */
+  private ImportStatus writeRecord(String namespace, String auid, PreparedRecord rec,
+                                   boolean storeDuplicate, Pattern excludePattern) {
+    ImportStatus status = new ImportStatus();
+    status.setWarcId(rec.warcId);
+    status.setOffset(rec.offset);
+    status.setUrl(rec.url);
+
+    if (rec.error != null) {
+      status.setStatus(ImportStatus.StatusEnum.ERROR);
+      status.setStatusMessage(rec.error.getMessage());
+      return status;
+    }
+
+    status.setDigest(rec.contentDigest);
+
+    if (excludePattern != null && rec.statusLine != null &&
+        excludePattern.matcher(String.valueOf(rec.statusLine.getStatusCode())).matches()) {
+      status.setStatus(ImportStatus.StatusEnum.EXCLUDED);
+      status.setStatusMessage("Excluded HTTP status: " + rec.statusLine.getStatusCode());
+      return status;
+    }
+
+    Artifact artifact = null;
+
+    try {
+      if (!storeDuplicate) {
+        Artifact latest = repo.getArtifact(namespace, auid, rec.url);
+
+        if (latest != null && rec.contentDigest.equals(latest.getContentDigest())) {
+          status.setArtifactUuid(latest.getUuid());
+          status.setVersion(latest.getVersion());
+          status.setStatus(ImportStatus.StatusEnum.DUPLICATE);
+          status.setStatusMessage("Duplicate of version " + latest.getVersion());
+          return status;
+        }
+      }
+
+      try (InputStream payload = rec.buffer.openInputStream(rec.payloadOffset)) {
+        artifact = repo.addArtifact(rec.toArtifactData(namespace, auid, payload));
+      }
+
+      if (additionalDigestStore != null && rec.additionalDigests != null) {
+        additionalDigestStore.put(artifact.getUuid(), rec.additionalDigests);
+      }
+
+      Artifact committed = repo.commitArtifact(artifact.getNamespace(), artifact.getUuid());
+
+      status.setArtifactUuid(committed.getUuid());
+      status.setVersion(committed.getVersion());
+      status.setStatus(ImportStatus.StatusEnum.OK);
+    } catch (Exception e) {
+      log.warn("Could not import WARC record [warcId: {}, url: {}]", rec.warcId, rec.url, e);
+
+      if (artifact != null) {
+        try {
+          repo.deleteArtifact(artifact.getNamespace(), artifact.getUuid());
+
+          if (additionalDigestStore != null) {
+            additionalDigestStore.remove(artifact.getUuid());
+          }
+        } catch (IOException ex) {
+          log.warn("Could not remove uncommitted artifact [uuid: {}]", artifact.getUuid(), ex);
+        }
+      }
+
+      status.setStatus(ImportStatus.StatusEnum.ERROR);
+      status.setStatusMessage(e.getMessage());
+    }
+
+    return status;
+  }
+
+  /**
+   * Stops the reader and releases the buffers of the records still in the
+   * pipeline.
+   */
+  private void abort(Thread reader, BlockingQueue<Future<PreparedRecord>> queue) {
+    reader.interrupt();
+
+    try {
+      reader.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    for (Future<PreparedRecord> future : queue) {
+      try {
+        PreparedRecord rec = future.get();
+        if (rec != null) {
+          rec.release();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      } catch (ExecutionException e) {
+        // Nothing to release
+      }
+    }
+  }
+
+  /**
+   * A record flowing through the pipeline.
+   */
+  static class PreparedRecord {
+    // Set by the reader
+    String warcId;
+    long offset;
+    String url;
+    String date;
+    String mimeType;
+    boolean isHttpResponse;
+    RecordBuffer buffer;
+
+    // Set by a worker
+    long payloadOffset;
+    StatusLine statusLine;
+    HttpHeaders httpHeaders;
+    long contentLength;
+    String contentDigest;
+    String additionalDigests;
+    Exception error;
+
+    /**
+     * Worker stage: reads the record from its buffer, parsing the HTTP
+     * response header, if any, and digesting the payload that follows. A
+     * record that cannot be parsed is passed on with its error, to be
+     * reported in order by the writer.
+     */
+    PreparedRecord prepare(List<String> additionalDigestAlgorithms) {
+      try (InputStream in = new BufferedInputStream(buffer.openInputStream(0))) {
+        if (isHttpResponse) {
+          byte[] httpHeader = readHttpHeader(in);
+          HttpResponseHeaderParser.ParsedHeader parsed = HttpResponseHeaderParser.parse(httpHeader);
+
+          payloadOffset = httpHeader.length;
+          statusLine = parsed.getStatusLine();
+          httpHeaders = parsed.getHeaders();
+        } else {
+          httpHeaders = new HttpHeaders();
+          if (!StringUtil.isNullString(mimeType)) {
+            httpHeaders.set(HttpHeaders.CONTENT_TYPE, mimeType);
+          }
+        }
+
+        HttpBodyDigestOutputStream digester =
+            new HttpBodyDigestOutputStream(NullOutputStream.INSTANCE, additionalDigestAlgorithms);
+        digester.switchToDigest();
+
+        contentLength = in.transferTo(digester);
+
+        MessageDigest md = digester.getDigest();
+        contentDigest = String.format("%s:%s",
+            md.getAlgorithm(), new String(Hex.encodeHex(md.digest())));
+        additionalDigests = HttpBodyDigestOutputStream.formatDigests(digester.getAdditionalDigests());
+      } catch (IOException | HttpException | RuntimeException e) {
+        log.debug("Could not parse WARC record [warcId: {}]", warcId, e);
+        error = e;
+      }
+
+      return this;
+    }
+
+    ArtifactData toArtifactData(String namespace, String auid, InputStream payload) {
+      ArtifactProperties props = new ArtifactProperties();
+      props.setNamespace(namespace);
+      props.setAuid(auid);
+      props.setUri(url);
+
+      ArtifactData ad = WarcArtifactData.fromResource(payload);
+      ad.setIdentifier(ArtifactDataUtil.buildArtifactIdentifier(props));
+      ad.setContentLength(contentLength);
+      ad.setContentDigest(contentDigest);
+
+      if (statusLine != null) {
+        ad.setHttpStatus(statusLine);
+      }
+
+      ad.setHttpHeaders(httpHeaders);
+
+      if (date != null) {
+        try {
+          ad.setCollectionDate(Instant.parse(date).toEpochMilli());
+        } catch (DateTimeParseException e) {
+          log.debug("Unparseable WARC-Date [warcId: {}]: {}", warcId, date);
+        }
+      }
+
+      return ad;
+    }
+
+    void release() {
+      if (buffer != null) {
+        buffer.release();
+        buffer = null;
+      }
+    }
+  }
+
+  /**
+   * Determines whether a stream begins with the gzip magic number, without
+   * consuming it.
+   *
+   * @param in An {@link InputStream} that supports mark and reset.
+   */
+  static boolean isGzip(InputStream in) throws IOException {
+    in.mark(2);
+
+    try {
+      return in.read() == (GZIPInputStream.GZIP_MAGIC & 0xff) &&
+          in.read() == (GZIPInputStream.GZIP_MAGIC >> 8);
+    } finally {
+      in.reset();
+    }
+  }
+
+  /**
+   * Reads an HTTP response header, up to and including the empty line that
+   * ends it. Lines may be terminated by CRLF or by LF alone.
+   */
+  static byte[] readHttpHeader(InputStream in) throws IOException {
+    ByteArrayOutputStream header = new ByteArrayOutputStream(1024);
+    int lineLength = 0;
+    int b;
+
+    while ((b = in.read()) != -1) {
+      header.write(b);
+
+      if (b == '\n') {
+        if (lineLength == 0) {
+          return header.toByteArray();
+        }
+        lineLength = 0;
+      } else if (b != '\r') {
+        lineLength++;
+      }
+
+      if (header.size() > MAX_HTTP_HEADER_LENGTH) {
+        throw new IOException("HTTP response header too long");
+      }
+    }
+
+    throw new EOFException("Premature end of HTTP response header");
+  }
+
+  /**
+   * The block of a WARC record, held in memory or in a temporary file, that
+   * can be read more than once.
+   */
+  static class RecordBuffer {
+    private byte[] bytes;
+    private File file;
+    private long length;
+
+    /**
+     * Buffers the remaining content of a record.
+     *
+     * @param length The expected length of the content, which determines
+     *               whether it is buffered in memory.
+     */
+    static RecordBuffer fill(InputStream record, long length, int memBufferSize)
+        throws IOException {
+      RecordBuffer buffer = new RecordBuffer();
+
+      if (length <= memBufferSize) {
+        buffer.bytes = record.readAllBytes();
+        buffer.length = buffer.bytes.length;
+      } else {
+        buffer.file = Files.createTempFile("warc-import-", ".tmp").toFile();
+
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(buffer.file))) {
+          buffer.length = record.transferTo(out);
+        } catch (IOException e) {
+          buffer.release();
+          throw e;
+        }
+      }
+
+      return buffer;
+    }
+
+    long getLength() {
+      return length;
+    }
+
+    /**
+     * Opens the buffered content, from an offset.
+     */
+    InputStream openInputStream(long offset) throws IOException {
+      if (bytes != null) {
+        return new ByteArrayInputStream(bytes, (int) offset, bytes.length - (int) offset);
+      }
+
+      FileInputStream in = new FileInputStream(file);
+
+      try {
+        in.getChannel().position(offset);
+      } catch (IOException e) {
+        in.close();
+        throw e;
+      }
+
+      return in;
+    }
+
+    void release() {
+      bytes = null;
+
+      if (file != null) {
+        FileUtils.deleteQuietly(file);
+        file = null;
+      }
+    }
+  }
+}
@@ -328,6 +328,16 @@ public class WaybackApiServiceImpl extends BaseSpringApiServiceImpl implements W
             + "' in repository");
       }
 
+      // Pass the stored GZIP member holding the WARC record through to a
+      // client that accepts it, rather than decompressing it
+      if (ServiceImplUtil.acceptsGzip(acceptEncoding)) {
+        ResponseEntity<Resource> compressed = getCompressedWarcRecord(artifactData);
+
+        if (compressed != null) {
+          return compressed;
+        }
+      }
+
       InputStream inputStream = null;
       long warcRecordLength = 0L;
 
@@ -360,8 +370,8 @@ public class WaybackApiServiceImpl extends BaseSpringApiServiceImpl implements W
       // Get the response headers.
       HttpHeaders headers = new HttpHeaders();
       headers.set("Content-Type", "application/warc");
-      //headers.set("Content-Encoding", "gzip");
       headers.setContentLength(warcRecordLength);
+      headers.set(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
       log.trace("headers = {}", headers);
 
       return new ResponseEntity<Resource>(new InputStreamResource(inputStream),
@@ -383,6 +393,47 @@ public class WaybackApiServiceImpl extends BaseSpringApiServiceImpl implements W
   // UTILITIES ///////////////////////////////////////////////////////////////////
   ////////////////////////////////////////////////////////////////////////////////
 
+  /**
+   * Provides a response with the WARC record of an artifact as it is stored,
+   * as a GZIP member with Content-Encoding: gzip, if it is stored in a
+   * compressed local WARC file.
+   *
+   * @param artifactData
+   *          An ArtifactData with the data of the artifact.
+   * @return a {@code ResponseEntity<Resource>} with the compressed WARC
+   *         record, or <code>null</code> if it is not stored compressed.
+   * @throws IOException
+   *           if there are I/O problems.
+   */
+  ResponseEntity<Resource> getCompressedWarcRecord(ArtifactData artifactData)
+      throws IOException {
+    ArtifactFileRegion member = ArtifactFileRegion.locateGzipRecord(artifactData);
+    log.trace("member = {}", member);
+
+    if (member == null) {
+      return null;
+    }
+
+    // The artifact's data is not read
+    artifactData.release();
+
+    HttpHeaders headers = new HttpHeaders();
+    headers.set("Content-Type", "application/warc");
+    headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+    headers.setContentLength(member.getLength());
+    headers.set(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    log.trace("headers = {}", headers);
+
+    if (ArtifactFileRegion.isSendfileSupported(request)) {
+      // The servlet container sends the member once the headers are written
+      member.sendfile(request);
+      return new ResponseEntity<Resource>(headers, HttpStatus.OK);
+    }
+
+    return new ResponseEntity<Resource>(new InputStreamResource(member.openStream()),
+        headers, HttpStatus.OK);
+  }
+
   /**
    * Provides the requested CDX records.
    *
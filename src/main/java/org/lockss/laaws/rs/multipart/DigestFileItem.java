@@ -32,14 +32,20 @@ POSSIBILITY OF SUCH DAMAGE.
 
 package org.lockss.laaws.rs.multipart;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.tomcat.util.http.fileupload.disk.DiskFileItem;
 import org.lockss.util.StringUtil;
 import org.lockss.util.rest.repo.RestLockssRepository;
 import org.lockss.util.rest.repo.util.ArtifactConstants;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -52,14 +58,49 @@ public class DigestFileItem extends DiskFileItem {
   private transient File tempFile;
   private final File repository;
 
+  /**
+   * Algorithms of the digests to compute in addition to the default.
+   */
+  private List<String> additionalDigestAlgorithms = Collections.emptyList();
+
+  /**
+   * Chooses the directory of the temporary file, if there are several.
+   */
+  private UploadDirSelector uploadDirSelector;
+  private UploadDirSelector.UploadDir uploadDir;
+
+  /**
+   * Number of bytes the temporary file is expected to hold at most, reserved
+   * in its upload directory; -1 if unknown.
+   */
+  private long expectedSize = -1;
+
+  /**
+   * Holds the content in pooled direct buffers, below the size threshold, if
+   * a {@link DirectBufferPool} is set.
+   */
+  private final int sizeThreshold;
+  private DirectBufferPool bufferPool;
+  private PooledDeferredOutputStream pooledOutput;
+
   public DigestFileItem(String fieldName, String contentType, boolean isFormField, String fileName, int sizeThreshold, File repository) {
     super(fieldName, contentType, isFormField, fileName, sizeThreshold, repository);
     this.repository = repository;
+    this.sizeThreshold = sizeThreshold;
   }
 
   @Override
   public OutputStream getOutputStream() {
-    output = new HttpBodyDigestOutputStream(super.getOutputStream());
+    OutputStream out;
+
+    if (bufferPool != null) {
+      pooledOutput = new PooledDeferredOutputStream(bufferPool, sizeThreshold, this::getTempFile);
+      out = pooledOutput;
+    } else {
+      out = super.getOutputStream();
+    }
+
+    output = new HttpBodyDigestOutputStream(out, additionalDigestAlgorithms);
 
     if (getFieldName().equals(RestLockssRepository.MULTIPART_ARTIFACT_PAYLOAD)) {
       output.switchToDigest();
@@ -86,6 +127,90 @@ public class DigestFileItem extends DiskFileItem {
     return output.getDigest();
   }
 
+  public void setAdditionalDigestAlgorithms(List<String> algorithms) {
+    this.additionalDigestAlgorithms = algorithms;
+  }
+
+  public void setUploadDirSelector(UploadDirSelector selector) {
+    this.uploadDirSelector = selector;
+  }
+
+  public void setExpectedSize(long expectedSize) {
+    this.expectedSize = expectedSize;
+  }
+
+  public void setBufferPool(DirectBufferPool pool) {
+    this.bufferPool = pool;
+  }
+
+  @Override
+  public boolean isInMemory() {
+    return pooledOutput == null ? super.isInMemory() : pooledOutput.isInMemory();
+  }
+
+  @Override
+  public long getSize() {
+    return pooledOutput == null ? super.getSize() : pooledOutput.getByteCount();
+  }
+
+  @Override
+  public byte[] get() throws UncheckedIOException {
+    if (pooledOutput == null) {
+      return super.get();
+    }
+
+    try {
+      return pooledOutput.toByteArray();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public InputStream getInputStream() throws IOException {
+    return pooledOutput == null ? super.getInputStream() : pooledOutput.getInputStream();
+  }
+
+  @Override
+  public File getStoreLocation() {
+    return pooledOutput == null ? super.getStoreLocation() : pooledOutput.getFile();
+  }
+
+  @Override
+  public void write(File file) throws Exception {
+    if (pooledOutput == null) {
+      super.write(file);
+      return;
+    }
+
+    try (InputStream in = pooledOutput.getInputStream()) {
+      FileUtils.copyInputStreamToFile(in, file);
+    }
+  }
+
+  @Override
+  public void delete() {
+    long size = getSize();
+
+    if (pooledOutput != null) {
+      pooledOutput.release();
+    }
+
+    super.delete();
+
+    if (uploadDir != null) {
+      uploadDirSelector.release(uploadDir, expectedSize, size);
+      uploadDir = null;
+    }
+  }
+
+  /**
+   * Returns the digests computed in addition to the default one.
+   */
+  public List<MessageDigest> getAdditionalDigests() {
+    return output == null ? Collections.emptyList() : output.getAdditionalDigests();
+  }
+
   /**
    * UID used in unique file name generation.
    */
@@ -94,7 +219,8 @@ public class DigestFileItem extends DiskFileItem {
 
   /**
    * Creates and returns a {@link java.io.File File} representing a uniquely
-   * named temporary file in the configured repository path. The lifetime of
+   * named temporary file in the configured repository path, or in the
+   * directory chosen by the {@link UploadDirSelector} if one is set. The lifetime of
    * the file is tied to the lifetime of the <code>FileItem</code> instance;
    * the file will be deleted when the instance is garbage collected.
    * <p>
@@ -106,6 +232,10 @@ public class DigestFileItem extends DiskFileItem {
   protected File getTempFile() {
     if (tempFile == null) {
       File tempDir = repository;
+      if (uploadDirSelector != null) {
+        uploadDir = uploadDirSelector.choose(expectedSize);
+        tempDir = uploadDir.getDir();
+      }
       if (tempDir == null) {
         tempDir = new File(System.getProperty("java.io.tmpdir"));
       }
@@ -36,8 +36,15 @@ import org.apache.tomcat.util.http.fileupload.FileItem;
 import org.apache.tomcat.util.http.fileupload.disk.DiskFileItemFactory;
 
 import java.io.File;
+import java.util.Collections;
+import java.util.List;
 
 public class DigestFileItemFactory extends DiskFileItemFactory {
+  private List<String> additionalDigestAlgorithms = Collections.emptyList();
+  private UploadDirSelector uploadDirSelector;
+  private long expectedSize = -1;
+  private DirectBufferPool bufferPool;
+
   /**
    * Constructs an unconfigured instance of this class. The resulting factory
    * may be configured by calling the appropriate setter methods.
@@ -66,6 +73,44 @@ public class DigestFileItemFactory extends DiskFileItemFactory {
     final DigestFileItem result = new DigestFileItem(fieldName, contentType,
     isFormField, fileName, getSizeThreshold(), getRepository());
     result.setDefaultCharset(getDefaultCharset());
+    result.setAdditionalDigestAlgorithms(additionalDigestAlgorithms);
+    result.setUploadDirSelector(uploadDirSelector);
+    result.setExpectedSize(expectedSize);
+    result.setBufferPool(bufferPool);
     return result;
   }
+
+  /**
+   * Sets the algorithms of the digests that items compute over their body
+   * in addition to the default one.
+   */
+  public void setAdditionalDigestAlgorithms(List<String> algorithms) {
+    this.additionalDigestAlgorithms = algorithms;
+  }
+
+  /**
+   * Sets the {@link UploadDirSelector} that chooses the directory of each
+   * item's temporary file. If {@code null}, the repository directory is
+   * used.
+   */
+  public void setUploadDirSelector(UploadDirSelector selector) {
+    this.uploadDirSelector = selector;
+  }
+
+  /**
+   * Sets the number of bytes an item's temporary file is expected to hold at
+   * most, reserved by the {@link UploadDirSelector} while the file exists;
+   * -1 if unknown.
+   */
+  public void setExpectedSize(long expectedSize) {
+    this.expectedSize = expectedSize;
+  }
+
+  /**
+   * Sets the {@link DirectBufferPool} that holds the content of items below
+   * the size threshold. If {@code null}, it is held on the heap.
+   */
+  public void setBufferPool(DirectBufferPool pool) {
+    this.bufferPool = pool;
+  }
 }
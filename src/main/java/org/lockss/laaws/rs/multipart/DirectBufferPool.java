@@ -0,0 +1,283 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.multipart;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of reusable direct {@link ByteBuffer}s, that holds small multipart
+ * parts in memory off the heap.
+ * <p>
+ * Buffers come in size classes, doubling from a minimum size up to a maximum
+ * one, each with its own free list, so that a small part does not tie up a
+ * buffer of the maximum size: a stream takes a buffer of the minimum size
+ * first, then buffers twice as large as the previous one, up to the maximum.
+ * <p>
+ * The total size of the buffers allocated by the pool is bounded by a byte
+ * budget. When the budget is exhausted, {@link #acquire()} returns
+ * {@code null}, and the caller spills to disk instead. Buffers are never
+ * freed once allocated, other than by the garbage collector once the pool is
+ * no longer used; lowering the budget only stops further allocation.
+ */
+public class DirectBufferPool implements DirectBufferPoolMXBean {
+  /** Default size of the largest pooled buffers */
+  public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+  /** Default size of the smallest pooled buffers */
+  public static final int DEFAULT_MIN_BUFFER_SIZE = 4 * 1024;
+
+  private final int bufferSize;
+  private volatile long budget;
+
+  // Sizes of the size classes, in increasing order, and their free buffers
+  private final int[] classSizes;
+  private final List<ConcurrentLinkedQueue<ByteBuffer>> free;
+  private final AtomicLong allocated = new AtomicLong();
+
+  // Metrics
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong exhausted = new AtomicLong();
+  private final AtomicLong thresholdSpills = new AtomicLong();
+  private final AtomicLong exhaustedSpills = new AtomicLong();
+  private final AtomicLong inMemoryParts = new AtomicLong();
+
+  /**
+   * Constructor, with the default minimum buffer size or the maximum one if
+   * it is smaller.
+   *
+   * @param bufferSize The size in bytes of the largest buffers.
+   * @param budget     The maximum number of bytes of buffers to allocate.
+   */
+  public DirectBufferPool(int bufferSize, long budget) {
+    this(Math.min(DEFAULT_MIN_BUFFER_SIZE, bufferSize), bufferSize, budget);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param minBufferSize The size in bytes of the smallest buffers.
+   * @param bufferSize    The size in bytes of the largest buffers.
+   * @param budget        The maximum number of bytes of buffers to allocate.
+   */
+  public DirectBufferPool(int minBufferSize, int bufferSize, long budget) {
+    if (minBufferSize <= 0 || minBufferSize > bufferSize) {
+      throw new IllegalArgumentException("Invalid buffer sizes: " +
+          minBufferSize + ", " + bufferSize);
+    }
+
+    this.bufferSize = bufferSize;
+    this.budget = budget;
+
+    List<Integer> sizes = new ArrayList<>();
+
+    for (long size = minBufferSize; size < bufferSize; size *= 2) {
+      sizes.add((int) size);
+    }
+
+    sizes.add(bufferSize);
+
+    classSizes = sizes.stream().mapToInt(Integer::intValue).toArray();
+    free = new ArrayList<>(classSizes.length);
+
+    for (int i = 0; i < classSizes.length; i++) {
+      free.add(new ConcurrentLinkedQueue<>());
+    }
+  }
+
+  public void setBudget(long budget) {
+    this.budget = budget;
+  }
+
+  /**
+   * Returns the index of the smallest size class holding at least the given
+   * number of bytes, or of the largest one.
+   */
+  private int sizeClass(int size) {
+    for (int i = 0; i < classSizes.length; i++) {
+      if (classSizes[i] >= size) {
+        return i;
+      }
+    }
+
+    return classSizes.length - 1;
+  }
+
+  /**
+   * Returns a cleared buffer of the maximum size.
+   *
+   * @return a {@link ByteBuffer}, or {@code null} if the budget is exhausted.
+   * @see #acquire(int)
+   */
+  public ByteBuffer acquire() {
+    return acquire(bufferSize);
+  }
+
+  /**
+   * Returns a cleared buffer of the smallest size class holding the given
+   * number of bytes, or of the maximum size if none does, from the pool if
+   * one is free, otherwise newly allocated if the budget allows.
+   *
+   * @param size The number of bytes the buffer should hold.
+   * @return a {@link ByteBuffer}, or {@code null} if the budget is exhausted.
+   */
+  public ByteBuffer acquire(int size) {
+    int sizeClass = sizeClass(size);
+    ByteBuffer buf = free.get(sizeClass).poll();
+
+    if (buf != null) {
+      hits.incrementAndGet();
+      return buf;
+    }
+
+    int classSize = classSizes[sizeClass];
+    long cur;
+    do {
+      cur = allocated.get();
+      if (cur + classSize > budget) {
+        exhausted.incrementAndGet();
+        return null;
+      }
+    } while (!allocated.compareAndSet(cur, cur + classSize));
+
+    misses.incrementAndGet();
+    return ByteBuffer.allocateDirect(classSize);
+  }
+
+  /**
+   * Returns a buffer to the pool.
+   */
+  public void release(ByteBuffer buf) {
+    buf.clear();
+    free.get(sizeClass(buf.capacity())).offer(buf);
+  }
+
+  /** Spill reasons, for {@link #recordSpill(SpillReason)} */
+  public enum SpillReason {
+    /** The part exceeded the in-memory size threshold */
+    THRESHOLD,
+    /** The pool's budget was exhausted */
+    EXHAUSTED
+  }
+
+  void recordSpill(SpillReason reason) {
+    switch (reason) {
+      case THRESHOLD:
+        thresholdSpills.incrementAndGet();
+        break;
+      case EXHAUSTED:
+        exhaustedSpills.incrementAndGet();
+        break;
+    }
+  }
+
+  void recordInMemoryPart() {
+    inMemoryParts.incrementAndGet();
+  }
+
+  /** Returns the size of the largest buffers. */
+  public int getBufferSize() {
+    return bufferSize;
+  }
+
+  /** Returns the size of the smallest buffers. */
+  public int getMinBufferSize() {
+    return classSizes[0];
+  }
+
+  ////////////////////////////////////////////////////////////////////////////////
+  // METRICS /////////////////////////////////////////////////////////////////////
+  ////////////////////////////////////////////////////////////////////////////////
+
+  @Override
+  public long getBudget() {
+    return budget;
+  }
+
+  @Override
+  public long getAllocatedBytes() {
+    return allocated.get();
+  }
+
+  @Override
+  public long getFreeBuffers() {
+    long res = 0;
+
+    for (ConcurrentLinkedQueue<ByteBuffer> queue : free) {
+      res += queue.size();
+    }
+
+    return res;
+  }
+
+  @Override
+  public long getHits() {
+    return hits.get();
+  }
+
+  @Override
+  public long getMisses() {
+    return misses.get();
+  }
+
+  @Override
+  public long getExhausted() {
+    return exhausted.get();
+  }
+
+  @Override
+  public long getInMemoryParts() {
+    return inMemoryParts.get();
+  }
+
+  @Override
+  public long getThresholdSpills() {
+    return thresholdSpills.get();
+  }
+
+  @Override
+  public long getExhaustedSpills() {
+    return exhaustedSpills.get();
+  }
+
+  @Override
+  public double getSpillRate() {
+    long spills = thresholdSpills.get() + exhaustedSpills.get();
+    long total = spills + inMemoryParts.get();
+    return total == 0 ? 0.0 : (double) spills / total;
+  }
+}
@@ -0,0 +1,68 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.multipart;
+
+/**
+ * JMX view of the metrics of a {@link DirectBufferPool}.
+ */
+public interface DirectBufferPoolMXBean {
+  /** Maximum number of bytes of buffers the pool may allocate */
+  long getBudget();
+
+  /** Number of bytes of buffers allocated */
+  long getAllocatedBytes();
+
+  /** Number of allocated buffers not in use */
+  long getFreeBuffers();
+
+  /** Number of buffer requests satisfied by a pooled buffer */
+  long getHits();
+
+  /** Number of buffer requests satisfied by allocating a new buffer */
+  long getMisses();
+
+  /** Number of buffer requests refused because the budget was exhausted */
+  long getExhausted();
+
+  /** Number of parts held entirely in pooled buffers */
+  long getInMemoryParts();
+
+  /** Number of parts spilled to disk for exceeding the in-memory threshold */
+  long getThresholdSpills();
+
+  /** Number of parts spilled to disk because the budget was exhausted */
+  long getExhaustedSpills();
+
+  /** Fraction of parts spilled to disk, for either reason */
+  double getSpillRate();
+}
@@ -33,20 +33,54 @@ POSSIBILITY OF SUCH DAMAGE.
 package org.lockss.laaws.rs.multipart;
 
 
+import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.io.output.ProxyOutputStream;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
 import java.security.DigestOutputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 
 public class HttpBodyDigestOutputStream extends ProxyOutputStream {
+  // Number of bytes of the CRLFCRLF that ends the header matched so far
   private int currentState;
   private DigestOutputStream dos;
 
+  // Algorithms of the digests computed in addition to the default
+  private final List<String> additionalAlgorithms;
+  private List<MessageDigest> additionalDigests = Collections.emptyList();
+
+  // Body bytes not yet passed to the additional digests, and the buffer of
+  // the bytes being passed to them by other threads, if any
+  private byte[] pending;
+  private int pendingLen;
+  private byte[] inFlightBuffer;
+  private CompletableFuture<Void> inFlight;
+
   public HttpBodyDigestOutputStream(OutputStream proxy) {
+    this(proxy, Collections.emptyList());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param proxy                The {@link OutputStream} to write to.
+   * @param additionalAlgorithms The names of digest algorithms to compute
+   *                             over the body in addition to the default.
+   */
+  public HttpBodyDigestOutputStream(OutputStream proxy, List<String> additionalAlgorithms) {
     super(proxy);
+    this.additionalAlgorithms = additionalAlgorithms;
   }
 
   private boolean advanceState(int b) {
@@ -59,7 +93,7 @@ public class HttpBodyDigestOutputStream extends ProxyOutputStream {
       case 1:
         if (b == '\n') {
           currentState = 2;
-        } else {
+        } else if (b != '\r') {
           currentState = 0;
         }
         break;
@@ -75,6 +109,8 @@ public class HttpBodyDigestOutputStream extends ProxyOutputStream {
       case 3:
         if (b == '\n') {
           return true;
+        } else if (b == '\r') {
+          currentState = 1;
         } else {
           currentState = 0;
         }
@@ -84,8 +120,89 @@ public class HttpBodyDigestOutputStream extends ProxyOutputStream {
     return false;
   }
 
+  // Reads eight bytes of an array at a time
+  private static final VarHandle LONG_VIEW =
+      MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+  private static final long ONES = 0x0101010101010101L;
+  private static final long HIGHS = 0x8080808080808080L;
+  private static final long CRS = ONES * '\r';
+
+  /**
+   * Returns the index of the first CR in a range of an array, or the end of
+   * the range if there is none.  Examines eight bytes at a time: XORing a word
+   * with eight CRs zeroes the bytes that are CR, and the lowest zero byte of
+   * the result is the lowest byte whose flag survives
+   * {@code (x - ONES) & ~x & HIGHS}.
+   */
+  static int indexOfCr(byte[] b, int from, int end) {
+    int i = from;
+
+    for (; i + Long.BYTES <= end; i += Long.BYTES) {
+      long x = (long) LONG_VIEW.get(b, i) ^ CRS;
+      long found = (x - ONES) & ~x & HIGHS;
+
+      if (found != 0) {
+        return i + (Long.numberOfTrailingZeros(found) >>> 3);
+      }
+    }
+
+    for (; i < end; i++) {
+      if (b[i] == '\r') {
+        return i;
+      }
+    }
+
+    return end;
+  }
+
+  /**
+   * Scans a range of an array for the end of the header, continuing from the
+   * state left by previous writes.  Outside a possible match, skips ahead to
+   * the next CR a word at a time rather than advancing the state machine on
+   * every byte.
+   *
+   * @return the index of the LF that ends the header, or -1 if the header
+   * does not end in this range.
+   */
+  int scanForHeaderEnd(byte[] b, int off, int len) {
+    int end = off + len;
+    int i = off;
+
+    while (i < end) {
+      if (currentState == 0) {
+        i = indexOfCr(b, i, end);
+
+        if (i == end) {
+          break;
+        }
+
+        currentState = 1;
+      } else if (advanceState(b[i])) {
+        return i;
+      }
+
+      i++;
+    }
+
+    return -1;
+  }
+
   public static final String DEFAULT_DIGEST_ALGORITHM = "SHA-256";
 
+  /**
+   * Header reporting the additional digests of an artifact's content, as a
+   * comma-separated list of {@code algorithm:hex} values.
+   */
+  public static final String X_LOCKSS_ADDITIONAL_DIGESTS = "X-Lockss-Additional-Digests";
+
+  /**
+   * Body bytes are passed to the additional digests in batches of this size,
+   * which are digested by other threads while this one goes on writing and
+   * updating the default digest.
+   */
+  static final int PARALLEL_DIGEST_THRESHOLD = 64 * 1024;
+
   private boolean isDigesting() {
     return dos != null;
   }
@@ -95,6 +212,13 @@ public class HttpBodyDigestOutputStream extends ProxyOutputStream {
       // Create new DigestOutputStream
       dos = new DigestOutputStream(this.out, MessageDigest.getInstance(DEFAULT_DIGEST_ALGORITHM));
 
+      if (!additionalAlgorithms.isEmpty()) {
+        additionalDigests = new ArrayList<>(additionalAlgorithms.size());
+
+        for (String alg : additionalAlgorithms) {
+          additionalDigests.add(MessageDigest.getInstance(alg));
+        }
+      }
     } catch (NoSuchAlgorithmException e) {
       // This should never happen
       // TODO
@@ -109,13 +233,111 @@ public class HttpBodyDigestOutputStream extends ProxyOutputStream {
     int next = i + 1;
     super.write(b, off, next-off);
     switchToDigest();
-    dos.write(b, next, len-(next-off));
+    writeBody(b, next, len-(next-off));
+  }
+
+  /**
+   * Writes body bytes, updating all the digests.  The default digest is
+   * updated as the bytes are written; the bytes are copied for the additional
+   * digests, whatever the size of the writes, and passed to them a batch at a
+   * time (see {@link #PARALLEL_DIGEST_THRESHOLD}).
+   */
+  private void writeBody(byte[] b, int off, int len) throws IOException {
+    dos.write(b, off, len);
+
+    if (additionalDigests.isEmpty()) {
+      return;
+    }
+
+    while (len > 0) {
+      if (pending == null) {
+        pending = new byte[PARALLEL_DIGEST_THRESHOLD];
+      }
+
+      int n = Math.min(len, pending.length - pendingLen);
+      System.arraycopy(b, off, pending, pendingLen, n);
+      pendingLen += n;
+      off += n;
+      len -= n;
+
+      if (pendingLen == pending.length) {
+        submitPending();
+      }
+    }
+  }
+
+  private void writeBody(int b) throws IOException {
+    dos.write(b);
+
+    if (additionalDigests.isEmpty()) {
+      return;
+    }
+
+    if (pending == null) {
+      pending = new byte[PARALLEL_DIGEST_THRESHOLD];
+    }
+
+    pending[pendingLen++] = (byte) b;
+
+    if (pendingLen == pending.length) {
+      submitPending();
+    }
+  }
+
+  /**
+   * Passes the pending batch to the additional digests in other threads.
+   * Each digest is updated by a single thread at a time, in order: the
+   * previous batch is completed first, which also frees its buffer to hold
+   * the next one.
+   */
+  private void submitPending() {
+    awaitInFlight();
+
+    byte[] buf = pending;
+    int len = pendingLen;
+    CompletableFuture<?>[] updates = new CompletableFuture<?>[additionalDigests.size()];
+
+    for (int i = 0; i < updates.length; i++) {
+      MessageDigest md = additionalDigests.get(i);
+      updates[i] = CompletableFuture.runAsync(() -> md.update(buf, 0, len),
+          ForkJoinPool.commonPool());
+    }
+
+    inFlight = CompletableFuture.allOf(updates);
+    pending = inFlightBuffer;
+    pendingLen = 0;
+    inFlightBuffer = buf;
+  }
+
+  private void awaitInFlight() {
+    if (inFlight != null) {
+      try {
+        inFlight.join();
+      } finally {
+        inFlight = null;
+      }
+    }
+  }
+
+  /**
+   * Passes all the body bytes written so far to the additional digests.
+   */
+  private void completeAdditionalDigests() {
+    awaitInFlight();
+
+    if (pendingLen > 0) {
+      for (MessageDigest md : additionalDigests) {
+        md.update(pending, 0, pendingLen);
+      }
+
+      pendingLen = 0;
+    }
   }
 
   @Override
   public void write(int b) throws IOException {
     if (isDigesting()) {
-      dos.write(b);
+      writeBody(b);
     } else {
       super.write(b);
       if (advanceState(b)) {
@@ -133,14 +355,13 @@ public class HttpBodyDigestOutputStream extends ProxyOutputStream {
   @Override
   public void write(byte[] b, int off, int len) throws IOException {
     if (isDigesting()) {
-      dos.write(b, off, len);
+      writeBody(b, off, len);
     } else {
+      int i = scanForHeaderEnd(b, off, len);
 
-      for (int i = off; i < off+len; i++) {
-        if (advanceState(b[i])) {
-          switchToDigest(b, off, i, len);
-          return;
-        }
+      if (i >= 0) {
+        switchToDigest(b, off, i, len);
+        return;
       }
 
       super.write(b, off, len);
@@ -155,6 +376,7 @@ public class HttpBodyDigestOutputStream extends ProxyOutputStream {
 
   @Override
   public void close() throws IOException {
+    completeAdditionalDigests();
     if (dos != null) dos.close();
     super.close();
   }
@@ -162,4 +384,30 @@ public class HttpBodyDigestOutputStream extends ProxyOutputStream {
   public MessageDigest getDigest() {
     return dos == null ? null : dos.getMessageDigest();
   }
+
+  /**
+   * Returns the additional digests of the body, in the order their
+   * algorithms were given; empty if there are none or the body has not been
+   * reached.
+   */
+  public List<MessageDigest> getAdditionalDigests() {
+    completeAdditionalDigests();
+    return additionalDigests;
+  }
+
+  /**
+   * Completes a list of digests and formats them as the value of an
+   * {@link #X_LOCKSS_ADDITIONAL_DIGESTS} header.
+   *
+   * @return the formatted digests, or {@code null} if there are none.
+   */
+  public static String formatDigests(List<MessageDigest> digests) {
+    if (digests == null || digests.isEmpty()) {
+      return null;
+    }
+
+    return digests.stream()
+        .map(md -> md.getAlgorithm() + ":" + new String(Hex.encodeHex(md.digest())))
+        .collect(Collectors.joining(","));
+  }
 }
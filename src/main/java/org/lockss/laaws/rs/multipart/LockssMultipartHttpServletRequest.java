@@ -62,13 +62,18 @@ import org.apache.tomcat.util.buf.UDecoder;
 import org.apache.tomcat.util.http.Parameters;
 import org.apache.tomcat.util.http.Parameters.FailReason;
 import org.apache.tomcat.util.http.fileupload.FileItem;
+import org.apache.tomcat.util.http.fileupload.FileItemIterator;
+import org.apache.tomcat.util.http.fileupload.FileItemStream;
 import org.apache.tomcat.util.http.fileupload.FileUpload;
+import org.apache.tomcat.util.http.fileupload.RequestContext;
 import org.apache.tomcat.util.http.fileupload.MultipartStream.MalformedStreamException;
 import org.apache.tomcat.util.http.fileupload.disk.DiskFileItemFactory;
 import org.apache.tomcat.util.http.fileupload.impl.InvalidContentTypeException;
 import org.apache.tomcat.util.http.fileupload.impl.SizeException;
 import org.apache.tomcat.util.http.fileupload.servlet.ServletRequestContext;
+import org.apache.tomcat.util.http.fileupload.util.Streams;
 import org.lockss.log.L4JLogger;
+import org.lockss.util.rest.repo.RestLockssRepository;
 import org.lockss.util.rest.repo.util.ArtifactConstants;
 import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
@@ -118,6 +123,11 @@ import java.util.*;
  * work around this, the content type is transmitted via a custom header and falls back to the usual
  * {@code Content-Type} if it is not present. Support for receiving a part employing this workaround and
  * returning the intended, malformed type was added to {@link LockssMultipartFile#getContentType()}.
+ * <p>
+ * 3. Streaming payloads: If the request's query string contains {@code streamPayload=true}, parsing
+ * stops at the artifact payload part, which is not spooled to a temporary file but is instead made
+ * available as a {@link StreamingPayloadFileItem} reading directly from the servlet input stream.
+ * The payload part must be the last part of such a request.
  *
  * @see StandardMultipartHttpServletRequest
  * @see StandardServletMultipartResolver
@@ -138,6 +148,15 @@ public class LockssMultipartHttpServletRequest extends AbstractMultipartHttpServ
   private int maxPostSize = -1;
   private boolean createUploadTargets = true;
   private Charset charset;
+  private List<String> additionalDigestAlgorithms = Collections.emptyList();
+  private UploadDirSelector uploadDirSelector;
+  private DirectBufferPool bufferPool;
+
+  /**
+   * Name of the query parameter that requests the payload part be streamed
+   * rather than spooled to a temporary file.
+   */
+  public static final String STREAM_PAYLOAD_PARAM = "streamPayload";
 
   /**
    * Create a new LockssMultipartHttpServletRequest wrapper for the given request,
@@ -201,6 +220,34 @@ public class LockssMultipartHttpServletRequest extends AbstractMultipartHttpServ
     return createUploadTargets;
   }
 
+  /**
+   * Sets the algorithms of the digests to compute over file parts in
+   * addition to the default one.
+   */
+  public LockssMultipartHttpServletRequest setAdditionalDigestAlgorithms(List<String> algorithms) {
+    this.additionalDigestAlgorithms = algorithms;
+    return this;
+  }
+
+  /**
+   * Sets the {@link UploadDirSelector} that spreads spooled parts across
+   * several directories. If {@code null}, parts are spooled to the location
+   * of the {@link MultipartConfigElement}.
+   */
+  public LockssMultipartHttpServletRequest setUploadDirSelector(UploadDirSelector selector) {
+    this.uploadDirSelector = selector;
+    return this;
+  }
+
+  /**
+   * Sets the {@link DirectBufferPool} that holds in-memory parts off the
+   * heap. If {@code null}, in-memory parts are held on the heap.
+   */
+  public LockssMultipartHttpServletRequest setBufferPool(DirectBufferPool pool) {
+    this.bufferPool = pool;
+    return this;
+  }
+
   public LockssMultipartHttpServletRequest setMultipartConfigElement(MultipartConfigElement mce) {
     this.mce = mce;
     return this;
@@ -285,6 +332,11 @@ public class LockssMultipartHttpServletRequest extends AbstractMultipartHttpServ
         throw ioe;
       }
       factory.setSizeThreshold(mce.getFileSizeThreshold());
+      factory.setAdditionalDigestAlgorithms(additionalDigestAlgorithms);
+      factory.setUploadDirSelector(uploadDirSelector);
+      // A part can be no larger than the request
+      factory.setExpectedSize(getContentLengthLong());
+      factory.setBufferPool(bufferPool);
 
       FileUpload upload = new FileUpload();
       upload.setFileItemFactory(factory);
@@ -300,7 +352,10 @@ public class LockssMultipartHttpServletRequest extends AbstractMultipartHttpServ
 
       parts = new ArrayList<>();
       try {
-        List<FileItem> items = upload.parseRequest(new ServletRequestContext(getRequest()));
+        RequestContext ctx = new ServletRequestContext(getRequest());
+        List<FileItem> items = isStreamPayload(parameters) ?
+            parseRequestStreamingPayload(upload, factory, ctx) :
+            upload.parseRequest(ctx);
         int maxPostSize = getMaxPostSize();
         int postSize = 0;
         Charset charset = getCharset();
@@ -372,6 +427,64 @@ public class LockssMultipartHttpServletRequest extends AbstractMultipartHttpServ
     }
   }
 
+  /**
+   * Returns {@code true} if the query string of this request asks for the payload part to be
+   * streamed.
+   */
+  private boolean isStreamPayload(Parameters parameters) {
+    return Boolean.parseBoolean(parameters.getParameter(STREAM_PAYLOAD_PARAM));
+  }
+
+  /**
+   * Adapted from {@link FileUpload#parseRequest(RequestContext)}. Parses parts up to and including
+   * the artifact payload part. Parts preceding the payload are handled as usual; the payload part
+   * itself is returned as a {@link StreamingPayloadFileItem} positioned at the start of its content
+   * in the request stream.
+   */
+  private List<FileItem> parseRequestStreamingPayload(FileUpload upload,
+                                                      DigestFileItemFactory factory,
+                                                      RequestContext ctx) throws IOException {
+    List<FileItem> items = new ArrayList<>();
+    boolean successful = false;
+    byte[] buffer = new byte[8192];
+
+    try {
+      FileItemIterator iter = upload.getItemIterator(ctx);
+
+      while (iter.hasNext()) {
+        FileItemStream item = iter.next();
+
+        if (RestLockssRepository.MULTIPART_ARTIFACT_PAYLOAD.equals(item.getFieldName())) {
+          StreamingPayloadFileItem payload =
+              new StreamingPayloadFileItem(item.getFieldName(), item.getContentType(),
+                  item.getName(), item.openStream(), iter);
+          payload.setHeaders(item.getHeaders());
+          items.add(payload);
+          break;
+        }
+
+        FileItem fileItem = factory.createItem(item.getFieldName(), item.getContentType(),
+            item.isFormField(), item.getName());
+        items.add(fileItem);
+        Streams.copy(item.openStream(), fileItem.getOutputStream(), true, buffer);
+        fileItem.setHeaders(item.getHeaders());
+      }
+
+      successful = true;
+      return items;
+    } finally {
+      if (!successful) {
+        for (FileItem fileItem : items) {
+          try {
+            fileItem.delete();
+          } catch (Exception ignored) {
+            // ignored
+          }
+        }
+      }
+    }
+  }
+
   /**
    * Given a {@link MalformedStreamException}, return one without a stacktrace, unless logging
    * at {@code TRACE} level.
@@ -571,6 +684,30 @@ public class LockssMultipartHttpServletRequest extends AbstractMultipartHttpServ
       return part.getDigest();
     }
 
+    /**
+     * Returns the digests of the part computed in addition to the default
+     * one. Not computed for streaming parts.
+     */
+    public List<MessageDigest> getAdditionalDigests() {
+      return part.getFileItem().getAdditionalDigests();
+    }
+
+    /**
+     * Returns {@code true} if this file's content is read directly from the
+     * request stream, rather than from a spooled copy.
+     */
+    public boolean isStreaming() {
+      return part.getFileItem() instanceof StreamingPayloadFileItem;
+    }
+
+    /**
+     * Returns the {@link StreamingPayloadFileItem} backing this file, or
+     * {@code null} if it is not streaming.
+     */
+    public StreamingPayloadFileItem getStreamingPayload() {
+      return isStreaming() ? (StreamingPayloadFileItem) part.getFileItem() : null;
+    }
+
     @Override
     public String getName() {
       return this.part.getName();
@@ -644,5 +781,9 @@ public class LockssMultipartHttpServletRequest extends AbstractMultipartHttpServ
     public MessageDigest getDigest() {
       return fileItem.getDigest();
     }
+
+    public DigestFileItem getFileItem() {
+      return fileItem;
+    }
   }
 }
@@ -49,6 +49,8 @@ import org.springframework.web.multipart.support.StandardServletMultipartResolve
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * The {@link LockssMultipartResolver} overrides
@@ -64,6 +66,9 @@ import java.io.IOException;
  */
 public class LockssMultipartResolver extends StandardServletMultipartResolver {
   private final MultipartConfigFactory multipartConfigFactory;
+  private volatile List<String> additionalDigestAlgorithms = Collections.emptyList();
+  private volatile UploadDirSelector uploadDirSelector;
+  private volatile DirectBufferPool bufferPool;
 
 //  @Autowired
 //  ServletWebServerApplicationContext context;
@@ -84,7 +89,10 @@ public class LockssMultipartResolver extends StandardServletMultipartResolver {
     MultipartConfigElement mce = getMultipartConfigElement();
     LockssMultipartHttpServletRequest lockssMultipartRequest =
         new LockssMultipartHttpServletRequest(request, true)
-            .setMultipartConfigElement(mce);
+            .setMultipartConfigElement(mce)
+            .setAdditionalDigestAlgorithms(additionalDigestAlgorithms)
+            .setUploadDirSelector(uploadDirSelector)
+            .setBufferPool(bufferPool);
 
 //    WebServer ws = context.getWebServer();
 //    if (ws instanceof TomcatWebServer) {
@@ -110,4 +118,25 @@ public class LockssMultipartResolver extends StandardServletMultipartResolver {
   public void setMaxInMemorySize(int maxInMem) {
     multipartConfigFactory.setFileSizeThreshold(DataSize.ofBytes(maxInMem));
   }
+
+  public void setAdditionalDigestAlgorithms(List<String> algorithms) {
+    this.additionalDigestAlgorithms = algorithms;
+  }
+
+  /**
+   * Sets the directories across which spooled parts are spread.  If there
+   * are fewer than two, parts are spooled to the upload temp dir.
+   */
+  public void setUploadTempDirs(List<File> uploadTempDirs) {
+    uploadDirSelector =
+        uploadTempDirs.size() < 2 ? null : new UploadDirSelector(uploadTempDirs);
+  }
+
+  /**
+   * Sets the {@link DirectBufferPool} that holds in-memory parts off the
+   * heap, or {@code null} to hold them on the heap.
+   */
+  public void setBufferPool(DirectBufferPool pool) {
+    this.bufferPool = pool;
+  }
 }
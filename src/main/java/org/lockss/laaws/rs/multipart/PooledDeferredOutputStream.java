@@ -0,0 +1,311 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.multipart;
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * An {@link OutputStream} that holds its content in buffers from a
+ * {@link DirectBufferPool}, and spills it to a file when it exceeds a
+ * threshold or the pool has no buffer to give. Plays the role of the
+ * {@code DeferredFileOutputStream} of a {@code DiskFileItem}.
+ * <p>
+ * The buffers must be returned to the pool with {@link #release()} once the
+ * content is no longer needed; streams opened on the content fail after
+ * that.
+ */
+public class PooledDeferredOutputStream extends OutputStream {
+  private final DirectBufferPool pool;
+  private final long threshold;
+  private final Supplier<File> spillFileSupplier;
+
+  private final List<ByteBuffer> buffers = new ArrayList<>();
+  private long count;
+
+  private File file;
+  private OutputStream fileOut;
+
+  private boolean closed;
+  private volatile boolean released;
+
+  /**
+   * Constructor.
+   *
+   * @param pool              The {@link DirectBufferPool} to take buffers from.
+   * @param threshold         The maximum number of bytes held in memory.
+   * @param spillFileSupplier Supplies the file to spill to, when needed.
+   */
+  public PooledDeferredOutputStream(DirectBufferPool pool, long threshold,
+                                    Supplier<File> spillFileSupplier) {
+    this.pool = pool;
+    this.threshold = threshold;
+    this.spillFileSupplier = spillFileSupplier;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    if (fileOut == null && count + 1 <= threshold) {
+      ByteBuffer buf = currentBuffer();
+
+      if (buf != null) {
+        buf.put((byte) b);
+        count++;
+        return;
+      }
+    }
+
+    write(new byte[]{(byte) b}, 0, 1);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    if (fileOut == null && count + len > threshold) {
+      spill(DirectBufferPool.SpillReason.THRESHOLD);
+    }
+
+    while (fileOut == null && len > 0) {
+      ByteBuffer buf = currentBuffer();
+
+      if (buf == null) {
+        spill(DirectBufferPool.SpillReason.EXHAUSTED);
+        break;
+      }
+
+      int n = Math.min(len, buf.remaining());
+      buf.put(b, off, n);
+      off += n;
+      len -= n;
+      count += n;
+    }
+
+    if (len > 0) {
+      fileOut.write(b, off, len);
+      count += len;
+    }
+  }
+
+  /**
+   * Returns the buffer with room to write into, taking a new one from the
+   * pool if needed, or {@code null} if the pool has none to give. The first
+   * buffer is of the pool's smallest size, and each next one twice the size
+   * of the previous one, so that the space taken by a part stays within
+   * about twice its size.
+   */
+  private ByteBuffer currentBuffer() {
+    ByteBuffer buf = buffers.isEmpty() ? null : buffers.get(buffers.size() - 1);
+
+    if (buf == null || !buf.hasRemaining()) {
+      buf = pool.acquire(buf == null ?
+          pool.getMinBufferSize() : (int) Math.min(2L * buf.capacity(), pool.getBufferSize()));
+
+      if (buf != null) {
+        buffers.add(buf);
+      }
+    }
+
+    return buf;
+  }
+
+  /**
+   * Moves the content held in memory to the spill file, and continues in it.
+   */
+  private void spill(DirectBufferPool.SpillReason reason) throws IOException {
+    file = spillFileSupplier.get();
+    fileOut = new BufferedOutputStream(new FileOutputStream(file));
+
+    byte[] chunk = new byte[pool.getBufferSize()];
+
+    for (ByteBuffer buf : buffers) {
+      ByteBuffer content = buf.duplicate().flip();
+      int n = content.remaining();
+      content.get(chunk, 0, n);
+      fileOut.write(chunk, 0, n);
+    }
+
+    releaseBuffers();
+    pool.recordSpill(reason);
+  }
+
+  @Override
+  public void flush() throws IOException {
+    if (fileOut != null) {
+      fileOut.flush();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+
+    closed = true;
+
+    if (fileOut != null) {
+      fileOut.close();
+    } else {
+      pool.recordInMemoryPart();
+    }
+  }
+
+  public boolean isInMemory() {
+    return file == null;
+  }
+
+  /**
+   * Returns the spill file, or {@code null} if the content is in memory.
+   */
+  public File getFile() {
+    return file;
+  }
+
+  public long getByteCount() {
+    return count;
+  }
+
+  /**
+   * Opens a stream on the content, in memory or in the spill file.
+   */
+  public InputStream getInputStream() throws IOException {
+    checkNotReleased();
+
+    if (!isInMemory()) {
+      return new FileInputStream(file);
+    }
+
+    List<ByteBuffer> contents = new ArrayList<>(buffers.size());
+
+    for (ByteBuffer buf : buffers) {
+      contents.add(buf.duplicate().flip());
+    }
+
+    return new BuffersInputStream(contents);
+  }
+
+  /**
+   * Returns a copy of the content, which must have been closed, on the heap.
+   */
+  public byte[] toByteArray() throws IOException {
+    if (!isInMemory()) {
+      return FileUtils.readFileToByteArray(file);
+    }
+
+    try (InputStream in = getInputStream()) {
+      return in.readAllBytes();
+    }
+  }
+
+  /**
+   * Returns the buffers to the pool and deletes the spill file, if any.
+   */
+  public void release() {
+    released = true;
+    releaseBuffers();
+
+    if (file != null) {
+      FileUtils.deleteQuietly(file);
+    }
+  }
+
+  private void releaseBuffers() {
+    for (ByteBuffer buf : buffers) {
+      pool.release(buf);
+    }
+
+    buffers.clear();
+  }
+
+  private void checkNotReleased() throws IOException {
+    if (released) {
+      throw new IOException("Content has been released");
+    }
+  }
+
+  /**
+   * Reads the content of a list of buffers, checking before each read that
+   * they have not been returned to the pool.
+   */
+  private class BuffersInputStream extends InputStream {
+    private final List<ByteBuffer> contents;
+    private int index;
+
+    BuffersInputStream(List<ByteBuffer> contents) {
+      this.contents = contents;
+    }
+
+    private ByteBuffer current() throws IOException {
+      checkNotReleased();
+
+      while (index < contents.size() && !contents.get(index).hasRemaining()) {
+        index++;
+      }
+
+      return index < contents.size() ? contents.get(index) : null;
+    }
+
+    @Override
+    public int read() throws IOException {
+      ByteBuffer buf = current();
+      return buf == null ? -1 : buf.get() & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+
+      ByteBuffer buf = current();
+
+      if (buf == null) {
+        return -1;
+      }
+
+      int n = Math.min(len, buf.remaining());
+      buf.get(b, off, n);
+      return n;
+    }
+
+    @Override
+    public int available() throws IOException {
+      ByteBuffer buf = current();
+      return buf == null ? 0 : buf.remaining();
+    }
+  }
+}
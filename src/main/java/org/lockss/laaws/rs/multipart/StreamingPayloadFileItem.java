@@ -0,0 +1,287 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.multipart;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.TeeInputStream;
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.tomcat.util.http.fileupload.FileItemIterator;
+import org.lockss.log.L4JLogger;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+
+/**
+ * A {@link DigestFileItem} for the payload part of a request processed in
+ * streaming mode. Rather than being spooled to a temporary file by the
+ * multipart parser, the part's content is consumed directly from the servlet
+ * input stream when {@link #getInputStream()} is read, and digested on the fly
+ * by an {@link HttpBodyDigestOutputStream}.
+ * <p>
+ * The content can only be read once, and the payload must be the last part of
+ * the request: once it has been consumed, the presence of any further part is
+ * reported as an error. Callers that need the whole content at once, through
+ * {@link #get()}, cause it to be drained into memory; it is then served from
+ * that copy.
+ *
+ * @see LockssMultipartHttpServletRequest
+ */
+public class StreamingPayloadFileItem extends DigestFileItem {
+  private static L4JLogger log = L4JLogger.getLogger();
+
+  private final InputStream partInput;
+  private final FileItemIterator iterator;
+  private final HttpBodyDigestOutputStream digestOutput;
+
+  private boolean consumed = false;
+  private boolean eof = false;
+  private long count = 0;
+  private byte[] buffered;
+
+  private long expectedLength = -1;
+  private String expectedDigest;
+
+  public StreamingPayloadFileItem(String fieldName, String contentType,
+                                  String fileName, InputStream partInput,
+                                  FileItemIterator iterator) {
+    super(fieldName, contentType, false, fileName, 0, null);
+    this.partInput = partInput;
+    this.iterator = iterator;
+
+    digestOutput = new HttpBodyDigestOutputStream(NullOutputStream.INSTANCE);
+    digestOutput.switchToDigest();
+  }
+
+  /**
+   * Sets the content length and digest the payload is expected to have. They
+   * are checked when the end of the payload is reached; a mismatch causes a
+   * {@link PayloadVerificationException} to be thrown by the final read. If
+   * the payload has already been drained by {@link #get()}, they are checked
+   * immediately.
+   *
+   * @param length A {@code long} with the expected content length.
+   * @param digest A {@link String} with the expected content digest, in
+   *               {@code algorithm:hex} form.
+   * @throws PayloadVerificationException if the payload has already been
+   *                                      drained and does not match.
+   */
+  public void setExpectedContent(long length, String digest)
+      throws PayloadVerificationException {
+    this.expectedLength = length;
+    this.expectedDigest = digest;
+
+    if (eof) {
+      verifyContent();
+    }
+  }
+
+  /**
+   * Returns the name of the digest algorithm computed while streaming.
+   */
+  public String getDigestAlgorithm() {
+    return digestOutput.getDigest().getAlgorithm();
+  }
+
+  @Override
+  public MessageDigest getDigest() {
+    return digestOutput.getDigest();
+  }
+
+  @Override
+  public boolean isInMemory() {
+    return false;
+  }
+
+  /**
+   * Returns the number of payload bytes consumed so far.
+   */
+  @Override
+  public long getSize() {
+    return count;
+  }
+
+  /**
+   * Drains the rest of the payload into memory, verifying it on the way, and
+   * returns it. Subsequent calls to {@link #getInputStream()} read from the
+   * drained copy.
+   */
+  @Override
+  public byte[] get() throws UncheckedIOException {
+    if (buffered == null) {
+      try (InputStream in = getInputStream()) {
+        buffered = IOUtils.toByteArray(in);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    return buffered;
+  }
+
+  /**
+   * The content of a streaming payload comes from the request, so nothing is
+   * written to it: anything written is discarded.
+   */
+  @Override
+  public OutputStream getOutputStream() {
+    return NullOutputStream.INSTANCE;
+  }
+
+  @Override
+  public InputStream getInputStream() throws IOException {
+    if (buffered != null) {
+      return new ByteArrayInputStream(buffered);
+    }
+
+    if (consumed) {
+      throw new IOException("Streaming payload has already been consumed");
+    }
+
+    consumed = true;
+    return new PayloadInputStream(new TeeInputStream(partInput, digestOutput));
+  }
+
+  @Override
+  public void write(File file) throws IOException {
+    try (InputStream in = getInputStream()) {
+      Files.copy(in, file.toPath());
+    }
+  }
+
+  @Override
+  public void delete() {
+    try {
+      partInput.close();
+    } catch (IOException e) {
+      log.debug("Error closing streaming payload", e);
+    }
+  }
+
+  private void checkEndOfPayload() throws IOException {
+    eof = true;
+
+    if (iterator.hasNext()) {
+      throw new PayloadVerificationException(
+          "Unexpected part after streaming payload part: " + iterator.next().getFieldName());
+    }
+
+    verifyContent();
+  }
+
+  private void verifyContent() throws PayloadVerificationException {
+    if (expectedLength >= 0 && count != expectedLength) {
+      throw new PayloadVerificationException("Streaming payload length mismatch" +
+          " [expected: " + expectedLength + ", actual: " + count + "]");
+    }
+
+    if (expectedDigest != null) {
+      MessageDigest md = digestOutput.getDigest();
+      String actualDigest = String.format("%s:%s",
+          md.getAlgorithm(), new String(Hex.encodeHex(md.digest())));
+
+      if (!actualDigest.equalsIgnoreCase(expectedDigest)) {
+        throw new PayloadVerificationException("Streaming payload digest mismatch" +
+            " [expected: " + expectedDigest + ", actual: " + actualDigest + "]");
+      }
+    }
+  }
+
+  /**
+   * Counts the bytes read from the payload and verifies them when the end of
+   * the payload is reached.
+   */
+  private class PayloadInputStream extends FilterInputStream {
+    PayloadInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      afterRead(b == -1 ? -1 : 1);
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int n = super.read(b, off, len);
+      afterRead(n);
+      return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      // Skipped bytes must still go through the digest
+      byte[] buf = new byte[(int) Math.min(n, 8192)];
+      long skipped = 0;
+      while (skipped < n) {
+        int r = read(buf, 0, (int) Math.min(buf.length, n - skipped));
+        if (r == -1) break;
+        skipped += r;
+      }
+      return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+
+    private void afterRead(int n) throws IOException {
+      if (n == -1) {
+        if (!eof) {
+          checkEndOfPayload();
+        }
+      } else {
+        count += n;
+
+        if (expectedLength >= 0 && count > expectedLength) {
+          throw new PayloadVerificationException(
+              "Streaming payload exceeds expected length: " + expectedLength);
+        }
+      }
+    }
+  }
+
+  /**
+   * Thrown when a streaming payload does not match its declared length or
+   * digest, or is not the last part of the request.
+   */
+  public static class PayloadVerificationException extends IOException {
+    public PayloadVerificationException(String message) {
+      super(message);
+    }
+  }
+}
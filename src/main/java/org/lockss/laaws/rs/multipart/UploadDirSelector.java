@@ -0,0 +1,171 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.multipart;
+
+import org.lockss.log.L4JLogger;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Spreads the temporary files of multipart uploads across several
+ * directories, normally on different volumes, so that concurrent uploads are
+ * not all spooled to the same disk.
+ * <p>
+ * Each new temporary file goes to the directory with the most usable space
+ * per upload in flight to it, counting the new one. An upload is in flight
+ * from the time its directory is chosen until it is released, when its
+ * bytes are added to the directory's total. The space the uploads in flight
+ * are expected to take up, which the usable space does not yet reflect, is
+ * reserved from the time the directory is chosen, and does not count as
+ * usable.
+ */
+public class UploadDirSelector {
+  private static L4JLogger log = L4JLogger.getLogger();
+
+  private final List<UploadDir> dirs;
+
+  /**
+   * Constructor.
+   *
+   * @param dirs The directories among which to choose; must not be empty.
+   */
+  public UploadDirSelector(List<File> dirs) {
+    if (dirs.isEmpty()) {
+      throw new IllegalArgumentException("No upload directories");
+    }
+
+    List<UploadDir> res = new ArrayList<>(dirs.size());
+
+    for (File dir : dirs) {
+      res.add(new UploadDir(dir));
+    }
+
+    this.dirs = Collections.unmodifiableList(res);
+  }
+
+  /**
+   * Returns the directories among which this selector chooses.
+   */
+  public List<File> getDirs() {
+    List<File> res = new ArrayList<>(dirs.size());
+
+    for (UploadDir dir : dirs) {
+      res.add(dir.dir);
+    }
+
+    return res;
+  }
+
+  /**
+   * Chooses the directory for a new temporary file, and counts an upload in
+   * flight to it.
+   *
+   * @param expectedBytes The number of bytes the upload is expected to spool,
+   *                      reserved until it is released; 0 if unknown.
+   * @return an {@link UploadDir} to be passed to {@link #release(UploadDir,
+   * long, long)} when the temporary file is deleted.
+   */
+  public UploadDir choose(long expectedBytes) {
+    UploadDir best = null;
+    long bestScore = -1;
+
+    for (UploadDir dir : dirs) {
+      long available = Math.max(0, dir.dir.getUsableSpace() - dir.reservedBytes.get());
+      long score = available / (1 + dir.inFlight.get());
+
+      if (score > bestScore) {
+        best = dir;
+        bestScore = score;
+      }
+    }
+
+    best.inFlight.incrementAndGet();
+    best.reservedBytes.addAndGet(Math.max(0, expectedBytes));
+    log.trace("Chose upload dir {} [inFlight: {}, reserved: {}]",
+        best.dir, best.inFlight, best.reservedBytes);
+
+    return best;
+  }
+
+  /**
+   * Records that an upload to a directory is no longer in flight.
+   *
+   * @param dir           The {@link UploadDir} returned by {@link
+   *                      #choose(long)}.
+   * @param expectedBytes The number of bytes passed to {@link #choose(long)}.
+   * @param bytes         The number of bytes the upload spooled.
+   */
+  public void release(UploadDir dir, long expectedBytes, long bytes) {
+    dir.inFlight.decrementAndGet();
+    dir.reservedBytes.addAndGet(-Math.max(0, expectedBytes));
+    dir.totalBytes.addAndGet(bytes);
+  }
+
+  /**
+   * An upload directory and its usage.
+   */
+  public static class UploadDir {
+    private final File dir;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong reservedBytes = new AtomicLong();
+    private final AtomicLong totalBytes = new AtomicLong();
+
+    UploadDir(File dir) {
+      this.dir = dir;
+    }
+
+    public File getDir() {
+      return dir;
+    }
+
+    /** Returns the number of uploads in flight to this directory. */
+    public int getInFlight() {
+      return inFlight.get();
+    }
+
+    /** Returns the number of bytes reserved by uploads in flight. */
+    public long getReservedBytes() {
+      return reservedBytes.get();
+    }
+
+    /** Returns the number of bytes spooled by released uploads. */
+    public long getTotalBytes() {
+      return totalBytes.get();
+    }
+  }
+}
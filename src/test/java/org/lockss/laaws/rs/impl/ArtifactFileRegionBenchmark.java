@@ -0,0 +1,149 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.impl;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.StreamUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH throughput benchmark of sending the payload of an artifact stored in an
+ * uncompressed WARC file to a loopback socket: copied through an
+ * {@link InputStream} into the response stream, as Spring MVC does, against
+ * {@link FileChannel#transferTo}, which is what Tomcat's sendfile of an
+ * {@link ArtifactFileRegion} amounts to.
+ * <p>
+ * Run from the project directory after {@code mvn test-compile} with:
+ * <pre>
+ * mvn dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *   org.openjdk.jmh.Main ArtifactFileRegionBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArtifactFileRegionBenchmark {
+
+  /** Length of the payload */
+  @Param({"65536", "1048576", "16777216"})
+  public int payloadLength;
+
+  // Offset of the payload in the WARC file, past a preceding record
+  private static final long PAYLOAD_OFFSET = 4096;
+
+  private File file;
+  private ServerSocketChannel server;
+  private SocketChannel client;
+  private OutputStream clientStream;
+  private Thread drainer;
+
+  @Setup
+  public void setUp() throws IOException {
+    file = File.createTempFile("artifacts", ".warc");
+    byte[] data = new byte[(int) PAYLOAD_OFFSET + payloadLength];
+    new Random(1).nextBytes(data);
+    Files.write(file.toPath(), data);
+
+    // The receiving end discards what it reads, as fast as it can
+    server = ServerSocketChannel.open()
+        .bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    client = SocketChannel.open(server.getLocalAddress());
+    SocketChannel peer = server.accept();
+
+    drainer = new Thread(() -> {
+      ByteBuffer buf = ByteBuffer.allocateDirect(256 * 1024);
+      try {
+        while (peer.read(buf) >= 0) {
+          buf.clear();
+        }
+      } catch (IOException e) {
+        // Closed
+      }
+    }, "drainer");
+    drainer.setDaemon(true);
+    drainer.start();
+
+    clientStream = Channels.newOutputStream(client);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException, InterruptedException {
+    client.close();
+    server.close();
+    drainer.join(1000);
+    file.delete();
+  }
+
+  /** Skips to the payload and copies it through a buffer. */
+  @Benchmark
+  public long streamCopy() throws IOException {
+    try (InputStream in = Files.newInputStream(file.toPath())) {
+      in.skipNBytes(PAYLOAD_OFFSET);
+      return StreamUtils.copyRange(in, clientStream, 0, payloadLength - 1);
+    }
+  }
+
+  /** Transfers the payload region from the file to the socket. */
+  @Benchmark
+  public long transferTo() throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      long pos = PAYLOAD_OFFSET;
+      long end = PAYLOAD_OFFSET + payloadLength;
+
+      while (pos < end) {
+        pos += channel.transferTo(pos, end - pos, client);
+      }
+
+      return pos - PAYLOAD_OFFSET;
+    }
+  }
+}
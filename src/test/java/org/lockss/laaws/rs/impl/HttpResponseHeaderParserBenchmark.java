@@ -0,0 +1,111 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.impl;
+
+import org.apache.http.HttpException;
+import org.apache.http.HttpResponse;
+import org.lockss.util.rest.repo.util.ArtifactDataUtil;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpHeaders;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the parsing of the HTTP response header of an artifact:
+ * {@link HttpResponseHeaderParser}, against the HttpCore parser and header
+ * conversion it replaced.
+ * <p>
+ * Run from the project directory after {@code mvn test-compile} with:
+ * <pre>
+ * mvn dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *   org.openjdk.jmh.Main HttpResponseHeaderParserBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HttpResponseHeaderParserBenchmark {
+
+  /** Number of header lines */
+  @Param({"4", "12", "32"})
+  public int headerCount;
+
+  private byte[] header;
+
+  @Setup
+  public void setUp() {
+    StringBuilder sb = new StringBuilder("HTTP/1.1 200 OK\r\n");
+    String[] common = {
+        "Content-Type: text/html; charset=utf-8",
+        "Content-Length: 52814",
+        "Date: Fri, 16 Oct 2026 12:00:00 GMT",
+        "Server: Apache",
+        "Last-Modified: Thu, 15 Oct 2026 08:30:00 GMT",
+        "ETag: \"ce4e-5f2b1c3d\"",
+        "Cache-Control: max-age=3600",
+        "Vary: Accept-Encoding",
+    };
+
+    for (int i = 0; i < headerCount; i++) {
+      if (i < common.length) {
+        sb.append(common[i]);
+      } else {
+        sb.append("X-Header-").append(i).append(": ").append("value-".repeat(1 + i % 8));
+      }
+      sb.append("\r\n");
+    }
+
+    sb.append("\r\n");
+
+    header = sb.toString().getBytes(StandardCharsets.ISO_8859_1);
+  }
+
+  @Benchmark
+  public HttpHeaders parser() throws HttpException {
+    return HttpResponseHeaderParser.parse(header).getHeaders();
+  }
+
+  @Benchmark
+  public HttpHeaders httpCore() throws HttpException, IOException {
+    HttpResponse response =
+        ArtifactDataUtil.getHttpResponseFromStream(new ByteArrayInputStream(header));
+    return ArtifactDataUtil.transformHeaderArrayToHttpHeaders(response.getAllHeaders());
+  }
+}
@@ -0,0 +1,153 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.impl;
+
+import org.junit.jupiter.api.Test;
+import org.lockss.util.test.LockssTestCase5;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Tests for {@link AdditionalDigestStore}.
+ */
+public class TestAdditionalDigestStore extends LockssTestCase5 {
+
+  @Test
+  public void testPutGetRemove() throws Exception {
+    File dir = new File(getTempDir(), AdditionalDigestStore.DIR_NAME);
+    AdditionalDigestStore store = new AdditionalDigestStore(dir);
+
+    // Nothing recorded yet
+    assertNull(store.get("0123-abcd"));
+
+    store.put("0123-abcd", "MD5:00ff");
+    store.put("4567-ef01", "MD5:1234,SHA-1:5678");
+    assertEquals("MD5:00ff", store.get("0123-abcd"));
+    assertEquals("MD5:1234,SHA-1:5678", store.get("4567-ef01"));
+
+    // Replaced
+    store.put("0123-abcd", "MD5:ff00");
+    assertEquals("MD5:ff00", store.get("0123-abcd"));
+
+    store.remove("0123-abcd");
+    assertNull(store.get("0123-abcd"));
+    assertEquals("MD5:1234,SHA-1:5678", store.get("4567-ef01"));
+
+    // Removing an unrecorded artifact is harmless
+    store.remove("0123-abcd");
+  }
+
+  @Test
+  public void testInvalidUuid() throws Exception {
+    AdditionalDigestStore store =
+        new AdditionalDigestStore(new File(getTempDir(), AdditionalDigestStore.DIR_NAME));
+
+    assertThrows(IllegalArgumentException.class, () -> store.put("../x", "MD5:00"));
+    assertThrows(IllegalArgumentException.class, () -> store.put(null, "MD5:00"));
+
+    store.put("ab", "MD5:00");
+    assertNull(store.get("../ab"));
+  }
+
+  @Test
+  public void testReopen() throws Exception {
+    File dir = new File(getTempDir(), AdditionalDigestStore.DIR_NAME);
+    File logFile = new File(dir, AdditionalDigestStore.LOG_FILE_NAME);
+
+    try (AdditionalDigestStore store = new AdditionalDigestStore(dir)) {
+      // Looking up an unrecorded artifact creates nothing
+      assertNull(store.get("0123-abcd"));
+      assertFalse(dir.exists());
+
+      store.put("0123-abcd", "MD5:00ff");
+      store.put("4567-ef01", "MD5:1234");
+      store.put("89ab-2345", "MD5:5678");
+      store.put("0123-abcd", "MD5:ff00");
+      store.remove("4567-ef01");
+    }
+
+    // A line left incomplete by a crash
+    Files.write(logFile.toPath(), "cdef-6789 MD5:9a".getBytes(StandardCharsets.ISO_8859_1),
+        StandardOpenOption.APPEND);
+
+    try (AdditionalDigestStore store = new AdditionalDigestStore(dir)) {
+      assertEquals("MD5:ff00", store.get("0123-abcd"));
+      assertNull(store.get("4567-ef01"));
+      assertEquals("MD5:5678", store.get("89ab-2345"));
+      assertNull(store.get("cdef-6789"));
+
+      store.put("cdef-6789", "MD5:9abc");
+    }
+
+    try (AdditionalDigestStore store = new AdditionalDigestStore(dir)) {
+      assertEquals("MD5:9abc", store.get("cdef-6789"));
+      assertEquals("MD5:ff00", store.get("0123-abcd"));
+    }
+  }
+
+  @Test
+  public void testCompact() throws Exception {
+    File dir = new File(getTempDir(), AdditionalDigestStore.DIR_NAME);
+    File logFile = new File(dir, AdditionalDigestStore.LOG_FILE_NAME);
+
+    try (AdditionalDigestStore store = new AdditionalDigestStore(dir, 1000)) {
+      for (int i = 0; i < 100; i++) {
+        store.put("0123-abcd", "MD5:" + i);
+        store.put("id-" + i, "MD5:" + i);
+        store.remove("id-" + i);
+      }
+    }
+
+    long size = logFile.length();
+
+    // Mostly superseded lines: compacted when next opened
+    try (AdditionalDigestStore store = new AdditionalDigestStore(dir, 1000)) {
+      assertEquals("MD5:99", store.get("0123-abcd"));
+      assertEquals("0123-abcd MD5:99\n",
+          new String(Files.readAllBytes(logFile.toPath()), StandardCharsets.ISO_8859_1));
+
+      store.put("4567-ef01", "MD5:1234");
+    }
+
+    assertTrue(logFile.length() < size);
+
+    try (AdditionalDigestStore store = new AdditionalDigestStore(dir, 1000)) {
+      assertEquals("MD5:99", store.get("0123-abcd"));
+      assertEquals("MD5:1234", store.get("4567-ef01"));
+      assertNull(store.get("id-0"));
+    }
+  }
+}
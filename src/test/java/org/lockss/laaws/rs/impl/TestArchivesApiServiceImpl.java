@@ -0,0 +1,609 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.impl;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.lockss.config.ConfigManager;
+import org.lockss.config.Configuration;
+import org.lockss.laaws.rs.configuration.RepositoryServiceProperties;
+import org.lockss.laaws.rs.model.ImportJobStatus;
+import org.lockss.laaws.rs.model.LocalImportStatus;
+import org.lockss.rs.VolatileLockssRepository;
+import org.lockss.spring.error.LockssRestServiceException;
+import org.lockss.spring.test.SpringLockssTestCase4;
+import org.lockss.util.rest.repo.LockssRepository;
+import org.lockss.util.rest.repo.model.Artifact;
+import org.lockss.util.rest.repo.model.ImportStatus;
+import org.lockss.util.time.TimeBase;
+import org.lockss.util.time.TimeUtil;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests for the archive import endpoints of {@link ArchivesApiServiceImpl}.
+ */
+public class TestArchivesApiServiceImpl extends SpringLockssTestCase4 {
+  private static final String NS = "ns";
+  private static final String AUID = "auid";
+
+  private LockssRepository repository;
+  private ArchivesApiServiceImpl service;
+
+  @Before
+  public void setUpService() throws Exception {
+    getMockLockssDaemon().setAppRunning(true);
+
+    repository = spy(new VolatileLockssRepository());
+    repository.initRepository();
+
+    RepositoryServiceProperties repoProps = mock(RepositoryServiceProperties.class);
+    when(repoProps.getRepositoryStateDir()).thenReturn(getTempDir());
+
+    service = new ArchivesApiServiceImpl(new MockHttpServletRequest());
+    service.repo = repository;
+    service.repoProps = repoProps;
+  }
+
+  @After
+  public void tearDownService() {
+    TimeBase.setReal();
+  }
+
+  protected boolean wantTempTmpDir() {
+    return true;
+  }
+
+  private void configure(String... keyVals) {
+    Configuration config = ConfigManager.newConfiguration();
+    for (int i = 0; i < keyVals.length; i += 2) {
+      config.put(keyVals[i], keyVals[i + 1]);
+    }
+    service.setConfig(config, ConfigManager.EMPTY_CONFIGURATION,
+        config.differences(ConfigManager.EMPTY_CONFIGURATION));
+  }
+
+  private static byte[] threeRecords() throws IOException {
+    return new WarcTestUtil()
+        .addResponse("http://example.com/a", "aaa")
+        .addResponse("http://example.com/b", "bbb")
+        .addResponse("http://example.com/c", "ccc")
+        .toWarc();
+  }
+
+  private String submit(byte[] warc) throws IOException {
+    ResponseEntity<Resource> response = service.addArtifacts(AUID,
+        new MockMultipartFile("archive", "test.warc", "application/warc", warc),
+        NS, true, null, true);
+
+    assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+
+    ImportJobStatus status;
+    try (InputStream in = response.getBody().getInputStream()) {
+      status = new ObjectMapper().readValue(in, ImportJobStatus.class);
+    }
+
+    assertEquals("/archives/jobs/" + status.getJobId(),
+        response.getHeaders().getLocation().toString());
+    assertEquals(NS, status.getNamespace());
+    assertEquals(AUID, status.getAuid());
+    assertEquals("test.warc", status.getArchiveName());
+    assertEquals(warc.length, (long) status.getArchiveSize());
+
+    return status.getJobId();
+  }
+
+  private ImportJobStatus waitForJob(String jobId, Predicate<ImportJobStatus> condition)
+      throws InterruptedException {
+    for (int i = 0; i < 1000; i++) {
+      ImportJobStatus status = service.getImportJobStatus(jobId).getBody();
+      if (condition.test(status)) {
+        return status;
+      }
+      Thread.sleep(10);
+    }
+
+    fail("Import job did not reach the expected state");
+    return null;
+  }
+
+  private static boolean isFinished(ImportJobStatus status) {
+    return status.getState() == ImportJobStatus.StateEnum.DONE ||
+        status.getState() == ImportJobStatus.StateEnum.FAILED;
+  }
+
+  private List<ImportStatus> getResults(String jobId, ImportJobStatus.StateEnum expectedState)
+      throws IOException {
+    ResponseEntity<Resource> response = service.getImportJobResults(jobId);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(expectedState.toString(),
+        response.getHeaders().getFirst(ArchivesApiServiceImpl.X_LOCKSS_IMPORT_JOB_STATE));
+
+    try (InputStream in = response.getBody().getInputStream();
+         MappingIterator<ImportStatus> iter =
+             new ObjectMapper().readerFor(ImportStatus.class).readValues(in)) {
+      return iter.readAll();
+    }
+  }
+
+  private void assertJobNotFound(String jobId) {
+    try {
+      service.getImportJobStatus(jobId);
+      fail("Expected a 404 for job " + jobId);
+    } catch (LockssRestServiceException e) {
+      assertEquals(HttpStatus.NOT_FOUND, e.getHttpStatus());
+    }
+
+    try {
+      service.getImportJobResults(jobId);
+      fail("Expected a 404 for the results of job " + jobId);
+    } catch (LockssRestServiceException e) {
+      assertEquals(HttpStatus.NOT_FOUND, e.getHttpStatus());
+    }
+  }
+
+  @Test
+  public void testImportJobLifecycle() throws Exception {
+    configure(ArchivesApiServiceImpl.PARAM_ASYNC_IMPORT_THREADS, "1");
+
+    assertJobNotFound("no-such-job");
+
+    byte[] warc = threeRecords();
+    String jobId = submit(warc);
+
+    ImportJobStatus status = waitForJob(jobId, TestArchivesApiServiceImpl::isFinished);
+    assertEquals(ImportJobStatus.StateEnum.DONE, status.getState());
+    assertEquals(3, (long) status.getRecordsProcessed());
+    assertEquals(3, (long) status.getOkCount());
+    assertEquals(0, (long) status.getErrorCount());
+    assertEquals(warc.length, (long) status.getBytesProcessed());
+    assertNotNull(status.getStartTime());
+    assertNotNull(status.getEndTime());
+    assertNull(status.getErrorMessage());
+
+    List<ImportStatus> results = getResults(jobId, ImportJobStatus.StateEnum.DONE);
+    assertEquals(3, results.size());
+    for (int i = 0; i < 3; i++) {
+      assertEquals(WarcTestUtil.warcId(i), results.get(i).getWarcId());
+      assertEquals(ImportStatus.StatusEnum.OK, results.get(i).getStatus());
+    }
+
+    assertNotNull(repository.getArtifact(NS, AUID, "http://example.com/c"));
+  }
+
+  @Test
+  public void testResultsWhileRunning() throws Exception {
+    configure(ArchivesApiServiceImpl.PARAM_ASYNC_IMPORT_THREADS, "1",
+        ArchivesApiServiceImpl.PARAM_IMPORT_PIPELINE_THREADS, "2",
+        ArchivesApiServiceImpl.PARAM_IMPORT_CHECKPOINT_INTERVAL, "0");
+
+    // Hold the import at the commit of the second record
+    CountDownLatch proceed = new CountDownLatch(1);
+    AtomicInteger commits = new AtomicInteger();
+
+    doAnswer(inv -> {
+      if (commits.incrementAndGet() == 2) {
+        proceed.await();
+      }
+      return inv.callRealMethod();
+    }).when(repository).commitArtifact(anyString(), anyString());
+
+    String jobId = submit(threeRecords());
+
+    ImportJobStatus status = waitForJob(jobId, s -> s.getRecordsProcessed() == 1);
+    assertEquals(ImportJobStatus.StateEnum.RUNNING, status.getState());
+    assertNotNull(status.getStartTime());
+    assertNull(status.getEndTime());
+
+    // The results so far are complete records
+    List<ImportStatus> results = getResults(jobId, ImportJobStatus.StateEnum.RUNNING);
+    assertEquals(1, results.size());
+    assertEquals(WarcTestUtil.warcId(0), results.get(0).getWarcId());
+
+    // A second job waits for the import thread
+    String queuedId = submit(threeRecords());
+    assertEquals(ImportJobStatus.StateEnum.QUEUED,
+        service.getImportJobStatus(queuedId).getBody().getState());
+    assertEquals(0, getResults(queuedId, ImportJobStatus.StateEnum.QUEUED).size());
+
+    // Running jobs do not expire
+    configure(ArchivesApiServiceImpl.PARAM_ASYNC_IMPORT_THREADS, "1",
+        ArchivesApiServiceImpl.PARAM_IMPORT_PIPELINE_THREADS, "2",
+        ArchivesApiServiceImpl.PARAM_IMPORT_CHECKPOINT_INTERVAL, "0",
+        ArchivesApiServiceImpl.PARAM_ASYNC_IMPORT_RETENTION, "0");
+    service.expireImportJobs();
+    assertEquals(ImportJobStatus.StateEnum.RUNNING,
+        service.getImportJobStatus(jobId).getBody().getState());
+
+    proceed.countDown();
+
+    status = waitForJob(jobId, TestArchivesApiServiceImpl::isFinished);
+    assertEquals(ImportJobStatus.StateEnum.DONE, status.getState());
+    assertEquals(3, getResults(jobId, ImportJobStatus.StateEnum.DONE).size());
+
+    status = waitForJob(queuedId, TestArchivesApiServiceImpl::isFinished);
+    assertEquals(3, (long) status.getOkCount());
+  }
+
+  @Test
+  public void testFailedJob() throws Exception {
+    configure(ArchivesApiServiceImpl.PARAM_ASYNC_IMPORT_THREADS, "1",
+        ArchivesApiServiceImpl.PARAM_IMPORT_PIPELINE_THREADS, "2",
+        ArchivesApiServiceImpl.PARAM_IMPORT_CHECKPOINT_INTERVAL, "0");
+
+    // Not a WARC archive
+    String jobId = submit("Not a WARC archive\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+
+    ImportJobStatus status = waitForJob(jobId, TestArchivesApiServiceImpl::isFinished);
+    assertEquals(ImportJobStatus.StateEnum.FAILED, status.getState());
+    assertNotNull(status.getErrorMessage());
+    assertNotNull(status.getEndTime());
+    assertEquals(0, getResults(jobId, ImportJobStatus.StateEnum.FAILED).size());
+  }
+
+  @Test
+  public void testImportJobExpiry() throws Exception {
+    TimeBase.setSimulated(100000);
+
+    configure(ArchivesApiServiceImpl.PARAM_ASYNC_IMPORT_RETENTION, "1h");
+
+    String jobId = submit(threeRecords());
+    ImportJobStatus status = waitForJob(jobId, TestArchivesApiServiceImpl::isFinished);
+    assertEquals(100000, (long) status.getEndTime());
+
+    // Kept for the retention interval after it finished
+    TimeBase.step(TimeUtil.HOUR);
+    service.expireImportJobs();
+    assertEquals(3, getResults(jobId, ImportJobStatus.StateEnum.DONE).size());
+
+    TimeBase.step(1);
+    service.expireImportJobs();
+    assertJobNotFound(jobId);
+  }
+
+  private List<ImportStatus> importArchive(String auid, String name, String contentType,
+                                           byte[] archive) throws IOException {
+    ResponseEntity<Resource> response = service.addArtifacts(auid,
+        new MockMultipartFile("archive", name, contentType, archive),
+        NS, true, null, false);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+
+    try (InputStream in = response.getBody().getInputStream();
+         MappingIterator<ImportStatus> iter =
+             new ObjectMapper().readerFor(ImportStatus.class).readValues(in)) {
+      return iter.readAll();
+    }
+  }
+
+  @Test
+  public void testCompressedArchive() throws Exception {
+    WarcTestUtil warc = new WarcTestUtil()
+        .addResponse("http://example.com/a", "aaa")
+        .addMetadata("http://example.com/a", "metadata")
+        .addResponse("http://example.com/b", "bbb")
+        .addResource("http://example.com/c", "ccc")
+        .addResponse("http://example.com/a", "aaa2");
+
+    // Imported sequentially by the repository, then by the pipeline
+    for (String threads : List.of("0", "2")) {
+      configure(ArchivesApiServiceImpl.PARAM_IMPORT_PIPELINE_THREADS, threads);
+
+      String plainAuid = "plain" + threads;
+      String gzAuid = "gz" + threads;
+
+      List<ImportStatus> expected =
+          importArchive(plainAuid, "test.warc", "application/warc", warc.toWarc());
+      List<ImportStatus> actual =
+          importArchive(gzAuid, "test.warc.gz", "application/warc+gzip", warc.toWarcGz());
+
+      assertEquals(4, expected.size());
+      assertEquals(expected.size(), actual.size());
+
+      for (int i = 0; i < expected.size(); i++) {
+        assertEquals(ImportStatus.StatusEnum.OK, actual.get(i).getStatus());
+        assertEquals(expected.get(i).getWarcId(), actual.get(i).getWarcId());
+        assertEquals(expected.get(i).getUrl(), actual.get(i).getUrl());
+        assertEquals(expected.get(i).getDigest(), actual.get(i).getDigest());
+        assertEquals(expected.get(i).getVersion(), actual.get(i).getVersion());
+      }
+
+      for (String url : List.of("http://example.com/a", "http://example.com/b",
+          "http://example.com/c")) {
+        Artifact plain = repository.getArtifact(NS, plainAuid, url);
+        Artifact gz = repository.getArtifact(NS, gzAuid, url);
+
+        assertNotNull(gz);
+        assertEquals(plain.getVersion(), gz.getVersion());
+        assertEquals(plain.getContentLength(), gz.getContentLength());
+        assertEquals(plain.getContentDigest(), gz.getContentDigest());
+      }
+    }
+  }
+
+  @Test
+  public void testNdjsonImport() throws Exception {
+    configure(ArchivesApiServiceImpl.PARAM_IMPORT_PIPELINE_THREADS, "2");
+
+    ResponseEntity<StreamingResponseBody> response = service.addArtifactsNdjson(AUID,
+        new MockMultipartFile("archive", "test.warc", "application/warc", threeRecords()),
+        NS, true, null, false);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+    assertEquals(-1, response.getHeaders().getContentLength());
+
+    // Records what had been written at each flush
+    List<String> flushed = new ArrayList<>();
+    ByteArrayOutputStream out = new ByteArrayOutputStream() {
+      @Override
+      public void flush() {
+        flushed.add(toString(StandardCharsets.UTF_8));
+      }
+    };
+
+    // The import runs as the body is written
+    assertNull(repository.getArtifact(NS, AUID, "http://example.com/a"));
+    response.getBody().writeTo(out);
+
+    String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+    assertEquals(3, lines.length);
+
+    for (int i = 0; i < lines.length; i++) {
+      ImportStatus status = new ObjectMapper().readValue(lines[i], ImportStatus.class);
+      assertEquals(WarcTestUtil.warcId(i), status.getWarcId());
+      assertEquals(ImportStatus.StatusEnum.OK, status.getStatus());
+    }
+
+    // Each status is flushed as soon as its line is complete
+    StringBuilder sent = new StringBuilder();
+    for (String line : lines) {
+      sent.append(line).append('\n');
+      assertTrue(flushed.contains(sent.toString()));
+    }
+
+    assertNotNull(repository.getArtifact(NS, AUID, "http://example.com/c"));
+  }
+
+  @Test
+  public void testNdjsonImportFailure() throws Exception {
+    configure(ArchivesApiServiceImpl.PARAM_IMPORT_PIPELINE_THREADS, "2");
+
+    ResponseEntity<StreamingResponseBody> response = service.addArtifactsNdjson(AUID,
+        new MockMultipartFile("archive", "test.warc", "application/warc",
+            "Not a WARC archive\r\n\r\n".getBytes(StandardCharsets.US_ASCII)),
+        NS, true, null, false);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    response.getBody().writeTo(out);
+
+    // The failure is reported as a final status without a URL
+    String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+    assertEquals(1, lines.length);
+
+    ImportStatus status = new ObjectMapper().readValue(lines[0], ImportStatus.class);
+    assertEquals(ImportStatus.StatusEnum.ERROR, status.getStatus());
+    assertNull(status.getUrl());
+    assertTrue(status.getStatusMessage().startsWith("Import failed"));
+  }
+
+  @Test
+  public void testNdjsonImportAdmission() throws Exception {
+    configure(ArchivesApiServiceImpl.PARAM_IMPORT_PIPELINE_THREADS, "2");
+
+    ArchivesNdjsonController controller = new ArchivesNdjsonController();
+    controller.archivesService = service;
+
+    // One ingest request in flight per namespace
+    IngestAdmissionController admission = new IngestAdmissionController();
+    Configuration config = ConfigManager.newConfiguration();
+    config.put(IngestAdmissionController.PARAM_MAX_IN_FLIGHT_REQUESTS, "1");
+    admission.setConfig(config, ConfigManager.EMPTY_CONFIGURATION,
+        config.differences(ConfigManager.EMPTY_CONFIGURATION));
+
+    MockMvc mvc = MockMvcBuilders.standaloneSetup(controller)
+        .addMappedInterceptors(new String[] {"/archives"}, admission)
+        .build();
+
+    for (int i = 0; i < 2; i++) {
+      MvcResult result = mvc.perform(
+              multipart("/archives?auid={auid}&namespace={ns}", AUID + i, NS)
+                  .file(new MockMultipartFile("archive", "test.warc", "application/warc",
+                      threeRecords()))
+                  .accept(MediaType.APPLICATION_NDJSON))
+          .andExpect(request().asyncStarted())
+          .andReturn();
+
+      // Held until the request completes
+      assertEquals(1, admission.getInFlightRequests());
+
+      // Not admitted again when dispatched to complete, and then released
+      String body = mvc.perform(asyncDispatch(result))
+          .andExpect(status().isOk())
+          .andReturn().getResponse().getContentAsString();
+
+      assertEquals(3, body.split("\n").length);
+      assertEquals(0, admission.getInFlightRequests());
+      assertEquals(0, admission.getInFlightBytes());
+      assertEquals(0, admission.getRejected());
+    }
+  }
+
+  @Test
+  public void testNdjsonAsyncImport() throws Exception {
+    // Queued jobs are not streamed: the response is the job status
+    ResponseEntity<StreamingResponseBody> response = service.addArtifactsNdjson(AUID,
+        new MockMultipartFile("archive", "test.warc", "application/warc", threeRecords()),
+        NS, true, null, true);
+
+    assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    response.getBody().writeTo(out);
+
+    ImportJobStatus status = new ObjectMapper().readValue(out.toByteArray(), ImportJobStatus.class);
+    assertEquals("/archives/jobs/" + status.getJobId(),
+        response.getHeaders().getLocation().toString());
+    assertEquals(ImportJobStatus.StateEnum.DONE,
+        waitForJob(status.getJobId(), TestArchivesApiServiceImpl::isFinished).getState());
+  }
+
+  private void assertLocalImportForbidden(String path) {
+    try {
+      service.importLocalArchives(AUID, path, NS, true, null);
+      fail("Expected a 403 for " + path);
+    } catch (LockssRestServiceException e) {
+      assertEquals(HttpStatus.FORBIDDEN, e.getHttpStatus());
+    }
+  }
+
+  @Test
+  public void testLocalImportForbidden() throws Exception {
+    File root = getTempDir().getCanonicalFile();
+    File outside = getTempDir().getCanonicalFile();
+    File warc = new File(outside, "a.warc");
+    Files.write(warc.toPath(), threeRecords());
+
+    // Not enabled
+    assertLocalImportForbidden(warc.getPath());
+
+    // Not in a local import directory, including through ..
+    configure(ArchivesApiServiceImpl.PARAM_LOCAL_IMPORT_DIRS, root.getPath());
+    assertLocalImportForbidden(warc.getPath());
+    assertLocalImportForbidden(root.getPath() + "/../" + outside.getName() + "/a.warc");
+    verify(repository, never()).addArtifact(any());
+  }
+
+  @Test
+  public void testLocalImport() throws Exception {
+    configure(ArchivesApiServiceImpl.PARAM_LOCAL_IMPORT_THREADS, "2");
+
+    File root = getTempDir().getCanonicalFile();
+    File outside = getTempDir().getCanonicalFile();
+
+    File a = new File(root, "a.warc");
+    Files.write(a.toPath(), threeRecords());
+    File b = new File(root, "sub/b.warc.gz");
+    assertTrue(b.getParentFile().mkdirs());
+    Files.write(b.toPath(), new WarcTestUtil()
+        .addResponse("http://example.com/d", "ddd").toWarcGz());
+
+    // Ignored: not a WARC, hidden, and linked from outside the directory
+    Files.write(new File(root, "notes.txt").toPath(), "notes".getBytes(StandardCharsets.UTF_8));
+    File hidden = new File(root, ".hidden/c.warc");
+    assertTrue(hidden.getParentFile().mkdirs());
+    Files.write(hidden.toPath(), threeRecords());
+    File secret = new File(outside, "secret.warc");
+    Files.write(secret.toPath(), new WarcTestUtil()
+        .addResponse("http://example.com/secret", "sss").toWarc());
+    Files.createSymbolicLink(new File(root, "link.warc").toPath(), secret.toPath());
+
+    configure(ArchivesApiServiceImpl.PARAM_LOCAL_IMPORT_DIRS, root.getPath());
+
+    ResponseEntity<LocalImportStatus> response =
+        service.importLocalArchives(AUID, root.getPath(), NS, true, null);
+    assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+
+    LocalImportStatus result = response.getBody();
+    assertEquals(root.getPath(), result.getPath());
+    assertEquals(0, result.getSkipped().size());
+    assertEquals(2, result.getJobs().size());
+    assertEquals(a.getPath(), result.getJobs().get(0).getArchiveName());
+    assertEquals(b.getPath(), result.getJobs().get(1).getArchiveName());
+
+    for (ImportJobStatus job : result.getJobs()) {
+      assertEquals(ImportJobStatus.StateEnum.DONE,
+          waitForJob(job.getJobId(), TestArchivesApiServiceImpl::isFinished).getState());
+    }
+
+    assertNotNull(repository.getArtifact(NS, AUID, "http://example.com/c"));
+    assertNotNull(repository.getArtifact(NS, AUID, "http://example.com/d"));
+    assertNull(repository.getArtifact(NS, AUID, "http://example.com/secret"));
+
+    // The ledger, in the repository state directory, records the files once
+    // their jobs have completed
+    LocalImportLedger ledger = service.getLocalImportLedger(NS, AUID);
+    for (int i = 0; i < 1000 && !(ledger.isImported(a) && ledger.isImported(b)); i++) {
+      Thread.sleep(10);
+    }
+    assertTrue(ledger.isImported(a));
+    assertTrue(ledger.isImported(b));
+    assertTrue(new File(service.repoProps.getRepositoryStateDir(),
+        "local-import-ledgers").isDirectory());
+
+    // A repeated import skips them
+    result = service.importLocalArchives(AUID, root.getPath(), NS, true, null).getBody();
+    assertEquals(0, result.getJobs().size());
+    assertEquals(List.of(a.getPath(), b.getPath()), result.getSkipped());
+
+    // Unless they have changed
+    Files.write(a.toPath(), new WarcTestUtil()
+        .addResponse("http://example.com/e", "eee").toWarc());
+    result = service.importLocalArchives(AUID, a.getPath(), NS, true, null).getBody();
+    assertEquals(1, result.getJobs().size());
+    assertEquals(ImportJobStatus.StateEnum.DONE,
+        waitForJob(result.getJobs().get(0).getJobId(),
+            TestArchivesApiServiceImpl::isFinished).getState());
+  }
+}
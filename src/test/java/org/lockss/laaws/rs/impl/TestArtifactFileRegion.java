@@ -0,0 +1,227 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.impl;
+
+import org.junit.jupiter.api.Test;
+import org.lockss.util.test.LockssTestCase5;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Tests for {@link ArtifactFileRegion}.
+ */
+public class TestArtifactFileRegion extends LockssTestCase5 {
+
+  private static final String HTTP_HEADER =
+      "HTTP/1.1 200 OK\r\nContent-Type: text/plain\r\n\r\n";
+
+  private final ByteArrayOutputStream warc = new ByteArrayOutputStream();
+
+  // Appends a WARC record and returns its storage URL
+  private URI addRecord(File file, String type, String httpHeader, byte[] payload)
+      throws IOException {
+    byte[] block = concat(httpHeader.getBytes(StandardCharsets.ISO_8859_1), payload);
+    byte[] header = ("WARC/1.0\r\n" +
+        "WARC-Type: " + type + "\r\n" +
+        "WARC-Target-URI: http://example.com/" + warc.size() + "\r\n" +
+        "Content-Length: " + block.length + "\r\n\r\n")
+        .getBytes(StandardCharsets.ISO_8859_1);
+
+    long offset = warc.size();
+    warc.write(header);
+    warc.write(block);
+    warc.write("\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+    Files.write(file.toPath(), warc.toByteArray());
+
+    return storageUrl(file, offset, warc.size() - offset);
+  }
+
+  private static URI storageUrl(File file, long offset, long length) {
+    return URI.create(file.toURI() + "?offset=" + offset + "&length=" + length);
+  }
+
+  private static byte[] concat(byte[] a, byte[] b) {
+    byte[] res = new byte[a.length + b.length];
+    System.arraycopy(a, 0, res, 0, a.length);
+    System.arraycopy(b, 0, res, a.length, b.length);
+    return res;
+  }
+
+  private static byte[] payload(int len, int seed) {
+    byte[] res = new byte[len];
+    for (int i = 0; i < len; i++) {
+      res[i] = (byte) (i * 31 + seed);
+    }
+    return res;
+  }
+
+  private static byte[] read(ArtifactFileRegion region) throws IOException {
+    ByteBuffer buf = ByteBuffer.allocate((int) region.getLength());
+    try (FileChannel channel = FileChannel.open(region.getPath())) {
+      while (buf.hasRemaining()) {
+        channel.read(buf, region.getStart() + buf.position());
+      }
+    }
+    return buf.array();
+  }
+
+  @Test
+  public void testLocate() throws Exception {
+    File file = new File(getTempDir(), "artifacts.warc");
+
+    byte[] p1 = payload(1000, 1);
+    byte[] p2 = payload(100000, 2);
+    byte[] p3 = payload(0, 3);
+    URI u1 = addRecord(file, "response", HTTP_HEADER, p1);
+    URI u2 = addRecord(file, "resource", "", p2);
+    URI u3 = addRecord(file, "response", HTTP_HEADER, p3);
+
+    ArtifactFileRegion r1 = ArtifactFileRegion.locate(u1, true, p1.length);
+    assertArrayEquals(p1, read(r1));
+    assertEquals(file.toPath(), r1.getPath());
+
+    assertArrayEquals(p2, read(ArtifactFileRegion.locate(u2, false, p2.length)));
+    assertArrayEquals(p3, read(ArtifactFileRegion.locate(u3, true, p3.length)));
+  }
+
+  @Test
+  public void testOpenStream() throws Exception {
+    File file = new File(getTempDir(), "artifacts.warc");
+    byte[] p1 = payload(1000, 1);
+    byte[] p2 = payload(100000, 2);
+    URI u1 = addRecord(file, "response", HTTP_HEADER, p1);
+    addRecord(file, "response", HTTP_HEADER, p2);
+
+    ArtifactFileRegion r1 = ArtifactFileRegion.locate(u1, true, p1.length);
+
+    try (InputStream in = r1.openStream()) {
+      assertArrayEquals(p1, in.readAllBytes());
+    }
+
+    try (InputStream in = r1.openStream()) {
+      // Skips within the region, without reading
+      assertEquals(500, in.skip(500));
+      assertEquals(500, in.available());
+      assertEquals(p1[500] & 0xff, in.read());
+
+      byte[] buf = new byte[100];
+      assertEquals(100, in.read(buf));
+      assertArrayEquals(Arrays.copyOfRange(p1, 501, 601), buf);
+
+      // Skips no further than the end of the region
+      assertEquals(399, in.skip(10000));
+      assertEquals(0, in.skip(1));
+      assertEquals(0, in.available());
+      assertEquals(-1, in.read());
+      assertEquals(-1, in.read(buf));
+    }
+  }
+
+  @Test
+  public void testMismatch() throws Exception {
+    File file = new File(getTempDir(), "artifacts.warc");
+    byte[] p = payload(1000, 1);
+    URI url = addRecord(file, "response", HTTP_HEADER, p);
+
+    // Lengths that do not agree with the record
+    assertNull(ArtifactFileRegion.locate(url, true, p.length - 1));
+    assertNull(ArtifactFileRegion.locate(url, false, p.length));
+
+    // Record beyond the end of the file
+    assertNull(ArtifactFileRegion.locate(storageUrl(file, 10, warc.size()), true, p.length));
+  }
+
+  @Test
+  public void testNotLocal() throws Exception {
+    assertNull(ArtifactFileRegion.locate(null, true, 10));
+    assertNull(ArtifactFileRegion.locate(
+        URI.create("volatile:///ns/au/artifacts.warc?offset=0&length=10"), true, 10));
+
+    File file = new File(getTempDir(), "artifacts.warc");
+    assertNull(ArtifactFileRegion.locate(file.toURI(), true, 10));
+    assertNull(ArtifactFileRegion.locate(storageUrl(file, 0, 10), true, 10));
+  }
+
+  @Test
+  public void testCompressed() throws Exception {
+    File plain = new File(getTempDir(), "artifacts.warc");
+    byte[] p1 = payload(1000, 1);
+    byte[] p2 = payload(5000, 2);
+    URI u1 = addRecord(plain, "response", HTTP_HEADER, p1);
+    int end1 = warc.size();
+    addRecord(plain, "response", HTTP_HEADER, p2);
+    byte[] records = warc.toByteArray();
+
+    // Each record is a GZIP member of its own
+    File file = new File(getTempDir(), "artifacts.warc.gz");
+    byte[] m1 = gzip(Arrays.copyOfRange(records, 0, end1));
+    byte[] m2 = gzip(Arrays.copyOfRange(records, end1, records.length));
+    Files.write(file.toPath(), concat(m1, m2));
+    URI g1 = storageUrl(file, 0, m1.length);
+    URI g2 = storageUrl(file, m1.length, m2.length);
+
+    assertNull(ArtifactFileRegion.locate(g1, true, p1.length));
+
+    ArtifactFileRegion r1 = ArtifactFileRegion.locateGzipRecord(g1);
+    assertArrayEquals(m1, read(r1));
+    assertArrayEquals(m2, read(ArtifactFileRegion.locateGzipRecord(g2)));
+
+    try (InputStream in = r1.openStream()) {
+      assertArrayEquals(m1, in.readAllBytes());
+    }
+
+    // Not the end of a member
+    assertNull(ArtifactFileRegion.locateGzipRecord(storageUrl(file, 0, m1.length - 1)));
+
+    // Not compressed
+    assertNull(ArtifactFileRegion.locateGzipRecord(u1));
+  }
+
+  private static byte[] gzip(byte[] data) throws IOException {
+    ByteArrayOutputStream gz = new ByteArrayOutputStream();
+    try (GZIPOutputStream out = new GZIPOutputStream(gz)) {
+      out.write(data);
+    }
+    return gz.toByteArray();
+  }
+}
@@ -0,0 +1,148 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.impl;
+
+import org.junit.jupiter.api.Test;
+import org.lockss.util.test.LockssTestCase5;
+import org.springframework.core.io.support.ResourceRegion;
+import org.springframework.http.HttpRange;
+import org.springframework.util.StreamUtils;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests for {@link ArtifactPayloadResource}.
+ */
+public class TestArtifactPayloadResource extends LockssTestCase5 {
+
+  private static final byte[] PAYLOAD = new byte[200000];
+
+  static {
+    for (int i = 0; i < PAYLOAD.length; i++) {
+      PAYLOAD[i] = (byte) (i * 31);
+    }
+  }
+
+  // A stream that skips no further than its buffer, as BufferedInputStream
+  // may
+  private static InputStream open() {
+    return new BufferedInputStream(new ByteArrayInputStream(PAYLOAD), 1024) {
+      @Override
+      public synchronized long skip(long n) {
+        int skipped = (int) Math.min(n, count - pos);
+        pos += skipped;
+        return skipped;
+      }
+    };
+  }
+
+  @Test
+  public void testRanges() throws Exception {
+    int[] opens = {0, 0};
+
+    ArtifactPayloadResource resource = new ArtifactPayloadResource("test", PAYLOAD.length,
+        () -> { opens[0]++; return open(); },
+        () -> { opens[1]++; return open(); });
+
+    // The length is known without reading
+    assertEquals(PAYLOAD.length, resource.contentLength());
+    assertEquals(0, opens[0]);
+
+    List<ResourceRegion> regions =
+        HttpRange.toResourceRegions(HttpRange.parseRanges("bytes=0-99,150000-,-10"), resource);
+    assertEquals(3, regions.size());
+
+    for (ResourceRegion region : regions) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+      try (InputStream in = region.getResource().getInputStream()) {
+        StreamUtils.copyRange(in, out, region.getPosition(),
+            region.getPosition() + region.getCount() - 1);
+      }
+
+      int from = (int) region.getPosition();
+      assertArrayEquals(Arrays.copyOfRange(PAYLOAD, from, from + (int) region.getCount()),
+          out.toByteArray());
+    }
+
+    // The payload is opened once, then reopened for each further range
+    assertEquals(1, opens[0]);
+    assertEquals(2, opens[1]);
+  }
+
+  @Test
+  public void testRegion() throws Exception {
+    File file = new File(getTempDir(), "artifacts.warc");
+    byte[] prefix = "WARC/1.0\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+    Files.write(file.toPath(), prefix);
+    Files.write(file.toPath(), PAYLOAD, StandardOpenOption.APPEND);
+
+    ArtifactPayloadResource resource = new ArtifactPayloadResource("test",
+        new ArtifactFileRegion(file.toPath(), prefix.length, PAYLOAD.length));
+    assertEquals(PAYLOAD.length, resource.contentLength());
+
+    for (ResourceRegion region :
+        HttpRange.toResourceRegions(HttpRange.parseRanges("bytes=0-99,150000-,-10"), resource)) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+      try (InputStream in = region.getResource().getInputStream()) {
+        StreamUtils.copyRange(in, out, region.getPosition(),
+            region.getPosition() + region.getCount() - 1);
+      }
+
+      int from = (int) region.getPosition();
+      assertArrayEquals(Arrays.copyOfRange(PAYLOAD, from, from + (int) region.getCount()),
+          out.toByteArray());
+    }
+  }
+
+  @Test
+  public void testSkipPastEnd() throws Exception {
+    ArtifactPayloadResource resource =
+        new ArtifactPayloadResource("test", PAYLOAD.length, () -> open(), () -> open());
+
+    try (InputStream in = resource.getInputStream()) {
+      assertEquals(PAYLOAD.length, in.skip(PAYLOAD.length + 1000L));
+      assertEquals(-1, in.read());
+    }
+  }
+}
@@ -0,0 +1,660 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.impl;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.entity.mime.MultipartEntityBuilder;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.lockss.config.ConfigManager;
+import org.lockss.config.Configuration;
+import org.lockss.laaws.rs.controller.MyTestConfig;
+import org.lockss.log.L4JLogger;
+import org.lockss.rs.BaseLockssRepository;
+import org.lockss.spring.test.SpringLockssTestCase4;
+import org.lockss.util.rest.repo.model.Artifact;
+import org.lockss.util.rest.repo.model.ImportStatus;
+import org.lockss.util.time.TimeBase;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests the artifact endpoints of an embedded LOCKSS Repository Service that
+ * are not reached through {@link org.lockss.util.rest.repo.RestLockssRepository}.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@ContextConfiguration(classes = { MyTestConfig.class })
+public class TestArtifactsApiServiceImpl extends SpringLockssTestCase4 {
+  private final static L4JLogger log = L4JLogger.getLogger();
+
+  private static final String NS1 = "ns1";
+  private static final String AUID1 = "auid1";
+  private static final String URL1 = "http://host1.com/path1";
+  private static final String URL2 = "http://host1.com/path2";
+  private static final String URL3 = "http://host1.com/path3";
+
+  private static final ObjectMapper mapper = new ObjectMapper()
+      .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+  @LocalServerPort
+  private int port;
+
+  @Autowired
+  BaseLockssRepository internalRepo;
+
+  @Autowired
+  ArtifactsApiServiceImpl artifactsService;
+
+  @Before
+  public void setUpRepository() throws Exception {
+    TimeBase.setSimulated();
+    getMockLockssDaemon().setAppRunning(true);
+    reset(internalRepo);
+    internalRepo.initRepository();
+  }
+
+  @After
+  public void tearDownRepository() throws Exception {
+    reset(internalRepo);
+  }
+
+  // UTILITIES
+
+  private String endpoint(String pathAndQuery) {
+    return "http://localhost:" + port + pathAndQuery;
+  }
+
+  private static HttpResponse execute(HttpUriRequest request) throws IOException {
+    return HttpClientBuilder.create().disableRedirectHandling().build().execute(request);
+  }
+
+  private static String bodyOf(HttpResponse response) throws IOException {
+    return response.getEntity() == null ? "" :
+        IOUtils.toString(response.getEntity().getContent(), StandardCharsets.UTF_8);
+  }
+
+  private static Map<String, Object> props(String auid, String url) {
+    Map<String, Object> props = new LinkedHashMap<>();
+    props.put("namespace", NS1);
+    props.put("auid", auid);
+    props.put("uri", url);
+    props.put("collectionDate", 1234000L);
+    return props;
+  }
+
+  /**
+   * Posts a new artifact to POST /artifacts.
+   *
+   * @param query A String with the query string of the request, if any.
+   */
+  private HttpResponse postArtifact(String query, String url, String content)
+      throws IOException {
+    HttpPost post = new HttpPost(endpoint("/artifacts" + query));
+    post.setEntity(MultipartEntityBuilder.create()
+        .addTextBody("artifactProps", mapper.writeValueAsString(props(AUID1, url)),
+            ContentType.APPLICATION_JSON)
+        .addBinaryBody("payload", content.getBytes(StandardCharsets.UTF_8),
+            ContentType.TEXT_PLAIN, "payload")
+        .build());
+    return execute(post);
+  }
+
+  /**
+   * Posts a new artifact to POST /artifacts with a streamed payload.
+   *
+   * @param query A String with the query string of the request, if any.
+   */
+  private HttpResponse postStreamedArtifact(String query, String url, String content)
+      throws IOException {
+    byte[] payload = content.getBytes(StandardCharsets.UTF_8);
+    Map<String, Object> props = props(AUID1, url);
+    props.put("contentLength", payload.length);
+    props.put("contentDigest", "SHA-256:" + DigestUtils.sha256Hex(payload));
+
+    HttpPost post = new HttpPost(endpoint("/artifacts?streamPayload=true" + query));
+    post.setEntity(MultipartEntityBuilder.create()
+        .addTextBody("artifactProps", mapper.writeValueAsString(props),
+            ContentType.APPLICATION_JSON)
+        .addBinaryBody("payload", payload, ContentType.TEXT_PLAIN, "payload")
+        .build());
+    return execute(post);
+  }
+
+  /**
+   * Adds an artifact through POST /artifacts, and optionally commits it.
+   */
+  private Artifact addArtifact(String url, String content, boolean commit)
+      throws IOException {
+    HttpResponse response = postArtifact("", url, content);
+    assertEquals(200, response.getStatusLine().getStatusCode());
+
+    Artifact artifact = mapper.readValue(bodyOf(response), Artifact.class);
+
+    return commit ? internalRepo.commitArtifact(NS1, artifact.getUuid()) : artifact;
+  }
+
+  private static Map<String, Object> existenceQuery(String url, String digest) {
+    Map<String, Object> query = new LinkedHashMap<>();
+    query.put("namespace", NS1);
+    query.put("auid", AUID1);
+    query.put("url", url);
+    if (digest != null) {
+      query.put("digest", digest);
+    }
+    return query;
+  }
+
+  /**
+   * Posts lookups to POST /artifacts/exists.
+   */
+  private HttpResponse postExists(List<Map<String, Object>> queries) throws IOException {
+    HttpPost post = new HttpPost(endpoint("/artifacts/exists"));
+    post.setEntity(new StringEntity(mapper.writeValueAsString(queries),
+        ContentType.APPLICATION_JSON));
+    return execute(post);
+  }
+
+  /**
+   * Gets a representation of an artifact, with request headers given as
+   * name and value pairs.
+   *
+   * @param representation A String with the representation, payload or
+   *                       response.
+   */
+  private HttpResponse getArtifact(Artifact artifact, String representation,
+                                   String... headers) throws IOException {
+    HttpGet get = new HttpGet(endpoint("/artifacts/" + artifact.getUuid() + "/" +
+        representation + "?namespace=" + NS1));
+
+    for (int i = 0; i < headers.length; i += 2) {
+      get.setHeader(headers[i], headers[i + 1]);
+    }
+
+    return execute(get);
+  }
+
+  private static int statusOf(HttpResponse response) {
+    return response.getStatusLine().getStatusCode();
+  }
+
+  private static String etagOf(HttpResponse response) {
+    return response.getFirstHeader("ETag") == null ?
+        null : response.getFirstHeader("ETag").getValue();
+  }
+
+  private static List<ImportStatus> readStatuses(HttpResponse response) throws IOException {
+    return mapper.readValue(bodyOf(response), new TypeReference<List<ImportStatus>>() {});
+  }
+
+  // TESTS
+
+  /**
+   * Tests that the failure of an item of POST /artifacts/batch, of whatever
+   * kind, is reported in its status without affecting the other items.
+   */
+  @Test
+  public void testCreateArtifactsMixedBatch() throws Exception {
+    String url4 = "http://host1.com/path4";
+
+    // Adding this one fails with an unchecked exception
+    doThrow(new IllegalStateException("Mocked failure"))
+        .when(internalRepo)
+        .addArtifact(argThat(ad -> ad != null && URL3.equals(ad.getIdentifier().getUri())));
+
+    ArrayNode items = mapper.createArrayNode();
+    items.addObject().set("artifactProps", mapper.valueToTree(props(AUID1, URL1)));
+    items.addObject().put("httpResponseHeader", "missing artifactProps");
+    items.addObject().set("artifactProps", mapper.valueToTree(props(AUID1, URL3)));
+    items.addObject().set("artifactProps", mapper.valueToTree(props(AUID1, url4)));
+
+    MultipartEntityBuilder builder = MultipartEntityBuilder.create()
+        .addTextBody("artifacts", mapper.writeValueAsString(items),
+            ContentType.APPLICATION_JSON);
+
+    for (int i = 0; i < items.size(); i++) {
+      builder.addBinaryBody("payload", ("content " + i).getBytes(StandardCharsets.UTF_8),
+          ContentType.TEXT_PLAIN, "payload" + i);
+    }
+
+    HttpPost post = new HttpPost(endpoint("/artifacts/batch"));
+    post.setEntity(builder.build());
+    HttpResponse response = execute(post);
+
+    assertEquals(200, response.getStatusLine().getStatusCode());
+    List<ImportStatus> statuses = readStatuses(response);
+    assertEquals(4, statuses.size());
+
+    assertEquals(ImportStatus.StatusEnum.OK, statuses.get(0).getStatus());
+    assertEquals(ImportStatus.StatusEnum.ERROR, statuses.get(1).getStatus());
+    assertEquals(ImportStatus.StatusEnum.ERROR, statuses.get(2).getStatus());
+    assertEquals("Mocked failure", statuses.get(2).getStatusMessage());
+    assertEquals(ImportStatus.StatusEnum.OK, statuses.get(3).getStatus());
+
+    // The good items were added, before and after the bad ones
+    Artifact first = internalRepo.getArtifactFromUuid(statuses.get(0).getArtifactUuid());
+    assertNotNull(first);
+    assertEquals(URL1, first.getUri());
+
+    Artifact last = internalRepo.getArtifactFromUuid(statuses.get(3).getArtifactUuid());
+    assertNotNull(last);
+    assertEquals(url4, last.getUri());
+  }
+
+  /**
+   * Tests that POST /artifacts/commit commits the existing artifacts of a
+   * list and reports the missing ones.
+   */
+  @Test
+  public void testCommitArtifactsMixed() throws Exception {
+    Artifact art1 = addArtifact(URL1, "content 1", false);
+    Artifact art2 = addArtifact(URL2, "content 2", false);
+    assertFalse(art1.getCommitted());
+
+    HttpPost post = new HttpPost(endpoint("/artifacts/commit?namespace=" + NS1));
+    post.setEntity(new StringEntity(mapper.writeValueAsString(
+        List.of(art1.getUuid(), "no-such-uuid", art2.getUuid())),
+        ContentType.APPLICATION_JSON));
+    HttpResponse response = execute(post);
+
+    assertEquals(200, response.getStatusLine().getStatusCode());
+    List<ImportStatus> statuses = readStatuses(response);
+    assertEquals(3, statuses.size());
+
+    assertEquals(ImportStatus.StatusEnum.OK, statuses.get(0).getStatus());
+    assertEquals(art1.getUuid(), statuses.get(0).getArtifactUuid());
+    assertEquals(URL1, statuses.get(0).getUrl());
+    assertEquals(art1.getContentDigest(), statuses.get(0).getDigest());
+
+    assertEquals(ImportStatus.StatusEnum.ERROR, statuses.get(1).getStatus());
+    assertEquals("no-such-uuid", statuses.get(1).getArtifactUuid());
+    assertEquals("Artifact not found", statuses.get(1).getStatusMessage());
+
+    assertEquals(ImportStatus.StatusEnum.OK, statuses.get(2).getStatus());
+    assertEquals(URL2, statuses.get(2).getUrl());
+
+    assertTrue(internalRepo.getArtifactFromUuid(art1.getUuid()).getCommitted());
+    assertTrue(internalRepo.getArtifactFromUuid(art2.getUuid()).getCommitted());
+  }
+
+  /**
+   * Tests POST /artifacts with commit=true.
+   */
+  @Test
+  public void testCreateArtifactCommit() throws Exception {
+    HttpResponse response = postArtifact("?commit=true", URL1, "content 1");
+    assertEquals(200, response.getStatusLine().getStatusCode());
+
+    Artifact artifact = mapper.readValue(bodyOf(response), Artifact.class);
+    assertTrue(artifact.getCommitted());
+    assertTrue(internalRepo.getArtifactFromUuid(artifact.getUuid()).getCommitted());
+    assertNotNull(internalRepo.getArtifact(NS1, AUID1, URL1));
+  }
+
+  /**
+   * Tests that POST /artifacts with commit=true leaves nothing behind if the
+   * commit fails.
+   */
+  @Test
+  public void testCreateArtifactCommitFailure() throws Exception {
+    doThrow(new IOException("Mocked commit failure"))
+        .when(internalRepo).commitArtifact(eq(NS1), anyString());
+
+    HttpResponse response = postArtifact("?commit=true", URL1, "content 1");
+    assertEquals(500, response.getStatusLine().getStatusCode());
+
+    // The uncommitted artifact was removed
+    ArgumentCaptor<String> uuid = ArgumentCaptor.forClass(String.class);
+    verify(internalRepo).deleteArtifact(eq(NS1), uuid.capture());
+    assertNull(internalRepo.getArtifactFromUuid(uuid.getValue()));
+    assertNull(internalRepo.getArtifact(NS1, AUID1, URL1));
+  }
+
+  /**
+   * Tests that POST /artifacts with storeDuplicate=false adds nothing if the
+   * latest version has the same content, and redirects to it instead.
+   */
+  @Test
+  public void testCreateArtifactDuplicate() throws Exception {
+    Artifact original = addArtifact(URL1, "content 1", true);
+    reset(internalRepo);
+
+    HttpResponse response = postArtifact("?storeDuplicate=false", URL1, "content 1");
+    assertEquals(302, response.getStatusLine().getStatusCode());
+
+    UriComponents location = UriComponentsBuilder
+        .fromUriString(response.getFirstHeader("Location").getValue()).build();
+    assertEquals("/aus/" + AUID1 + "/artifacts", location.getPath());
+
+    MultiValueMap<String, String> params = location.getQueryParams();
+    assertEquals(NS1, decode(params.getFirst("namespace")));
+    assertEquals(URL1, decode(params.getFirst("url")));
+    assertEquals("latest", params.getFirst("version"));
+
+    // Nothing was added
+    verify(internalRepo, times(0)).addArtifact(any());
+    Artifact latest = internalRepo.getArtifact(NS1, AUID1, URL1);
+    assertEquals(original.getUuid(), latest.getUuid());
+    assertEquals(1, (int) latest.getVersion());
+
+    // Different content is added as a new version
+    response = postArtifact("?storeDuplicate=false", URL1, "content 2");
+    assertEquals(200, response.getStatusLine().getStatusCode());
+    Artifact added = mapper.readValue(bodyOf(response), Artifact.class);
+    assertEquals(2, (int) added.getVersion());
+  }
+
+  /**
+   * Tests that POST /artifacts with storeDuplicate=false and a streamed
+   * payload removes the new artifact once its content turns out to be the
+   * same as that of the latest version, and redirects to it instead.
+   */
+  @Test
+  public void testCreateArtifactStreamedDuplicate() throws Exception {
+    Artifact original = addArtifact(URL1, "content 1", true);
+    reset(internalRepo);
+
+    HttpResponse response = postStreamedArtifact("&storeDuplicate=false", URL1, "content 1");
+    assertEquals(302, response.getStatusLine().getStatusCode());
+    assertEquals("latest", UriComponentsBuilder
+        .fromUriString(response.getFirstHeader("Location").getValue()).build()
+        .getQueryParams().getFirst("version"));
+
+    // The streamed artifact was added, then removed
+    ArgumentCaptor<String> uuid = ArgumentCaptor.forClass(String.class);
+    verify(internalRepo).deleteArtifact(eq(NS1), uuid.capture());
+    assertNull(internalRepo.getArtifactFromUuid(uuid.getValue()));
+
+    Artifact latest = internalRepo.getArtifact(NS1, AUID1, URL1);
+    assertEquals(original.getUuid(), latest.getUuid());
+
+    // Different content is kept
+    response = postStreamedArtifact("&storeDuplicate=false&commit=true", URL1, "content 2");
+    assertEquals(200, response.getStatusLine().getStatusCode());
+    Artifact added = mapper.readValue(bodyOf(response), Artifact.class);
+    assertEquals(2, (int) added.getVersion());
+  }
+
+  private static String decode(String s) {
+    return URLDecoder.decode(s, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Tests POST /artifacts/exists with and without digests, against URLs with
+   * several committed versions and with only uncommitted ones.
+   */
+  @Test
+  public void testCheckArtifactsExist() throws Exception {
+    Artifact v1 = addArtifact(URL1, "content 1", true);
+    Artifact v2 = addArtifact(URL1, "content 1 revised", true);
+    Artifact uncommitted = addArtifact(URL2, "content 2", false);
+
+    HttpResponse response = postExists(List.of(
+        existenceQuery(URL1, v1.getContentDigest()),
+        existenceQuery(URL1, v2.getContentDigest()),
+        existenceQuery(URL1, "SHA-256:0000"),
+        existenceQuery(URL1, null),
+        existenceQuery(URL2, null),
+        existenceQuery(URL2, uncommitted.getContentDigest()),
+        existenceQuery(URL3, null)));
+    assertEquals(200, response.getStatusLine().getStatusCode());
+
+    JsonNode result = mapper.readTree(bodyOf(response));
+    assertEquals(7, result.size());
+
+    // Digest match, of an earlier version
+    assertTrue(result.get(0).get("exists").asBoolean());
+    assertEquals(v1.getUuid(), result.get(0).get("artifactUuid").asText());
+    assertEquals(1, result.get(0).get("version").asInt());
+    assertEquals(v1.getContentDigest(), result.get(0).get("digest").asText());
+
+    // Digest match, of the latest version
+    assertTrue(result.get(1).get("exists").asBoolean());
+    assertEquals(v2.getUuid(), result.get(1).get("artifactUuid").asText());
+    assertEquals(2, result.get(1).get("version").asInt());
+
+    // Digest mismatch
+    assertFalse(result.get(2).get("exists").asBoolean());
+    assertFalse(result.get(2).hasNonNull("artifactUuid"));
+
+    // Digest omitted: the latest version
+    assertTrue(result.get(3).get("exists").asBoolean());
+    assertEquals(v2.getUuid(), result.get(3).get("artifactUuid").asText());
+    assertEquals(URL1, result.get(3).get("url").asText());
+    assertEquals(NS1, result.get(3).get("namespace").asText());
+    assertEquals(AUID1, result.get(3).get("auid").asText());
+
+    // Uncommitted versions don't count
+    assertFalse(result.get(4).get("exists").asBoolean());
+    assertFalse(result.get(5).get("exists").asBoolean());
+
+    // No version at all
+    assertFalse(result.get(6).get("exists").asBoolean());
+  }
+
+  /**
+   * Tests that POST /artifacts/exists refuses more lookups than the
+   * configured maximum.
+   */
+  @Test
+  public void testCheckArtifactsExistMaxBatch() throws Exception {
+    Configuration config = ConfigManager.newConfiguration();
+    config.put(ArtifactsApiServiceImpl.PARAM_MAX_EXISTS_BATCH, "2");
+    artifactsService.setConfig(config, ConfigManager.EMPTY_CONFIGURATION,
+        config.differences(ConfigManager.EMPTY_CONFIGURATION));
+
+    HttpResponse response = postExists(List.of(
+        existenceQuery(URL1, null), existenceQuery(URL2, null)));
+    assertEquals(200, response.getStatusLine().getStatusCode());
+
+    response = postExists(List.of(
+        existenceQuery(URL1, null), existenceQuery(URL2, null), existenceQuery(URL3, null)));
+    assertEquals(400, response.getStatusLine().getStatusCode());
+    assertTrue(bodyOf(response).contains("Too many artifacts to look up"));
+  }
+
+  /**
+   * Tests that the entity tag of an artifact is derived from its content
+   * digest, and distinguishes its payload from its HTTP response.
+   */
+  @Test
+  public void testArtifactETag() throws Exception {
+    Artifact artifact = addArtifact(URL1, "content1", true);
+    String etag = "\"" + artifact.getContentDigest() + "\"";
+
+    HttpResponse response = getArtifact(artifact, "payload");
+    assertEquals(200, statusOf(response));
+    assertEquals(etag, etagOf(response));
+    assertEquals("content1", bodyOf(response));
+
+    response = getArtifact(artifact, "response");
+    assertEquals(200, statusOf(response));
+    assertEquals("\"" + artifact.getContentDigest() + ";response\"", etagOf(response));
+
+    // Artifacts with the same content have the same entity tag
+    Artifact other = addArtifact(URL2, "content1", true);
+    assertEquals(etag, etagOf(getArtifact(other, "payload")));
+
+    Artifact different = addArtifact(URL3, "content3", true);
+    assertFalse(etag.equals(etagOf(getArtifact(different, "payload"))));
+
+    assertEquals(etag, ArtifactsApiServiceImpl.artifactETag(artifact.getContentDigest(), null));
+    assertNull(ArtifactsApiServiceImpl.artifactETag(null, null));
+  }
+
+  /**
+   * Tests If-None-Match, which uses the weak comparison and matches any
+   * entity tag with *.
+   */
+  @Test
+  public void testIfNoneMatch() throws Exception {
+    Artifact artifact = addArtifact(URL1, "content1", true);
+    String etag = "\"" + artifact.getContentDigest() + "\"";
+    String responseEtag = "\"" + artifact.getContentDigest() + ";response\"";
+
+    HttpResponse response = getArtifact(artifact, "payload", "If-None-Match", etag);
+    assertEquals(304, statusOf(response));
+    assertEquals(etag, etagOf(response));
+
+    assertEquals(304, statusOf(getArtifact(artifact, "payload", "If-None-Match", "*")));
+    assertEquals(304, statusOf(getArtifact(artifact, "payload", "If-None-Match", "W/" + etag)));
+    assertEquals(304, statusOf(getArtifact(artifact, "payload",
+        "If-None-Match", "\"other\", " + etag)));
+
+    response = getArtifact(artifact, "payload", "If-None-Match", "\"other\"");
+    assertEquals(200, statusOf(response));
+    assertEquals("content1", bodyOf(response));
+
+    // The tag of one representation does not match the other
+    assertEquals(200, statusOf(getArtifact(artifact, "payload",
+        "If-None-Match", responseEtag)));
+    assertEquals(200, statusOf(getArtifact(artifact, "response", "If-None-Match", etag)));
+    assertEquals(304, statusOf(getArtifact(artifact, "response",
+        "If-None-Match", responseEtag)));
+
+    assertTrue(ArtifactsApiServiceImpl.etagMatches("W/" + etag, etag, true));
+    assertFalse(ArtifactsApiServiceImpl.etagMatches("W/" + etag, etag, false));
+    assertFalse(ArtifactsApiServiceImpl.etagMatches("*", etag, false));
+  }
+
+  /**
+   * Tests that If-Modified-Since is satisfied by any date since the artifact
+   * was collected, unless If-None-Match is present.
+   */
+  @Test
+  public void testIfModifiedSince() throws Exception {
+    // Collected at 1234000
+    Artifact artifact = addArtifact(URL1, "content1", true);
+
+    assertEquals(304, statusOf(getArtifact(artifact, "payload",
+        "If-Modified-Since", DateUtils.formatDate(new Date(1234000)))));
+    assertEquals(304, statusOf(getArtifact(artifact, "payload",
+        "If-Modified-Since", DateUtils.formatDate(new Date(2000000)))));
+    assertEquals(304, statusOf(getArtifact(artifact, "response",
+        "If-Modified-Since", DateUtils.formatDate(new Date(2000000)))));
+
+    HttpResponse response = getArtifact(artifact, "payload",
+        "If-Modified-Since", DateUtils.formatDate(new Date(1000000)));
+    assertEquals(200, statusOf(response));
+    assertEquals("content1", bodyOf(response));
+
+    // If-None-Match takes precedence
+    assertEquals(200, statusOf(getArtifact(artifact, "payload",
+        "If-Modified-Since", DateUtils.formatDate(new Date(2000000)),
+        "If-None-Match", "\"other\"")));
+
+    // An invalid date is ignored
+    assertEquals(200, statusOf(getArtifact(artifact, "payload",
+        "If-Modified-Since", "yesterday")));
+  }
+
+  /**
+   * Tests that a Range request is answered with the range only if its
+   * If-Range precondition, if any, holds, and otherwise with the whole
+   * payload.
+   */
+  @Test
+  public void testIfRange() throws Exception {
+    Artifact artifact = addArtifact(URL1, "0123456789", true);
+    String etag = "\"" + artifact.getContentDigest() + "\"";
+
+    HttpResponse response = getArtifact(artifact, "payload", "Range", "bytes=2-4");
+    assertEquals(206, statusOf(response));
+    assertEquals("234", bodyOf(response));
+
+    response = getArtifact(artifact, "payload", "Range", "bytes=2-4", "If-Range", etag);
+    assertEquals(206, statusOf(response));
+    assertEquals("234", bodyOf(response));
+
+    // A stale copy gets the whole payload
+    response = getArtifact(artifact, "payload", "Range", "bytes=2-4",
+        "If-Range", "\"other\"");
+    assertEquals(200, statusOf(response));
+    assertEquals("0123456789", bodyOf(response));
+
+    // If-Range uses the strong comparison
+    response = getArtifact(artifact, "payload", "Range", "bytes=2-4", "If-Range", "W/" + etag);
+    assertEquals(200, statusOf(response));
+    assertEquals("0123456789", bodyOf(response));
+
+    // The artifact has no Last-Modified date to match
+    response = getArtifact(artifact, "payload", "Range", "bytes=2-4",
+        "If-Range", DateUtils.formatDate(new Date(1234000)));
+    assertEquals(200, statusOf(response));
+    assertEquals("0123456789", bodyOf(response));
+
+    assertEquals(416, statusOf(getArtifact(artifact, "payload", "Range", "bytes=100-")));
+  }
+}
@@ -0,0 +1,88 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.impl;
+
+import org.junit.jupiter.api.Test;
+import org.lockss.laaws.rs.model.BulkStoreStatus;
+import org.lockss.util.test.LockssTestCase5;
+
+import java.io.IOException;
+
+/**
+ * Tests for {@link BulkStoreJob}.
+ */
+public class TestBulkStoreJob extends LockssTestCase5 {
+
+  @Test
+  public void testProgress() throws Exception {
+    BulkStoreJob job = new BulkStoreJob("ns", "auid");
+
+    BulkStoreStatus status = job.getStatus();
+    assertEquals(BulkStoreStatus.StateEnum.QUEUED, status.getState());
+    assertNull(status.getStartTime());
+    assertNull(status.getElapsedTime());
+
+    // Only the time it has been running is reported while running
+    job.start();
+    Thread.sleep(10);
+    status = job.getStatus();
+    assertEquals(BulkStoreStatus.StateEnum.RUNNING, status.getState());
+    assertNotNull(status.getStartTime());
+    assertNull(status.getEndTime());
+    assertTrue(status.getElapsedTime() >= 10);
+    assertFalse(job.getCompletion().isDone());
+
+    job.finish(null);
+    status = job.getStatus();
+    assertEquals(BulkStoreStatus.StateEnum.DONE, status.getState());
+    assertEquals(status.getEndTime() - status.getStartTime(), (long) status.getElapsedTime());
+    assertTrue(job.isDone());
+    assertSame(job, job.getCompletion().get());
+
+    // No longer grows once ended
+    Thread.sleep(10);
+    assertEquals(status.getElapsedTime(), job.getStatus().getElapsedTime());
+  }
+
+  @Test
+  public void testFailed() throws Exception {
+    BulkStoreJob job = new BulkStoreJob("ns", "auid");
+    job.start();
+    job.finish(new IOException("Solr unavailable"));
+
+    BulkStoreStatus status = job.getStatus();
+    assertEquals(BulkStoreStatus.StateEnum.FAILED, status.getState());
+    assertEquals("Solr unavailable", status.getErrorMessage());
+    assertTrue(job.isDone());
+  }
+}
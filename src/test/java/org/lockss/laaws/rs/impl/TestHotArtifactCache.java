@@ -0,0 +1,365 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.impl;
+
+import org.junit.jupiter.api.Test;
+import org.lockss.util.test.LockssTestCase5;
+import org.springframework.http.HttpHeaders;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.lockss.laaws.rs.impl.HotArtifactCache.CHUNK_SIZE;
+
+/**
+ * Tests for {@link HotArtifactCache}.
+ */
+public class TestHotArtifactCache extends LockssTestCase5 {
+
+  private static final String NS = "ns1";
+  private static final byte[] HEADER =
+      "HTTP/1.1 200 OK\r\nContent-Type: text/css\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+
+  private static byte[] payload(String uuid, int size) {
+    byte[] payload = new byte[size];
+    for (int i = 0; i < size; i++) {
+      payload[i] = (byte) (i * 31 + uuid.hashCode());
+    }
+    return payload;
+  }
+
+  // Adds an artifact to the cache, returning the pinned entry or null
+  private static HotArtifactCache.Entry add(HotArtifactCache cache, String uuid, int size)
+      throws IOException {
+    return cache.add(NS, uuid, "SHA-256:" + uuid, "MD5:" + uuid, 1000L, new HttpHeaders(), HEADER, size,
+        () -> new ByteArrayInputStream(payload(uuid, size)));
+  }
+
+  // Reads an artifact, caching it if it's admitted, as the service does.
+  // Returns whether it was served from or added to the cache
+  private static boolean read(HotArtifactCache cache, String uuid, int size)
+      throws IOException {
+    HotArtifactCache.Entry res = cache.get(NS, uuid);
+
+    if (res == null && cache.shouldAdmit(NS, uuid, size + HEADER.length)) {
+      res = add(cache, uuid, size);
+    }
+
+    if (res == null) {
+      return false;
+    }
+
+    res.release();
+    return true;
+  }
+
+  private static boolean isCached(HotArtifactCache cache, String uuid) {
+    HotArtifactCache.Entry res = cache.get(NS, uuid);
+
+    if (res == null) {
+      return false;
+    }
+
+    res.release();
+    return true;
+  }
+
+  @Test
+  public void testAdmission() throws Exception {
+    HotArtifactCache cache = new HotArtifactCache(1024 * 1024, 64 * 1024);
+
+    // Not cached until read a second time
+    assertFalse(read(cache, "a", 1000));
+    assertFalse(cache.shouldAdmit(NS, "b", 1000));
+    assertTrue(read(cache, "a", 1000));
+    assertEquals(1, cache.getEntries());
+    assertEquals(CHUNK_SIZE + HEADER.length, cache.getUsedBytes());
+
+    assertTrue(isCached(cache, "a"));
+    assertEquals(1, cache.getHits());
+    assertNull(cache.get("ns2", "a"));
+
+    // Too large
+    cache.get(NS, "big");
+    assertFalse(cache.shouldAdmit(NS, "big", 64 * 1024 + 1));
+  }
+
+  @Test
+  public void testContent() throws Exception {
+    HotArtifactCache cache = new HotArtifactCache(1024 * 1024, 64 * 1024);
+    HotArtifactCache.Entry e = add(cache, "a", 5000);
+    byte[] payload = payload("a", 5000);
+
+    assertEquals(5000, e.getContentLength());
+    assertEquals("MD5:a", e.getAdditionalDigests());
+    assertEquals(2 * CHUNK_SIZE + HEADER.length, e.getSize());
+
+    try (InputStream in = e.openPayload()) {
+      assertArrayEquals(payload, in.readAllBytes());
+    }
+
+    // Skips within and across chunks
+    try (InputStream in = e.openPayload()) {
+      assertEquals(4000, in.skip(4000));
+      assertEquals(payload[4000] & 0xff, in.read());
+      assertEquals(999, in.skip(2000));
+      assertEquals(-1, in.read());
+    }
+
+    try (InputStream in = e.openResponse()) {
+      byte[] res = in.readAllBytes();
+      assertEquals(HEADER.length + 5000, res.length);
+      assertEquals(new String(HEADER, StandardCharsets.ISO_8859_1),
+          new String(res, 0, HEADER.length, StandardCharsets.ISO_8859_1));
+    }
+
+    e.release();
+
+    // Payload of the wrong length
+    assertThrows(IOException.class,
+        () -> cache.add(NS, "b", "SHA-256:b", null, 1000L, new HttpHeaders(), HEADER, 5000,
+            () -> new ByteArrayInputStream(payload("b", 4999))));
+    assertThrows(IOException.class,
+        () -> cache.add(NS, "b", "SHA-256:b", null, 1000L, new HttpHeaders(), HEADER, 5000,
+            () -> new ByteArrayInputStream(payload("b", 5001))));
+    assertFalse(isCached(cache, "b"));
+    assertEquals(1, cache.getEntries());
+  }
+
+  @Test
+  public void testInvalidate() throws Exception {
+    HotArtifactCache cache = new HotArtifactCache(1024 * 1024, 64 * 1024);
+    read(cache, "a", 1000);
+    read(cache, "a", 1000);
+    assertTrue(isCached(cache, "a"));
+
+    cache.invalidate(NS, "a");
+    assertFalse(isCached(cache, "a"));
+    assertEquals(0, cache.getEntries());
+    assertEquals(0, cache.getUsedBytes());
+  }
+
+  @Test
+  public void testSlabs() throws Exception {
+    // Room for sixteen chunks
+    HotArtifactCache cache = new HotArtifactCache(16 * CHUNK_SIZE, 64 * 1024);
+    int size = 4 * CHUNK_SIZE - 100;
+
+    HotArtifactCache.Entry e = add(cache, "a", size);
+    assertEquals(16 * CHUNK_SIZE, cache.getSlabBytes());
+    assertEquals(12 * CHUNK_SIZE, cache.getFreeChunkBytes());
+
+    // An entry still read after it's evicted keeps its chunks
+    cache.invalidate(NS, "a");
+    assertEquals(0, cache.getUsedBytes());
+    assertEquals(12 * CHUNK_SIZE, cache.getFreeChunkBytes());
+
+    try (InputStream in = e.openPayload()) {
+      assertArrayEquals(payload("a", size), in.readAllBytes());
+    }
+
+    e.release();
+    assertEquals(16 * CHUNK_SIZE, cache.getFreeChunkBytes());
+
+    // Chunks are reused rather than allocated
+    List<HotArtifactCache.Entry> pinned = new ArrayList<>();
+
+    for (int i = 0; i < 4; i++) {
+      HotArtifactCache.Entry p = add(cache, "p" + i, size);
+      assertNotNull(p);
+      pinned.add(p);
+      cache.invalidate(NS, "p" + i);
+    }
+
+    assertEquals(16 * CHUNK_SIZE, cache.getSlabBytes());
+    assertEquals(0, cache.getFreeChunkBytes());
+
+    // No room while they're pinned; the payload isn't read
+    assertNull(cache.add(NS, "b", "SHA-256:b", null, 1000L, new HttpHeaders(), HEADER, size,
+        () -> { throw new IOException("Opened"); }));
+    assertEquals(0, cache.getEntries());
+    assertEquals(16 * CHUNK_SIZE, cache.getSlabBytes());
+
+    for (HotArtifactCache.Entry p : pinned) {
+      p.release();
+    }
+
+    assertEquals(16 * CHUNK_SIZE, cache.getFreeChunkBytes());
+    assertNotNull(add(cache, "b", size));
+
+    // Lowering the budget stops allocation but keeps the slabs
+    cache.setLimits(2 * CHUNK_SIZE, 64 * 1024);
+    assertEquals(16 * CHUNK_SIZE, cache.getSlabBytes());
+  }
+
+  @Test
+  public void testConcurrentReads() throws Exception {
+    HotArtifactCache cache = new HotArtifactCache(64 * CHUNK_SIZE, 64 * 1024);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+
+      for (int t = 0; t < 8; t++) {
+        int seed = t;
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < 2000; i++) {
+            int n = (i * 7 + seed) % 40;
+            String uuid = "a" + n;
+            int size = 1000 + 100 * n;
+            HotArtifactCache.Entry e = cache.get(NS, uuid);
+
+            if (e == null && cache.shouldAdmit(NS, uuid, size + HEADER.length)) {
+              e = add(cache, uuid, size);
+            }
+
+            if (e != null) {
+              try (InputStream in = e.openPayload()) {
+                assertArrayEquals(payload(uuid, size), in.readAllBytes());
+              } finally {
+                e.release();
+              }
+            }
+
+            if (i % 100 == seed) {
+              cache.invalidate(NS, uuid);
+            }
+          }
+          return null;
+        }));
+      }
+
+      for (Future<?> f : futures) {
+        f.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    assertTrue(cache.getHits() > 0);
+    assertTrue(cache.getUsedBytes() <= cache.getBudget());
+    assertTrue(cache.getSlabBytes() <= cache.getBudget());
+
+    // Every chunk not held by a resident entry has been returned
+    assertEquals(cache.getSlabBytes(),
+        cache.getFreeChunkBytes() + cache.getUsedBytes() - cache.getEntries() * HEADER.length);
+  }
+
+  @Test
+  public void testScanResistance() throws Exception {
+    // Room for about eight entries
+    HotArtifactCache cache = new HotArtifactCache(100 * 1024, 16 * 1024);
+    int size = 10 * 1024 - HEADER.length;
+
+    // Popular artifacts, read many times
+    for (int round = 0; round < 10; round++) {
+      for (int i = 0; i < 8; i++) {
+        read(cache, "hot" + i, size);
+      }
+    }
+
+    for (int i = 0; i < 8; i++) {
+      assertTrue(isCached(cache, "hot" + i));
+    }
+
+    // A scan of many artifacts, each read twice
+    for (int i = 0; i < 200; i++) {
+      read(cache, "cold" + i, size);
+      read(cache, "cold" + i, size);
+    }
+
+    for (int i = 0; i < 8; i++) {
+      assertTrue(isCached(cache, "hot" + i), "hot" + i);
+    }
+
+    assertTrue(cache.getRejections() > 0);
+    assertTrue(cache.getUsedBytes() <= cache.getBudget());
+  }
+
+  @Test
+  public void testSetLimits() throws Exception {
+    HotArtifactCache cache = new HotArtifactCache(1024 * 1024, 64 * 1024);
+
+    for (int i = 0; i < 20; i++) {
+      read(cache, "a" + i, 10000);
+      read(cache, "a" + i, 10000);
+    }
+
+    assertEquals(20, cache.getEntries());
+
+    cache.setLimits(50 * 1024, 64 * 1024);
+    assertTrue(cache.getUsedBytes() <= 50 * 1024);
+    assertTrue(cache.getEntries() < 20);
+
+    cache.setLimits(50 * 1024, 5000);
+    assertEquals(0, cache.getEntries());
+
+    // Disabled
+    cache.setLimits(0, 5000);
+    assertFalse(isCached(cache, "a0"));
+    assertFalse(cache.shouldAdmit(NS, "a0", 1));
+  }
+
+  @Test
+  public void testSketch() {
+    HotArtifactCache.FrequencySketch sketch = new HotArtifactCache.FrequencySketch(1024);
+
+    for (int i = 0; i < 5; i++) {
+      sketch.increment(42);
+    }
+
+    assertEquals(5, sketch.frequency(42));
+
+    for (int i = 0; i < 100; i++) {
+      sketch.increment(7);
+    }
+
+    // Saturates
+    assertEquals(15, sketch.frequency(7));
+
+    // Halved once the sample is full
+    for (int i = 0; i < 10 * 1024; i++) {
+      sketch.increment(1000 + i);
+    }
+
+    assertTrue(sketch.frequency(42) <= 2);
+    assertTrue(sketch.frequency(7) <= 7);
+  }
+}
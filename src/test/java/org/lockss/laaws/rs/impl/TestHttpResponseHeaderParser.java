@@ -0,0 +1,180 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.impl;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.ProtocolException;
+import org.apache.http.StatusLine;
+import org.junit.jupiter.api.Test;
+import org.lockss.util.rest.repo.util.ArtifactDataUtil;
+import org.lockss.util.test.LockssTestCase5;
+import org.springframework.http.HttpHeaders;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests for {@link HttpResponseHeaderParser}.
+ */
+public class TestHttpResponseHeaderParser extends LockssTestCase5 {
+
+  private static HttpResponseHeaderParser.ParsedHeader parse(String header) throws Exception {
+    return HttpResponseHeaderParser.parse(header.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testParse() throws Exception {
+    HttpResponseHeaderParser.ParsedHeader parsed = parse(
+        "HTTP/1.1 200 OK\r\n" +
+            "Content-Type: text/html\r\n" +
+            "Set-Cookie: a=1\r\n" +
+            "set-cookie: b=2\r\n" +
+            "X-Folded: one\r\n" +
+            " \ttwo\r\n" +
+            "X-Empty:\r\n" +
+            "\r\n" +
+            "body");
+
+    StatusLine statusLine = parsed.getStatusLine();
+    assertEquals(HttpVersion.HTTP_1_1, statusLine.getProtocolVersion());
+    assertEquals(200, statusLine.getStatusCode());
+    assertEquals("OK", statusLine.getReasonPhrase());
+
+    HttpHeaders headers = parsed.getHeaders();
+    assertEquals("text/html", headers.getFirst(HttpHeaders.CONTENT_TYPE));
+    assertEquals(List.of("a=1", "b=2"), headers.get(HttpHeaders.SET_COOKIE));
+    assertEquals("one two", headers.getFirst("X-Folded"));
+    assertEquals("", headers.getFirst("X-Empty"));
+    assertEquals(4, headers.size());
+  }
+
+  @Test
+  public void testStatusLine() throws Exception {
+    StatusLine statusLine = parse("HTTP/1.0 404\n").getStatusLine();
+    assertEquals(HttpVersion.HTTP_1_0, statusLine.getProtocolVersion());
+    assertEquals(404, statusLine.getStatusCode());
+    assertEquals("", statusLine.getReasonPhrase());
+
+    statusLine = parse("  HTTP/1.1 500 Internal  Server Error ").getStatusLine();
+    assertEquals(500, statusLine.getStatusCode());
+    assertEquals("Internal  Server Error", statusLine.getReasonPhrase());
+
+    assertThrows(ProtocolException.class, () -> parse("HTTP/1.1\r\n"));
+    assertThrows(ProtocolException.class, () -> parse("HTTP/1.1 2x0 OK\r\n"));
+    assertThrows(ProtocolException.class, () -> parse("HTTP/1.-1 200 OK\r\n"));
+    assertThrows(ProtocolException.class, () -> parse("HTTP/1.1 99999999999 OK\r\n"));
+    assertThrows(ProtocolException.class, () -> parse("Content-Type: text/html\r\n"));
+    assertThrows(ProtocolException.class, () -> parse(""));
+  }
+
+  @Test
+  public void testInvalidHeader() throws Exception {
+    assertThrows(ProtocolException.class, () -> parse("HTTP/1.1 200 OK\r\nNo colon\r\n\r\n"));
+    assertThrows(ProtocolException.class, () -> parse("HTTP/1.1 200 OK\r\n : value\r\n\r\n"));
+  }
+
+  @Test
+  public void testParseInt() throws Exception {
+    byte[] b = " +12 -0 -3 x 2147483648 ".getBytes(StandardCharsets.US_ASCII);
+    assertEquals(12, HttpResponseHeaderParser.parseInt(b, 0, 4));
+    assertEquals(0, HttpResponseHeaderParser.parseInt(b, 4, 7));
+    assertEquals(-1, HttpResponseHeaderParser.parseInt(b, 7, 10));
+    assertEquals(Integer.MIN_VALUE, HttpResponseHeaderParser.parseInt(b, 10, 12));
+    assertEquals(Integer.MIN_VALUE, HttpResponseHeaderParser.parseInt(b, 12, b.length));
+  }
+
+  /**
+   * Compares the result of the parser with that of
+   * {@link ArtifactDataUtil#getHttpResponseFromStream}, which it replaced,
+   * on random headers built from fragments of valid and invalid ones.
+   */
+  @Test
+  public void testFuzzAgainstHttpCore() throws Exception {
+    String[] fragments = {
+        "HTTP/", "1", ".", "0", " ", "\t", "\r", "\n", "\r\n", ":", "-", "+",
+        "200", "OK", "Content-Type", "text/html", "X", "é", "9999999999",
+        "HTTP/1.1 200 OK\r\n", ""
+    };
+
+    Random random = new Random(19);
+
+    for (int n = 0; n < 100000; n++) {
+      StringBuilder sb = new StringBuilder();
+
+      if (random.nextInt(3) > 0) {
+        sb.append(random.nextBoolean() ? "HTTP/1.1 200 OK\r\n" : "HTTP/1.0 404 Not Found\n");
+      }
+
+      int count = random.nextInt(30);
+      for (int i = 0; i < count; i++) {
+        sb.append(fragments[random.nextInt(fragments.length)]);
+      }
+
+      if (random.nextBoolean()) {
+        sb.append("\r\n\r\nbody");
+      }
+
+      byte[] header = sb.toString().getBytes(StandardCharsets.UTF_8);
+      assertEquals(parseWithHttpCore(header), parseWithParser(header), sb.toString());
+    }
+  }
+
+  private static String parseWithHttpCore(byte[] header) {
+    try {
+      HttpResponse response =
+          ArtifactDataUtil.getHttpResponseFromStream(new ByteArrayInputStream(header));
+
+      return describe(response.getStatusLine(),
+          ArtifactDataUtil.transformHeaderArrayToHttpHeaders(response.getAllHeaders()));
+    } catch (Exception e) {
+      return "Error";
+    }
+  }
+
+  private static String parseWithParser(byte[] header) {
+    try {
+      HttpResponseHeaderParser.ParsedHeader parsed = HttpResponseHeaderParser.parse(header);
+      return describe(parsed.getStatusLine(), parsed.getHeaders());
+    } catch (Exception e) {
+      return "Error";
+    }
+  }
+
+  private static String describe(StatusLine statusLine, HttpHeaders headers) {
+    return statusLine.getProtocolVersion() + "|" + statusLine.getStatusCode() + "|" +
+        statusLine.getReasonPhrase() + "|" + headers;
+  }
+}
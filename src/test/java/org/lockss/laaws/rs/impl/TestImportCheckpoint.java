@@ -0,0 +1,153 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.lockss.util.test.LockssTestCase5;
+import org.lockss.util.time.TimeBase;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Tests for {@link ImportCheckpoint}.
+ */
+public class TestImportCheckpoint extends LockssTestCase5 {
+
+  private static final byte[] ARCHIVE = "WARC/1.0\r\n".getBytes(StandardCharsets.US_ASCII);
+
+  @AfterEach
+  public void resetTimeBase() {
+    TimeBase.setReal();
+  }
+
+  private ImportCheckpoint open(File dir, String auid, byte[] archive, int interval)
+      throws IOException {
+    return new ImportCheckpoint(dir, "ns", auid, archive.length,
+        new ByteArrayInputStream(archive), interval, Long.MAX_VALUE);
+  }
+
+  /**
+   * Opens a checkpoint and returns whether it is resumable, releasing it.
+   */
+  private boolean isResumable(File dir, String auid, byte[] archive) throws IOException {
+    try (ImportCheckpoint checkpoint = open(dir, auid, archive, 1)) {
+      return checkpoint.isResumable();
+    }
+  }
+
+  @Test
+  public void testResume() throws Exception {
+    File dir = getTempDir();
+
+    ImportCheckpoint checkpoint = open(dir, "auid", ARCHIVE, 2);
+    assertFalse(checkpoint.isResumable());
+    assertEquals(-1, checkpoint.getOffset());
+
+    // Not saved until the interval has elapsed
+    checkpoint.update(0, "<urn:uuid:1>");
+    assertFalse(checkpoint.getFile().exists());
+
+    checkpoint.update(1234, "<urn:uuid:2>");
+    assertTrue(checkpoint.getFile().exists());
+    checkpoint.close();
+
+    ImportCheckpoint reopened = open(dir, "auid", ARCHIVE, 2);
+    assertTrue(reopened.isResumable());
+    assertEquals(1234, reopened.getOffset());
+    assertEquals("<urn:uuid:2>", reopened.getWarcId());
+
+    // Saved explicitly, e.g. when an import is interrupted
+    reopened.update(5678, "<urn:uuid:3>");
+    reopened.save();
+    reopened.close();
+
+    try (ImportCheckpoint cp = open(dir, "auid", ARCHIVE, 2)) {
+      assertEquals(5678, cp.getOffset());
+    }
+
+    // Another AU or archive has its own checkpoint
+    assertFalse(isResumable(dir, "auid2", ARCHIVE));
+    assertFalse(isResumable(dir, "auid", "WARC/1.1\r\n".getBytes(StandardCharsets.US_ASCII)));
+
+    try (ImportCheckpoint cp = open(dir, "auid", ARCHIVE, 2)) {
+      cp.complete();
+      assertFalse(cp.getFile().exists());
+    }
+
+    assertFalse(isResumable(dir, "auid", ARCHIVE));
+  }
+
+  @Test
+  public void testMaxInterval() throws Exception {
+    TimeBase.setSimulated(1000);
+    File dir = getTempDir();
+
+    try (ImportCheckpoint checkpoint = new ImportCheckpoint(dir, "ns", "auid", ARCHIVE.length,
+        new ByteArrayInputStream(ARCHIVE), 1000, 10000)) {
+      checkpoint.update(0, "<urn:uuid:1>");
+      assertFalse(checkpoint.getFile().exists());
+
+      // Saved once the time interval has passed, though few records have
+      TimeBase.step(10000);
+      checkpoint.update(100, "<urn:uuid:2>");
+      assertTrue(checkpoint.getFile().exists());
+    }
+
+    try (ImportCheckpoint checkpoint = open(dir, "auid", ARCHIVE, 1000)) {
+      assertEquals(100, checkpoint.getOffset());
+    }
+  }
+
+  @Test
+  public void testInUse() throws Exception {
+    File dir = getTempDir();
+
+    ImportCheckpoint checkpoint = open(dir, "auid", ARCHIVE, 1);
+
+    // A second import of the archive into the AU is refused
+    assertThrows(ImportCheckpoint.InUseException.class,
+        () -> open(dir, "auid", ARCHIVE, 1));
+
+    // Not that of another AU
+    assertFalse(isResumable(dir, "auid2", ARCHIVE));
+
+    checkpoint.close();
+    checkpoint.close();
+
+    open(dir, "auid", ARCHIVE, 1).close();
+  }
+}
@@ -0,0 +1,130 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.impl;
+
+import org.junit.jupiter.api.Test;
+import org.lockss.config.ConfigManager;
+import org.lockss.config.Configuration;
+import org.lockss.util.test.LockssTestCase5;
+
+/**
+ * Tests for the accounting of {@link IngestAdmissionController}.
+ */
+public class TestIngestAdmissionController extends LockssTestCase5 {
+
+  private IngestAdmissionController makeController(long maxBytes, int maxRequests) {
+    IngestAdmissionController controller = new IngestAdmissionController();
+    Configuration config = ConfigManager.newConfiguration();
+    config.put(IngestAdmissionController.PARAM_MAX_IN_FLIGHT_BYTES, Long.toString(maxBytes));
+    config.put(IngestAdmissionController.PARAM_MAX_IN_FLIGHT_REQUESTS, Integer.toString(maxRequests));
+    controller.setConfig(config, ConfigManager.EMPTY_CONFIGURATION,
+        config.differences(ConfigManager.EMPTY_CONFIGURATION));
+    return controller;
+  }
+
+  @Test
+  public void testUnlimited() {
+    IngestAdmissionController controller = makeController(0, 0);
+
+    for (int i = 0; i < 100; i++) {
+      assertEquals(0, controller.admit("ns", 1000000));
+    }
+
+    assertEquals(100, controller.getInFlightRequests());
+    assertNull(controller.getSaturation());
+  }
+
+  @Test
+  public void testByteLimit() {
+    IngestAdmissionController controller = makeController(1000, 0);
+
+    // A request over the limit is admitted if none is in flight
+    assertEquals(0, controller.admit("ns", 1500));
+    assertNotNull(controller.getSaturation());
+
+    // No completion yet, so the default Retry-After
+    assertEquals(IngestAdmissionController.DEFAULT_DEFAULT_RETRY_AFTER,
+        controller.admit("ns", 10));
+    assertEquals(1, controller.getRejected());
+
+    controller.release("ns", 1500, 2000);
+    assertEquals(0, controller.getInFlightBytes());
+    assertNull(controller.getSaturation());
+
+    assertEquals(0, controller.admit("ns", 600));
+    assertEquals(0, controller.admit("ns", 400));
+
+    // 1 request of 1500 bytes completed in 2s: two in flight drain 1500
+    // bytes/s, so 500 excess bytes take 1s
+    assertEquals(1, controller.admit("ns", 500));
+  }
+
+  @Test
+  public void testUnknownContentLength() {
+    IngestAdmissionController controller = makeController(1000, 0);
+    assertEquals(IngestAdmissionController.DEFAULT_UNKNOWN_CONTENT_LENGTH,
+        controller.chargedBytes(-1));
+    assertEquals(123, controller.chargedBytes(123));
+
+    Configuration config = ConfigManager.newConfiguration();
+    config.put(IngestAdmissionController.PARAM_MAX_IN_FLIGHT_BYTES, "1000");
+    config.put(IngestAdmissionController.PARAM_UNKNOWN_CONTENT_LENGTH, "800");
+    controller.setConfig(config, ConfigManager.EMPTY_CONFIGURATION,
+        config.differences(ConfigManager.EMPTY_CONFIGURATION));
+
+    // A chunked upload is charged the estimate, so a second one is turned
+    // away
+    assertEquals(0, controller.admit("ns", controller.chargedBytes(-1)));
+    assertEquals(800, controller.getInFlightBytes());
+    assertNotEquals(0, controller.admit("ns", controller.chargedBytes(-1)));
+    assertEquals(0, controller.admit("ns", controller.chargedBytes(200)));
+  }
+
+  @Test
+  public void testRequestLimitPerNamespace() {
+    IngestAdmissionController controller = makeController(0, 2);
+
+    assertEquals(0, controller.admit("ns1", 0));
+    assertEquals(0, controller.admit("ns1", 0));
+    assertNotEquals(0, controller.admit("ns1", 0));
+    assertEquals(0, controller.admit("ns2", 0));
+    assertTrue(controller.getSaturation().contains("ns1"));
+
+    controller.release("ns1", 0, 10000);
+    assertNull(controller.getSaturation());
+    assertEquals(0, controller.admit("ns1", 0));
+
+    // Completions take 10s; one of the two in flight frees a slot in 5s
+    assertEquals(5, controller.admit("ns1", 0));
+  }
+}
@@ -0,0 +1,66 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.impl;
+
+import org.junit.jupiter.api.Test;
+import org.lockss.util.test.LockssTestCase5;
+
+/**
+ * Tests for {@link ServiceImplUtil}.
+ */
+public class TestServiceImplUtil extends LockssTestCase5 {
+
+  @Test
+  public void testAcceptsGzip() {
+    assertFalse(ServiceImplUtil.acceptsGzip(null));
+    assertFalse(ServiceImplUtil.acceptsGzip(""));
+    assertFalse(ServiceImplUtil.acceptsGzip("identity"));
+    assertFalse(ServiceImplUtil.acceptsGzip("deflate, br"));
+
+    assertTrue(ServiceImplUtil.acceptsGzip("gzip"));
+    assertTrue(ServiceImplUtil.acceptsGzip("GZIP"));
+    assertTrue(ServiceImplUtil.acceptsGzip("x-gzip"));
+    assertTrue(ServiceImplUtil.acceptsGzip("gzip, deflate, br"));
+    assertTrue(ServiceImplUtil.acceptsGzip("br;q=1.0, gzip;q=0.8"));
+    assertTrue(ServiceImplUtil.acceptsGzip("*"));
+
+    assertFalse(ServiceImplUtil.acceptsGzip("gzip;q=0"));
+    assertFalse(ServiceImplUtil.acceptsGzip("gzip; q=0.000"));
+    assertFalse(ServiceImplUtil.acceptsGzip("gzip;q=x"));
+    assertFalse(ServiceImplUtil.acceptsGzip("*;q=0"));
+
+    // An explicit entry overrides a wildcard
+    assertFalse(ServiceImplUtil.acceptsGzip("*, gzip;q=0"));
+    assertTrue(ServiceImplUtil.acceptsGzip("*;q=0, gzip"));
+  }
+}
@@ -32,11 +32,15 @@ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package org.lockss.laaws.rs.impl;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.lockss.app.LockssApp;
 import org.lockss.app.LockssDaemon;
+import org.lockss.config.ConfigManager;
+import org.lockss.config.Configuration;
 import org.lockss.log.L4JLogger;
 import org.lockss.rs.BaseLockssRepository;
 import org.lockss.rs.io.index.AbstractArtifactIndex;
@@ -169,6 +173,9 @@ public class TestStatusApiServiceImpl extends SpringLockssTestCase4 {
   @Autowired
   LockssRepository repo;
 
+  @Autowired
+  IngestAdmissionController ingestAdmissionController;
+
   /**
    * Runs the status-related tests.
    *
@@ -208,9 +215,35 @@ public class TestStatusApiServiceImpl extends SpringLockssTestCase4 {
     JSONAssert.assertEquals(expected.toJson(), resp2.getBody(), false);
     index.setState(AbstractArtifactIndex.ArtifactIndexState.RUNNING);
 
+    // Saturated ingest is reported in the reason, but the service stays
+    // ready
+    setIngestLimit(1);
+    assertEquals(0, ingestAdmissionController.admit("ns1", 0));
+
+    try {
+      ResponseEntity<String> resp3 = new TestRestTemplate().exchange(
+          getTestUrlTemplate("/status"), HttpMethod.GET, null, String.class);
+      assertEquals(HttpStatus.OK, resp3.getStatusCode());
+
+      JsonNode saturated = new ObjectMapper().readTree(resp3.getBody());
+      assertTrue(saturated.path("ready").asBoolean());
+      assertTrue(saturated.path("reason").asText().contains("ns1"));
+    } finally {
+      ingestAdmissionController.release("ns1", 0, 0);
+      setIngestLimit(0);
+    }
+
     log.debug2("Done");
   }
 
+  private void setIngestLimit(int maxRequests) {
+    Configuration config = ConfigManager.newConfiguration();
+    config.put(IngestAdmissionController.PARAM_MAX_IN_FLIGHT_REQUESTS,
+        Integer.toString(maxRequests));
+    ingestAdmissionController.setConfig(config, ConfigManager.EMPTY_CONFIGURATION,
+        config.differences(ConfigManager.EMPTY_CONFIGURATION));
+  }
+
   /**
    * Provides the URL template to be tested.
    *
@@ -0,0 +1,131 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.impl;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Test;
+import org.lockss.util.test.LockssTestCase5;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Tests for {@link UploadSession}.
+ */
+public class TestUploadSession extends LockssTestCase5 {
+
+  private static byte[] bytes(int len) {
+    byte[] b = new byte[len];
+    for (int i = 0; i < len; i++) {
+      b[i] = (byte) (i * 31);
+    }
+    return b;
+  }
+
+  private UploadSession makeSession(Long contentLength) throws IOException {
+    return new UploadSession("ns", "{}", "auid", "http://example.com/",
+        null, "application/octet-stream", contentLength, null, getTempDir());
+  }
+
+  @Test
+  public void testChunks() throws Exception {
+    byte[] payload = bytes(200000);
+    UploadSession session = makeSession(null);
+
+    assertTrue(session.tryLock());
+    assertEquals(70000,
+        session.append(new ByteArrayInputStream(Arrays.copyOfRange(payload, 0, 70000))));
+    assertEquals(130000,
+        session.append(new ByteArrayInputStream(Arrays.copyOfRange(payload, 70000, 200000))));
+    session.unlock();
+
+    assertEquals(200000, session.getOffset());
+    assertEquals("SHA-256:" + DigestUtils.sha256Hex(payload), session.getCurrentDigest());
+    assertArrayEquals(payload, FileUtils.readFileToByteArray(session.getSpoolFile()));
+
+    // The running digest is not disturbed by reading it
+    assertEquals("SHA-256:" + DigestUtils.sha256Hex(payload), session.getCurrentDigest());
+
+    session.discard();
+    assertFalse(session.getSpoolFile().exists());
+  }
+
+  @Test
+  public void testInterruptedChunk() throws Exception {
+    byte[] payload = bytes(100000);
+    UploadSession session = makeSession(null);
+
+    // A chunk whose stream fails after 65536 bytes
+    InputStream failing = new InputStream() {
+      int pos = 0;
+
+      @Override
+      public int read() throws IOException {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+        if (pos >= 65536) {
+          throw new IOException("Connection reset");
+        }
+        int n = Math.min(len, 65536 - pos);
+        System.arraycopy(payload, pos, b, off, n);
+        pos += n;
+        return n;
+      }
+    };
+
+    assertThrows(IOException.class, () -> session.append(failing));
+    assertEquals(65536, session.getOffset());
+
+    // Resume from the offset reached
+    session.append(new ByteArrayInputStream(Arrays.copyOfRange(payload, 65536, 100000)));
+
+    assertEquals(100000, session.getOffset());
+    assertEquals("SHA-256:" + DigestUtils.sha256Hex(payload), session.getCurrentDigest());
+    assertArrayEquals(payload, FileUtils.readFileToByteArray(session.getSpoolFile()));
+  }
+
+  @Test
+  public void testContentLength() throws Exception {
+    UploadSession session = makeSession(10L);
+
+    assertThrows(IllegalArgumentException.class,
+        () -> session.append(new ByteArrayInputStream(bytes(11))));
+    assertEquals(0, session.getOffset());
+  }
+}
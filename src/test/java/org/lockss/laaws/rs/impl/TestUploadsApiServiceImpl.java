@@ -0,0 +1,257 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.impl;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.lockss.laaws.rs.controller.MyTestConfig;
+import org.lockss.log.L4JLogger;
+import org.lockss.rs.BaseLockssRepository;
+import org.lockss.spring.test.SpringLockssTestCase4;
+import org.lockss.util.rest.repo.model.Artifact;
+import org.lockss.util.time.TimeBase;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.mockito.Mockito.reset;
+
+/**
+ * Tests the resumable upload endpoints of an embedded LOCKSS Repository
+ * Service.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+@ContextConfiguration(classes = { MyTestConfig.class })
+public class TestUploadsApiServiceImpl extends SpringLockssTestCase4 {
+  private final static L4JLogger log = L4JLogger.getLogger();
+
+  private static final String NS1 = "ns1";
+  private static final String AUID1 = "auid1";
+  private static final String URL1 = "http://host1.com/path1";
+
+  private static final ObjectMapper mapper = new ObjectMapper()
+      .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+  @LocalServerPort
+  private int port;
+
+  @Autowired
+  BaseLockssRepository internalRepo;
+
+  @Before
+  public void setUpRepository() throws Exception {
+    TimeBase.setSimulated();
+    getMockLockssDaemon().setAppRunning(true);
+    reset(internalRepo);
+    internalRepo.initRepository();
+  }
+
+  @After
+  public void tearDownRepository() throws Exception {
+    reset(internalRepo);
+  }
+
+  // UTILITIES
+
+  private String endpoint(String pathAndQuery) {
+    return "http://localhost:" + port + pathAndQuery;
+  }
+
+  private static HttpResponse execute(HttpUriRequest request) throws IOException {
+    return HttpClientBuilder.create().disableRedirectHandling().build().execute(request);
+  }
+
+  private static JsonNode jsonOf(HttpResponse response) throws IOException {
+    return mapper.readTree(
+        IOUtils.toString(response.getEntity().getContent(), StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Creates an upload session with POST /uploads and returns its ID.
+   *
+   * @param contentLength The expected length of the payload, or {@code null}.
+   * @param contentDigest The expected digest of the payload, or {@code null}.
+   */
+  private String createSession(Long contentLength, String contentDigest) throws IOException {
+    Map<String, Object> props = new LinkedHashMap<>();
+    props.put("namespace", NS1);
+    props.put("auid", AUID1);
+    props.put("uri", URL1);
+    props.put("collectionDate", 1234000L);
+
+    Map<String, Object> sessionRequest = new LinkedHashMap<>();
+    sessionRequest.put("artifactProps", mapper.writeValueAsString(props));
+    sessionRequest.put("contentType", "text/plain");
+    if (contentLength != null) {
+      sessionRequest.put("contentLength", contentLength);
+    }
+    if (contentDigest != null) {
+      sessionRequest.put("contentDigest", contentDigest);
+    }
+
+    HttpPost post = new HttpPost(endpoint("/uploads"));
+    post.setEntity(new StringEntity(mapper.writeValueAsString(sessionRequest),
+        ContentType.APPLICATION_JSON));
+    HttpResponse response = execute(post);
+    assertEquals(201, response.getStatusLine().getStatusCode());
+
+    return jsonOf(response).get("uploadId").asText();
+  }
+
+  private HttpResponse putChunk(String uploadId, long offset, String chunk) throws IOException {
+    HttpPut put = new HttpPut(endpoint("/uploads/" + uploadId + "?offset=" + offset));
+    put.setEntity(new ByteArrayEntity(chunk.getBytes(StandardCharsets.UTF_8),
+        ContentType.APPLICATION_OCTET_STREAM));
+    return execute(put);
+  }
+
+  private HttpResponse getSession(String uploadId) throws IOException {
+    return execute(new HttpGet(endpoint("/uploads/" + uploadId)));
+  }
+
+  private HttpResponse finish(String uploadId) throws IOException {
+    return execute(new HttpPost(endpoint("/uploads/" + uploadId + "/finish?commit=true")));
+  }
+
+  private static String sha256(String content) {
+    return "SHA-256:" + DigestUtils.sha256Hex(content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  // TESTS
+
+  /**
+   * Tests that a chunk that doesn't start at the current offset is refused
+   * and leaves the session as it was.
+   */
+  @Test
+  public void testOffsetConflict() throws Exception {
+    String uploadId = createSession(null, null);
+
+    HttpResponse response = putChunk(uploadId, 0, "hello");
+    assertEquals(200, response.getStatusLine().getStatusCode());
+    assertEquals(5, jsonOf(response).get("offset").asLong());
+
+    // Resent from the start, and sent past the end
+    assertEquals(409, putChunk(uploadId, 0, "hello").getStatusLine().getStatusCode());
+    assertEquals(409, putChunk(uploadId, 7, "world").getStatusLine().getStatusCode());
+
+    response = getSession(uploadId);
+    assertEquals(200, response.getStatusLine().getStatusCode());
+    assertEquals(5, jsonOf(response).get("offset").asLong());
+
+    response = putChunk(uploadId, 5, " world");
+    assertEquals(200, response.getStatusLine().getStatusCode());
+    assertEquals(11, jsonOf(response).get("offset").asLong());
+
+    response = finish(uploadId);
+    assertEquals(201, response.getStatusLine().getStatusCode());
+    Artifact artifact = mapper.readValue(
+        IOUtils.toString(response.getEntity().getContent(), StandardCharsets.UTF_8),
+        Artifact.class);
+    assertEquals(sha256("hello world"), artifact.getContentDigest());
+    assertEquals(11, (long) artifact.getContentLength());
+    assertTrue(artifact.getCommitted());
+
+    // The session is gone once finished
+    assertEquals(404, getSession(uploadId).getStatusLine().getStatusCode());
+  }
+
+  /**
+   * Tests that finishing a session whose payload doesn't have the expected
+   * digest discards the session and adds nothing.
+   */
+  @Test
+  public void testFinishWrongDigest() throws Exception {
+    String uploadId = createSession(null, sha256("expected content"));
+
+    assertEquals(200, putChunk(uploadId, 0, "other content").getStatusLine().getStatusCode());
+
+    assertEquals(400, finish(uploadId).getStatusLine().getStatusCode());
+
+    assertEquals(404, getSession(uploadId).getStatusLine().getStatusCode());
+    assertNull(internalRepo.getArtifact(NS1, AUID1, URL1));
+  }
+
+  /**
+   * Tests that finishing a session before its payload is complete is refused,
+   * and that the session can then be completed and finished.
+   */
+  @Test
+  public void testFinishShortLength() throws Exception {
+    String content = "hello world";
+    String uploadId = createSession((long) content.length(), sha256(content));
+
+    assertEquals(200, putChunk(uploadId, 0, "hello").getStatusLine().getStatusCode());
+
+    assertEquals(409, finish(uploadId).getStatusLine().getStatusCode());
+    assertNull(internalRepo.getArtifact(NS1, AUID1, URL1));
+
+    // The session is kept, to be resumed
+    HttpResponse response = getSession(uploadId);
+    assertEquals(200, response.getStatusLine().getStatusCode());
+    assertEquals(5, jsonOf(response).get("offset").asLong());
+
+    assertEquals(200, putChunk(uploadId, 5, " world").getStatusLine().getStatusCode());
+    assertEquals(201, finish(uploadId).getStatusLine().getStatusCode());
+
+    Artifact artifact = internalRepo.getArtifact(NS1, AUID1, URL1);
+    assertNotNull(artifact);
+    assertEquals(sha256(content), artifact.getContentDigest());
+  }
+}
@@ -0,0 +1,466 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.impl;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.lockss.rs.VolatileLockssRepository;
+import org.lockss.spring.test.SpringLockssTestCase4;
+import org.lockss.util.rest.repo.LockssRepository;
+import org.lockss.util.rest.repo.model.Artifact;
+import org.lockss.util.rest.repo.model.ImportStatus;
+import org.lockss.util.rest.repo.util.ImportStatusIterable;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Tests for {@link WarcImportPipeline}, against the sequential import of
+ * {@link LockssRepository#addArtifacts}.
+ */
+public class TestWarcImportPipeline extends SpringLockssTestCase4 {
+  private static final String NS = "ns";
+  private static final String AUID = "auid";
+
+  // Small enough for some records to be buffered in temporary files
+  private static final int MEM_BUFFER_SIZE = 64;
+
+  private ExecutorService workers;
+  private LockssRepository pipelineRepo;
+  private LockssRepository sequentialRepo;
+
+  @Before
+  public void setUpRepositories() throws Exception {
+    getMockLockssDaemon().setAppRunning(true);
+
+    workers = Executors.newFixedThreadPool(2);
+
+    pipelineRepo = new VolatileLockssRepository();
+    pipelineRepo.initRepository();
+
+    sequentialRepo = new VolatileLockssRepository();
+    sequentialRepo.initRepository();
+  }
+
+  @After
+  public void tearDownRepositories() {
+    workers.shutdownNow();
+  }
+
+  protected boolean wantTempTmpDir() {
+    return true;
+  }
+
+  private List<ImportStatus> importWithPipeline(InputStream warc, boolean storeDuplicate,
+                                                String excludeStatusPattern)
+      throws IOException {
+    List<ImportStatus> result = new ArrayList<>();
+
+    new WarcImportPipeline(pipelineRepo, workers, 4, MEM_BUFFER_SIZE, Collections.emptyList(),
+        null)
+        .importArchive(NS, AUID, warc, storeDuplicate, excludeStatusPattern, result::add);
+
+    return result;
+  }
+
+  /**
+   * Imports an archive with the pipeline and with the repository, and checks
+   * that the results are the same.
+   */
+  private List<ImportStatus> importBoth(byte[] warc, boolean storeDuplicate,
+                                        String excludeStatusPattern) throws IOException {
+    List<ImportStatus> actual =
+        importWithPipeline(new ByteArrayInputStream(warc), storeDuplicate, excludeStatusPattern);
+
+    List<ImportStatus> expected = new ArrayList<>();
+
+    try (ImportStatusIterable result = sequentialRepo.addArtifacts(NS, AUID,
+        new ByteArrayInputStream(warc), LockssRepository.ArchiveType.WARC,
+        storeDuplicate, excludeStatusPattern)) {
+      for (ImportStatus status : result) {
+        expected.add(status);
+      }
+    }
+
+    assertEquals(expected.size(), actual.size());
+
+    for (int i = 0; i < expected.size(); i++) {
+      ImportStatus exp = expected.get(i);
+      ImportStatus act = actual.get(i);
+
+      assertEquals(exp.getWarcId(), act.getWarcId());
+      assertEquals(exp.getUrl(), act.getUrl());
+      assertEquals(exp.getStatus(), act.getStatus());
+
+      if (exp.getStatus() == ImportStatus.StatusEnum.OK) {
+        assertEquals(exp.getDigest(), act.getDigest());
+        assertEquals(exp.getVersion(), act.getVersion());
+      }
+    }
+
+    return actual;
+  }
+
+  private void assertSameArtifact(String url) throws IOException {
+    Artifact expected = sequentialRepo.getArtifact(NS, AUID, url);
+    Artifact actual = pipelineRepo.getArtifact(NS, AUID, url);
+
+    assertNotNull(actual);
+    assertEquals(expected.getVersion(), actual.getVersion());
+    assertEquals(expected.getContentLength(), actual.getContentLength());
+    assertEquals(expected.getContentDigest(), actual.getContentDigest());
+  }
+
+  private static String largeContent() {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      sb.append("Line ").append(i).append('\n');
+    }
+    return sb.toString();
+  }
+
+  @Test
+  public void testSameAsRepository() throws Exception {
+    byte[] warc = new WarcTestUtil()
+        .addResponse("http://example.com/a", "aaa")
+        .addMetadata("http://example.com/a", "metadata")
+        .addResponse("http://example.com/b", largeContent())
+        .addResource("http://example.com/c", "ccc")
+        .addResponse("http://example.com/a", "aaa2")
+        .addResponse("http://example.com/d", 404, "Not found")
+        .toWarc();
+
+    List<ImportStatus> result = importBoth(warc, true, null);
+
+    // The metadata record is skipped
+    assertEquals(5, result.size());
+    assertEquals(WarcTestUtil.warcId(0), result.get(0).getWarcId());
+    assertEquals(WarcTestUtil.warcId(2), result.get(1).getWarcId());
+
+    for (ImportStatus status : result) {
+      assertEquals(ImportStatus.StatusEnum.OK, status.getStatus());
+    }
+
+    assertEquals(2, (int) result.get(3).getVersion());
+
+    for (String url : List.of("http://example.com/a", "http://example.com/b",
+        "http://example.com/c", "http://example.com/d")) {
+      assertSameArtifact(url);
+    }
+  }
+
+  @Test
+  public void testAdditionalDigests() throws Exception {
+    byte[] warc = new WarcTestUtil()
+        .addResponse("http://example.com/a", "aaa")
+        .addResponse("http://example.com/b", largeContent())
+        .addResource("http://example.com/c", largeContent())
+        .toWarc();
+
+    AdditionalDigestStore store =
+        new AdditionalDigestStore(new File(getTempDir(), AdditionalDigestStore.DIR_NAME));
+    List<ImportStatus> result = new ArrayList<>();
+
+    new WarcImportPipeline(pipelineRepo, workers, 4, MEM_BUFFER_SIZE, List.of("SHA-1", "MD5"),
+        store)
+        .importArchive(NS, AUID, new ByteArrayInputStream(warc), true, null, result::add);
+
+    assertEquals(3, result.size());
+
+    // Computed by the workers over the payload alone, whether it was
+    // buffered in memory or in a temporary file
+    String[] contents = {"aaa", largeContent(), largeContent()};
+
+    for (int i = 0; i < contents.length; i++) {
+      ImportStatus status = result.get(i);
+      byte[] content = contents[i].getBytes(StandardCharsets.UTF_8);
+
+      assertEquals(ImportStatus.StatusEnum.OK, status.getStatus());
+      assertEquals("SHA-256:" + DigestUtils.sha256Hex(content), status.getDigest());
+      assertEquals("SHA-1:" + DigestUtils.sha1Hex(content) + ",MD5:" + DigestUtils.md5Hex(content),
+          store.get(status.getArtifactUuid()));
+    }
+  }
+
+  @Test
+  public void testDuplicates() throws Exception {
+    byte[] warc = new WarcTestUtil()
+        .addResponse("http://example.com/a", "aaa")
+        .addResponse("http://example.com/b", largeContent())
+        .addResponse("http://example.com/a", "aaa")
+        .toWarc();
+
+    List<ImportStatus> result = importBoth(warc, false, null);
+    assertEquals(ImportStatus.StatusEnum.OK, result.get(0).getStatus());
+    assertEquals(ImportStatus.StatusEnum.OK, result.get(1).getStatus());
+    assertEquals(ImportStatus.StatusEnum.DUPLICATE, result.get(2).getStatus());
+    assertEquals(result.get(0).getArtifactUuid(), result.get(2).getArtifactUuid());
+
+    // Importing the archive again adds nothing
+    result = importBoth(warc, false, null);
+    for (ImportStatus status : result) {
+      assertEquals(ImportStatus.StatusEnum.DUPLICATE, status.getStatus());
+    }
+
+    assertSameArtifact("http://example.com/a");
+    assertEquals(1, (int) pipelineRepo.getArtifact(NS, AUID, "http://example.com/a").getVersion());
+
+    // Unless duplicates are stored
+    result = importBoth(warc, true, null);
+    for (ImportStatus status : result) {
+      assertEquals(ImportStatus.StatusEnum.OK, status.getStatus());
+    }
+    assertSameArtifact("http://example.com/a");
+  }
+
+  @Test
+  public void testExcludeStatus() throws Exception {
+    byte[] warc = new WarcTestUtil()
+        .addResponse("http://example.com/a", "aaa")
+        .addResponse("http://example.com/b", 404, "Not found")
+        .addResponse("http://example.com/c", 500, "Server error")
+        .addResource("http://example.com/d", "ddd")
+        .toWarc();
+
+    List<ImportStatus> result = importBoth(warc, true, "4..");
+    assertEquals(ImportStatus.StatusEnum.OK, result.get(0).getStatus());
+    assertEquals(ImportStatus.StatusEnum.EXCLUDED, result.get(1).getStatus());
+    assertEquals(ImportStatus.StatusEnum.OK, result.get(2).getStatus());
+    assertEquals(ImportStatus.StatusEnum.OK, result.get(3).getStatus());
+
+    assertNull(pipelineRepo.getArtifact(NS, AUID, "http://example.com/b"));
+    assertSameArtifact("http://example.com/c");
+  }
+
+  @Test
+  public void testWorkerFailure() throws Exception {
+    WarcTestUtil warc = new WarcTestUtil()
+        .addResponse("http://example.com/a", "aaa");
+
+    // Malformed HTTP response headers: one the workers cannot parse, and one
+    // that does not end
+    warc.addRecord("response", "http://example.com/b",
+        "application/http;msgtype=response",
+        "HTTP/1.1 200 OK\r\nNo colon\r\n\r\nbbb");
+    warc.addRecord("response", "http://example.com/c",
+        "application/http;msgtype=response",
+        "HTTP/1.1 200 OK\r\nContent-Type: text/plain\r\n");
+    warc.addResponse("http://example.com/d", largeContent());
+
+    List<ImportStatus> result =
+        importWithPipeline(new ByteArrayInputStream(warc.toWarc()), true, null);
+
+    assertEquals(4, result.size());
+    assertEquals(ImportStatus.StatusEnum.OK, result.get(0).getStatus());
+    assertEquals(ImportStatus.StatusEnum.ERROR, result.get(1).getStatus());
+    assertNotNull(result.get(1).getStatusMessage());
+    assertEquals(ImportStatus.StatusEnum.ERROR, result.get(2).getStatus());
+    assertEquals(ImportStatus.StatusEnum.OK, result.get(3).getStatus());
+
+    assertNull(pipelineRepo.getArtifact(NS, AUID, "http://example.com/b"));
+    assertNull(pipelineRepo.getArtifact(NS, AUID, "http://example.com/c"));
+    assertNotNull(pipelineRepo.getArtifact(NS, AUID, "http://example.com/d"));
+  }
+
+  @Test(timeout = 30000)
+  public void testReaderFailure() throws Exception {
+    byte[] first = new WarcTestUtil()
+        .addResponse("http://example.com/a", "aaa")
+        .toWarc();
+
+    // The archive fails after its first record with an Error, which must
+    // not leave the writer waiting for a reader that has gone
+    InputStream warc = new SequenceInputStream(new ByteArrayInputStream(first),
+        new InputStream() {
+          @Override
+          public int read() {
+            throw new OutOfMemoryError("Test failure");
+          }
+        });
+
+    List<ImportStatus> result = new ArrayList<>();
+
+    try {
+      new WarcImportPipeline(pipelineRepo, workers, 4, MEM_BUFFER_SIZE, Collections.emptyList(),
+          null)
+          .importArchive(NS, AUID, warc, true, null, result::add);
+      fail("Expected the import to fail");
+    } catch (IOException e) {
+      assertTrue(e.getCause() instanceof OutOfMemoryError);
+    }
+
+    // Records read before the failure are imported
+    for (ImportStatus status : result) {
+      assertEquals(ImportStatus.StatusEnum.OK, status.getStatus());
+    }
+  }
+
+  private ImportCheckpoint openCheckpoint(File dir, byte[] warc) throws IOException {
+    return new ImportCheckpoint(dir, NS, AUID, warc.length, new ByteArrayInputStream(warc),
+        1000, Long.MAX_VALUE);
+  }
+
+  private List<ImportStatus> importWithCheckpoint(byte[] warc, ImportCheckpoint checkpoint,
+                                                  ArchivesApiServiceImpl.ImportStatusConsumer consumer)
+      throws IOException {
+    List<ImportStatus> result = new ArrayList<>();
+
+    new WarcImportPipeline(pipelineRepo, workers, 4, MEM_BUFFER_SIZE, Collections.emptyList(),
+        null)
+        .importArchive(NS, AUID, new ByteArrayInputStream(warc), true, null, checkpoint,
+            status -> {
+              result.add(status);
+              consumer.accept(status);
+            });
+
+    return result;
+  }
+
+  @Test
+  public void testResume() throws Exception {
+    byte[] warc = new WarcTestUtil()
+        .addResponse("http://example.com/a", "aaa")
+        .addResponse("http://example.com/b", largeContent())
+        .addResponse("http://example.com/c", "ccc")
+        .addResponse("http://example.com/d", "ddd")
+        .toWarc();
+
+    File dir = getTempDir();
+
+    // Interrupted after the second record: the checkpoint is saved though
+    // its interval has not elapsed
+    try (ImportCheckpoint checkpoint = openCheckpoint(dir, warc)) {
+      importWithCheckpoint(warc, checkpoint, status -> {
+        if (WarcTestUtil.warcId(1).equals(status.getWarcId())) {
+          throw new IOException("Test interruption");
+        }
+      });
+      fail("Expected the import to be interrupted");
+    } catch (IOException e) {
+      assertEquals("Test interruption", e.getMessage());
+    }
+
+    assertNotNull(pipelineRepo.getArtifact(NS, AUID, "http://example.com/b"));
+    assertNull(pipelineRepo.getArtifact(NS, AUID, "http://example.com/c"));
+
+    // Resumed after the last record imported
+    try (ImportCheckpoint checkpoint = openCheckpoint(dir, warc)) {
+      assertTrue(checkpoint.isResumable());
+      assertEquals(WarcTestUtil.warcId(1), checkpoint.getWarcId());
+
+      List<ImportStatus> result = importWithCheckpoint(warc, checkpoint, status -> {});
+
+      assertEquals(2, result.size());
+      assertEquals(WarcTestUtil.warcId(2), result.get(0).getWarcId());
+      assertEquals(WarcTestUtil.warcId(3), result.get(1).getWarcId());
+      assertFalse(checkpoint.getFile().exists());
+    }
+
+    // No record was imported twice
+    for (String url : List.of("http://example.com/a", "http://example.com/b",
+        "http://example.com/c", "http://example.com/d")) {
+      assertEquals(1, (int) pipelineRepo.getArtifact(NS, AUID, url).getVersion());
+    }
+
+    // The next import starts from the beginning
+    try (ImportCheckpoint checkpoint = openCheckpoint(dir, warc)) {
+      assertFalse(checkpoint.isResumable());
+    }
+  }
+
+  @Test
+  public void testResumeMismatch() throws Exception {
+    byte[] warc = new WarcTestUtil()
+        .addResponse("http://example.com/a", "aaa")
+        .addResponse("http://example.com/b", "bbb")
+        .addResponse("http://example.com/c", "ccc")
+        .toWarc();
+
+    File dir = getTempDir();
+    long offset;
+
+    // Find the offset of the second record
+    try (ImportCheckpoint checkpoint = openCheckpoint(dir, warc)) {
+      try {
+        importWithCheckpoint(warc, checkpoint, status -> {
+          if (WarcTestUtil.warcId(1).equals(status.getWarcId())) {
+            throw new IOException("Test interruption");
+          }
+        });
+        fail("Expected the import to be interrupted");
+      } catch (IOException e) {
+        assertEquals("Test interruption", e.getMessage());
+      }
+
+      offset = checkpoint.getOffset();
+      assertTrue(offset > 0);
+
+      // A checkpoint whose record is not the one at its offset
+      checkpoint.update(offset, "<urn:uuid:not-in-archive>");
+      checkpoint.save();
+    }
+
+    try (ImportCheckpoint checkpoint = openCheckpoint(dir, warc)) {
+      assertTrue(checkpoint.isResumable());
+
+      List<ImportStatus> result = new ArrayList<>();
+
+      try {
+        importWithCheckpoint(warc, checkpoint, result::add);
+        fail("Expected a checkpoint mismatch");
+      } catch (ImportCheckpoint.MismatchException e) {
+        // Expected
+      }
+
+      assertEmpty(result);
+      assertNull(pipelineRepo.getArtifact(NS, AUID, "http://example.com/c"));
+    }
+
+    // The mismatched checkpoint is discarded, and the next import starts
+    // from the beginning
+    try (ImportCheckpoint checkpoint = openCheckpoint(dir, warc)) {
+      assertFalse(checkpoint.isResumable());
+    }
+  }
+}
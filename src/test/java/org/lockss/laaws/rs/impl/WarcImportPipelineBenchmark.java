@@ -0,0 +1,142 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.impl;
+
+import org.lockss.rs.VolatileLockssRepository;
+import org.lockss.util.rest.repo.LockssRepository;
+import org.lockss.util.rest.repo.model.ImportStatus;
+import org.lockss.util.rest.repo.util.ImportStatusIterable;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the import of a WARC archive: {@link WarcImportPipeline},
+ * against the sequential import of {@link LockssRepository#addArtifacts}, into
+ * a {@link VolatileLockssRepository}.
+ * <p>
+ * Run from the project directory after {@code mvn test-compile} with:
+ * <pre>
+ * mvn dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *   org.openjdk.jmh.Main WarcImportPipelineBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WarcImportPipelineBenchmark {
+  private static final String NS = "ns";
+  private static final String AUID = "auid";
+
+  // Number of records in the archive
+  private static final int RECORDS = 200;
+
+  /** Length of the payload of each record */
+  @Param({"4096", "262144"})
+  public int payloadLength;
+
+  /** Number of workers of the pipeline */
+  @Param({"1", "4"})
+  public int workerCount;
+
+  private byte[] warc;
+  private ExecutorService workers;
+  private LockssRepository repo;
+
+  @Setup(Level.Trial)
+  public void setUpArchive() throws IOException {
+    Random random = new Random(1);
+    WarcTestUtil util = new WarcTestUtil();
+    char[] content = new char[payloadLength];
+
+    for (int i = 0; i < RECORDS; i++) {
+      for (int j = 0; j < content.length; j++) {
+        content[j] = (char) ('a' + random.nextInt(26));
+      }
+
+      util.addResponse("http://example.com/" + i, new String(content));
+    }
+
+    warc = util.toWarc();
+    workers = Executors.newFixedThreadPool(workerCount);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDownArchive() {
+    workers.shutdownNow();
+  }
+
+  // Each import is into an empty repository, so that versions and lookups
+  // do not depend on the previous invocations
+  @Setup(Level.Invocation)
+  public void setUpRepository() throws IOException {
+    repo = new VolatileLockssRepository();
+    repo.initRepository();
+  }
+
+  @Benchmark
+  public int pipeline() throws IOException {
+    int[] count = {0};
+
+    new WarcImportPipeline(repo, workers, 2 * workerCount, 1024 * 1024,
+        Collections.emptyList(), null)
+        .importArchive(NS, AUID, new ByteArrayInputStream(warc), true, null,
+            status -> count[0]++);
+
+    return count[0];
+  }
+
+  @Benchmark
+  public int repository() throws IOException {
+    int count = 0;
+
+    try (ImportStatusIterable result = repo.addArtifacts(NS, AUID,
+        new ByteArrayInputStream(warc), LockssRepository.ArchiveType.WARC, true, null)) {
+      for (ImportStatus status : result) {
+        count++;
+      }
+    }
+
+    return count;
+  }
+}
@@ -0,0 +1,135 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.impl;
+
+import org.archive.format.warc.WARCConstants;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Builds small WARC archives for the archive import tests.
+ */
+class WarcTestUtil {
+  private final ByteArrayOutputStream warc = new ByteArrayOutputStream();
+  private final ByteArrayOutputStream warcGz = new ByteArrayOutputStream();
+  private int records = 0;
+
+  /**
+   * Appends a {@code response} record with a 200 HTTP response.
+   */
+  WarcTestUtil addResponse(String url, String content) throws IOException {
+    return addResponse(url, 200, content);
+  }
+
+  /**
+   * Appends a {@code response} record.
+   */
+  WarcTestUtil addResponse(String url, int httpStatus, String content) throws IOException {
+    byte[] payload = content.getBytes(StandardCharsets.UTF_8);
+    String block = "HTTP/1.1 " + httpStatus + " Status" + WARCConstants.CRLF +
+        "Content-Type: text/plain" + WARCConstants.CRLF +
+        "Content-Length: " + payload.length + WARCConstants.CRLF +
+        WARCConstants.CRLF + content;
+
+    return addRecord("response", url, "application/http;msgtype=response", block);
+  }
+
+  /**
+   * Appends a {@code resource} record.
+   */
+  WarcTestUtil addResource(String url, String content) throws IOException {
+    return addRecord("resource", url, "text/plain", content);
+  }
+
+  /**
+   * Appends a {@code metadata} record, which is not imported.
+   */
+  WarcTestUtil addMetadata(String url, String content) throws IOException {
+    return addRecord("metadata", url, "text/plain", content);
+  }
+
+  /**
+   * Returns the WARC-Record-ID of the {@code n}th record appended.
+   */
+  static String warcId(int n) {
+    return String.format("<urn:uuid:00000000-0000-0000-0000-%012d>", n);
+  }
+
+  /**
+   * Returns the uncompressed archive.
+   */
+  byte[] toWarc() {
+    return warc.toByteArray();
+  }
+
+  /**
+   * Returns the archive compressed with one gzip member per record.
+   */
+  byte[] toWarcGz() {
+    return warcGz.toByteArray();
+  }
+
+  /**
+   * Appends a record with an arbitrary block.
+   */
+  WarcTestUtil addRecord(String type, String url, String contentType, String block)
+      throws IOException {
+    byte[] blockBytes = block.getBytes(StandardCharsets.UTF_8);
+
+    String header = "WARC/1.0" + WARCConstants.CRLF +
+        "WARC-Type: " + type + WARCConstants.CRLF +
+        "WARC-Record-ID: " + warcId(records++) + WARCConstants.CRLF +
+        "WARC-Target-URI: " + url + WARCConstants.CRLF +
+        "WARC-Date: 2020-01-01T00:00:00Z" + WARCConstants.CRLF +
+        "Content-Type: " + contentType + WARCConstants.CRLF +
+        "Content-Length: " + blockBytes.length + WARCConstants.CRLF +
+        WARCConstants.CRLF;
+
+    ByteArrayOutputStream record = new ByteArrayOutputStream();
+    record.write(header.getBytes(StandardCharsets.UTF_8));
+    record.write(blockBytes);
+    record.write((WARCConstants.CRLF + WARCConstants.CRLF).getBytes(StandardCharsets.UTF_8));
+
+    record.writeTo(warc);
+
+    try (OutputStream gz = new GZIPOutputStream(warcGz)) {
+      record.writeTo(gz);
+    }
+
+    return this;
+  }
+}
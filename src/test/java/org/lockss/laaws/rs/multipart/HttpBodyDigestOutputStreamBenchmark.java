@@ -0,0 +1,144 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.multipart;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the search for the end of the HTTP response header in
+ * {@link HttpBodyDigestOutputStream}: the word-at-a-time scanner, against the
+ * byte-at-a-time state machine it replaced.
+ * <p>
+ * Run from the project directory after {@code mvn test-compile} with:
+ * <pre>
+ * mvn dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *   org.openjdk.jmh.Main HttpBodyDigestOutputStreamBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HttpBodyDigestOutputStreamBenchmark {
+
+  /** Approximate size in bytes of the header */
+  @Param({"256", "1024", "4096", "16384"})
+  public int headerSize;
+
+  // Header followed by the start of a body, as written by a single write()
+  private byte[] buffer;
+
+  @Setup
+  public void setUp() {
+    StringBuilder sb = new StringBuilder("HTTP/1.1 200 OK\r\n");
+
+    for (int i = 0; sb.length() < headerSize; i++) {
+      // Header lines of typical lengths
+      sb.append("X-Header-").append(i).append(": ")
+          .append("value-".repeat(1 + i % 8)).append("\r\n");
+    }
+
+    sb.append("\r\n");
+    sb.append("x".repeat(4096));
+
+    buffer = sb.toString().getBytes(StandardCharsets.US_ASCII);
+  }
+
+  @Benchmark
+  public int wordAtATime() {
+    return new HttpBodyDigestOutputStream(null).scanForHeaderEnd(buffer, 0, buffer.length);
+  }
+
+  @Benchmark
+  public int byteAtATime() {
+    return new ByteAtATimeScanner().scanForHeaderEnd(buffer, 0, buffer.length);
+  }
+
+  /**
+   * The previous scanner: the state machine advanced on every byte.
+   */
+  static class ByteAtATimeScanner {
+    private int currentState;
+
+    private boolean advanceState(int b) {
+      switch (currentState) {
+        case 0:
+          if (b == '\r')
+            currentState = 1;
+          break;
+
+        case 1:
+          if (b == '\n') {
+            currentState = 2;
+          } else {
+            currentState = 0;
+          }
+          break;
+
+        case 2:
+          if (b == '\r') {
+            currentState = 3;
+          } else {
+            currentState = 0;
+          }
+          break;
+
+        case 3:
+          if (b == '\n') {
+            return true;
+          } else {
+            currentState = 0;
+          }
+          break;
+      }
+
+      return false;
+    }
+
+    int scanForHeaderEnd(byte[] b, int off, int len) {
+      for (int i = off; i < off + len; i++) {
+        if (advanceState(b[i])) {
+          return i;
+        }
+      }
+
+      return -1;
+    }
+  }
+}
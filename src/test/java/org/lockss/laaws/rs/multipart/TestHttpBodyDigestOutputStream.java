@@ -0,0 +1,218 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.multipart;
+
+import org.apache.commons.codec.binary.Hex;
+import org.junit.jupiter.api.Test;
+import org.lockss.util.test.LockssTestCase5;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests for {@link HttpBodyDigestOutputStream}.
+ */
+public class TestHttpBodyDigestOutputStream extends LockssTestCase5 {
+
+  private static final String HEADER =
+      "HTTP/1.1 200 OK\r\n" +
+      "Content-Type: text/plain\r\n" +
+      "Content-Length: 38\r\n" +
+      "\r\n";
+
+  private static final String BODY = "Body with\r\nCRLFs\r\n\r\nand a blank line";
+
+  @Test
+  public void testIndexOfCr() {
+    Random random = new Random(1);
+    byte[] b = new byte[100];
+
+    for (int trial = 0; trial < 100; trial++) {
+      // Sparse CRs, and every tenth array without any
+      for (int i = 0; i < b.length; i++) {
+        b[i] = (trial % 10 != 0 && random.nextInt(20) == 0) ?
+            (byte) '\r' : (byte) ('a' + random.nextInt(26));
+      }
+
+      for (int from = 0; from < b.length; from++) {
+        for (int end = from; end <= b.length; end += 7) {
+          assertEquals(naiveIndexOfCr(b, from, end),
+              HttpBodyDigestOutputStream.indexOfCr(b, from, end),
+              "from: " + from + ", end: " + end);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testWholeWrite() throws Exception {
+    assertDigestsBody(HEADER, BODY, Integer.MAX_VALUE);
+  }
+
+  @Test
+  public void testSingleByteWrites() throws Exception {
+    assertDigestsBody(HEADER, BODY, 1);
+  }
+
+  @Test
+  public void testSplitWrites() throws Exception {
+    // Exercises the header end falling across every write boundary
+    for (int split = 1; split < HEADER.length() + BODY.length(); split++) {
+      assertDigestsBody(HEADER, BODY, split);
+    }
+  }
+
+  @Test
+  public void testOverlappingCrs() throws Exception {
+    assertDigestsBody("HTTP/1.1 200 OK\r\r\n\r\n", BODY, Integer.MAX_VALUE);
+    assertDigestsBody("HTTP/1.1 200 OK\r\nA: b\r\n\r\r\n\r\n", BODY, Integer.MAX_VALUE);
+
+    for (int split = 1; split < 24; split++) {
+      assertDigestsBody("HTTP/1.1 200 OK\r\nA: b\r\n\r\r\n\r\n", BODY, split);
+    }
+  }
+
+  @Test
+  public void testEmptyBody() throws Exception {
+    assertDigestsBody(HEADER, "", Integer.MAX_VALUE);
+  }
+
+  @Test
+  public void testNoHeaderEnd() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    try (HttpBodyDigestOutputStream hbdos = new HttpBodyDigestOutputStream(out)) {
+      hbdos.write("HTTP/1.1 200 OK\r\nA: b\r\n\r".getBytes(StandardCharsets.US_ASCII));
+      assertNull(hbdos.getDigest());
+    }
+  }
+
+  @Test
+  public void testAdditionalDigests() throws Exception {
+    List<String> algs = List.of("MD5", "SHA-1");
+
+    // Small writes, which are accumulated and digested in parallel once they
+    // reach the threshold, and writes larger than the threshold
+    for (int chunkSize : new int[]{1, 1000, 8192,
+        4 * HttpBodyDigestOutputStream.PARALLEL_DIGEST_THRESHOLD}) {
+      byte[] body = new byte[3 * HttpBodyDigestOutputStream.PARALLEL_DIGEST_THRESHOLD + 17];
+      new Random(chunkSize).nextBytes(body);
+
+      ByteArrayOutputStream input = new ByteArrayOutputStream();
+      input.write(HEADER.getBytes(StandardCharsets.US_ASCII));
+      input.write(body);
+      byte[] in = input.toByteArray();
+
+      HttpBodyDigestOutputStream hbdos =
+          new HttpBodyDigestOutputStream(new ByteArrayOutputStream(), algs);
+
+      for (int off = 0; off < in.length; off += chunkSize) {
+        hbdos.write(in, off, Math.min(chunkSize, in.length - off));
+      }
+
+      hbdos.close();
+
+      List<MessageDigest> digests = hbdos.getAdditionalDigests();
+      assertEquals(algs.size(), digests.size());
+
+      StringBuilder expected = new StringBuilder();
+
+      for (String alg : algs) {
+        if (expected.length() > 0) {
+          expected.append(",");
+        }
+        expected.append(alg).append(":")
+            .append(Hex.encodeHex(MessageDigest.getInstance(alg).digest(body)));
+      }
+
+      assertEquals(expected.toString(), HttpBodyDigestOutputStream.formatDigests(digests));
+    }
+  }
+
+  @Test
+  public void testNoAdditionalDigests() throws Exception {
+    HttpBodyDigestOutputStream hbdos = new HttpBodyDigestOutputStream(new ByteArrayOutputStream());
+    hbdos.write((HEADER + BODY).getBytes(StandardCharsets.US_ASCII));
+
+    assertTrue(hbdos.getAdditionalDigests().isEmpty());
+    assertNull(HttpBodyDigestOutputStream.formatDigests(hbdos.getAdditionalDigests()));
+  }
+
+  /**
+   * Writes a header and body in chunks of the given size, and asserts that
+   * all bytes are passed through and that only the body is digested.
+   */
+  private void assertDigestsBody(String header, String body, int chunkSize)
+      throws Exception {
+    byte[] input = (header + body).getBytes(StandardCharsets.US_ASCII);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    HttpBodyDigestOutputStream hbdos = new HttpBodyDigestOutputStream(out);
+
+    for (int off = 0; off < input.length; off += chunkSize) {
+      int len = Math.min(chunkSize, input.length - off);
+
+      if (len == 1) {
+        hbdos.write(input[off]);
+      } else {
+        hbdos.write(input, off, len);
+      }
+    }
+
+    hbdos.close();
+
+    MessageDigest expected =
+        MessageDigest.getInstance(HttpBodyDigestOutputStream.DEFAULT_DIGEST_ALGORITHM);
+
+    assertArrayEquals(input, out.toByteArray());
+    assertNotNull(hbdos.getDigest(), "chunkSize: " + chunkSize);
+    assertTrue(Arrays.equals(
+            expected.digest(body.getBytes(StandardCharsets.US_ASCII)),
+            hbdos.getDigest().digest()),
+        "chunkSize: " + chunkSize);
+  }
+
+  private static int naiveIndexOfCr(byte[] b, int from, int end) {
+    for (int i = from; i < end; i++) {
+      if (b[i] == '\r') {
+        return i;
+      }
+    }
+
+    return end;
+  }
+}
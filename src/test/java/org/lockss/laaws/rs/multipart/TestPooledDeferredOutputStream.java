@@ -0,0 +1,173 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.multipart;
+
+import org.junit.jupiter.api.Test;
+import org.lockss.util.test.LockssTestCase5;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Tests for {@link PooledDeferredOutputStream} and {@link DirectBufferPool}.
+ */
+public class TestPooledDeferredOutputStream extends LockssTestCase5 {
+
+  private static byte[] bytes(int len) {
+    byte[] b = new byte[len];
+    for (int i = 0; i < len; i++) {
+      b[i] = (byte) i;
+    }
+    return b;
+  }
+
+  @Test
+  public void testInMemory() throws Exception {
+    DirectBufferPool pool = new DirectBufferPool(16, 64);
+    File spill = new File(getTempDir(), "spill");
+    PooledDeferredOutputStream out =
+        new PooledDeferredOutputStream(pool, 100, () -> spill);
+
+    out.write(bytes(40));
+    out.write(40);
+    out.close();
+
+    assertTrue(out.isInMemory());
+    assertNull(out.getFile());
+    assertEquals(41, out.getByteCount());
+    assertArrayEquals(bytes(41), out.toByteArray());
+    assertFalse(spill.exists());
+    assertEquals(1, pool.getInMemoryParts());
+    assertEquals(48, pool.getAllocatedBytes());
+
+    InputStream in = out.getInputStream();
+    out.release();
+    assertEquals(3, pool.getFreeBuffers());
+    assertThrows(IOException.class, () -> in.read());
+
+    // Released buffers are reused
+    PooledDeferredOutputStream out2 =
+        new PooledDeferredOutputStream(pool, 100, () -> spill);
+    out2.write(bytes(10));
+    out2.close();
+    assertEquals(1, pool.getHits());
+    assertEquals(48, pool.getAllocatedBytes());
+  }
+
+  @Test
+  public void testSizeClasses() throws Exception {
+    DirectBufferPool pool = new DirectBufferPool(16, 64, 1000);
+    assertEquals(16, pool.getMinBufferSize());
+    assertEquals(64, pool.getBufferSize());
+    File spill = new File(getTempDir(), "spill");
+
+    // A small part takes only a small buffer
+    PooledDeferredOutputStream small =
+        new PooledDeferredOutputStream(pool, 1000, () -> spill);
+    small.write(bytes(10));
+    small.close();
+    assertArrayEquals(bytes(10), small.toByteArray());
+    assertEquals(16, pool.getAllocatedBytes());
+
+    // Larger parts take buffers doubling in size, up to the largest size
+    PooledDeferredOutputStream large =
+        new PooledDeferredOutputStream(pool, 1000, () -> spill);
+    large.write(bytes(200));
+    large.close();
+    assertTrue(large.isInMemory());
+    assertArrayEquals(bytes(200), large.toByteArray());
+    assertEquals(16 + (16 + 32 + 64 + 64 + 64), pool.getAllocatedBytes());
+
+    small.release();
+    large.release();
+    assertEquals(6, pool.getFreeBuffers());
+
+    // Released buffers are reused by size class
+    PooledDeferredOutputStream again =
+        new PooledDeferredOutputStream(pool, 1000, () -> spill);
+    again.write(bytes(40));
+    again.close();
+    assertArrayEquals(bytes(40), again.toByteArray());
+    assertEquals(2, pool.getHits());
+    assertEquals(4, pool.getFreeBuffers());
+    assertEquals(256, pool.getAllocatedBytes());
+    again.release();
+  }
+
+  @Test
+  public void testInvalidSizes() {
+    assertThrows(IllegalArgumentException.class, () -> new DirectBufferPool(0, 64, 1000));
+    assertThrows(IllegalArgumentException.class, () -> new DirectBufferPool(128, 64, 1000));
+  }
+
+  @Test
+  public void testThresholdSpill() throws Exception {
+    DirectBufferPool pool = new DirectBufferPool(16, 1024);
+    File spill = new File(getTempDir(), "spill");
+    PooledDeferredOutputStream out =
+        new PooledDeferredOutputStream(pool, 32, () -> spill);
+
+    out.write(bytes(20));
+    out.write(bytes(100), 20, 80);
+    out.close();
+
+    assertFalse(out.isInMemory());
+    assertEquals(spill, out.getFile());
+    assertEquals(100, out.getByteCount());
+    assertArrayEquals(bytes(100), out.toByteArray());
+    assertEquals(1, pool.getThresholdSpills());
+    assertEquals(2, pool.getFreeBuffers());
+
+    out.release();
+    assertFalse(spill.exists());
+  }
+
+  @Test
+  public void testExhaustedSpill() throws Exception {
+    DirectBufferPool pool = new DirectBufferPool(16, 32);
+    File spill = new File(getTempDir(), "spill");
+    PooledDeferredOutputStream out =
+        new PooledDeferredOutputStream(pool, 100, () -> spill);
+
+    out.write(bytes(50));
+    out.close();
+
+    assertFalse(out.isInMemory());
+    assertArrayEquals(bytes(50), out.toByteArray());
+    assertEquals(1, pool.getExhausted());
+    assertEquals(1, pool.getExhaustedSpills());
+    assertEquals(0, pool.getInMemoryParts());
+    out.release();
+  }
+}
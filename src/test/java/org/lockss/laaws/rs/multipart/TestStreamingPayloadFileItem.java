@@ -0,0 +1,165 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.multipart;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.IOUtils;
+import org.apache.tomcat.util.http.fileupload.FileItemIterator;
+import org.apache.tomcat.util.http.fileupload.FileItemStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lockss.laaws.rs.multipart.StreamingPayloadFileItem.PayloadVerificationException;
+import org.lockss.util.test.LockssTestCase5;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link StreamingPayloadFileItem}.
+ */
+public class TestStreamingPayloadFileItem extends LockssTestCase5 {
+  private static final byte[] PAYLOAD =
+      "streamed payload content".getBytes(StandardCharsets.US_ASCII);
+
+  private FileItemIterator iterator;
+
+  @BeforeEach
+  public void setUpIterator() throws Exception {
+    iterator = mock(FileItemIterator.class);
+    when(iterator.hasNext()).thenReturn(false);
+  }
+
+  private StreamingPayloadFileItem makeItem(byte[] content) {
+    return new StreamingPayloadFileItem("payload", "text/plain", "payload",
+        new ByteArrayInputStream(content), iterator);
+  }
+
+  private static String digestOf(byte[] content) throws Exception {
+    MessageDigest md =
+        MessageDigest.getInstance(HttpBodyDigestOutputStream.DEFAULT_DIGEST_ALGORITHM);
+    return md.getAlgorithm() + ":" + new String(Hex.encodeHex(md.digest(content)));
+  }
+
+  @Test
+  public void testStreamVerified() throws Exception {
+    StreamingPayloadFileItem item = makeItem(PAYLOAD);
+    item.setExpectedContent(PAYLOAD.length, digestOf(PAYLOAD));
+
+    try (InputStream in = item.getInputStream()) {
+      assertArrayEquals(PAYLOAD, IOUtils.toByteArray(in));
+    }
+
+    assertEquals(PAYLOAD.length, item.getSize());
+
+    // The content can only be streamed once
+    assertThrows(java.io.IOException.class, () -> item.getInputStream());
+  }
+
+  @Test
+  public void testLengthMismatch() throws Exception {
+    StreamingPayloadFileItem item = makeItem(PAYLOAD);
+    item.setExpectedContent(PAYLOAD.length + 1, digestOf(PAYLOAD));
+
+    assertThrows(PayloadVerificationException.class,
+        () -> IOUtils.toByteArray(item.getInputStream()));
+
+    StreamingPayloadFileItem longer = makeItem(PAYLOAD);
+    longer.setExpectedContent(PAYLOAD.length - 1, null);
+
+    assertThrows(PayloadVerificationException.class,
+        () -> IOUtils.toByteArray(longer.getInputStream()));
+  }
+
+  @Test
+  public void testDigestMismatch() throws Exception {
+    StreamingPayloadFileItem item = makeItem(PAYLOAD);
+    item.setExpectedContent(PAYLOAD.length, digestOf("other".getBytes()));
+
+    assertThrows(PayloadVerificationException.class,
+        () -> IOUtils.toByteArray(item.getInputStream()));
+  }
+
+  @Test
+  public void testUnexpectedPart() throws Exception {
+    FileItemStream next = mock(FileItemStream.class);
+    when(next.getFieldName()).thenReturn("extra");
+    when(iterator.hasNext()).thenReturn(true);
+    when(iterator.next()).thenReturn(next);
+
+    StreamingPayloadFileItem item = makeItem(PAYLOAD);
+
+    PayloadVerificationException e = assertThrows(PayloadVerificationException.class,
+        () -> IOUtils.toByteArray(item.getInputStream()));
+    assertTrue(e.getMessage().contains("extra"));
+  }
+
+  @Test
+  public void testGetDrains() throws Exception {
+    StreamingPayloadFileItem item = makeItem(PAYLOAD);
+
+    assertArrayEquals(PAYLOAD, item.get());
+    assertArrayEquals(PAYLOAD, item.get());
+    assertArrayEquals(PAYLOAD, IOUtils.toByteArray(item.getInputStream()));
+    assertEquals(PAYLOAD.length, item.getSize());
+
+    // Expected content supplied after draining is checked at once
+    item.setExpectedContent(PAYLOAD.length, digestOf(PAYLOAD));
+
+    StreamingPayloadFileItem mismatched = makeItem(PAYLOAD);
+    mismatched.get();
+    assertThrows(PayloadVerificationException.class,
+        () -> mismatched.setExpectedContent(PAYLOAD.length, digestOf("other".getBytes())));
+  }
+
+  @Test
+  public void testGetVerifies() throws Exception {
+    StreamingPayloadFileItem item = makeItem(PAYLOAD);
+    item.setExpectedContent(PAYLOAD.length + 1, null);
+
+    UncheckedIOException e = assertThrows(UncheckedIOException.class, () -> item.get());
+    assertTrue(e.getCause() instanceof PayloadVerificationException);
+  }
+
+  @Test
+  public void testOutputStreamDiscards() throws Exception {
+    StreamingPayloadFileItem item = makeItem(PAYLOAD);
+    item.getOutputStream().write(new byte[10]);
+    assertArrayEquals(PAYLOAD, IOUtils.toByteArray(item.getInputStream()));
+  }
+}
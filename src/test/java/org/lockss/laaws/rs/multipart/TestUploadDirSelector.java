@@ -0,0 +1,107 @@
+/*
+
+Copyright (c) 2000-2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.laaws.rs.multipart;
+
+import org.junit.jupiter.api.Test;
+import org.lockss.util.test.LockssTestCase5;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Tests for {@link UploadDirSelector}.
+ */
+public class TestUploadDirSelector extends LockssTestCase5 {
+
+  @Test
+  public void testNoDirs() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new UploadDirSelector(List.of()));
+  }
+
+  @Test
+  public void testSpreadsInFlightUploads() throws Exception {
+    // Two directories on the same volume, so with the same usable space
+    File dir1 = new File(getTempDir(), "dir1");
+    File dir2 = new File(getTempDir(), "dir2");
+    assertTrue(dir1.mkdirs());
+    assertTrue(dir2.mkdirs());
+
+    UploadDirSelector selector = new UploadDirSelector(List.of(dir1, dir2));
+    assertEquals(List.of(dir1, dir2), selector.getDirs());
+
+    UploadDirSelector.UploadDir first = selector.choose(0);
+    UploadDirSelector.UploadDir second = selector.choose(0);
+
+    assertNotEquals(first.getDir(), second.getDir());
+    assertEquals(1, first.getInFlight());
+    assertEquals(1, second.getInFlight());
+
+    // The directory with no upload in flight is chosen next
+    selector.release(first, 0, 1234);
+    assertEquals(0, first.getInFlight());
+    assertEquals(1234, first.getTotalBytes());
+
+    UploadDirSelector.UploadDir third = selector.choose(0);
+    assertEquals(first.getDir(), third.getDir());
+    assertEquals(1, third.getInFlight());
+  }
+
+  @Test
+  public void testReservesExpectedBytes() throws Exception {
+    File dir1 = new File(getTempDir(), "dir1");
+    File dir2 = new File(getTempDir(), "dir2");
+    assertTrue(dir1.mkdirs());
+    assertTrue(dir2.mkdirs());
+
+    UploadDirSelector selector = new UploadDirSelector(List.of(dir1, dir2));
+    long usable = dir1.getUsableSpace();
+
+    // An upload expected to take up most of the space of its directory
+    UploadDirSelector.UploadDir big = selector.choose(usable - 1000);
+    assertEquals(usable - 1000, big.getReservedBytes());
+
+    // Two more uploads in flight to the other directory still leave it with
+    // more available space per upload
+    UploadDirSelector.UploadDir other1 = selector.choose(0);
+    UploadDirSelector.UploadDir other2 = selector.choose(0);
+    assertNotEquals(big.getDir(), other1.getDir());
+    assertEquals(other1.getDir(), other2.getDir());
+    assertEquals(2, other1.getInFlight());
+
+    // Released uploads no longer reserve space
+    selector.release(big, usable - 1000, 10);
+    assertEquals(0, big.getReservedBytes());
+    assertEquals(big.getDir(), selector.choose(0).getDir());
+  }
+}